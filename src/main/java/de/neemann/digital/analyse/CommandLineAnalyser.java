@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse;
+
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.analyse.format.TruthTableCSVWriter;
+import de.neemann.digital.analyse.format.TruthTableFormatterTestCase;
+import de.neemann.digital.core.BacktrackException;
+import de.neemann.digital.core.Model;
+import de.neemann.digital.core.NodeException;
+import de.neemann.digital.draw.elements.Circuit;
+import de.neemann.digital.draw.elements.PinException;
+import de.neemann.digital.draw.library.ElementLibrary;
+import de.neemann.digital.draw.library.ElementNotFoundException;
+import de.neemann.digital.draw.model.ModelCreator;
+import de.neemann.digital.draw.shapes.ShapeFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Analyses a circuit from the command line.
+ * The truth table is not kept in memory but streamed to the output, so circuits with
+ * many inputs can be analysed. The progress is written to the progress stream, and the
+ * analysis is canceled if the analysing thread is interrupted.
+ */
+public class CommandLineAnalyser {
+
+    /**
+     * The output formats
+     */
+    public enum Format {
+        /**
+         * comma separated values
+         */
+        CSV,
+        /**
+         * a test case
+         */
+        TEST,
+        /**
+         * the SHA-256 signatures of the outputs
+         */
+        SIGNATURE
+    }
+
+    private final Circuit circuit;
+    private final ElementLibrary library;
+    private Format format = Format.CSV;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private PrintStream progress = System.err;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param file the circuit to analyse
+     * @throws IOException IOException
+     */
+    public CommandLineAnalyser(File file) throws IOException {
+        library = new ElementLibrary();
+        library.setRootFilePath(file.getAbsoluteFile().getParentFile());
+        circuit = Circuit.loadCircuit(file, new ShapeFactory(library));
+    }
+
+    /**
+     * Sets the output format
+     *
+     * @param format the format
+     * @return this for chained calls
+     */
+    public CommandLineAnalyser setFormat(Format format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads used to simulate the circuit
+     *
+     * @param threads the number of threads
+     * @return this for chained calls
+     */
+    public CommandLineAnalyser setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the stream the progress is written to
+     *
+     * @param progress the progress stream, null if no progress is to be written
+     * @return this for chained calls
+     */
+    public CommandLineAnalyser setProgress(PrintStream progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * Analyses the circuit and writes the result to the given writer.
+     * If the calling thread is interrupted, the analysis is canceled and an
+     * {@link InterruptedIOException} is thrown. The rows written so far are flushed.
+     *
+     * @param out the writer to write to
+     * @throws IOException              IOException
+     * @throws PinException             PinException
+     * @throws NodeException            NodeException
+     * @throws ElementNotFoundException ElementNotFoundException
+     * @throws AnalyseException         AnalyseException
+     * @throws BacktrackException       BacktrackException
+     */
+    public void analyse(Writer out) throws IOException, PinException, NodeException, ElementNotFoundException, AnalyseException, BacktrackException {
+        Model model = createModel();
+        try {
+            model.checkForInvalidSignals();
+            ModelAnalyser ma = new ModelAnalyser(model)
+                    .setModelFactory(this::createModel)
+                    .setThreads(threads);
+
+            TruthTableSignature signature = null;
+            TruthTableConsumer consumer;
+            switch (format) {
+                case TEST:
+                    consumer = new TruthTableFormatterTestCase(ma.getModelAnalyzerInfo()).createConsumer(out);
+                    break;
+                case SIGNATURE:
+                    signature = new TruthTableSignature();
+                    consumer = signature;
+                    break;
+                default:
+                    consumer = new TruthTableCSVWriter(out);
+            }
+
+            try {
+                ma.analyse(new ProgressConsumer(consumer, progress));
+            } finally {
+                out.flush();
+            }
+
+            if (signature != null) {
+                for (int o = 0; o < signature.getOutputCount(); o++)
+                    out.write(signature.getOutputName(o) + ": " + signature.getSignature(o) + ", ones: " + signature.getOnes(o) + "\n");
+                out.write("table: " + signature.getSignature() + "\n");
+                out.flush();
+            }
+        } finally {
+            model.close();
+        }
+    }
+
+    private Model createModel() throws PinException, NodeException, ElementNotFoundException {
+        return new ModelCreator(circuit, new SubstituteLibrary(library)).createModel(false);
+    }
+
+    /**
+     * Passes the rows to the parent consumer, writes the progress and
+     * cancels the analysis if the thread is interrupted.
+     */
+    private static final class ProgressConsumer implements TruthTableConsumer {
+        private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+        private final TruthTableConsumer parent;
+        private final PrintStream progress;
+        private long rows;
+        private int lastPercent;
+        private long lastTime;
+
+        private ProgressConsumer(TruthTableConsumer parent, PrintStream progress) {
+            this.parent = parent;
+            this.progress = progress;
+        }
+
+        @Override
+        public void start(ArrayList<Variable> inputs, ArrayList<String> outputs) throws IOException {
+            rows = 1L << inputs.size();
+            lastPercent = -1;
+            parent.start(inputs, outputs);
+        }
+
+        @Override
+        public void addRows(long row, int count, long[] values) throws IOException {
+            if (Thread.currentThread().isInterrupted())
+                throw new InterruptedIOException("analysis canceled after " + row + " of " + rows + " rows");
+            parent.addRows(row, count, values);
+
+            if (progress != null) {
+                final int percent = (int) ((row + count) * 100.0 / rows);
+                final long time = System.currentTimeMillis();
+                if (percent != lastPercent || time - lastTime >= PROGRESS_INTERVAL_MILLIS) {
+                    lastPercent = percent;
+                    lastTime = time;
+                    progress.print("\ranalysed " + (row + count) + " of " + rows + " rows (" + percent + "%)");
+                    if (row + count == rows)
+                        progress.println();
+                    progress.flush();
+                }
+            }
+        }
+
+        @Override
+        public void finished() throws IOException {
+            parent.finished();
+        }
+    }
+
+    /**
+     * Analyses a circuit from the command line.
+     * The analysis is canceled by Ctrl-C or if the given timeout is exceeded.
+     *
+     * @param args the program arguments
+     * @throws Exception Exception
+     */
+    public static void main(String[] args) throws Exception {
+        ArrayList<File> files = new ArrayList<>();
+        Format format = Format.CSV;
+        int threads = Runtime.getRuntime().availableProcessors();
+        File outFile = null;
+        long timeout = 0;
+        boolean quiet = false;
+        int i = 0;
+        while (i < args.length) {
+            switch (args[i]) {
+                case "-format":
+                    format = Format.valueOf(getValue(args, ++i).toUpperCase());
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(getValue(args, ++i));
+                    break;
+                case "-o":
+                    outFile = new File(getValue(args, ++i));
+                    break;
+                case "-timeout":
+                    timeout = Long.parseLong(getValue(args, ++i));
+                    break;
+                case "-quiet":
+                    quiet = true;
+                    break;
+                default:
+                    files.add(new File(args[i]));
+            }
+            i++;
+        }
+        if (files.size() != 1) {
+            System.err.println("usage:\n");
+            System.err.println("java -cp Digital.jar " + CommandLineAnalyser.class.getName()
+                    + " [-format csv|test|signature] [-threads n] [-o output file] [-timeout seconds] [-quiet] [dig file to analyse]");
+            System.exit(1);
+        }
+
+        CommandLineAnalyser cla = new CommandLineAnalyser(files.get(0))
+                .setFormat(format)
+                .setThreads(threads)
+                .setProgress(quiet ? null : System.err);
+
+        final Thread main = Thread.currentThread();
+        final Canceler canceler = new Canceler(main);
+        Runtime.getRuntime().addShutdownHook(canceler);
+        Timer timer = null;
+        if (timeout > 0) {
+            timer = new Timer(true);
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    canceler.cancel();
+                }
+            }, timeout * 1000);
+        }
+
+        int exitCode = 0;
+        try (Writer out = outFile == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outFile), StandardCharsets.UTF_8))) {
+            cla.analyse(out);
+        } catch (InterruptedIOException | AnalyseException e) {
+            if (!canceler.isCanceled())
+                throw e;
+            System.err.println();
+            System.err.println("analysis canceled");
+            exitCode = 2;
+        } finally {
+            if (timer != null)
+                timer.cancel();
+            canceler.done();
+        }
+
+        if (!canceler.isShutdown())
+            System.exit(exitCode);
+    }
+
+    private static String getValue(String[] args, int i) throws IOException {
+        if (i >= args.length)
+            throw new IOException("missing value of option " + args[i - 1]);
+        return args[i];
+    }
+
+    /**
+     * Interrupts the analysing thread.
+     * Used as shutdown hook, so that Ctrl-C lets the analysis flush the rows written so far.
+     */
+    private static final class Canceler extends Thread {
+        private static final long SHUTDOWN_WAIT_MILLIS = 5000;
+        private final Thread main;
+        private volatile boolean canceled;
+        private volatile boolean shutdown;
+        private volatile boolean done;
+
+        private Canceler(Thread main) {
+            this.main = main;
+        }
+
+        private void cancel() {
+            canceled = true;
+            main.interrupt();
+        }
+
+        private void done() {
+            done = true;
+        }
+
+        private boolean isCanceled() {
+            return canceled;
+        }
+
+        private boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public void run() {
+            shutdown = true;
+            if (done)
+                return;
+            cancel();
+            try {
+                main.join(SHUTDOWN_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
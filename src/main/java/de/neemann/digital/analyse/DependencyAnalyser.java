@@ -5,12 +5,12 @@
  */
 package de.neemann.digital.analyse;
 
-import de.neemann.digital.core.*;
-import de.neemann.digital.core.Observer;
+import de.neemann.digital.core.BacktrackException;
+import de.neemann.digital.core.Signal;
 import de.neemann.digital.draw.elements.PinException;
-import de.neemann.digital.lang.Lang;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.BitSet;
 
 /**
  * Used to analyse on which inputs a given output depends on.
@@ -19,7 +19,8 @@ import java.util.*;
  */
 public class DependencyAnalyser {
 
-    private final HashMap<Signal, Set<ObservableValue>> dependencyMap;
+    private final DependencyGraph graph;
+    private final ArrayList<Signal> inputs;
 
     /**
      * Creates a new instance
@@ -29,12 +30,8 @@ public class DependencyAnalyser {
      * @throws PinException       PinException
      */
     public DependencyAnalyser(ModelAnalyser modelAnalyser) throws BacktrackException, PinException {
-        dependencyMap = new HashMap<>();
-        for (Signal s : modelAnalyser.getInputs()) {
-            Set<ObservableValue> effected = new HashSet<>();
-            backtracking(s.getValue(), effected);
-            dependencyMap.put(s, effected);
-        }
+        graph = modelAnalyser.getDependencyGraph();
+        inputs = modelAnalyser.getInputs();
     }
 
     /**
@@ -45,10 +42,9 @@ public class DependencyAnalyser {
      */
     public ArrayList<Signal> getInputs(Signal output) {
         ArrayList<Signal> list = new ArrayList<>();
-        for (Map.Entry<Signal, Set<ObservableValue>> e : dependencyMap.entrySet()) {
-            if (e.getValue().contains(output.getValue()))
-                list.add(e.getKey());
-        }
+        BitSet in = graph.getInputs(output.getValue());
+        for (int i = in.nextSetBit(0); i >= 0; i = in.nextSetBit(i + 1))
+            list.add(inputs.get(i));
         return list;
     }
 
@@ -61,25 +57,10 @@ public class DependencyAnalyser {
     public long getRequiredSteps(ModelAnalyser modelAnalyser) {
         long num = 0;
         for (Signal o : modelAnalyser.getOutputs()) {
-            int n = getInputs(o).size();
+            int n = graph.getInputCount(o.getValue());
             num += (1L << n);
         }
         return num;
     }
 
-    private void backtracking(ObservableValue value, Set<ObservableValue> effected) throws PinException, BacktrackException {
-        if (!effected.contains(value)) {
-            effected.add(value);
-
-            for (Observer o : value.getObservers()) {
-                if ((o instanceof NodeInterface)) {
-                    ObservableValues outputs = ((NodeInterface) o).getOutputs();
-                    for (ObservableValue co : outputs)
-                        backtracking(co, effected);
-                } else
-                    throw new BacktrackException(Lang.get("err_backtrackOf_N_isImpossible", o.getClass().getSimpleName()));
-            }
-        }
-    }
-
 }
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse;
+
+import de.neemann.digital.core.BacktrackException;
+import de.neemann.digital.core.NodeInterface;
+import de.neemann.digital.core.ObservableValue;
+import de.neemann.digital.core.ObservableValues;
+import de.neemann.digital.core.Observer;
+import de.neemann.digital.core.Signal;
+import de.neemann.digital.draw.elements.PinException;
+import de.neemann.digital.lang.Lang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The graph of all values which are reachable from a list of inputs.
+ * A value depends on an other value if it is the output of a node which observes the other value.
+ * Every value gets an int id, and the edges are stored in adjacency arrays.
+ * The strongly connected components and the inputs every value depends on are calculated
+ * once when the graph is created, the latter as a bitset of the input indices.
+ * <p>
+ * The graph is a snapshot of the observers at the time it is created. It has to be created
+ * again if the model is modified, see {@link de.neemann.digital.core.Model#getDependencyGraph(List)}.
+ */
+public final class DependencyGraph {
+    private static final int[] EMPTY = new int[0];
+
+    private final List<Signal> inputs;
+    private final IdentityHashMap<ObservableValue, Integer> ids;
+    private final ArrayList<ObservableValue> values;
+    private final int[][] succ;
+    private final int[][] pred;
+    private final int[] component;
+    private final ArrayList<int[]> components;
+    private final long[][] componentInputs;
+    private boolean hasCycle;
+
+    /**
+     * Creates the graph of all values reachable from the given inputs
+     *
+     * @param inputs the inputs
+     * @throws BacktrackException BacktrackException
+     * @throws PinException       PinException
+     */
+    public DependencyGraph(List<Signal> inputs) throws BacktrackException, PinException {
+        this.inputs = new ArrayList<>(inputs);
+        ids = new IdentityHashMap<>();
+        values = new ArrayList<>();
+        ArrayList<int[]> succList = new ArrayList<>();
+
+        for (Signal s : inputs)
+            addValue(s.getValue());
+        for (int v = 0; v < values.size(); v++) {
+            ArrayList<ObservableValue> next = new ArrayList<>();
+            for (Observer o : values.get(v).getObservers()) {
+                if (o instanceof NodeInterface) {
+                    ObservableValues outputs = ((NodeInterface) o).getOutputs();
+                    for (ObservableValue co : outputs)
+                        next.add(co);
+                } else
+                    throw new BacktrackException(Lang.get("err_backtrackOf_N_isImpossible", o.getClass().getSimpleName()));
+            }
+            int[] s = new int[next.size()];
+            for (int i = 0; i < s.length; i++)
+                s[i] = addValue(next.get(i));
+            succList.add(s);
+        }
+
+        final int n = values.size();
+        succ = succList.toArray(new int[n][]);
+        pred = createPredecessors(succ);
+
+        component = new int[n];
+        components = new ArrayList<>();
+        findComponents();
+
+        componentInputs = new long[components.size()][(inputs.size() + 63) / 64];
+        propagateInputs();
+    }
+
+    private int addValue(ObservableValue value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    private static int[][] createPredecessors(int[][] succ) {
+        int[] count = new int[succ.length];
+        for (int[] s : succ)
+            for (int w : s)
+                count[w]++;
+        int[][] pred = new int[succ.length][];
+        for (int v = 0; v < succ.length; v++)
+            pred[v] = count[v] == 0 ? EMPTY : new int[count[v]];
+        Arrays.fill(count, 0);
+        for (int v = 0; v < succ.length; v++)
+            for (int w : succ[v])
+                pred[w][count[w]++] = v;
+        return pred;
+    }
+
+    /**
+     * Tarjans algorithm without recursion, so large models do not overflow the stack.
+     * The components are found in reverse topological order.
+     */
+    private void findComponents() {
+        final int n = succ.length;
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+        int[] stack = new int[n];
+        int sp = 0;
+        int[] callStack = new int[n];
+        int[] edge = new int[n];
+        int counter = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0)
+                continue;
+            int csp = 0;
+            callStack[csp++] = root;
+            index[root] = counter++;
+            low[root] = index[root];
+            stack[sp++] = root;
+            onStack[root] = true;
+            edge[root] = 0;
+            while (csp > 0) {
+                final int v = callStack[csp - 1];
+                if (edge[v] < succ[v].length) {
+                    final int w = succ[v][edge[v]++];
+                    if (w == v)
+                        hasCycle = true;
+                    if (index[w] < 0) {
+                        index[w] = counter++;
+                        low[w] = index[w];
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        edge[w] = 0;
+                        callStack[csp++] = w;
+                    } else if (onStack[w])
+                        low[v] = Math.min(low[v], index[w]);
+                } else {
+                    csp--;
+                    if (csp > 0) {
+                        final int parent = callStack[csp - 1];
+                        low[parent] = Math.min(low[parent], low[v]);
+                    }
+                    if (low[v] == index[v]) {
+                        int start = sp;
+                        do {
+                            start--;
+                        } while (stack[start] != v);
+                        int[] members = Arrays.copyOfRange(stack, start, sp);
+                        for (int m : members) {
+                            onStack[m] = false;
+                            component[m] = components.size();
+                        }
+                        if (members.length > 1)
+                            hasCycle = true;
+                        components.add(members);
+                        sp = start;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Propagates the inputs along the edges, visiting the components in topological order.
+     */
+    private void propagateInputs() {
+        for (int i = 0; i < inputs.size(); i++) {
+            final int c = component[ids.get(inputs.get(i).getValue())];
+            componentInputs[c][i >> 6] |= 1L << i;
+        }
+        for (int c = components.size() - 1; c >= 0; c--) {
+            final long[] in = componentInputs[c];
+            for (int v : components.get(c))
+                for (int w : succ[v]) {
+                    final int cw = component[w];
+                    if (cw != c) {
+                        final long[] out = componentInputs[cw];
+                        for (int i = 0; i < in.length; i++)
+                            out[i] |= in[i];
+                    }
+                }
+        }
+    }
+
+    /**
+     * Returns true if this graph was created from the given inputs
+     *
+     * @param inputs the inputs
+     * @return true if the inputs are the same values in the same order
+     */
+    public boolean hasInputs(List<Signal> inputs) {
+        if (inputs.size() != this.inputs.size())
+            return false;
+        for (int i = 0; i < inputs.size(); i++)
+            if (inputs.get(i).getValue() != this.inputs.get(i).getValue())
+                return false;
+        return true;
+    }
+
+    /**
+     * @return the number of values in this graph
+     */
+    public int getValueCount() {
+        return values.size();
+    }
+
+    /**
+     * Returns the id of the given value
+     *
+     * @param value the value
+     * @return the id or -1 if the value is not reachable from the inputs
+     */
+    public int getId(ObservableValue value) {
+        Integer id = ids.get(value);
+        if (id == null)
+            return -1;
+        return id;
+    }
+
+    /**
+     * Returns the value with the given id
+     *
+     * @param id the id
+     * @return the value
+     */
+    public ObservableValue getValue(int id) {
+        return values.get(id);
+    }
+
+    /**
+     * @return true if the graph contains a cycle
+     */
+    public boolean hasCycle() {
+        return hasCycle;
+    }
+
+    /**
+     * @return all the cycles in the graph, every cycle is a strongly connected component
+     */
+    public ArrayList<ArrayList<ObservableValue>> getCycles() {
+        ArrayList<ArrayList<ObservableValue>> cycles = new ArrayList<>();
+        for (int[] c : components)
+            if (c.length > 1 || contains(succ[c[0]], c[0])) {
+                ArrayList<ObservableValue> cycle = new ArrayList<>();
+                for (int v : c)
+                    cycle.add(values.get(v));
+                cycles.add(cycle);
+            }
+        return cycles;
+    }
+
+    private static boolean contains(int[] list, int v) {
+        for (int i : list)
+            if (i == v)
+                return true;
+        return false;
+    }
+
+    /**
+     * Returns the indices of the inputs the given value depends on
+     *
+     * @param value the value
+     * @return the indices of the inputs, empty if the value is not reachable from the inputs
+     */
+    public BitSet getInputs(ObservableValue value) {
+        final int id = getId(value);
+        if (id < 0)
+            return new BitSet();
+        return BitSet.valueOf(componentInputs[component[id]]);
+    }
+
+    /**
+     * Returns the number of inputs the given value depends on
+     *
+     * @param value the value
+     * @return the number of inputs
+     */
+    public int getInputCount(ObservableValue value) {
+        final int id = getId(value);
+        if (id < 0)
+            return 0;
+        int n = 0;
+        for (long l : componentInputs[component[id]])
+            n += Long.bitCount(l);
+        return n;
+    }
+
+    /**
+     * Returns the transitive fan out of the given value, the value itself included.
+     *
+     * @param value the value
+     * @return the ids of all values which depend on the given value
+     */
+    public BitSet getFanOut(ObservableValue value) {
+        return reachable(value, succ);
+    }
+
+    /**
+     * Returns the transitive fan in of the given value, the value itself included.
+     * This is the cone of influence of the value. Only values which are reachable
+     * from the inputs are contained in the graph.
+     *
+     * @param value the value
+     * @return the ids of all values the given value depends on
+     */
+    public BitSet getFanIn(ObservableValue value) {
+        return reachable(value, pred);
+    }
+
+    private BitSet reachable(ObservableValue value, int[][] edges) {
+        BitSet visited = new BitSet(values.size());
+        final int id = getId(value);
+        if (id < 0)
+            return visited;
+        int[] stack = new int[values.size()];
+        int sp = 0;
+        stack[sp++] = id;
+        visited.set(id);
+        while (sp > 0) {
+            final int v = stack[--sp];
+            for (int w : edges[v])
+                if (!visited.get(w)) {
+                    visited.set(w);
+                    stack[sp++] = w;
+                }
+        }
+        return visited;
+    }
+}
@@ -15,6 +15,8 @@ import de.neemann.digital.analyse.quinemc.TableRow;
 import de.neemann.digital.analyse.quinemc.primeselector.PrimeSelector;
 import de.neemann.digital.analyse.quinemc.primeselector.PrimeSelectorDefault;
 import de.neemann.digital.gui.components.table.ExpressionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,6 +25,8 @@ import java.util.List;
  * The normal QMC minimizer.
  */
 public class MinimizerQuineMcCluskey implements MinimizerInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinimizerQuineMcCluskey.class);
+
     @Override
     public void minimize(List<Variable> vars, BoolTable boolTable, String resultName, ExpressionListener listener) throws ExpressionException, FormatterException {
         QuineMcCluskey qmc = createQuineMcCluskey(vars)
@@ -30,6 +34,11 @@ public class MinimizerQuineMcCluskey implements MinimizerInterface {
         PrimeSelector ps = new PrimeSelectorDefault();
         Expression e = qmc.simplify(ps).getExpression();
 
+        if (ps.isSolutionLimitReached()) {
+            LOGGER.info("not all solutions of " + resultName + " are shown, there are more than " + ps.getAllSolutions().size());
+            listener.solutionLimitReached(resultName);
+        }
+
         if (ps.getAllSolutions() != null) {
             for (ArrayList<TableRow> i : ps.getAllSolutions()) {
                 listener.resultFound(resultName, QuineMcCluskey.addAnd(null, i, vars));
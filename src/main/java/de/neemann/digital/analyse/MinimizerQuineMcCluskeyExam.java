@@ -71,6 +71,11 @@ public class MinimizerQuineMcCluskeyExam extends MinimizerQuineMcCluskey {
             list.add(expression);
         }
 
+        @Override
+        public void solutionLimitReached(String name) {
+            parent.solutionLimitReached(name);
+        }
+
         @Override
         public void close() throws FormatterException, ExpressionException {
             for (Expression e : list)
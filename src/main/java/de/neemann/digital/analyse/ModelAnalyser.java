@@ -6,7 +6,8 @@
 package de.neemann.digital.analyse;
 
 import de.neemann.digital.analyse.expression.BitSetter;
-import de.neemann.digital.analyse.quinemc.BoolTableByteArray;
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.analyse.quinemc.BoolTableModifiable;
 import de.neemann.digital.core.*;
 import de.neemann.digital.core.flipflops.FlipflopD;
 import de.neemann.digital.core.switching.NFET;
@@ -15,13 +16,22 @@ import de.neemann.digital.core.switching.RelayDT;
 import de.neemann.digital.core.wiring.Clock;
 import de.neemann.digital.core.wiring.Splitter;
 import de.neemann.digital.draw.elements.PinException;
+import de.neemann.digital.draw.library.ElementNotFoundException;
 import de.neemann.digital.gui.Main;
 import de.neemann.digital.lang.Lang;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Analyses a given model.
@@ -30,11 +40,16 @@ import java.util.List;
 public class ModelAnalyser {
     private static final Logger LOGGER = LoggerFactory.getLogger(ModelAnalyser.class);
     private static final int MAX_INPUTS_ALLOWED = 24;
+    private static final int MAX_STREAMING_INPUTS = 62;
+    private static final int PARALLEL_STEPS = 1 << 12;
+    private static final int STREAMING_CHUNK_BLOCKS = 1 << 10;
 
     private final Model model;
     private final ArrayList<Signal> inputs;
     private final ArrayList<Signal> outputs;
     private ModelAnalyserInfo modelAnalyzerInfo;
+    private ModelFactory modelFactory;
+    private int threads = Runtime.getRuntime().availableProcessors();
 
     /**
      * Creates a new instance
@@ -93,6 +108,31 @@ public class ModelAnalyser {
             throw new AnalyseException(Lang.get("err_analyseNoOutputs"));
     }
 
+    /**
+     * Sets the factory which is used to create copies of the model.
+     * If set, large tables are created in parallel. Every thread uses its own copy of the
+     * model, so the factory has to create a model which is equal to the model to analyse.
+     *
+     * @param modelFactory the model factory
+     * @return this for chained calls
+     */
+    public ModelAnalyser setModelFactory(ModelFactory modelFactory) {
+        this.modelFactory = modelFactory;
+        return this;
+    }
+
+    /**
+     * Sets the maximal number of threads used if a model factory is set.
+     * Defaults to the number of available processors.
+     *
+     * @param threads the number of threads
+     * @return this for chained calls
+     */
+    public ModelAnalyser setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
     /**
      * Adds the "+1" to the variables name
      *
@@ -302,6 +342,18 @@ public class ModelAnalyser {
         return outputs;
     }
 
+    /**
+     * Returns the dependency graph of the models inputs.
+     * The graph is cached by the model and reused until the model is modified.
+     *
+     * @return the dependency graph
+     * @throws BacktrackException BacktrackException
+     * @throws PinException       PinException
+     */
+    public DependencyGraph getDependencyGraph() throws BacktrackException, PinException {
+        return model.getDependencyGraph(inputs);
+    }
+
     /**
      * Analyses the circuit
      *
@@ -320,7 +372,7 @@ public class ModelAnalyser {
             tt.addVariable(s.getName());
 
         if (!Main.isExperimentalMode() && !modelContainsSwitches())
-            CycleDetector.checkForCycles(inputs);
+            CycleDetector.checkForCycles(getDependencyGraph());
 
         DependencyAnalyser da = new DependencyAnalyser(this);
         long steps = da.getRequiredSteps(this);
@@ -342,6 +394,94 @@ public class ModelAnalyser {
         return tt;
     }
 
+    /**
+     * Analyses the circuit without creating the truth table in memory.
+     * The input space is enumerated in ascending order and the values of the outputs are
+     * passed to the given consumer in blocks of 64 rows. So the number of inputs is not
+     * limited by the available memory.
+     * Every row is simulated, the dependencies of the outputs are not taken into account.
+     *
+     * @param consumer the consumer of the rows
+     * @throws NodeException      NodeException
+     * @throws PinException       PinException
+     * @throws BacktrackException BacktrackException
+     * @throws AnalyseException   AnalyseException
+     * @throws IOException        IOException
+     */
+    public void analyse(TruthTableConsumer consumer) throws NodeException, PinException, BacktrackException, AnalyseException, IOException {
+        if (inputs.size() > MAX_STREAMING_INPUTS)
+            throw new AnalyseException(Lang.get("err_toManyInputs_max_N0_is_N1", MAX_STREAMING_INPUTS, inputs.size()));
+
+        if (!Main.isExperimentalMode() && !modelContainsSwitches())
+            CycleDetector.checkForCycles(getDependencyGraph());
+
+        ArrayList<Variable> vars = new ArrayList<>();
+        for (Signal s : inputs)
+            vars.add(new Variable(s.getName()));
+        ArrayList<String> names = new ArrayList<>();
+        for (Signal s : outputs)
+            names.add(s.getName());
+        consumer.start(vars, names);
+
+        long time = System.currentTimeMillis();
+
+        final long rows = 1L << inputs.size();
+        final int blockRows = (int) Math.min(rows, 64);
+        final long blocks = rows / blockRows;
+        ArrayList<ModelAnalyser> copies = createCopies(rows);
+        if (copies.isEmpty()) {
+            model.init();
+            long[] values = new long[outputs.size()];
+            for (long b = 0; b < blocks; b++) {
+                fillBlock(b * blockRows, blockRows, values);
+                consumer.addRows(b * blockRows, blockRows, values);
+            }
+        } else {
+            ExecutorService executor = createExecutor(copies.size());
+            try {
+                ArrayList<Callable<Void>> init = new ArrayList<>();
+                for (ModelAnalyser copy : copies)
+                    init.add(() -> {
+                        copy.model.init();
+                        return null;
+                    });
+                invokeAll(executor, init);
+
+                // every copy calculates a chunk of blocks, the chunks are passed to the consumer in order
+                final long chunkBlocks = Math.max(1, Math.min(STREAMING_CHUNK_BLOCKS, blocks / copies.size()));
+                long block = 0;
+                while (block < blocks) {
+                    long row = block * blockRows;
+                    ArrayList<Callable<long[][]>> tasks = new ArrayList<>();
+                    for (ModelAnalyser copy : copies) {
+                        final long first = block;
+                        final int count = (int) Math.min(chunkBlocks, blocks - block);
+                        if (count > 0)
+                            tasks.add(() -> {
+                                long[][] values = new long[count][copy.outputs.size()];
+                                for (int i = 0; i < count; i++)
+                                    copy.fillBlock((first + i) * blockRows, blockRows, values[i]);
+                                return values;
+                            });
+                        block += count;
+                    }
+                    for (long[][] chunk : invokeAll(executor, tasks))
+                        for (long[] values : chunk) {
+                            consumer.addRows(row, blockRows, values);
+                            row += blockRows;
+                        }
+                }
+            } finally {
+                executor.shutdownNow();
+                closeCopies(copies);
+            }
+        }
+        consumer.finished();
+
+        time = System.currentTimeMillis() - time;
+        LOGGER.debug("streaming model analysis: " + time / 1000.0 + " sec");
+    }
+
     private boolean modelContainsSwitches() {
         for (Node n : model)
             if (n instanceof Relay
@@ -354,7 +494,41 @@ public class ModelAnalyser {
         if (inputs.size() > MAX_INPUTS_ALLOWED)
             throw new AnalyseException(Lang.get("err_toManyInputs_max_N0_is_N1", MAX_INPUTS_ALLOWED, inputs.size()));
 
+        int rows = 1 << inputs.size();
+        ArrayList<BoolTableModifiable> data = new ArrayList<>();
+        for (Signal s : outputs) {
+            BoolTableModifiable e = BoolTableModifiable.create(rows);
+            data.add(e);
+            tt.addResult(s.getName(), e);
+        }
+
+        ArrayList<ModelAnalyser> copies = createCopies(rows);
+        if (copies.isEmpty()) {
+            model.init();
+            fillRows(data, 0, rows);
+        } else {
+            try {
+                // the ranges are multiples of 64 rows, so no two threads write to the same word of a bit packed column
+                final int chunk = ((rows / copies.size() + 63) / 64) * 64;
+                ArrayList<Callable<Void>> tasks = new ArrayList<>();
+                for (int i = 0; i < copies.size(); i++) {
+                    final ModelAnalyser copy = copies.get(i);
+                    final int from = Math.min(rows, i * chunk);
+                    final int to = Math.min(rows, from + chunk);
+                    tasks.add(() -> {
+                        copy.model.init();
+                        copy.fillRows(data, from, to);
+                        return null;
+                    });
+                }
+                runParallel(tasks);
+            } finally {
+                closeCopies(copies);
+            }
+        }
+    }
 
+    private void fillRows(ArrayList<BoolTableModifiable> data, int from, int to) throws NodeException {
         BitSetter bitsetter = new BitSetter(inputs.size()) {
             @Override
             public void setBit(int row, int bit, boolean value) {
@@ -362,16 +536,7 @@ public class ModelAnalyser {
             }
         };
 
-        int rows = 1 << inputs.size();
-        ArrayList<BoolTableByteArray> data = new ArrayList<>();
-        for (Signal s : outputs) {
-            BoolTableByteArray e = new BoolTableByteArray(rows);
-            data.add(e);
-            tt.addResult(s.getName(), e);
-        }
-
-        model.init();
-        for (int row = 0; row < rows; row++) {
+        for (int row = from; row < to; row++) {
             bitsetter.fill(row);
             model.doStep();
             for (int i = 0; i < outputs.size(); i++) {
@@ -380,34 +545,166 @@ public class ModelAnalyser {
         }
     }
 
+    private void fillBlock(long row, int rows, long[] values) throws NodeException {
+        Arrays.fill(values, 0);
+        final int n = inputs.size();
+        for (int j = 0; j < rows; j++) {
+            final long r = row + j;
+            for (int bit = 0; bit < n; bit++)
+                inputs.get(bit).getValue().setBool(((r >>> (n - 1 - bit)) & 1) != 0);
+            model.doStep();
+            for (int o = 0; o < outputs.size(); o++)
+                if (outputs.get(o).getValue().getBool())
+                    values[o] |= 1L << j;
+        }
+    }
+
     private void dependantFiller(TruthTable tt, DependencyAnalyser da) throws NodeException, AnalyseException {
-        model.init();
+        ArrayList<ArrayList<Signal>> insList = new ArrayList<>();
+        ArrayList<int[]> insIndexList = new ArrayList<>();
         for (Signal out : outputs) {
-
             ArrayList<Signal> ins = reorder(da.getInputs(out), inputs);
             if (ins.size() > MAX_INPUTS_ALLOWED)
                 throw new AnalyseException(Lang.get("err_toManyInputs_max_N0_is_N1", MAX_INPUTS_ALLOWED, ins.size()));
+            insList.add(ins);
+            int[] insIndex = new int[ins.size()];
+            for (int i = 0; i < insIndex.length; i++)
+                insIndex[i] = inputs.indexOf(ins.get(i));
+            insIndexList.add(insIndex);
+        }
 
-            int rows = 1 << ins.size();
-            BoolTableByteArray e = new BoolTableByteArray(rows);
-            BitSetter bitsetter = new BitSetter(ins.size()) {
-                @Override
-                public void setBit(int row, int bit, boolean value) {
-                    ins.get(bit).getValue().setBool(value);
-                }
-            };
+        BoolTableModifiable[] columns = new BoolTableModifiable[outputs.size()];
+        ArrayList<ModelAnalyser> copies = outputs.size() > 1 ? createCopies(da.getRequiredSteps(this)) : new ArrayList<>();
+        if (copies.isEmpty()) {
+            model.init();
+            for (int o = 0; o < outputs.size(); o++)
+                columns[o] = fillColumn(o, insIndexList.get(o));
+        } else {
+            try {
+                AtomicInteger next = new AtomicInteger();
+                ArrayList<Callable<Void>> tasks = new ArrayList<>();
+                for (ModelAnalyser copy : copies)
+                    tasks.add(() -> {
+                        copy.model.init();
+                        int o;
+                        while ((o = next.getAndIncrement()) < columns.length)
+                            columns[o] = copy.fillColumn(o, insIndexList.get(o));
+                        return null;
+                    });
+                runParallel(tasks);
+            } finally {
+                closeCopies(copies);
+            }
+        }
+
+        for (int o = 0; o < outputs.size(); o++)
+            tt.addResult(outputs.get(o).getName(), new BoolTableExpanded(columns[o], insList.get(o), inputs));
+    }
+
+    private BoolTableModifiable fillColumn(int o, int[] insIndex) throws NodeException {
+        final Signal out = outputs.get(o);
+        int rows = 1 << insIndex.length;
+        BoolTableModifiable e = BoolTableModifiable.create(rows);
+        BitSetter bitsetter = new BitSetter(insIndex.length) {
+            @Override
+            public void setBit(int row, int bit, boolean value) {
+                inputs.get(insIndex[bit]).getValue().setBool(value);
+            }
+        };
 
-            for (int row = 0; row < rows; row++) {
-                bitsetter.fill(row);
-                model.doStep();
-                e.set(row, out.getValue().getBool());
+        for (int row = 0; row < rows; row++) {
+            bitsetter.fill(row);
+            model.doStep();
+            e.set(row, out.getValue().getBool());
+        }
+        return e;
+    }
+
+    /**
+     * Creates the copies of the model used to analyse the model in parallel.
+     * Returns an empty list if the analysis should not run in parallel.
+     */
+    private ArrayList<ModelAnalyser> createCopies(long steps) throws AnalyseException {
+        ArrayList<ModelAnalyser> copies = new ArrayList<>();
+        final int n = (int) Math.min(threads, steps / PARALLEL_STEPS);
+        if (modelFactory == null || n < 2 || modelContainsSwitches())
+            return copies;
+
+        try {
+            for (int i = 0; i < n; i++) {
+                ModelAnalyser copy = new ModelAnalyser(modelFactory.createModel());
+                copies.add(copy);
+                if (!sameSignals(inputs, copy.inputs) || !sameSignals(outputs, copy.outputs)) {
+                    LOGGER.debug("model copy differs from model, analyse sequential");
+                    closeCopies(copies);
+                    return new ArrayList<>();
+                }
             }
+        } catch (PinException | NodeException | ElementNotFoundException e) {
+            closeCopies(copies);
+            throw new AnalyseException(e);
+        } catch (AnalyseException e) {
+            closeCopies(copies);
+            throw e;
+        }
+        LOGGER.debug("analyse model with " + copies.size() + " threads");
+        return copies;
+    }
+
+    private static boolean sameSignals(ArrayList<Signal> a, ArrayList<Signal> b) {
+        if (a.size() != b.size())
+            return false;
+        for (int i = 0; i < a.size(); i++)
+            if (!a.get(i).getName().equals(b.get(i).getName()))
+                return false;
+        return true;
+    }
+
+    private static void closeCopies(ArrayList<ModelAnalyser> copies) {
+        for (ModelAnalyser copy : copies)
+            copy.model.close();
+    }
+
+    private static void runParallel(ArrayList<Callable<Void>> tasks) throws NodeException, AnalyseException {
+        ExecutorService executor = createExecutor(tasks.size());
+        try {
+            invokeAll(executor, tasks);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ExecutorService createExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            return t;
+        });
+    }
 
-            tt.addResult(out.getName(), new BoolTableExpanded(e, ins, inputs));
+    private static <T> ArrayList<T> invokeAll(ExecutorService executor, ArrayList<Callable<T>> tasks) throws NodeException, AnalyseException {
+        ArrayList<T> results = new ArrayList<>();
+        try {
+            for (Future<T> f : executor.invokeAll(tasks))
+                results.add(f.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnalyseException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof NodeException)
+                throw (NodeException) cause;
+            if (cause instanceof AnalyseException)
+                throw (AnalyseException) cause;
+            throw new RuntimeException(cause);
         }
+        return results;
     }
 
-    private ModelAnalyserInfo getModelAnalyzerInfo() {
+    /**
+     * @return the information about the usage of multi bit signals
+     */
+    public ModelAnalyserInfo getModelAnalyzerInfo() {
         return modelAnalyzerInfo;
     }
 
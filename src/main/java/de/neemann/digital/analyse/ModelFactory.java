@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse;
+
+import de.neemann.digital.core.Model;
+import de.neemann.digital.core.NodeException;
+import de.neemann.digital.draw.elements.PinException;
+import de.neemann.digital.draw.library.ElementNotFoundException;
+
+/**
+ * Creates new and independent instances of a model.
+ * Used by the {@link ModelAnalyser} to analyse a model in parallel.
+ */
+public interface ModelFactory {
+
+    /**
+     * Creates a new model
+     *
+     * @return the model
+     * @throws PinException             PinException
+     * @throws NodeException            NodeException
+     * @throws ElementNotFoundException ElementNotFoundException
+     */
+    Model createModel() throws PinException, NodeException, ElementNotFoundException;
+}
@@ -13,7 +13,9 @@ import de.neemann.digital.analyse.expression.Context;
 import de.neemann.digital.analyse.expression.ExpressionException;
 import de.neemann.digital.analyse.expression.Variable;
 import de.neemann.digital.analyse.quinemc.BoolTable;
+import de.neemann.digital.analyse.quinemc.BoolTableBitSet;
 import de.neemann.digital.analyse.quinemc.BoolTableByteArray;
+import de.neemann.digital.analyse.quinemc.BoolTableModifiable;
 import de.neemann.digital.analyse.quinemc.ThreeStateValue;
 import de.neemann.digital.lang.Lang;
 import de.neemann.digital.undo.Copyable;
@@ -34,13 +36,22 @@ public class TruthTable implements Copyable<TruthTable> {
     private transient ModelAnalyserInfo modelAnalyzerInfo;
 
     /**
-     * Load the given file and returns a truth table instance
+     * The suffix of files written by {@link #saveBinary(File)}
+     */
+    public static final String BINARY_SUFFIX = "trb";
+
+    /**
+     * Load the given file and returns a truth table instance.
+     * The file may be a XML file or a binary file.
      *
      * @param filename filename
      * @return the {@link TruthTable}
      * @throws IOException IOException
      */
     public static TruthTable readFromFile(File filename) throws IOException {
+        if (TruthTableBinaryFile.isBinary(filename))
+            return TruthTableBinaryFile.read(filename);
+
         XStream xStream = getxStream();
         try (InputStream in = new FileInputStream(filename)) {
             return (TruthTable) xStream.fromXML(in);
@@ -48,7 +59,7 @@ public class TruthTable implements Copyable<TruthTable> {
     }
 
     /**
-     * Writes the table to the given file.
+     * Writes the table to the given file as XML.
      *
      * @param filename the file
      * @throws IOException IOException
@@ -61,6 +72,20 @@ public class TruthTable implements Copyable<TruthTable> {
         }
     }
 
+    /**
+     * Writes the table to the given file in the binary format.
+     * The values are stored bit packed, so large tables are written and read much faster than XML.
+     * The file should use the suffix {@link #BINARY_SUFFIX}.
+     * At most 30 variables are supported, and a heap buffer of the size of one column is
+     * allocated while writing.
+     *
+     * @param filename the file
+     * @throws IOException IOException
+     */
+    public void saveBinary(File filename) throws IOException {
+        TruthTableBinaryFile.write(this, filename);
+    }
+
     /**
      * Save the table as hex file to be loaded in a ROM or LUT element.
      *
@@ -85,6 +110,7 @@ public class TruthTable implements Copyable<TruthTable> {
     public void saveHex(Writer writer) throws IOException {
         writer.write("v2.0 raw\n");
         int count = results.get(0).getValues().size();
+        char[] line = new char[17];
         for (int i = 0; i < count; i++) {
             long val = 0;
             long mask = 1;
@@ -94,8 +120,14 @@ public class TruthTable implements Copyable<TruthTable> {
                     val |= mask;
                 mask *= 2;
             }
-            writer.write(Long.toHexString(val));
-            writer.write('\n');
+            // same as Long.toHexString, but without creating a string for every row
+            int pos = line.length - 1;
+            line[pos] = '\n';
+            do {
+                line[--pos] = Character.forDigit((int) (val & 15), 16);
+                val >>>= 4;
+            } while (val != 0);
+            writer.write(line, pos, line.length - pos);
         }
     }
 
@@ -107,6 +139,7 @@ public class TruthTable implements Copyable<TruthTable> {
         xStream.aliasAttribute(Variable.class, "identifier", "name");
         xStream.alias("result", Result.class);
         xStream.alias("BoolTable", BoolTableByteArray.class);
+        xStream.alias("BoolTableBits", BoolTableBitSet.class);
         xStream.alias("BoolTableEx", BoolTableExpanded.class);
         return xStream;
     }
@@ -146,7 +179,7 @@ public class TruthTable implements Copyable<TruthTable> {
     public TruthTable(ArrayList<Variable> newVars, TruthTable oldTable) {
         this(newVars);
         for (int i = 0; i < oldTable.getResultCount(); i++) {
-            addResult(oldTable.results.get(i).getName(), new BoolTableByteArray(getRows()));
+            addResult(oldTable.results.get(i).getName(), BoolTableModifiable.create(getRows()));
         }
     }
 
@@ -157,7 +190,7 @@ public class TruthTable implements Copyable<TruthTable> {
         results = new ArrayList<>();
         for (int i = 0; i < truthTable.getResultCount(); i++) {
             Result result = truthTable.results.get(i);
-            addResult(result.getName(), new BoolTableByteArray(result.values));
+            addResult(result.getName(), BoolTableModifiable.copyOf(result.values));
         }
         this.modelAnalyzerInfo = truthTable.modelAnalyzerInfo;
     }
@@ -216,7 +249,7 @@ public class TruthTable implements Copyable<TruthTable> {
      * @return this for call chaining
      */
     public TruthTable addResult(String name) {
-        results.add(new Result(name, new BoolTableByteArray(getRows())));
+        results.add(new Result(name, BoolTableModifiable.create(getRows())));
         return this;
     }
 
@@ -259,7 +292,7 @@ public class TruthTable implements Copyable<TruthTable> {
     public TruthTable addVariable(Variable var) {
         variables.add(var);
         for (Result r : results)
-            r.setValues(BoolTableByteArray.createDoubledValues(r.getValues()));
+            r.setValues(BoolTableModifiable.createDoubledValues(r.getValues()));
 
         bitSetter = null;
         return this;
@@ -354,7 +387,7 @@ public class TruthTable implements Copyable<TruthTable> {
             return false;
         else {
             BoolTable v = results.get(columnIndex - variables.size()).getValues();
-            return v instanceof BoolTableByteArray;
+            return v instanceof BoolTableModifiable;
         }
     }
 
@@ -368,8 +401,8 @@ public class TruthTable implements Copyable<TruthTable> {
     public void setValue(int rowIndex, int columnIndex, int aValue) {
         if (columnIndex >= variables.size()) {
             BoolTable v = results.get(columnIndex - variables.size()).getValues();
-            if (v instanceof BoolTableByteArray)
-                ((BoolTableByteArray) v).set(rowIndex, aValue);
+            if (v instanceof BoolTableModifiable)
+                ((BoolTableModifiable) v).set(rowIndex, aValue);
         }
     }
 
@@ -416,8 +449,8 @@ public class TruthTable implements Copyable<TruthTable> {
      */
     public void setByContext(int result, Context context, int value) throws ExpressionException {
         BoolTable v = results.get(result).getValues();
-        if (v instanceof BoolTableByteArray)
-            ((BoolTableByteArray) v).set(getIndexByContext(context), value);
+        if (v instanceof BoolTableModifiable)
+            ((BoolTableModifiable) v).set(getIndexByContext(context), value);
     }
 
     private int getIndexByContext(Context context) throws ExpressionException {
@@ -490,8 +523,8 @@ public class TruthTable implements Copyable<TruthTable> {
     public TruthTable modifyValues(BoolTableByteArray.TableModifier m) {
         for (Result r : results) {
             BoolTable bt = r.getValues();
-            if (bt instanceof BoolTableByteArray)
-                ((BoolTableByteArray) bt).modify(m);
+            if (bt instanceof BoolTableModifiable)
+                ((BoolTableModifiable) bt).modify(m);
         }
         return this;
     }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse;
+
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.analyse.quinemc.BoolTable;
+import de.neemann.digital.analyse.quinemc.BoolTableBitSet;
+import de.neemann.digital.analyse.quinemc.BoolTableModifiable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reads and writes truth tables in a compact binary format.
+ * The header contains the names of the variables and results, followed by the bit
+ * packed columns. Every column stores a value plane and a "don't care" plane, two bits
+ * per row. All numbers are stored big endian, and the columns start at a multiple of
+ * eight bytes. Binary files use the suffix {@link TruthTable#BINARY_SUFFIX}.
+ * <p>
+ * At most 30 variables are supported. The columns are not mapped but copied through a
+ * heap buffer which holds a single column, so at 30 variables 256MB of heap are required
+ * in addition to the table itself.
+ */
+final class TruthTableBinaryFile {
+    private static final byte[] MAGIC = {'D', 'T', 'T', 'B'};
+    private static final int VERSION = 1;
+    private static final int MAX_VARS = 30;
+
+    private TruthTableBinaryFile() {
+    }
+
+    /**
+     * Checks if the given file is a binary truth table file
+     *
+     * @param file the file
+     * @return true if the file starts with the magic bytes
+     * @throws IOException IOException
+     */
+    static boolean isBinary(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] magic = new byte[MAGIC.length];
+            int n = 0;
+            while (n < magic.length) {
+                int r = in.read(magic, n, magic.length - n);
+                if (r < 0)
+                    return false;
+                n += r;
+            }
+            return Arrays.equals(magic, MAGIC);
+        }
+    }
+
+    /**
+     * Writes the given table
+     *
+     * @param table the table
+     * @param file  the file to write to
+     * @throws IOException IOException
+     */
+    static void write(TruthTable table, File file) throws IOException {
+        if (table.getVars().size() > MAX_VARS)
+            throw new IOException("invalid number of variables: " + table.getVars().size());
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(table.getVars().size());
+        for (Variable v : table.getVars())
+            writeString(out, v.getIdentifier());
+        out.writeInt(table.getResultCount());
+        for (int i = 0; i < table.getResultCount(); i++)
+            writeString(out, table.getResultName(i));
+        out.writeInt(table.getRows());
+        while (out.size() % 8 != 0)
+            out.write(0);
+        out.flush();
+
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            FileChannel channel = fos.getChannel();
+            writeFully(channel, ByteBuffer.wrap(header.toByteArray()));
+            ByteBuffer column = ByteBuffer.allocate(BoolTableBitSet.getWordCount(table.getRows()) * 8);
+            for (int i = 0; i < table.getResultCount(); i++) {
+                BoolTable values = table.getResult(i);
+                if (values.size() != table.getRows())
+                    throw new IOException("result " + table.getResultName(i) + " has the wrong size");
+                BoolTableBitSet bits = values instanceof BoolTableBitSet
+                        ? (BoolTableBitSet) values : new BoolTableBitSet(values);
+                column.clear();
+                bits.write(column.asLongBuffer());
+                writeFully(channel, column);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] data = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    /**
+     * Reads a table.
+     * The header is read by a stream, the columns are read by a file channel.
+     *
+     * @param file the file to read
+     * @return the table
+     * @throws IOException IOException
+     */
+    static TruthTable read(File file) throws IOException {
+        ArrayList<Variable> vars = new ArrayList<>();
+        ArrayList<String> names = new ArrayList<>();
+        int rows;
+        long offset;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IOException("not a binary truth table file");
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException("unsupported version " + version);
+            offset = MAGIC.length + 4;
+
+            int varCount = in.readInt();
+            offset += 4;
+            if (varCount < 0 || varCount > MAX_VARS)
+                throw new IOException("invalid number of variables: " + varCount);
+            for (int i = 0; i < varCount; i++) {
+                String name = readString(in);
+                offset += 4 + name.getBytes(StandardCharsets.UTF_8).length;
+                vars.add(new Variable(name));
+            }
+
+            int resultCount = in.readInt();
+            offset += 4;
+            if (resultCount < 0)
+                throw new IOException("invalid number of results: " + resultCount);
+            for (int i = 0; i < resultCount; i++) {
+                String name = readString(in);
+                offset += 4 + name.getBytes(StandardCharsets.UTF_8).length;
+                names.add(name);
+            }
+
+            rows = in.readInt();
+            offset += 4;
+            if (rows != 1 << varCount)
+                throw new IOException("invalid number of rows: " + rows);
+            offset = (offset + 7) & ~7L;
+        }
+
+        TruthTable table = new TruthTable(vars);
+        final long columnSize = BoolTableBitSet.getWordCount(rows) * 8L;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < offset + columnSize * names.size())
+                throw new IOException("unexpected end of file");
+            ByteBuffer column = ByteBuffer.allocate((int) columnSize);
+            for (String name : names) {
+                column.clear();
+                while (column.hasRemaining())
+                    if (channel.read(column, offset + column.position()) < 0)
+                        throw new IOException("unexpected end of file");
+                column.flip();
+                BoolTableBitSet bits = BoolTableBitSet.read(column.asLongBuffer(), rows);
+                if (rows < BoolTableBitSet.MIN_ROWS)
+                    table.addResult(name, BoolTableModifiable.copyOf(bits));
+                else
+                    table.addResult(name, bits);
+                offset += columnSize;
+            }
+        }
+        return table;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0 || len > 1 << 16)
+            throw new IOException("invalid name length: " + len);
+        byte[] data = new byte[len];
+        in.readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse;
+
+import de.neemann.digital.analyse.expression.Variable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Consumes a truth table row by row.
+ * Used by the {@link ModelAnalyser} to analyse models which are to large to keep
+ * the whole truth table in memory.
+ * The rows are passed in blocks of up to 64 rows in ascending order. The first variable
+ * is the most significant bit of the row index.
+ */
+public interface TruthTableConsumer {
+
+    /**
+     * Called before the first row is passed.
+     *
+     * @param inputs  the input variables
+     * @param outputs the names of the outputs
+     * @throws IOException IOException
+     */
+    void start(ArrayList<Variable> inputs, ArrayList<String> outputs) throws IOException;
+
+    /**
+     * Called for every block of rows.
+     *
+     * @param row    the first row of the block, always a multiple of 64
+     * @param rows   the number of rows in this block, 64 unless the table has less than 64 rows
+     * @param values the values of the outputs, bit j of values[o] is the value of output o in row row+j
+     * @throws IOException IOException
+     */
+    void addRows(long row, int rows, long[] values) throws IOException;
+
+    /**
+     * Called after the last row is passed.
+     *
+     * @throws IOException IOException
+     */
+    void finished() throws IOException;
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse;
+
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.core.Digest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+
+/**
+ * Creates a SHA-256 signature of every output of a truth table.
+ * The signature only depends on the values of the output, so two circuits which
+ * implement the same function create the same signature, even if the table is
+ * to large to be stored.
+ */
+public class TruthTableSignature implements TruthTableConsumer {
+
+    private ArrayList<Variable> inputs;
+    private ArrayList<String> outputs;
+    private MessageDigest[] digests;
+    private long[] ones;
+    private byte[][] signatures;
+    private final byte[] buffer = new byte[8];
+
+    @Override
+    public void start(ArrayList<Variable> inputs, ArrayList<String> outputs) {
+        this.inputs = inputs;
+        this.outputs = outputs;
+        digests = new MessageDigest[outputs.size()];
+        for (int i = 0; i < digests.length; i++)
+            digests[i] = Digest.createSHA256();
+        ones = new long[outputs.size()];
+        signatures = null;
+    }
+
+    @Override
+    public void addRows(long row, int rows, long[] values) {
+        final long mask = rows == 64 ? -1L : (1L << rows) - 1;
+        for (int o = 0; o < digests.length; o++) {
+            long v = values[o] & mask;
+            ones[o] += Long.bitCount(v);
+            for (int i = 0; i < 8; i++) {
+                buffer[i] = (byte) v;
+                v >>>= 8;
+            }
+            digests[o].update(buffer);
+        }
+    }
+
+    @Override
+    public void finished() {
+        signatures = new byte[digests.length][];
+        for (int o = 0; o < digests.length; o++)
+            signatures[o] = digests[o].digest();
+    }
+
+    /**
+     * @return the input variables
+     */
+    public ArrayList<Variable> getInputs() {
+        return inputs;
+    }
+
+    /**
+     * @return the number of outputs
+     */
+    public int getOutputCount() {
+        return outputs.size();
+    }
+
+    /**
+     * Returns the name of the given output
+     *
+     * @param o the output
+     * @return the name
+     */
+    public String getOutputName(int o) {
+        return outputs.get(o);
+    }
+
+    /**
+     * Returns the number of rows in which the given output is one
+     *
+     * @param o the output
+     * @return the number of ones
+     */
+    public long getOnes(int o) {
+        return ones[o];
+    }
+
+    /**
+     * Returns the signature of the given output
+     *
+     * @param o the output
+     * @return the signature as a hex string
+     */
+    public String getSignature(int o) {
+        return Digest.toHex(getSignatures()[o]);
+    }
+
+    /**
+     * Returns the signature of the whole table.
+     * This signature also includes the names of the inputs and outputs.
+     *
+     * @return the signature as a hex string
+     */
+    public String getSignature() {
+        MessageDigest md = Digest.createSHA256();
+        for (Variable v : inputs)
+            md.update((v.getIdentifier() + "\n").getBytes(StandardCharsets.UTF_8));
+        for (int o = 0; o < outputs.size(); o++) {
+            md.update((outputs.get(o) + "\n").getBytes(StandardCharsets.UTF_8));
+            md.update(getSignatures()[o]);
+        }
+        return Digest.toHex(md.digest());
+    }
+
+    private byte[][] getSignatures() {
+        if (signatures == null)
+            throw new IllegalStateException("table not finished");
+        return signatures;
+    }
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.bdd;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * A manager of reduced ordered binary decision diagrams.
+ * A function is represented by the index of its root node. Because of the unique table, two
+ * functions are equal if and only if their root nodes are equal. The results of the
+ * operations are stored in a direct mapped operation cache.
+ * <p>
+ * The variables are numbered from 0 to vars-1. Whenever a row index is used, the variable 0
+ * is the most significant bit of the row index, like in the truth table.
+ * <p>
+ * The nodes are never freed. If a lot of intermediate results are created, or if the variable
+ * order should be changed, the required functions can be copied to a new manager by the
+ * {@link #reorder(int[], int[])} or {@link #sift(int[])} methods.
+ */
+public final class BDD {
+    /**
+     * The constant zero function
+     */
+    public static final int ZERO = 0;
+    /**
+     * The constant one function
+     */
+    public static final int ONE = 1;
+
+    private static final int OP_ITE = 0;
+    private static final int OP_RESTRICT = 1;
+    private static final int MIN_CACHE_SIZE = 1 << 10;
+    private static final int MAX_CACHE_SIZE = 1 << 20;
+    private static final NodeLimitException NODE_LIMIT = new NodeLimitException();
+
+    private final int vars;
+    private final int[] level2var;
+    private final int[] var2level;
+    private int[] nodeVar;
+    private int[] nodeLow;
+    private int[] nodeHigh;
+    private int size;
+    private int[] unique;
+    private int[] cacheOp;
+    private int[] cacheA;
+    private int[] cacheB;
+    private int[] cacheC;
+    private int[] cacheResult;
+    private int nodeLimit;
+
+    /**
+     * Creates a new instance with the natural variable order
+     *
+     * @param vars the number of variables
+     */
+    public BDD(int vars) {
+        this(vars, naturalOrder(vars));
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param vars  the number of variables
+     * @param order the variable order, order[0] is the variable at the top of the diagram
+     */
+    public BDD(int vars, int[] order) {
+        if (order.length != vars)
+            throw new IllegalArgumentException("order does not match the number of variables");
+        this.vars = vars;
+        level2var = order.clone();
+        var2level = new int[vars];
+        Arrays.fill(var2level, -1);
+        for (int l = 0; l < vars; l++) {
+            if (var2level[order[l]] >= 0)
+                throw new IllegalArgumentException("variable " + order[l] + " used twice");
+            var2level[order[l]] = l;
+        }
+
+        nodeVar = new int[1024];
+        nodeLow = new int[nodeVar.length];
+        nodeHigh = new int[nodeVar.length];
+        nodeVar[ZERO] = -1;
+        nodeVar[ONE] = -1;
+        size = 2;
+        unique = new int[2048];
+
+        createCache(MIN_CACHE_SIZE);
+    }
+
+    private void createCache(int cacheSize) {
+        cacheOp = new int[cacheSize];
+        Arrays.fill(cacheOp, -1);
+        cacheA = new int[cacheSize];
+        cacheB = new int[cacheSize];
+        cacheC = new int[cacheSize];
+        cacheResult = new int[cacheSize];
+    }
+
+    private static int[] naturalOrder(int vars) {
+        int[] order = new int[vars];
+        for (int i = 0; i < vars; i++)
+            order[i] = i;
+        return order;
+    }
+
+    /**
+     * @return the number of variables
+     */
+    public int getVars() {
+        return vars;
+    }
+
+    /**
+     * @return the variable order, the first entry is the variable at the top of the diagram
+     */
+    public int[] getOrder() {
+        return level2var.clone();
+    }
+
+    /**
+     * @return the number of nodes created so far, including the two terminal nodes
+     */
+    public int getNodesCreated() {
+        return size;
+    }
+
+    /**
+     * Returns the function of a single variable
+     *
+     * @param v the variable
+     * @return the function
+     */
+    public int var(int v) {
+        return mk(v, ZERO, ONE);
+    }
+
+    /**
+     * Returns the function of an inverted variable
+     *
+     * @param v the variable
+     * @return the function
+     */
+    public int notVar(int v) {
+        return mk(v, ONE, ZERO);
+    }
+
+    /**
+     * Returns the constant function
+     *
+     * @param value the value
+     * @return the function
+     */
+    public static int constant(boolean value) {
+        return value ? ONE : ZERO;
+    }
+
+    /**
+     * @param f the function
+     * @return the inverted function
+     */
+    public int not(int f) {
+        return ite(f, ZERO, ONE);
+    }
+
+    /**
+     * @param f the first function
+     * @param g the second function
+     * @return f and g
+     */
+    public int and(int f, int g) {
+        return ite(f, g, ZERO);
+    }
+
+    /**
+     * @param f the first function
+     * @param g the second function
+     * @return f or g
+     */
+    public int or(int f, int g) {
+        return ite(f, ONE, g);
+    }
+
+    /**
+     * @param f the first function
+     * @param g the second function
+     * @return f xor g
+     */
+    public int xor(int f, int g) {
+        return ite(f, not(g), g);
+    }
+
+    /**
+     * If then else operation
+     *
+     * @param f the condition
+     * @param g the function used if f is one
+     * @param h the function used if f is zero
+     * @return the function (f and g) or (not f and h)
+     */
+    public int ite(int f, int g, int h) {
+        if (f == ONE)
+            return g;
+        if (f == ZERO)
+            return h;
+        if (g == h)
+            return g;
+        if (g == ONE && h == ZERO)
+            return f;
+
+        final int slot = cacheSlot(OP_ITE, f, g, h);
+        if (cacheOp[slot] == OP_ITE && cacheA[slot] == f && cacheB[slot] == g && cacheC[slot] == h)
+            return cacheResult[slot];
+
+        final int top = Math.min(level(f), Math.min(level(g), level(h)));
+        final int v = level2var[top];
+        final int low = ite(cofactor(f, top, false), cofactor(g, top, false), cofactor(h, top, false));
+        final int high = ite(cofactor(f, top, true), cofactor(g, top, true), cofactor(h, top, true));
+        final int r = mk(v, low, high);
+
+        store(slot, OP_ITE, f, g, h, r);
+        return r;
+    }
+
+    /**
+     * Returns the cofactor of the function
+     *
+     * @param f     the function
+     * @param v     the variable to set
+     * @param value the value of the variable
+     * @return the function with the variable v set to the given value
+     */
+    public int restrict(int f, int v, boolean value) {
+        final int l = var2level[v];
+        if (level(f) > l)
+            return f;
+        if (level(f) == l)
+            return value ? nodeHigh[f] : nodeLow[f];
+
+        final int c = value ? 1 : 0;
+        final int slot = cacheSlot(OP_RESTRICT, f, v, c);
+        if (cacheOp[slot] == OP_RESTRICT && cacheA[slot] == f && cacheB[slot] == v && cacheC[slot] == c)
+            return cacheResult[slot];
+
+        final int r = mk(nodeVar[f], restrict(nodeLow[f], v, value), restrict(nodeHigh[f], v, value));
+        store(slot, OP_RESTRICT, f, v, c, r);
+        return r;
+    }
+
+    /**
+     * Returns true if the function depends on the given variable
+     *
+     * @param f the function
+     * @param v the variable
+     * @return true if the function depends on the variable
+     */
+    public boolean dependsOn(int f, int v) {
+        return restrict(f, v, false) != restrict(f, v, true);
+    }
+
+    /**
+     * Evaluates the function
+     *
+     * @param f   the function
+     * @param row the row index, variable 0 is the most significant bit
+     * @return the value of the function
+     */
+    public boolean evaluate(int f, long row) {
+        int n = f;
+        while (n > ONE) {
+            if (((row >>> (vars - 1 - nodeVar[n])) & 1) != 0)
+                n = nodeHigh[n];
+            else
+                n = nodeLow[n];
+        }
+        return n == ONE;
+    }
+
+    /**
+     * Returns the number of rows for which the function is one
+     *
+     * @param f the function
+     * @return the number of rows
+     */
+    public BigInteger satCount(int f) {
+        return satCount(f, new HashMap<>()).shiftLeft(levelOrBottom(f));
+    }
+
+    /**
+     * Counts the assignments of the variables from the level of n to the bottom.
+     */
+    private BigInteger satCount(int n, HashMap<Integer, BigInteger> memo) {
+        if (n == ZERO)
+            return BigInteger.ZERO;
+        if (n == ONE)
+            return BigInteger.ONE;
+        BigInteger c = memo.get(n);
+        if (c == null) {
+            final int l = level(n);
+            c = satCount(nodeLow[n], memo).shiftLeft(levelOrBottom(nodeLow[n]) - l - 1)
+                    .add(satCount(nodeHigh[n], memo).shiftLeft(levelOrBottom(nodeHigh[n]) - l - 1));
+            memo.put(n, c);
+        }
+        return c;
+    }
+
+    /**
+     * Finds a row for which the function is one.
+     * Variables the function does not depend on are set to zero.
+     *
+     * @param f the function
+     * @return the row index, variable 0 is the most significant bit, or -1 if the function is zero
+     */
+    public long anySat(int f) {
+        if (f == ZERO)
+            return -1;
+        long row = 0;
+        int n = f;
+        while (n != ONE) {
+            if (nodeLow[n] != ZERO)
+                n = nodeLow[n];
+            else {
+                row |= 1L << (vars - 1 - nodeVar[n]);
+                n = nodeHigh[n];
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Counts the nodes reachable from the given functions, including the terminal nodes
+     *
+     * @param roots the functions
+     * @return the number of nodes
+     */
+    public int nodeCount(int... roots) {
+        BitSet visited = new BitSet(size);
+        int[] stack = new int[size];
+        int sp = 0;
+        for (int r : roots)
+            stack[sp++] = r;
+        int count = 0;
+        while (sp > 0) {
+            final int n = stack[--sp];
+            if (!visited.get(n)) {
+                visited.set(n);
+                count++;
+                if (n > ONE) {
+                    stack[sp++] = nodeLow[n];
+                    stack[sp++] = nodeHigh[n];
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Copies the given functions to a new manager with the given variable order.
+     *
+     * @param order the new variable order
+     * @param roots the functions to copy, the entries are replaced by the functions in the new manager
+     * @return the new manager
+     */
+    public BDD reorder(int[] order, int[] roots) {
+        return reorder(order, roots, 0);
+    }
+
+    /**
+     * Copies the given functions to a new manager with the given variable order.
+     *
+     * @return the new manager or null if the limit of nodes was exceeded
+     */
+    private BDD reorder(int[] order, int[] roots, int limit) {
+        BDD target = new BDD(vars, order);
+        target.nodeLimit = limit;
+        int[] map = new int[size];
+        Arrays.fill(map, -1);
+        map[ZERO] = ZERO;
+        map[ONE] = ONE;
+        int[] r = new int[roots.length];
+        try {
+            for (int i = 0; i < roots.length; i++)
+                r[i] = copy(target, roots[i], map);
+        } catch (NodeLimitException e) {
+            return null;
+        }
+        target.nodeLimit = 0;
+        System.arraycopy(r, 0, roots, 0, roots.length);
+        return target;
+    }
+
+    private int copy(BDD target, int n, int[] map) {
+        int r = map[n];
+        if (r < 0) {
+            final int low = copy(target, nodeLow[n], map);
+            final int high = copy(target, nodeHigh[n], map);
+            r = target.ite(target.var(nodeVar[n]), high, low);
+            map[n] = r;
+        }
+        return r;
+    }
+
+    /**
+     * Searches a better variable order by sifting.
+     * Every variable is moved to all positions, and is kept at the position which leads to the
+     * smallest number of nodes.
+     *
+     * @param roots the functions to optimize, the entries are replaced by the functions in the new manager
+     * @return the new manager
+     */
+    public BDD sift(int[] roots) {
+        BDD best = reorder(level2var, roots);
+        int bestSize = best.nodeCount(roots);
+        int[] order = level2var.clone();
+        for (int v = 0; v < vars; v++) {
+            int pos = best.var2level[v];
+            for (int p = 0; p < vars; p++) {
+                if (p == pos)
+                    continue;
+                int[] o = move(order, pos, p);
+                int[] r = roots.clone();
+                BDD b = best.reorder(o, r, Math.max(bestSize * 4, 1024));
+                if (b != null) {
+                    int s = b.nodeCount(r);
+                    if (s < bestSize) {
+                        best = b;
+                        bestSize = s;
+                        order = o;
+                        pos = p;
+                        System.arraycopy(r, 0, roots, 0, roots.length);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int[] move(int[] order, int from, int to) {
+        int[] o = order.clone();
+        final int v = o[from];
+        if (from < to)
+            System.arraycopy(o, from + 1, o, from, to - from);
+        else
+            System.arraycopy(o, to, o, to + 1, from - to);
+        o[to] = v;
+        return o;
+    }
+
+    private int level(int n) {
+        if (n <= ONE)
+            return Integer.MAX_VALUE;
+        return var2level[nodeVar[n]];
+    }
+
+    private int levelOrBottom(int n) {
+        if (n <= ONE)
+            return vars;
+        return var2level[nodeVar[n]];
+    }
+
+    private int cofactor(int f, int level, boolean value) {
+        if (level(f) != level)
+            return f;
+        return value ? nodeHigh[f] : nodeLow[f];
+    }
+
+    /**
+     * Returns the node with the given variable and children.
+     * Creates the node if it does not exist yet.
+     */
+    private int mk(int v, int low, int high) {
+        if (low == high)
+            return low;
+
+        int mask = unique.length - 1;
+        int i = hash(v, low, high) & mask;
+        while (unique[i] != 0) {
+            final int n = unique[i];
+            if (nodeVar[n] == v && nodeLow[n] == low && nodeHigh[n] == high)
+                return n;
+            i = (i + 1) & mask;
+        }
+
+        if (nodeLimit > 0 && size > nodeLimit)
+            throw NODE_LIMIT;
+        if (size == nodeVar.length) {
+            nodeVar = Arrays.copyOf(nodeVar, size * 2);
+            nodeLow = Arrays.copyOf(nodeLow, size * 2);
+            nodeHigh = Arrays.copyOf(nodeHigh, size * 2);
+        }
+        final int n = size++;
+        nodeVar[n] = v;
+        nodeLow[n] = low;
+        nodeHigh[n] = high;
+        unique[i] = n;
+        if (size * 2 > unique.length)
+            rehash();
+        if (size > cacheOp.length && cacheOp.length < MAX_CACHE_SIZE)
+            createCache(cacheOp.length * 2);
+        return n;
+    }
+
+    private void rehash() {
+        unique = new int[unique.length * 2];
+        final int mask = unique.length - 1;
+        for (int n = 2; n < size; n++) {
+            int i = hash(nodeVar[n], nodeLow[n], nodeHigh[n]) & mask;
+            while (unique[i] != 0)
+                i = (i + 1) & mask;
+            unique[i] = n;
+        }
+    }
+
+    private static int hash(int v, int low, int high) {
+        long h = v * 0x9E3779B97F4A7C15L + low * 0xC2B2AE3D27D4EB4FL + high * 0x165667B19E3779F9L;
+        return (int) (h ^ (h >>> 29));
+    }
+
+    private int cacheSlot(int op, int a, int b, int c) {
+        return (hash(a, b, c) + op * 0x3C6EF372) & (cacheOp.length - 1);
+    }
+
+    private void store(int slot, int op, int a, int b, int c, int r) {
+        cacheOp[slot] = op;
+        cacheA[slot] = a;
+        cacheB[slot] = b;
+        cacheC[slot] = c;
+        cacheResult[slot] = r;
+    }
+
+    /**
+     * Thrown if the node limit is exceeded while reordering
+     */
+    private static final class NodeLimitException extends RuntimeException {
+        private NodeLimitException() {
+            super("node limit exceeded", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.bdd;
+
+import de.neemann.digital.analyse.TruthTableConsumer;
+import de.neemann.digital.analyse.expression.Variable;
+
+import java.util.ArrayList;
+
+/**
+ * Builds the BDDs of the outputs of a truth table which is passed row by row.
+ * Since the rows arrive in ascending order, the diagrams are created bottom up.
+ * Only the nodes of the completed sub tables are kept, so the memory needed
+ * depends on the size of the diagrams and not on the size of the table.
+ */
+public final class BDDBuilder implements TruthTableConsumer {
+    private BDD bdd;
+    private ArrayList<Variable> inputs;
+    private ArrayList<String> outputs;
+    private int vars;
+    private int blockVars;
+    private int[][] stack;
+    private int[][] stackVars;
+    private int[] stackSize;
+    private int[] results;
+
+    @Override
+    public void start(ArrayList<Variable> inputs, ArrayList<String> outputs) {
+        this.inputs = inputs;
+        this.outputs = outputs;
+        vars = inputs.size();
+        blockVars = Math.min(vars, 6);
+        bdd = new BDD(vars);
+        stack = new int[outputs.size()][vars + 1];
+        stackVars = new int[outputs.size()][vars + 1];
+        stackSize = new int[outputs.size()];
+        results = null;
+    }
+
+    @Override
+    public void addRows(long row, int rows, long[] values) {
+        for (int o = 0; o < values.length; o++) {
+            int f = createBlock(values[o], 0, 1 << blockVars);
+            int fVars = blockVars;
+
+            // merge sub tables of equal size, the older one belongs to the variable being zero
+            final int[] st = stack[o];
+            final int[] sv = stackVars[o];
+            int size = stackSize[o];
+            while (size > 0 && sv[size - 1] == fVars) {
+                size--;
+                f = bdd.ite(bdd.var(vars - fVars - 1), f, st[size]);
+                fVars++;
+            }
+            st[size] = f;
+            sv[size] = fVars;
+            stackSize[o] = size + 1;
+        }
+    }
+
+    private int createBlock(long value, int first, int rows) {
+        if (rows == 1)
+            return BDD.constant(((value >>> first) & 1) != 0);
+        final int half = rows / 2;
+        final int low = createBlock(value, first, half);
+        final int high = createBlock(value, first + half, half);
+        if (low == high)
+            return low;
+        return bdd.ite(bdd.var(vars - Integer.numberOfTrailingZeros(rows)), high, low);
+    }
+
+    @Override
+    public void finished() {
+        results = new int[outputs.size()];
+        for (int o = 0; o < results.length; o++) {
+            if (stackSize[o] != 1 || stackVars[o][0] != vars)
+                throw new IllegalStateException("table incomplete");
+            results[o] = stack[o][0];
+        }
+    }
+
+    /**
+     * @return the BDD manager used
+     */
+    public BDD getBDD() {
+        return bdd;
+    }
+
+    /**
+     * @return the variables, the index in this list is the BDD variable
+     */
+    public ArrayList<Variable> getVariables() {
+        return inputs;
+    }
+
+    /**
+     * @return the names of the outputs
+     */
+    public ArrayList<String> getOutputNames() {
+        return outputs;
+    }
+
+    /**
+     * Returns the function of the given output
+     *
+     * @param o the output
+     * @return the function
+     */
+    public int getOutput(int o) {
+        if (results == null)
+            throw new IllegalStateException("table not finished");
+        return results[o];
+    }
+}
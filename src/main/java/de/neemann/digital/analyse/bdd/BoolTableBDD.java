@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.bdd;
+
+import de.neemann.digital.analyse.quinemc.BoolTable;
+import de.neemann.digital.analyse.quinemc.ThreeStateValue;
+
+/**
+ * A bool table which evaluates a BDD lazily.
+ * Only the rows which are requested are evaluated.
+ */
+public final class BoolTableBDD implements BoolTable {
+    private final BDD bdd;
+    private final int f;
+    private final int size;
+
+    /**
+     * Creates a new instance
+     *
+     * @param bdd the BDD manager
+     * @param f   the function
+     */
+    public BoolTableBDD(BDD bdd, int f) {
+        if (bdd.getVars() > 30)
+            throw new IllegalArgumentException("to many variables");
+        this.bdd = bdd;
+        this.f = f;
+        size = 1 << bdd.getVars();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ThreeStateValue get(int i) {
+        return ThreeStateValue.value(bdd.evaluate(f, i));
+    }
+}
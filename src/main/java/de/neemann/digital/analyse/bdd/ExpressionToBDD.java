@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.bdd;
+
+import de.neemann.digital.analyse.expression.Constant;
+import de.neemann.digital.analyse.expression.Expression;
+import de.neemann.digital.analyse.expression.ExpressionException;
+import de.neemann.digital.analyse.expression.NamedExpression;
+import de.neemann.digital.analyse.expression.Not;
+import de.neemann.digital.analyse.expression.Operation;
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.lang.Lang;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Converts expressions to BDDs.
+ * The index of a variable in the list of variables is the BDD variable used.
+ * Sub expressions which are used multiple times are converted only once.
+ */
+public final class ExpressionToBDD {
+    private final BDD bdd;
+    private final HashMap<Variable, Integer> varMap;
+    private final IdentityHashMap<Expression, Integer> converted;
+
+    /**
+     * Creates a new instance
+     *
+     * @param bdd       the BDD manager to use
+     * @param variables the variables
+     */
+    public ExpressionToBDD(BDD bdd, List<Variable> variables) {
+        this.bdd = bdd;
+        varMap = new HashMap<>();
+        for (int i = 0; i < variables.size(); i++)
+            varMap.put(variables.get(i), i);
+        converted = new IdentityHashMap<>();
+    }
+
+    /**
+     * Creates a new instance with a new BDD manager
+     *
+     * @param variables the variables
+     */
+    public ExpressionToBDD(List<Variable> variables) {
+        this(new BDD(variables.size()), variables);
+    }
+
+    /**
+     * @return the BDD manager used
+     */
+    public BDD getBDD() {
+        return bdd;
+    }
+
+    /**
+     * Converts the given expression
+     *
+     * @param e the expression
+     * @return the function
+     * @throws ExpressionException ExpressionException
+     */
+    public int create(Expression e) throws ExpressionException {
+        Integer f = converted.get(e);
+        if (f == null) {
+            f = convert(e);
+            converted.put(e, f);
+        }
+        return f;
+    }
+
+    private int convert(Expression e) throws ExpressionException {
+        if (e instanceof Constant)
+            return BDD.constant(((Constant) e).getValue());
+        if (e instanceof Variable) {
+            Integer v = varMap.get(e);
+            if (v == null)
+                throw new ExpressionException(Lang.get("err_varNotDefined_N", e));
+            return bdd.var(v);
+        }
+        if (e instanceof Not)
+            return bdd.not(create(((Not) e).getExpression()));
+        if (e instanceof NamedExpression)
+            return create(((NamedExpression) e).getExpression());
+        if (e instanceof Operation.And) {
+            int r = BDD.ONE;
+            for (Expression o : ((Operation) e).getExpressions())
+                r = bdd.and(r, create(o));
+            return r;
+        }
+        if (e instanceof Operation.Or) {
+            int r = BDD.ZERO;
+            for (Expression o : ((Operation) e).getExpressions())
+                r = bdd.or(r, create(o));
+            return r;
+        }
+        if (e instanceof Operation.XOr) {
+            int r = BDD.ZERO;
+            for (Expression o : ((Operation) e).getExpressions())
+                r = bdd.xor(r, create(o));
+            return r;
+        }
+        throw new ExpressionException("expression " + e.getClass().getSimpleName() + " not supported");
+    }
+
+    /**
+     * Checks if two expressions are equivalent
+     *
+     * @param a the first expression
+     * @param b the second expression
+     * @return true if both expressions are equivalent
+     * @throws ExpressionException ExpressionException
+     */
+    public boolean isEquivalent(Expression a, Expression b) throws ExpressionException {
+        return create(a) == create(b);
+    }
+}
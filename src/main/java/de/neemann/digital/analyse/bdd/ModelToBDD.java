@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.bdd;
+
+import de.neemann.digital.analyse.AnalyseException;
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.core.Model;
+import de.neemann.digital.core.Node;
+import de.neemann.digital.core.ObservableValue;
+import de.neemann.digital.core.Signal;
+import de.neemann.digital.core.basic.And;
+import de.neemann.digital.core.basic.FanIn;
+import de.neemann.digital.core.basic.NAnd;
+import de.neemann.digital.core.basic.NOr;
+import de.neemann.digital.core.basic.Not;
+import de.neemann.digital.core.basic.Or;
+import de.neemann.digital.core.basic.XNOr;
+import de.neemann.digital.core.basic.XOr;
+import de.neemann.digital.core.wiring.Multiplexer;
+import de.neemann.digital.draw.elements.PinException;
+import de.neemann.digital.lang.Lang;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Converts the combinational cone of a models output to BDDs.
+ * Every bit of the models inputs becomes a BDD variable. Multi bit inputs are split into single
+ * bits the same way the {@link de.neemann.digital.analyse.ModelAnalyser} does it, the most
+ * significant bit comes first.
+ * The cone is traversed backwards, starting at the output. Only the basic gates and the
+ * multiplexer are supported. Values which are not created by a node are only allowed if they
+ * are constants like the output of a {@link de.neemann.digital.core.io.Const}. All other values,
+ * e.g. the outputs of a splitter or a clock, can not be traversed and cause an exception.
+ * The model is not simulated, so the inputs are not limited in number.
+ */
+public final class ModelToBDD {
+    private final BDD bdd;
+    private final Model model;
+    private final ArrayList<Variable> variables;
+    private final HashMap<ObservableValue, int[]> values;
+    private final HashMap<ObservableValue, Node> producers;
+    private final HashSet<ObservableValue> visiting;
+
+    /**
+     * Creates a new instance
+     *
+     * @param model the model
+     * @throws AnalyseException AnalyseException
+     */
+    public ModelToBDD(Model model) throws AnalyseException {
+        this.model = model;
+        variables = new ArrayList<>();
+        values = new HashMap<>();
+        ArrayList<Signal> inputs = model.getInputs();
+        for (Signal s : inputs) {
+            final int bits = s.getValue().getBits();
+            if (bits == 1)
+                variables.add(new Variable(s.getName()));
+            else {
+                String name = s.getName();
+                if (!name.contains("_"))
+                    name += "_";
+                for (int i = bits - 1; i >= 0; i--)
+                    variables.add(new Variable(name + i));
+            }
+        }
+
+        bdd = new BDD(variables.size());
+        int v = 0;
+        for (Signal s : inputs) {
+            final int bits = s.getValue().getBits();
+            int[] f = new int[bits];
+            for (int i = bits - 1; i >= 0; i--)
+                f[i] = bdd.var(v++);
+            values.put(s.getValue(), f);
+        }
+
+        producers = new HashMap<>();
+        try {
+            for (Node n : model)
+                for (ObservableValue o : n.getOutputs())
+                    producers.put(o, n);
+        } catch (PinException e) {
+            throw new AnalyseException(e);
+        }
+        visiting = new HashSet<>();
+    }
+
+    /**
+     * @return the BDD manager used
+     */
+    public BDD getBDD() {
+        return bdd;
+    }
+
+    /**
+     * @return the variables, the index in this list is the BDD variable
+     */
+    public ArrayList<Variable> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Creates the functions of the output with the given name
+     *
+     * @param name the name of the output
+     * @return the functions, the first entry is the least significant bit
+     * @throws AnalyseException AnalyseException
+     */
+    public int[] getOutput(String name) throws AnalyseException {
+        for (Signal s : model.getOutputs())
+            if (s.getName().equals(name))
+                return create(s.getValue());
+        throw new AnalyseException(Lang.get("err_varNotDefined_N", name));
+    }
+
+    /**
+     * Creates the functions of the given value
+     *
+     * @param value the value
+     * @return the functions, the first entry is the least significant bit
+     * @throws AnalyseException AnalyseException
+     */
+    public int[] create(ObservableValue value) throws AnalyseException {
+        int[] f = values.get(value);
+        if (f != null)
+            return f;
+
+        Node n = producers.get(value);
+        if (n == null) {
+            if (!value.isConstant() || value.isHighZ())
+                throw new AnalyseException(Lang.get("err_backtrackOf_N_isImpossible", value.getName()));
+            f = new int[value.getBits()];
+            for (int i = 0; i < f.length; i++)
+                f[i] = BDD.constant((value.getValue() & (1L << i)) != 0);
+        } else {
+            if (!visiting.add(value))
+                throw new AnalyseException(Lang.get("err_circuitHasCycles"));
+            f = create(n, value.getBits());
+            visiting.remove(value);
+        }
+        values.put(value, f);
+        return f;
+    }
+
+    private int[] create(Node n, int bits) throws AnalyseException {
+        int[] f = new int[bits];
+        if (n instanceof Not) {
+            int[] in = create(((Not) n).getInput());
+            for (int i = 0; i < bits; i++)
+                f[i] = bdd.not(in[i]);
+        } else if (n instanceof Multiplexer) {
+            Multiplexer mux = (Multiplexer) n;
+            int[] sel = create(mux.getSelector());
+            ArrayList<int[]> in = createInputs(mux);
+            for (int i = 0; i < bits; i++) {
+                int[] v = new int[in.size()];
+                for (int j = 0; j < v.length; j++)
+                    v[j] = in.get(j)[i];
+                int len = v.length;
+                for (int s = 0; s < sel.length; s++) {
+                    len /= 2;
+                    for (int j = 0; j < len; j++)
+                        v[j] = bdd.ite(sel[s], v[2 * j + 1], v[2 * j]);
+                }
+                f[i] = v[0];
+            }
+        } else if (n instanceof And || n instanceof Or || n instanceof XOr) {
+            ArrayList<int[]> in = createInputs((FanIn) n);
+            for (int i = 0; i < bits; i++) {
+                int r = n instanceof And ? BDD.ONE : BDD.ZERO;
+                for (int[] v : in)
+                    if (n instanceof And)
+                        r = bdd.and(r, v[i]);
+                    else if (n instanceof Or)
+                        r = bdd.or(r, v[i]);
+                    else
+                        r = bdd.xor(r, v[i]);
+                if (n instanceof NAnd || n instanceof NOr || n instanceof XNOr)
+                    r = bdd.not(r);
+                f[i] = r;
+            }
+        } else
+            throw new AnalyseException(Lang.get("err_backtrackOf_N_isImpossible", n.getClass().getSimpleName()));
+        return f;
+    }
+
+    private ArrayList<int[]> createInputs(FanIn n) throws AnalyseException {
+        ArrayList<int[]> in = new ArrayList<>();
+        for (ObservableValue v : n.getInputs())
+            in.add(create(v));
+        return in;
+    }
+}
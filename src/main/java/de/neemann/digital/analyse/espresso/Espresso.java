@@ -0,0 +1,496 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.espresso;
+
+import de.neemann.digital.analyse.expression.Constant;
+import de.neemann.digital.analyse.expression.Expression;
+import de.neemann.digital.analyse.expression.ExpressionException;
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.analyse.quinemc.BoolTable;
+import de.neemann.digital.analyse.quinemc.ThreeStateValue;
+import de.neemann.digital.lang.Lang;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static de.neemann.digital.analyse.expression.Not.not;
+import static de.neemann.digital.analyse.expression.Operation.and;
+import static de.neemann.digital.analyse.expression.Operation.or;
+
+/**
+ * Heuristic two level minimizer in the style of espresso.
+ * The function is stored in three lists of cubes: the cover of the ones, the "don't cares"
+ * and the zeros. The lists are created from the table by merging equal cubes of both halves of
+ * the table recursively, so a table with a regular structure results in short lists.
+ * The cover is improved by the expand, irredundant and reduce loop until its cost does not decrease
+ * anymore. Expand checks the cubes against the list of zeros, irredundant and reduce use the
+ * cofactors of the other cubes.
+ * The result is not necessarily minimal, but the runtime grows with the number of cubes and not
+ * exponentially like the runtime of the Quine-McCluskey algorithm.
+ */
+public final class Espresso {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Espresso.class);
+    private static final int MAX_ITERATIONS = 16;
+    private static final int MAX_VARS = 30;
+    private static final Cube UNIVERSE = new Cube(0, 0);
+
+    private final int vars;
+    private final ArrayList<Cube> dontCare;
+    private final ArrayList<Cube> off;
+    private ArrayList<Cube> cover;
+
+    /**
+     * Creates a new instance
+     *
+     * @param vars  the number of variables
+     * @param table the table to minimize
+     * @throws ExpressionException ExpressionException
+     */
+    public Espresso(int vars, BoolTable table) throws ExpressionException {
+        if (vars > MAX_VARS)
+            throw new ExpressionException(Lang.get("err_toManyVariables_N0_max_N1", vars, MAX_VARS));
+        int n = 1 << vars;
+        if (n != table.size())
+            throw new ExpressionException(Lang.get("err_exact_N0_valuesNecessaryNot_N1", n, table.size()));
+
+        this.vars = vars;
+        // the cover may contain "don't cares", the zeros must not, otherwise they would block the expansion
+        cover = new Extractor(table, ThreeStateValue.one, true).extract(vars);
+        off = new Extractor(table, ThreeStateValue.zero, false).extract(vars);
+        dontCare = new Extractor(table, ThreeStateValue.dontCare, false).extract(vars);
+    }
+
+    /**
+     * Minimizes the table
+     *
+     * @return this for chained calls
+     */
+    public Espresso minimize() {
+        LOGGER.debug("espresso: " + cover.size() + " ones, " + off.size() + " zeros, " + dontCare.size() + " don't cares");
+        expandAll();
+        irredundant();
+
+        ArrayList<Cube> best = cover;
+        long bestCost = cost();
+        LOGGER.debug("espresso initial cover: " + cover.size() + " cubes");
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            reduce();
+            expandAll();
+            irredundant();
+            long c = cost();
+            LOGGER.debug("espresso iteration " + i + ": " + cover.size() + " cubes");
+            if (c >= bestCost)
+                break;
+            best = cover;
+            bestCost = c;
+        }
+        cover = best;
+        return this;
+    }
+
+    /**
+     * @return the cubes of the cover
+     */
+    public List<Cube> getCover() {
+        return cover;
+    }
+
+    /**
+     * Creates the expression representing the cover
+     *
+     * @param variables the variables, the first variable is the most significant bit of the row index
+     * @return the expression
+     */
+    public Expression getExpression(List<Variable> variables) {
+        if (cover.isEmpty())
+            return Constant.ZERO;
+
+        ArrayList<Cube> sorted = new ArrayList<>(cover);
+        sorted.sort(Comparator.comparingLong((Cube c) -> c.care).thenComparingLong(c -> c.value));
+
+        ArrayList<Expression> terms = new ArrayList<>();
+        for (Cube c : sorted) {
+            ArrayList<Expression> literals = new ArrayList<>();
+            for (int v = 0; v < vars; v++) {
+                long bit = 1L << (vars - v - 1);
+                if ((c.care & bit) != 0) {
+                    if ((c.value & bit) != 0)
+                        literals.add(variables.get(v));
+                    else
+                        literals.add(not(variables.get(v)));
+                }
+            }
+            if (literals.isEmpty())
+                return Constant.ONE;
+            terms.add(and(literals));
+        }
+        return or(terms);
+    }
+
+    private long cost() {
+        long literals = 0;
+        for (Cube c : cover)
+            literals += Long.bitCount(c.care);
+        return cover.size() * (long) (vars + 1) + literals;
+    }
+
+    /**
+     * Expands all cubes to primes. The largest cubes are expanded first, and all
+     * cubes which are contained in an expanded cube are removed from the cover.
+     */
+    private void expandAll() {
+        int[] ones = new int[vars];
+        int[] zeros = new int[vars];
+        for (Cube c : cover)
+            for (int v = 0; v < vars; v++) {
+                final long bit = 1L << v;
+                if ((c.care & bit) != 0) {
+                    if ((c.value & bit) != 0)
+                        ones[v]++;
+                    else
+                        zeros[v]++;
+                }
+            }
+
+        ArrayList<Cube> sorted = new ArrayList<>(cover);
+        sorted.sort(Comparator.comparingInt(c -> Long.bitCount(c.care)));
+        boolean[] covered = new boolean[sorted.size()];
+        ArrayList<Cube> expanded = new ArrayList<>();
+        for (int i = 0; i < sorted.size(); i++)
+            if (!covered[i]) {
+                Cube e = expand(sorted.get(i), ones, zeros);
+                expanded.add(e);
+                for (int j = i + 1; j < sorted.size(); j++)
+                    if (!covered[j] && e.contains(sorted.get(j)))
+                        covered[j] = true;
+            }
+        cover = expanded;
+    }
+
+    /**
+     * Expands the cube to a prime.
+     * The literals are removed in the order of the number of cubes which do not contain
+     * this literal, because removing such a literal makes it more likely that other
+     * cubes are covered. A literal is only removed if the cube does not intersect a zero.
+     */
+    private Cube expand(Cube c, int[] ones, int[] zeros) {
+        ArrayList<Integer> order = new ArrayList<>();
+        int[] score = new int[vars];
+        for (int v = 0; v < vars; v++)
+            if ((c.care & (1L << v)) != 0) {
+                order.add(v);
+                score[v] = cover.size() - ((c.value & (1L << v)) != 0 ? ones[v] : zeros[v]);
+            }
+        order.sort(Comparator.comparingInt((Integer v) -> score[v]).reversed());
+
+        long care = c.care;
+        for (int v : order) {
+            final long bit = 1L << v;
+            Cube trial = new Cube(care & ~bit, c.value);
+            if (!intersectsAny(trial, off))
+                care &= ~bit;
+        }
+        return new Cube(care, c.value);
+    }
+
+    private static boolean intersectsAny(Cube c, List<Cube> cubes) {
+        for (Cube o : cubes)
+            if (c.intersects(o))
+                return true;
+        return false;
+    }
+
+    /**
+     * Removes all cubes which are covered by the other cubes and the "don't cares".
+     * The smallest cubes are removed first.
+     */
+    private void irredundant() {
+        ArrayList<Cube> sorted = new ArrayList<>(cover);
+        sorted.sort(Comparator.comparingInt((Cube c) -> Long.bitCount(c.care)).reversed());
+        boolean[] removed = new boolean[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            Cube c = sorted.get(i);
+            if (isTautology(cofactorOfOthers(c, sorted, removed, i)))
+                removed[i] = true;
+        }
+        ArrayList<Cube> remaining = new ArrayList<>();
+        for (int i = 0; i < sorted.size(); i++)
+            if (!removed[i])
+                remaining.add(sorted.get(i));
+        cover = remaining;
+    }
+
+    /**
+     * Reduces every cube to the smallest cube which contains all the minterms
+     * which are covered by this cube only. The largest cubes are reduced first.
+     */
+    private void reduce() {
+        ArrayList<Cube> sorted = new ArrayList<>(cover);
+        sorted.sort(Comparator.comparingInt(c -> Long.bitCount(c.care)));
+        boolean[] removed = new boolean[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            Cube c = sorted.get(i);
+            Cube s = complementSupercube(cofactorOfOthers(c, sorted, removed, i));
+            if (s == null)
+                removed[i] = true;
+            else
+                sorted.set(i, new Cube(c.care | s.care, c.value | s.value));
+        }
+        ArrayList<Cube> reduced = new ArrayList<>();
+        for (int i = 0; i < sorted.size(); i++)
+            if (!removed[i])
+                reduced.add(sorted.get(i));
+        cover = reduced;
+    }
+
+    /**
+     * Creates the cofactor of all the cubes of the cover except the given one
+     * and the "don't cares" with respect to the given cube.
+     */
+    private ArrayList<Cube> cofactorOfOthers(Cube c, ArrayList<Cube> cubes, boolean[] removed, int index) {
+        ArrayList<Cube> cofactor = new ArrayList<>();
+        for (int j = 0; j < cubes.size(); j++)
+            if (j != index && !removed[j])
+                addCofactor(cofactor, cubes.get(j), c);
+        for (Cube d : dontCare)
+            addCofactor(cofactor, d, c);
+        return cofactor;
+    }
+
+    private static void addCofactor(ArrayList<Cube> cofactor, Cube cube, Cube c) {
+        if (cube.intersects(c))
+            cofactor.add(new Cube(cube.care & ~c.care, cube.value));
+    }
+
+    private static ArrayList<Cube> cofactor(List<Cube> cubes, long bit, long value) {
+        ArrayList<Cube> cofactor = new ArrayList<>();
+        for (Cube c : cubes)
+            if ((c.care & bit) == 0 || (c.value & bit) == value)
+                cofactor.add(new Cube(c.care & ~bit, c.value));
+        return cofactor;
+    }
+
+    /**
+     * Returns the variable to split a list of cubes.
+     * The variable which appears most often in the given variables is used.
+     */
+    private static long splitBit(List<Cube> cubes, long candidates) {
+        int[] count = new int[64];
+        for (Cube c : cubes) {
+            long bits = c.care & candidates;
+            while (bits != 0) {
+                count[Long.numberOfTrailingZeros(bits)]++;
+                bits &= bits - 1;
+            }
+        }
+        int best = 0;
+        for (int i = 1; i < count.length; i++)
+            if (count[i] > count[best])
+                best = i;
+        return 1L << best;
+    }
+
+    /**
+     * Checks if the given cubes cover all minterms.
+     * A unate list of cubes is a tautology only if it contains the universal cube,
+     * otherwise the check is done recursively on the cofactors of a binate variable.
+     */
+    private static boolean isTautology(List<Cube> cubes) {
+        if (cubes.isEmpty())
+            return false;
+        long ones = 0;
+        long zeros = 0;
+        for (Cube c : cubes) {
+            if (c.care == 0)
+                return true;
+            ones |= c.care & c.value;
+            zeros |= c.care & ~c.value;
+        }
+        long binate = ones & zeros;
+        if (binate == 0)
+            return false;
+
+        final long bit = splitBit(cubes, binate);
+        return isTautology(cofactor(cubes, bit, 0)) && isTautology(cofactor(cubes, bit, bit));
+    }
+
+    /**
+     * Returns the smallest cube which contains the complement of the given cubes.
+     *
+     * @return the cube or null if the complement is empty
+     */
+    private static Cube complementSupercube(List<Cube> cubes) {
+        if (cubes.isEmpty())
+            return UNIVERSE;
+        long used = 0;
+        for (Cube c : cubes) {
+            if (c.care == 0)
+                return null;
+            used |= c.care;
+        }
+        if (cubes.size() == 1) {
+            Cube c = cubes.get(0);
+            if (Long.bitCount(c.care) == 1)
+                return new Cube(c.care, ~c.value);
+            return UNIVERSE;
+        }
+
+        final long bit = splitBit(cubes, used);
+        Cube c0 = complementSupercube(cofactor(cubes, bit, 0));
+        Cube c1 = complementSupercube(cofactor(cubes, bit, bit));
+        if (c0 == null) {
+            if (c1 == null)
+                return null;
+            return new Cube(c1.care | bit, c1.value | bit);
+        }
+        if (c1 == null)
+            return new Cube(c0.care | bit, c0.value);
+        return new Cube(c0.care & c1.care & ~(c0.value ^ c1.value), c0.value);
+    }
+
+    /**
+     * Creates a list of cubes covering all rows of the table which have a certain value.
+     * The table is split recursively, and equal cubes of both halves are merged. If the "don't cares"
+     * are used, a half which only contains "don't cares" is treated as if it contained all the cubes
+     * of the other half.
+     */
+    private static final class Extractor {
+        private static final Part NONE = new Part(new ArrayList<>(), false);
+        private static final Part ALL_DONT_CARE = new Part(new ArrayList<>(), true);
+
+        private final BoolTable table;
+        private final ThreeStateValue value;
+        private final boolean useDontCare;
+
+        private Extractor(BoolTable table, ThreeStateValue value, boolean useDontCare) {
+            this.table = table;
+            this.value = value;
+            this.useDontCare = useDontCare;
+        }
+
+        private ArrayList<Cube> extract(int vars) {
+            final long full = (1L << vars) - 1;
+            return extract(0, vars, full).cubes;
+        }
+
+        private Part extract(int row, int bits, long full) {
+            if (bits == 0) {
+                ThreeStateValue v = table.get(row);
+                if (v == value) {
+                    ArrayList<Cube> l = new ArrayList<>(1);
+                    l.add(new Cube(full, row));
+                    return new Part(l, false);
+                }
+                if (useDontCare && v == ThreeStateValue.dontCare)
+                    return ALL_DONT_CARE;
+                return NONE;
+            }
+
+            final long bit = 1L << (bits - 1);
+            Part low = extract(row, bits - 1, full);
+            Part high = extract(row | (int) bit, bits - 1, full);
+
+            if (low.allDontCare && high.allDontCare)
+                return ALL_DONT_CARE;
+            if (low.allDontCare)
+                return new Part(lift(high.cubes, bit), false);
+            if (high.allDontCare)
+                return new Part(lift(low.cubes, bit), false);
+            if (high.cubes.isEmpty())
+                return low;
+            if (low.cubes.isEmpty())
+                return high;
+
+            HashSet<Cube> highSet = new HashSet<>(high.cubes);
+            ArrayList<Cube> merged = new ArrayList<>();
+            for (Cube c : low.cubes) {
+                if (highSet.remove(new Cube(c.care, c.value | bit)))
+                    merged.add(new Cube(c.care & ~bit, c.value));
+                else
+                    merged.add(c);
+            }
+            for (Cube c : high.cubes)
+                if (highSet.contains(c))
+                    merged.add(c);
+            return new Part(merged, false);
+        }
+
+        private static ArrayList<Cube> lift(ArrayList<Cube> cubes, long bit) {
+            ArrayList<Cube> lifted = new ArrayList<>(cubes.size());
+            for (Cube c : cubes)
+                lifted.add(new Cube(c.care & ~bit, c.value));
+            return lifted;
+        }
+    }
+
+    private static final class Part {
+        private final ArrayList<Cube> cubes;
+        private final boolean allDontCare;
+
+        private Part(ArrayList<Cube> cubes, boolean allDontCare) {
+            this.cubes = cubes;
+            this.allDontCare = allDontCare;
+        }
+    }
+
+    /**
+     * A cube. All rows which match the value in all bits which are set in the care mask
+     * belong to the cube.
+     */
+    public static final class Cube {
+        private final long care;
+        private final long value;
+
+        private Cube(long care, long value) {
+            this.care = care;
+            this.value = value & care;
+        }
+
+        /**
+         * @return the mask of the bits of the row index which are relevant
+         */
+        public long getCare() {
+            return care;
+        }
+
+        /**
+         * @return the value of the relevant bits
+         */
+        public long getValue() {
+            return value;
+        }
+
+        private boolean contains(Cube c) {
+            return (care & ~c.care) == 0 && ((value ^ c.value) & care) == 0;
+        }
+
+        private boolean intersects(Cube c) {
+            return ((value ^ c.value) & care & c.care) == 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Cube cube = (Cube) o;
+            return care == cube.care && value == cube.value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(care) * 31 + Long.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return Long.toBinaryString(care) + "/" + Long.toBinaryString(value);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+
+/**
+ * Heuristic two level minimization in the style of espresso
+ */
+package de.neemann.digital.analyse.espresso;
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.expression;
+
+import de.neemann.digital.lang.Lang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * An expression compiled to a straight line program which works on long values.
+ * Every bit of a long holds a different assignment of the variables, so a single
+ * evaluation calculates the expression for 64 table rows.
+ * Each variable is assigned to a bit of the row index, the first variable is the
+ * most significant bit, like in the {@link ContextFiller}.
+ * Sub expressions which are used multiple times are evaluated only once.
+ * <p>
+ * The instances are not thread safe.
+ */
+public final class CompiledExpression {
+    private static final long[] PATTERN = {
+            0xAAAAAAAAAAAAAAAAL,
+            0xCCCCCCCCCCCCCCCCL,
+            0xF0F0F0F0F0F0F0F0L,
+            0xFF00FF00FF00FF00L,
+            0xFFFF0000FFFF0000L,
+            0xFFFFFFFF00000000L};
+
+    private static final int OP_ZERO = 0;
+    private static final int OP_ONE = 1;
+    private static final int OP_NOT = 2;
+    private static final int OP_AND = 3;
+    private static final int OP_OR = 4;
+    private static final int OP_XOR = 5;
+
+    private final int vars;
+    private final HashMap<Variable, Integer> varMap;
+    private final IdentityHashMap<Expression, Integer> compiled;
+    private int[] op;
+    private int[] argA;
+    private int[] argB;
+    private int size;
+    private final int result;
+    private final long[] regs;
+
+    /**
+     * Creates a new instance
+     *
+     * @param expression the expression to compile
+     * @param variables  the variables
+     * @throws ExpressionException ExpressionException
+     */
+    public CompiledExpression(Expression expression, List<Variable> variables) throws ExpressionException {
+        vars = variables.size();
+        varMap = new HashMap<>();
+        for (int i = 0; i < vars; i++)
+            varMap.put(variables.get(i), i);
+        compiled = new IdentityHashMap<>();
+        op = new int[16];
+        argA = new int[16];
+        argB = new int[16];
+        result = compile(expression);
+        regs = new long[vars + size];
+    }
+
+    /**
+     * @return the number of variables
+     */
+    public int getVarCount() {
+        return vars;
+    }
+
+    private int compile(Expression e) throws ExpressionException {
+        Integer r = compiled.get(e);
+        if (r == null) {
+            r = compileExpression(e);
+            compiled.put(e, r);
+        }
+        return r;
+    }
+
+    private int compileExpression(Expression e) throws ExpressionException {
+        if (e instanceof Constant)
+            return add(((Constant) e).getValue() ? OP_ONE : OP_ZERO, 0, 0);
+        if (e instanceof Variable) {
+            Integer v = varMap.get(e);
+            if (v == null)
+                throw new ExpressionException(Lang.get("err_varNotDefined_N", e));
+            return v;
+        }
+        if (e instanceof Not)
+            return add(OP_NOT, compile(((Not) e).getExpression()), 0);
+        if (e instanceof NamedExpression)
+            return compile(((NamedExpression) e).getExpression());
+        if (e instanceof Operation) {
+            final int code;
+            if (e instanceof Operation.And)
+                code = OP_AND;
+            else if (e instanceof Operation.Or)
+                code = OP_OR;
+            else
+                code = OP_XOR;
+            ArrayList<Expression> list = ((Operation) e).getExpressions();
+            if (list.isEmpty())
+                return add(code == OP_AND ? OP_ONE : OP_ZERO, 0, 0);
+            int r = compile(list.get(0));
+            for (int i = 1; i < list.size(); i++)
+                r = add(code, r, compile(list.get(i)));
+            return r;
+        }
+        throw new ExpressionException("expression " + e.getClass().getSimpleName() + " not supported");
+    }
+
+    /**
+     * Adds an instruction
+     *
+     * @return the register holding the result
+     */
+    private int add(int code, int a, int b) {
+        if (size == op.length) {
+            op = Arrays.copyOf(op, size * 2);
+            argA = Arrays.copyOf(argA, size * 2);
+            argB = Arrays.copyOf(argB, size * 2);
+        }
+        op[size] = code;
+        argA[size] = a;
+        argB[size] = b;
+        return vars + size++;
+    }
+
+    /**
+     * Calculates the expression for 64 assignments of the variables at once.
+     *
+     * @param values the values of the variables, bit j of every value belongs to the assignment j
+     * @return the result, bit j is the value of the expression for the assignment j
+     */
+    public long calculate(long[] values) {
+        System.arraycopy(values, 0, regs, 0, vars);
+        return run();
+    }
+
+    /**
+     * Calculates a single table row.
+     *
+     * @param row the row
+     * @return the value of the expression
+     */
+    public boolean calculate(long row) {
+        return ((calculateBlock(row >>> 6) >>> (row & 63)) & 1) != 0;
+    }
+
+    /**
+     * Calculates a block of 64 table rows.
+     *
+     * @param block the block, the first row calculated is block*64
+     * @return the result, bit j is the value of the expression in the row block*64+j
+     */
+    public long calculateBlock(long block) {
+        final long base = block << 6;
+        for (int i = 0; i < vars; i++) {
+            final int bit = vars - 1 - i;
+            if (bit < PATTERN.length)
+                regs[i] = PATTERN[bit];
+            else
+                regs[i] = ((base >>> bit) & 1) != 0 ? -1L : 0;
+        }
+        long r = run();
+        if (vars < 6)
+            r &= (1L << (1 << vars)) - 1;
+        return r;
+    }
+
+    private long run() {
+        for (int i = 0; i < size; i++) {
+            final long v;
+            switch (op[i]) {
+                case OP_ZERO:
+                    v = 0;
+                    break;
+                case OP_ONE:
+                    v = -1L;
+                    break;
+                case OP_NOT:
+                    v = ~regs[argA[i]];
+                    break;
+                case OP_AND:
+                    v = regs[argA[i]] & regs[argB[i]];
+                    break;
+                case OP_OR:
+                    v = regs[argA[i]] | regs[argB[i]];
+                    break;
+                default:
+                    v = regs[argA[i]] ^ regs[argB[i]];
+                    break;
+            }
+            regs[vars + i] = v;
+        }
+        return regs[result];
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.format;
+
+import de.neemann.digital.analyse.TruthTable;
+import de.neemann.digital.analyse.TruthTableConsumer;
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.analyse.quinemc.BoolTable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+
+/**
+ * Writes a truth table as CSV file.
+ * The first line contains the names of the inputs and outputs, every following line a table row.
+ * "Don't care" values are written as "x".
+ * The rows are written to a reused character buffer, so no strings are created per row.
+ * Can also be used as a {@link TruthTableConsumer} to export tables which are not kept in memory.
+ */
+public class TruthTableCSVWriter implements TruthTableConsumer {
+    private final Writer writer;
+    private char[] line;
+    private int inputs;
+
+    /**
+     * Creates a new instance.
+     * The writer is flushed but not closed if the table is finished.
+     *
+     * @param writer the writer to write to
+     */
+    public TruthTableCSVWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the given table
+     *
+     * @param table the table
+     * @throws IOException IOException
+     */
+    public void write(TruthTable table) throws IOException {
+        ArrayList<String> names = new ArrayList<>();
+        for (int i = 0; i < table.getResultCount(); i++)
+            names.add(table.getResultName(i));
+        start(table.getVars(), names);
+
+        final int results = table.getResultCount();
+        BoolTable[] values = new BoolTable[results];
+        for (int i = 0; i < results; i++)
+            values[i] = table.getResult(i);
+
+        final int rows = table.getRows();
+        for (int row = 0; row < rows; row++) {
+            setInputs(row);
+            for (int o = 0; o < results; o++)
+                line[(inputs + o) * 2] = toChar(values[o].get(row).asInt());
+            writer.write(line);
+        }
+        finished();
+    }
+
+    private static char toChar(int value) {
+        switch (value) {
+            case 0:
+                return '0';
+            case 1:
+                return '1';
+            default:
+                return 'x';
+        }
+    }
+
+    @Override
+    public void start(ArrayList<Variable> vars, ArrayList<String> outputs) throws IOException {
+        inputs = vars.size();
+        StringBuilder sb = new StringBuilder();
+        for (Variable v : vars)
+            addName(sb, v.getIdentifier());
+        for (String o : outputs)
+            addName(sb, o);
+        sb.append('\n');
+        writer.write(sb.toString());
+
+        final int cols = inputs + outputs.size();
+        line = new char[cols * 2];
+        for (int i = 1; i < line.length; i += 2)
+            line[i] = ',';
+        line[line.length - 1] = '\n';
+    }
+
+    private static void addName(StringBuilder sb, String name) {
+        if (sb.length() > 0)
+            sb.append(',');
+        if (name.indexOf(',') >= 0 || name.indexOf('"') >= 0)
+            sb.append('"').append(name.replace("\"", "\"\"")).append('"');
+        else
+            sb.append(name);
+    }
+
+    private void setInputs(long row) {
+        for (int i = 0; i < inputs; i++)
+            line[i * 2] = ((row >>> (inputs - 1 - i)) & 1) != 0 ? '1' : '0';
+    }
+
+    @Override
+    public void addRows(long row, int rows, long[] values) throws IOException {
+        for (int j = 0; j < rows; j++) {
+            setInputs(row + j);
+            for (int o = 0; o < values.length; o++)
+                line[(inputs + o) * 2] = ((values[o] >>> j) & 1) != 0 ? '1' : '0';
+            writer.write(line);
+        }
+    }
+
+    @Override
+    public void finished() throws IOException {
+        writer.flush();
+    }
+}
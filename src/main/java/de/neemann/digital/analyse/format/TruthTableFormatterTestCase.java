@@ -7,11 +7,14 @@ package de.neemann.digital.analyse.format;
 
 import de.neemann.digital.analyse.ModelAnalyserInfo;
 import de.neemann.digital.analyse.TruthTable;
+import de.neemann.digital.analyse.TruthTableConsumer;
 import de.neemann.digital.analyse.expression.ContextFiller;
 import de.neemann.digital.analyse.expression.ExpressionException;
 import de.neemann.digital.analyse.expression.Variable;
 import de.neemann.digital.analyse.quinemc.ThreeStateValue;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -71,6 +74,54 @@ public class TruthTableFormatterTestCase implements TruthTableFormatter {
         return sb.toString();
     }
 
+    /**
+     * Creates a consumer which writes the test case row by row to the given writer.
+     * Used to export truth tables which are to large to be kept in memory.
+     * The writer is flushed but not closed if the table is finished.
+     *
+     * @param writer the writer to write to
+     * @return the consumer
+     */
+    public TruthTableConsumer createConsumer(Writer writer) {
+        return new TruthTableConsumer() {
+            private final StringBuilder sb = new StringBuilder();
+            private ArrayList<Type> inputOutType;
+            private ArrayList<Type> outputOutType;
+
+            @Override
+            public void start(ArrayList<Variable> vars, ArrayList<String> outputs) throws IOException {
+                ArrayList<String> inputs = new ArrayList<>();
+                for (Variable v : vars)
+                    inputs.add(v.getIdentifier());
+                sb.setLength(0);
+                inputOutType = outVars(sb, inputs, inputBusMap);
+                outputOutType = outVars(sb, outputs, outputBusMap);
+                sb.append("\n\n");
+                writer.write(sb.toString());
+            }
+
+            @Override
+            public void addRows(long row, int rows, long[] values) throws IOException {
+                final int n = inputOutType.size();
+                for (int j = 0; j < rows; j++) {
+                    sb.setLength(0);
+                    final long r = row + j;
+                    for (int i = 0; i < n; i++)
+                        outValue(sb, inputOutType.get(i), ThreeStateValue.value(((r >>> (n - 1 - i)) & 1) != 0));
+                    for (int o = 0; o < values.length; o++)
+                        outValue(sb, outputOutType.get(o), ThreeStateValue.value(((values[o] >>> j) & 1) != 0));
+                    sb.append("\n");
+                    writer.write(sb.toString());
+                }
+            }
+
+            @Override
+            public void finished() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+
     private void outValue(StringBuilder sb, Type type, ThreeStateValue b) {
         switch (type) {
             case NORMAL:
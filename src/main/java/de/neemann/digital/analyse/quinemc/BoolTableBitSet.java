@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.quinemc;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * A bool table which stores the values in two bit planes.
+ * The first plane holds the values, the second one the "don't care" flags.
+ * The value bit of a "don't care" row is always cleared, so two tables
+ * representing the same values have identical planes.
+ * Needs only two bits per row, and allows most operations to work on 64 rows at once.
+ */
+public final class BoolTableBitSet implements BoolTableModifiable {
+    /**
+     * Tables with at least this number of rows are bit packed by default
+     */
+    public static final int MIN_ROWS = 1 << 12;
+
+    private static final long[] MASKS = {
+            0x5555555555555555L,
+            0x3333333333333333L,
+            0x0F0F0F0F0F0F0F0FL,
+            0x00FF00FF00FF00FFL,
+            0x0000FFFF0000FFFFL,
+            0x00000000FFFFFFFFL};
+
+    private final int size;
+    private final long[] values;
+    private final long[] dontCare;
+
+    /**
+     * Creates a new instance with all values set to zero
+     *
+     * @param rows the number of rows
+     */
+    public BoolTableBitSet(int rows) {
+        size = rows;
+        values = new long[words(rows)];
+        dontCare = new long[values.length];
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param values the values to initialize the table
+     */
+    public BoolTableBitSet(BoolTable values) {
+        if (values instanceof BoolTableBitSet) {
+            BoolTableBitSet bs = (BoolTableBitSet) values;
+            size = bs.size;
+            this.values = bs.values.clone();
+            dontCare = bs.dontCare.clone();
+        } else {
+            size = values.size();
+            this.values = new long[words(size)];
+            dontCare = new long[this.values.length];
+            for (int i = 0; i < size; i++)
+                set(i, values.get(i).asInt());
+        }
+    }
+
+    /**
+     * Reads a table from the given buffer.
+     * The buffer has to contain the value plane followed by the "don't care" plane.
+     *
+     * @param buffer the buffer to read from
+     * @param rows   the number of rows
+     * @return the table
+     */
+    public static BoolTableBitSet read(LongBuffer buffer, int rows) {
+        BoolTableBitSet t = new BoolTableBitSet(rows);
+        buffer.get(t.values);
+        buffer.get(t.dontCare);
+        for (int w = 0; w < t.values.length; w++) {
+            final long valid = t.validBits(w);
+            t.dontCare[w] &= valid;
+            t.values[w] &= valid & ~t.dontCare[w];
+        }
+        return t;
+    }
+
+    /**
+     * Writes the value plane followed by the "don't care" plane to the given buffer.
+     *
+     * @param buffer the buffer to write to
+     */
+    public void write(LongBuffer buffer) {
+        buffer.put(values);
+        buffer.put(dontCare);
+    }
+
+    /**
+     * Returns the number of longs needed to store a table
+     *
+     * @param rows the number of rows
+     * @return the number of longs, both planes included
+     */
+    public static int getWordCount(int rows) {
+        return words(rows) * 2;
+    }
+
+    private static int words(int rows) {
+        return (rows + 63) >>> 6;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public ThreeStateValue get(int i) {
+        if (i < 0 || i >= size)
+            throw new ArrayIndexOutOfBoundsException(i);
+        final long bit = 1L << i;
+        if ((dontCare[i >>> 6] & bit) != 0)
+            return ThreeStateValue.dontCare;
+        if ((values[i >>> 6] & bit) != 0)
+            return ThreeStateValue.one;
+        return ThreeStateValue.zero;
+    }
+
+    @Override
+    public void set(int row, boolean bool) {
+        set(row, bool ? 1 : 0);
+    }
+
+    @Override
+    public void set(int row, int value) {
+        if (row < 0 || row >= size)
+            throw new ArrayIndexOutOfBoundsException(row);
+        final int w = row >>> 6;
+        final long bit = 1L << row;
+        switch (value) {
+            case 0:
+                values[w] &= ~bit;
+                dontCare[w] &= ~bit;
+                break;
+            case 1:
+                values[w] |= bit;
+                dontCare[w] &= ~bit;
+                break;
+            default:
+                values[w] &= ~bit;
+                dontCare[w] |= bit;
+        }
+    }
+
+    @Override
+    public void modify(BoolTableByteArray.TableModifier m) {
+        final ThreeStateValue z = ThreeStateValue.value(m.modify((byte) 0));
+        final ThreeStateValue o = ThreeStateValue.value(m.modify((byte) 1));
+        final ThreeStateValue x = ThreeStateValue.value(m.modify((byte) 2));
+        for (int w = 0; w < values.length; w++) {
+            final long d = dontCare[w];
+            final long ones = values[w];
+            final long zeros = ~(ones | d) & validBits(w);
+            values[w] = select(ThreeStateValue.one, z, zeros) | select(ThreeStateValue.one, o, ones) | select(ThreeStateValue.one, x, d);
+            dontCare[w] = select(ThreeStateValue.dontCare, z, zeros) | select(ThreeStateValue.dontCare, o, ones) | select(ThreeStateValue.dontCare, x, d);
+        }
+    }
+
+    private static long select(ThreeStateValue target, ThreeStateValue value, long bits) {
+        if (target == value)
+            return bits;
+        else
+            return 0;
+    }
+
+    private long validBits(int w) {
+        final int r = size - (w << 6);
+        if (r >= 64)
+            return -1L;
+        else
+            return (1L << r) - 1;
+    }
+
+    /**
+     * @return the number of rows which are one
+     */
+    public int countOnes() {
+        int n = 0;
+        for (long v : values)
+            n += Long.bitCount(v);
+        return n;
+    }
+
+    /**
+     * @return the number of rows which are "don't care"
+     */
+    public int countDontCares() {
+        int n = 0;
+        for (long d : dontCare)
+            n += Long.bitCount(d);
+        return n;
+    }
+
+    /**
+     * Checks if the table does not depend on the given bit of the row index.
+     * Two rows which only differ in the given bit are considered equal if they have
+     * the same value or if one of them is "don't care".
+     *
+     * @param bit the bit of the row index
+     * @return true if the table is independent of the given bit
+     */
+    public boolean isIndependentFromBit(int bit) {
+        checkBit(bit);
+        if (bit < 6) {
+            final int s = 1 << bit;
+            final long mask = MASKS[bit];
+            for (int w = 0; w < values.length; w++) {
+                final long v = values[w];
+                final long d = dontCare[w];
+                if (((v ^ (v >>> s)) & ~(d | (d >>> s)) & mask) != 0)
+                    return false;
+            }
+        } else {
+            final int ws = 1 << (bit - 6);
+            for (int w = 0; w < values.length; w++)
+                if ((w & ws) == 0) {
+                    final int w2 = w | ws;
+                    if (((values[w] ^ values[w2]) & ~(dontCare[w] | dontCare[w2])) != 0)
+                        return false;
+                }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cofactor of this table.
+     * The returned table contains all rows with the given bit of the row index set
+     * to the given value, with this bit removed from the row index.
+     *
+     * @param bit   the bit of the row index
+     * @param value the value of the bit
+     * @return the cofactor which is half the size of this table
+     */
+    public BoolTableBitSet getCofactor(int bit, boolean value) {
+        checkBit(bit);
+        BoolTableBitSet c = new BoolTableBitSet(size / 2);
+        extract(values, c.values, bit, value);
+        extract(dontCare, c.dontCare, bit, value);
+        return c;
+    }
+
+    /**
+     * Removes a bit from the row index.
+     * Used to remove a variable the table does not depend on.
+     * The rows which have the given bit cleared are kept, if they are "don't care"
+     * the value of the row with the bit set is used.
+     *
+     * @param bit the bit of the row index
+     * @return the table which is half the size of this table
+     */
+    public BoolTableBitSet removeBit(int bit) {
+        BoolTableBitSet c0 = getCofactor(bit, false);
+        BoolTableBitSet c1 = getCofactor(bit, true);
+        for (int w = 0; w < c0.values.length; w++) {
+            final long d0 = c0.dontCare[w];
+            c0.values[w] |= c1.values[w] & d0;
+            c0.dontCare[w] = d0 & c1.dontCare[w];
+        }
+        return c0;
+    }
+
+    private void checkBit(int bit) {
+        if (bit < 0 || (1L << bit) >= size)
+            throw new RuntimeException("bit " + bit + " does not exist");
+    }
+
+    private static void extract(long[] src, long[] dest, int bit, boolean value) {
+        if (bit < 6) {
+            final int shift = value ? 1 << bit : 0;
+            for (int o = 0; o < dest.length; o++) {
+                long w = compress(src[o * 2] >>> shift, bit);
+                if (o * 2 + 1 < src.length)
+                    w |= compress(src[o * 2 + 1] >>> shift, bit) << 32;
+                dest[o] = w;
+            }
+        } else {
+            final int ws = 1 << (bit - 6);
+            final int offs = value ? ws : 0;
+            for (int o = 0; o < dest.length; o++) {
+                final int w = (o & (ws - 1)) | ((o & ~(ws - 1)) << 1);
+                dest[o] = src[w | offs];
+            }
+        }
+    }
+
+    /**
+     * Collects the bits which have the given bit of their position cleared
+     * in the lower half of the word.
+     */
+    private static long compress(long x, int bit) {
+        x &= MASKS[bit];
+        for (int j = bit; j < 5; j++)
+            x = (x | (x >>> (1 << j))) & MASKS[j + 1];
+        return x;
+    }
+
+    /**
+     * Spreads the lower half of the word to all the even bit positions.
+     */
+    private static long spread(long x) {
+        x &= MASKS[5];
+        for (int j = 4; j >= 0; j--)
+            x = (x | (x << (1 << j))) & MASKS[j];
+        return x;
+    }
+
+    /**
+     * Creates a table where all values are added twice
+     *
+     * @param values the original values
+     * @return the new values
+     */
+    public static BoolTableBitSet createDoubledValues(BoolTable values) {
+        BoolTableBitSet src;
+        if (values instanceof BoolTableBitSet)
+            src = (BoolTableBitSet) values;
+        else
+            src = new BoolTableBitSet(values);
+
+        BoolTableBitSet t = new BoolTableBitSet(src.size * 2);
+        for (int o = 0; o < t.values.length; o++) {
+            final int shift = (o & 1) * 32;
+            long v = spread(src.values[o >>> 1] >>> shift);
+            long d = spread(src.dontCare[o >>> 1] >>> shift);
+            t.values[o] = v | (v << 1);
+            t.dontCare[o] = d | (d << 1);
+        }
+        return t;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BoolTableBitSet that = (BoolTableBitSet) o;
+        return size == that.size
+                && Arrays.equals(values, that.values)
+                && Arrays.equals(dontCare, that.dontCare);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * size + Arrays.hashCode(values)) + Arrays.hashCode(dontCare);
+    }
+}
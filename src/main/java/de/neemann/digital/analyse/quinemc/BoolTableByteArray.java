@@ -10,7 +10,7 @@ package de.neemann.digital.analyse.quinemc;
  * A byte array.
  * Zero and one behave as expected, any other value represents "don't care"
  */
-public class BoolTableByteArray implements BoolTable {
+public class BoolTableByteArray implements BoolTableModifiable {
 
     private final byte[] table;
 
@@ -59,6 +59,7 @@ public class BoolTableByteArray implements BoolTable {
      * @param row  the row
      * @param bool the value
      */
+    @Override
     public void set(int row, boolean bool) {
         set(row, bool ? 1 : 0);
     }
@@ -69,6 +70,7 @@ public class BoolTableByteArray implements BoolTable {
      * @param row   the row
      * @param value the value
      */
+    @Override
     public void set(int row, int value) {
         table[row] = (byte) value;
     }
@@ -94,6 +96,7 @@ public class BoolTableByteArray implements BoolTable {
      *
      * @param m the modifier
      */
+    @Override
     public void modify(TableModifier m) {
         for (int i = 0; i < table.length; i++)
             table[i] = m.modify(table[i]);
@@ -6,16 +6,21 @@
 package de.neemann.digital.analyse.quinemc;
 
 
+import de.neemann.digital.analyse.expression.CompiledExpression;
 import de.neemann.digital.analyse.expression.ContextFiller;
 import de.neemann.digital.analyse.expression.Expression;
 import de.neemann.digital.analyse.expression.ExpressionException;
 
 /**
- * Creates a bool table from the given expression
+ * Creates a bool table from the given expression.
+ * The expression is compiled and evaluated in blocks of 64 rows.
  */
 public class BoolTableExpression implements BoolTable {
     private final Expression expression;
     private final ContextFiller context;
+    private CompiledExpression compiled;
+    private long block = -1;
+    private long blockValues;
 
     /**
      * Creates a new instance
@@ -26,6 +31,12 @@ public class BoolTableExpression implements BoolTable {
     public BoolTableExpression(Expression expression, ContextFiller context) {
         this.expression = expression;
         this.context = context;
+        try {
+            compiled = new CompiledExpression(expression, context.getVariables());
+        } catch (ExpressionException e) {
+            // the error is reported if the table is read
+            compiled = null;
+        }
     }
 
     @Override
@@ -35,6 +46,15 @@ public class BoolTableExpression implements BoolTable {
 
     @Override
     public ThreeStateValue get(int i) {
+        if (compiled != null) {
+            final int b = i >>> 6;
+            if (b != block) {
+                blockValues = compiled.calculateBlock(b);
+                block = b;
+            }
+            return ThreeStateValue.value(((blockValues >>> (i & 63)) & 1) != 0);
+        }
+
         context.setContextTo(i);
         try {
             return ThreeStateValue.value(expression.calculate(context));
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.quinemc;
+
+/**
+ * A bool table which values can be modified
+ */
+public interface BoolTableModifiable extends BoolTable {
+
+    /**
+     * Sets a table value
+     *
+     * @param row  the row
+     * @param bool the value
+     */
+    default void set(int row, boolean bool) {
+        set(row, bool ? 1 : 0);
+    }
+
+    /**
+     * Sets a table value
+     * 0 and 1 work as expected, any other value means "don't care"
+     *
+     * @param row   the row
+     * @param value the value
+     */
+    void set(int row, int value);
+
+    /**
+     * Modifies all the table elements using the given modifier.
+     *
+     * @param m the modifier
+     */
+    void modify(BoolTableByteArray.TableModifier m);
+
+    /**
+     * Creates a new table.
+     * Large tables are bit packed, small tables are stored in a byte array.
+     *
+     * @param rows the number of rows
+     * @return the table
+     */
+    static BoolTableModifiable create(int rows) {
+        if (rows >= BoolTableBitSet.MIN_ROWS)
+            return new BoolTableBitSet(rows);
+        else
+            return new BoolTableByteArray(rows);
+    }
+
+    /**
+     * Creates a modifiable copy of the given table.
+     *
+     * @param values the values to copy
+     * @return the table
+     */
+    static BoolTableModifiable copyOf(BoolTable values) {
+        if (values.size() >= BoolTableBitSet.MIN_ROWS)
+            return new BoolTableBitSet(values);
+        else
+            return new BoolTableByteArray(values);
+    }
+
+    /**
+     * Creates a table where all values are added twice
+     *
+     * @param values the original values
+     * @return the new values
+     */
+    static BoolTableModifiable createDoubledValues(BoolTable values) {
+        if (values.size() * 2 >= BoolTableBitSet.MIN_ROWS)
+            return BoolTableBitSet.createDoubledValues(values);
+        else
+            return BoolTableByteArray.createDoubledValues(values);
+    }
+}
@@ -46,6 +46,9 @@ public final class IndependentChecker {
      * @return true if table is independent
      */
     public boolean isIndependentFrom(int varNum) {
+        if (boolTable instanceof BoolTableBitSet)
+            return ((BoolTableBitSet) boolTable).isIndependentFromBit(vars - varNum - 1);
+
         int bitMask = 1 << (vars - varNum - 1);
         int lowMask = bitMask - 1;
         int highMask = ~lowMask;
@@ -78,6 +81,8 @@ public final class IndependentChecker {
     public BoolTable removeVar(int varNum) {
         if (varNum >= vars || varNum < 0)
             throw new RuntimeException("variable does not exist");
+        if (boolTable instanceof BoolTableBitSet)
+            return ((BoolTableBitSet) boolTable).removeBit(vars - varNum - 1);
         return new BoolTableRemoveVar(boolTable, vars, varNum);
     }
 
@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.quinemc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Calculates all prime implicants of a set of table rows.
+ * In contrast to {@link QuineMcCluskey#simplifyStep()}, the implicants are not compared pairwise.
+ * The implicants of a merge round are grouped by their mask of optimized variables, and inside of
+ * a group by the number of ones. The merge partners of an implicant are found by flipping a single
+ * bit and a hash lookup. The source rows are not tracked during the merge rounds, the rows covered
+ * by a prime are collected in a bit set after the primes are found.
+ * Large merge rounds are processed in parallel, one task per number of ones in a group.
+ * <p>
+ * The implicants and primes are created in the same order as {@link QuineMcCluskey#simplifyStep()}
+ * creates them, so both implementations lead to the same expressions.
+ */
+final class PrimeGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrimeGenerator.class);
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+    private final int cols;
+    private final long colMask;
+    private final HashMap<Long, HashMap<Long, TableRow>> initialRows;
+    private TreeMap<Long, Group> level;
+    private ExecutorService executor;
+
+    /**
+     * Creates a new instance
+     *
+     * @param cols the number of columns
+     * @param rows the initial rows
+     */
+    PrimeGenerator(int cols, Iterable<TableRow> rows) {
+        this.cols = cols;
+        if (cols >= 64)
+            colMask = -1L;
+        else
+            colMask = (1L << cols) - 1;
+
+        initialRows = new HashMap<>();
+        level = new TreeMap<>();
+        for (TableRow r : rows) {
+            final long mask = r.getOptimizedFlags();
+            final long state = r.getState();
+            initialRows.computeIfAbsent(mask, m -> new HashMap<>()).put(state, r);
+            level.computeIfAbsent(mask, Group::new).add(state);
+        }
+    }
+
+    /**
+     * Calculates the prime implicants.
+     * Implicants which only cover "don't care" rows are omitted.
+     *
+     * @return the primes
+     */
+    ArrayList<TableRow> calculatePrimes() {
+        ArrayList<TableRow> primes = new ArrayList<>();
+        try {
+            while (!level.isEmpty()) {
+                ArrayList<MergeTask> tasks = createTasks();
+                execute(tasks);
+
+                TreeMap<Long, Group> next = new TreeMap<>();
+                for (Group g : level.values())
+                    for (int p = 0; p < g.size(); p++) {
+                        final MergeTask t = tasks.get(g.task[p]);
+                        final int l = g.local[p];
+                        if (t.isPrime.get(l)) {
+                            TableRow prime = createPrime(g.mask, g.states.get(p));
+                            if (prime != null)
+                                primes.add(prime);
+                        }
+                        for (int r = t.recStart.get(l); r < t.recStart.get(l + 1); r++)
+                            next.computeIfAbsent(t.newMask.get(r), Group::new).add(t.newState.get(r));
+                    }
+                level = next;
+            }
+        } finally {
+            if (executor != null)
+                executor.shutdown();
+        }
+        return primes;
+    }
+
+    private ArrayList<MergeTask> createTasks() {
+        ArrayList<MergeTask> tasks = new ArrayList<>();
+        int size = 0;
+        for (Group g : level.values()) {
+            size += g.size();
+            g.task = new int[g.size()];
+            g.local = new int[g.size()];
+
+            MergeTask[] buckets = new MergeTask[cols + 1];
+            for (int p = 0; p < g.size(); p++) {
+                int ones = Long.bitCount(g.states.get(p));
+                MergeTask t = buckets[ones];
+                if (t == null) {
+                    t = new MergeTask(g);
+                    buckets[ones] = t;
+                    t.index = tasks.size();
+                    tasks.add(t);
+                }
+                g.task[p] = t.index;
+                g.local[p] = t.positions.size();
+                t.positions.add(p);
+            }
+        }
+        LOGGER.debug("QMC implicants " + size + " in " + tasks.size() + " groups");
+        if (size >= PARALLEL_THRESHOLD && executor == null && Runtime.getRuntime().availableProcessors() > 1)
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                return t;
+            });
+        return tasks;
+    }
+
+    private void execute(ArrayList<MergeTask> tasks) {
+        if (executor != null && tasks.size() > 1 && !Thread.currentThread().isInterrupted()) {
+            try {
+                for (Future<MergeTask> f : executor.invokeAll(tasks))
+                    f.get();
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        for (MergeTask t : tasks)
+            if (!t.done)
+                t.call();
+    }
+
+    /**
+     * Creates the table row of a prime.
+     * Collects all the initial rows covered by the prime.
+     */
+    private TableRow createPrime(long mask, long state) {
+        BitSet covered = new BitSet();
+        for (Map.Entry<Long, HashMap<Long, TableRow>> e : initialRows.entrySet()) {
+            final long initialMask = e.getKey();
+            if ((initialMask & ~mask) == 0) {
+                final HashMap<Long, TableRow> rows = e.getValue();
+                final long free = mask & ~initialMask;
+                long sub = 0;
+                do {
+                    TableRow r = rows.get(state | sub);
+                    if (r != null)
+                        for (int i : r.getSource())
+                            covered.set(i);
+                    sub = (sub - free) & free;
+                } while (sub != 0);
+            }
+        }
+
+        if (covered.isEmpty())
+            return null;
+
+        TableRow prime = new TableRow(cols, state, mask);
+        Collection<Integer> source = prime.getSource();
+        for (int i = covered.nextSetBit(0); i >= 0; i = covered.nextSetBit(i + 1))
+            source.add(i);
+        return prime;
+    }
+
+    /**
+     * All implicants of a merge round which have the same mask of optimized variables.
+     * The implicants are kept in the order they are created.
+     */
+    private static final class Group {
+        private final long mask;
+        private final LongList states;
+        private final LongIntMap positions;
+        private int[] task;
+        private int[] local;
+
+        private Group(long mask) {
+            this.mask = mask;
+            states = new LongList();
+            positions = new LongIntMap();
+        }
+
+        private void add(long state) {
+            if (positions.putIfAbsent(state, states.size()))
+                states.add(state);
+        }
+
+        private int size() {
+            return states.size();
+        }
+    }
+
+    /**
+     * Merges all implicants of a single group which have the same number of ones.
+     * Every merge is recorded by the implicant which comes first in the group, so the
+     * merges can be replayed in the order of a pairwise comparison.
+     */
+    private final class MergeTask implements Callable<MergeTask> {
+        private final Group group;
+        private final IntList positions;
+        private final IntList recStart;
+        private final LongList newMask;
+        private final LongList newState;
+        private final BitSet isPrime;
+        private int index;
+        private volatile boolean done;
+
+        private MergeTask(Group group) {
+            this.group = group;
+            positions = new IntList();
+            recStart = new IntList();
+            newMask = new LongList();
+            newState = new LongList();
+            isPrime = new BitSet();
+        }
+
+        @Override
+        public MergeTask call() {
+            final long free = colMask & ~group.mask;
+            final int[] partner = new int[cols];
+            final long[] partnerBit = new long[cols];
+            for (int l = 0; l < positions.size(); l++) {
+                recStart.add(newMask.size());
+                final int p = positions.get(l);
+                final long s = group.states.get(p);
+                boolean prime = true;
+                int n = 0;
+                long bits = free;
+                while (bits != 0) {
+                    final long bit = Long.lowestOneBit(bits);
+                    bits &= ~bit;
+                    final int q = group.positions.get(s ^ bit);
+                    if (q >= 0) {
+                        prime = false;
+                        if (q > p) {
+                            // insertion sort by the position of the partner
+                            int i = n++;
+                            while (i > 0 && partner[i - 1] > q) {
+                                partner[i] = partner[i - 1];
+                                partnerBit[i] = partnerBit[i - 1];
+                                i--;
+                            }
+                            partner[i] = q;
+                            partnerBit[i] = bit;
+                        }
+                    }
+                }
+                for (int i = 0; i < n; i++) {
+                    newMask.add(group.mask | partnerBit[i]);
+                    newState.add(s & ~partnerBit[i]);
+                }
+                if (prime)
+                    isPrime.set(l);
+            }
+            recStart.add(newMask.size());
+            done = true;
+            return this;
+        }
+    }
+
+    /**
+     * A growing list of int values
+     */
+    private static final class IntList {
+        private int[] data = new int[16];
+        private int size;
+
+        private void add(int v) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        private int get(int i) {
+            return data[i];
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A growing list of long values
+     */
+    private static final class LongList {
+        private long[] data = new long[16];
+        private int size;
+
+        private void add(long v) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+
+        private long get(int i) {
+            return data[i];
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A hash map from non negative long values to int values using open addressing
+     */
+    private static final class LongIntMap {
+        private static final long EMPTY = -1;
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        private LongIntMap() {
+            keys = new long[16];
+            values = new int[16];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private boolean putIfAbsent(long key, int value) {
+            if ((size + 1) * 2 > keys.length)
+                rehash();
+            int i = index(key, keys.length);
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key)
+                    return false;
+                i = (i + 1) & (keys.length - 1);
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+            return true;
+        }
+
+        private int get(long key) {
+            int i = index(key, keys.length);
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key)
+                    return values[i];
+                i = (i + 1) & (keys.length - 1);
+            }
+            return -1;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[keys.length];
+            Arrays.fill(keys, EMPTY);
+            for (int j = 0; j < oldKeys.length; j++)
+                if (oldKeys[j] != EMPTY) {
+                    int i = index(oldKeys[j], keys.length);
+                    while (keys[i] != EMPTY)
+                        i = (i + 1) & (keys.length - 1);
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+        }
+
+        private static int index(long key, int len) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & (len - 1);
+        }
+    }
+}
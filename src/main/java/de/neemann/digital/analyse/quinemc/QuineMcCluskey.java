@@ -123,9 +123,10 @@ public class QuineMcCluskey {
      * @return the simplified QMC instance
      */
     public QuineMcCluskey simplify(PrimeSelector ps) {
-        while (!isFinished()) {
+        if (!isFinished()) {
             LOGGER.debug("QMC rows " + rows.size());
-            simplifyStep();
+            primes.addAll(new PrimeGenerator(variables.size(), rows).calculatePrimes());
+            rows = new TableRows();
         }
         simplifyPrimes(ps);
 
@@ -265,32 +266,49 @@ public class QuineMcCluskey {
 
         // remove all primes which are easy to remove
         while (true) {
-            // find rows to delete
-            HashSet<TableRow> rowsToDelete = new HashSet<>();
-            for (TableRow r1 : primes)
-                for (TableRow r2 : primes) {
-                    if ((r1 != r2) && !rowsToDelete.contains(r1) && r1.getSource().containsAll(r2.getSource()))
-                        rowsToDelete.add(r2);
-                }
-
-            primes.removeAll(rowsToDelete);
+            ArrayList<Integer> colList = new ArrayList<>(columns);
+            HashMap<Integer, Integer> colIndex = new HashMap<>();
+            for (int c : colList)
+                colIndex.put(c, colIndex.size());
 
-            // find the cols to delete
-            HashSet<Integer> colsToDelete = new HashSet<>();
-            for (int c1 : columns) {
-                for (int c2 : columns) {
-                    if ((c1 != c2) && !colsToDelete.contains(c1) && smaller(c1, c2, primes))
-                        colsToDelete.add(c2);
+            // find rows to delete
+            long[][] rowBits = new long[primes.size()][];
+            for (int r = 0; r < primes.size(); r++) {
+                rowBits[r] = new long[(colList.size() + 63) >>> 6];
+                for (int c : primes.get(r).getSource()) {
+                    int i = colIndex.get(c);
+                    rowBits[r][i >>> 6] |= 1L << i;
                 }
             }
+            boolean[] rowsToDelete = findContained(rowBits);
+            ArrayList<TableRow> remaining = new ArrayList<>(primes.size());
+            boolean rowsDeleted = false;
+            for (int r = 0; r < primes.size(); r++)
+                if (rowsToDelete[r])
+                    rowsDeleted = true;
+                else
+                    remaining.add(primes.get(r));
+            primes.clear();
+            primes.addAll(remaining);
 
-            if (colsToDelete.isEmpty() && rowsToDelete.isEmpty())
+            // find the cols to delete
+            long[][] colBits = new long[colList.size()][(primes.size() + 63) >>> 6];
+            for (int r = 0; r < primes.size(); r++)
+                for (int c : primes.get(r).getSource())
+                    colBits[colIndex.get(c)][r >>> 6] |= 1L << r;
+            boolean[] colsToDelete = findContaining(colBits);
+            HashSet<Integer> cols = new HashSet<>();
+            for (int c = 0; c < colList.size(); c++)
+                if (colsToDelete[c])
+                    cols.add(colList.get(c));
+
+            if (cols.isEmpty() && !rowsDeleted)
                 break;
 
             for (TableRow p : primes)
-                p.getSource().removeAll(colsToDelete);
+                p.getSource().removeAll(cols);
 
-            columns.removeAll(colsToDelete);
+            columns.removeAll(cols);
         }
 
         LOGGER.debug("residual primes " + primes.size());
@@ -305,12 +323,48 @@ public class QuineMcCluskey {
         }
     }
 
-    private boolean smaller(int c1, int c2, ArrayList<TableRow> primes) {
-        for (TableRow r : primes) {
-            Collection<Integer> s = r.getSource();
-            if (s.contains(c1) && !s.contains(c2))
+    /**
+     * Finds the bit sets which are contained in an other bit set.
+     * If two bit sets are equal, the second one is marked.
+     */
+    private static boolean[] findContained(long[][] bits) {
+        int[] card = cardinalities(bits);
+        boolean[] found = new boolean[bits.length];
+        for (int b1 = 0; b1 < bits.length; b1++)
+            if (!found[b1])
+                for (int b2 = 0; b2 < bits.length; b2++)
+                    if (b1 != b2 && card[b2] <= card[b1] && isSubset(bits[b2], bits[b1]))
+                        found[b2] = true;
+        return found;
+    }
+
+    /**
+     * Finds the bit sets which contain an other bit set.
+     * If two bit sets are equal, the second one is marked.
+     */
+    private static boolean[] findContaining(long[][] bits) {
+        int[] card = cardinalities(bits);
+        boolean[] found = new boolean[bits.length];
+        for (int b1 = 0; b1 < bits.length; b1++)
+            if (!found[b1])
+                for (int b2 = 0; b2 < bits.length; b2++)
+                    if (b1 != b2 && card[b1] <= card[b2] && isSubset(bits[b1], bits[b2]))
+                        found[b2] = true;
+        return found;
+    }
+
+    private static int[] cardinalities(long[][] bits) {
+        int[] card = new int[bits.length];
+        for (int i = 0; i < bits.length; i++)
+            for (long w : bits[i])
+                card[i] += Long.bitCount(w);
+        return card;
+    }
+
+    private static boolean isSubset(long[] sub, long[] set) {
+        for (int i = 0; i < sub.length; i++)
+            if ((sub[i] & ~set[i]) != 0)
                 return false;
-        }
         return true;
     }
 }
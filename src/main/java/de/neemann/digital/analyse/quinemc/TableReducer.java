@@ -55,6 +55,9 @@ public class TableReducer {
      * @return true is reduction was possible
      */
     public boolean canReduceOnlyCheckTable() {
+        if (table.size() >= BoolTableBitSet.MIN_ROWS && !(table instanceof BoolTableBitSet))
+            table = new BoolTableBitSet(table);
+
         boolean isReduced = false;
 
         Iterator<Variable> it = vars.iterator();
@@ -77,6 +77,19 @@ public final class TableRow implements Comparable<TableRow> {
     }
 
 
+    /**
+     * Creates a new row with the given state.
+     *
+     * @param cols           the number of columns
+     * @param state          the state, bit i represents column i
+     * @param optimizedFlags the optimized columns
+     */
+    TableRow(int cols, long state, long optimizedFlags) {
+        this(cols);
+        this.state = state;
+        this.optimizedFlags = optimizedFlags;
+    }
+
     /**
      * Sets the given index to optimized
      *
@@ -97,6 +110,16 @@ public final class TableRow implements Comparable<TableRow> {
         return optimizedFlags;
     }
 
+    /**
+     * Returns the state of the row.
+     * Bit i represents column i, optimized columns are always zero.
+     *
+     * @return the state
+     */
+    long getState() {
+        return state;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.quinemc.primeselector;
+
+import de.neemann.digital.analyse.quinemc.TableRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.TreeSet;
+
+/**
+ * Solves the covering problem by a branch and bound search.
+ * The primes and the indices covered by the primes are stored in bit sets.
+ * In every step the index which is covered by the fewest primes is selected, and all
+ * primes covering this index are tried. A branch is abandoned if the number of primes
+ * already used plus a lower bound of the primes still needed is not better than the best
+ * solution found so far. The lower bound is the number of open indices which can not be
+ * covered by a common prime.
+ * <p>
+ * If only a single solution is requested, primes which cover only a subset of the open
+ * indices of an other prime are removed in every step. If all solutions are requested,
+ * all solutions with the minimal number of primes are collected. They are ordered the same
+ * way {@link BruteForceGetAll} orders them.
+ * <p>
+ * If a node budget is set, the search is stopped if the number of visited nodes exceeds
+ * the budget. In this case the solution found by the {@link LargestFirst} strategy is used,
+ * so the result only depends on the input and not on the speed of the machine.
+ */
+public class ExactCover implements PrimeSelector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExactCover.class);
+
+    private long nodeBudget;
+    private int maxSolutions = 1;
+
+    private int primeCount;
+    private long[][] cover;
+    private long[][] coveredBy;
+    private int[] chosen;
+    private int bestSize;
+    private BitSet bestSolution;
+    private ArrayList<BitSet> solutions;
+    private long nodes;
+    private boolean aborted;
+    private boolean solutionLimitReached;
+    private ArrayList<ArrayList<TableRow>> foundSolutions;
+
+    /**
+     * Sets the node budget.
+     * If the budget is exhausted, the solution found by the {@link LargestFirst} strategy is used.
+     *
+     * @param nodes the maximal number of search nodes to visit, zero means no limit
+     * @return this for chained calls
+     */
+    public ExactCover setNodeBudget(long nodes) {
+        this.nodeBudget = nodes;
+        return this;
+    }
+
+    /**
+     * Sets the number of solutions to collect.
+     * If set to a value larger than one, all solutions with the minimal number of
+     * primes are collected, up to the given number of solutions.
+     *
+     * @param maxSolutions the maximal number of solutions
+     * @return this for chained calls
+     */
+    public ExactCover setMaxSolutions(int maxSolutions) {
+        this.maxSolutions = Math.max(1, maxSolutions);
+        return this;
+    }
+
+    /**
+     * @return true if the last search was stopped because the node budget was exhausted
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    @Override
+    public boolean isSolutionLimitReached() {
+        return solutionLimitReached;
+    }
+
+    @Override
+    public void select(ArrayList<TableRow> primes, ArrayList<TableRow> primesAvail, TreeSet<Integer> termIndices) {
+        init(primesAvail, termIndices);
+
+        final int termWords = (termIndices.size() + 63) >>> 6;
+        final int primeWords = (primeCount + 63) >>> 6;
+        long[] uncovered = new long[termWords];
+        for (int t = 0; t < termIndices.size(); t++)
+            uncovered[t >>> 6] |= 1L << t;
+        long[] avail = new long[primeWords];
+        for (int p = 0; p < primeCount; p++)
+            avail[p >>> 6] |= 1L << p;
+
+        final BitSet initial = largestFirst(uncovered);
+        bestSolution = initial;
+        bestSize = initial.cardinality();
+        solutions = new ArrayList<>();
+        chosen = new int[primeCount];
+        nodes = 0;
+        aborted = false;
+        solutionLimitReached = false;
+
+        search(uncovered, avail, 0);
+        LOGGER.debug("exact cover: " + nodes + " nodes, " + bestSize + " primes" + (aborted ? ", aborted" : ""));
+
+        if (aborted) {
+            bestSolution = initial;
+            solutions.clear();
+        }
+
+        if (maxSolutions > 1) {
+            if (solutions.isEmpty())
+                solutions.add(bestSolution);
+            if (solutions.size() > maxSolutions)
+                solutionLimitReached = true;
+            trimSolutions(maxSolutions);
+            foundSolutions = new ArrayList<>();
+            for (BitSet s : solutions) {
+                ArrayList<TableRow> singleSolution = new ArrayList<>(primes);
+                addPrimes(singleSolution, primesAvail, s);
+                foundSolutions.add(singleSolution);
+            }
+            primes.clear();
+            primes.addAll(foundSolutions.get(0));
+        } else {
+            foundSolutions = null;
+            addPrimes(primes, primesAvail, bestSolution);
+        }
+    }
+
+    @Override
+    public ArrayList<ArrayList<TableRow>> getAllSolutions() {
+        return foundSolutions;
+    }
+
+    private void init(ArrayList<TableRow> primesAvail, TreeSet<Integer> termIndices) {
+        int[] termIndex = new int[termIndices.isEmpty() ? 0 : termIndices.last() + 1];
+        int n = 0;
+        for (int i : termIndices)
+            termIndex[i] = n++;
+
+        primeCount = primesAvail.size();
+        final int termWords = (termIndices.size() + 63) >>> 6;
+        final int primeWords = (primeCount + 63) >>> 6;
+        cover = new long[primeCount][termWords];
+        coveredBy = new long[termIndices.size()][primeWords];
+        for (int p = 0; p < primeCount; p++)
+            for (int i : primesAvail.get(p).getSource())
+                if (i < termIndex.length && termIndices.contains(i)) {
+                    final int t = termIndex[i];
+                    cover[p][t >>> 6] |= 1L << t;
+                    coveredBy[t][p >>> 6] |= 1L << p;
+                }
+    }
+
+    private static void addPrimes(ArrayList<TableRow> primes, ArrayList<TableRow> primesAvail, BitSet solution) {
+        for (int p = solution.nextSetBit(0); p >= 0; p = solution.nextSetBit(p + 1))
+            primes.add(primesAvail.get(p));
+    }
+
+    /**
+     * Creates the initial solution by always using the prime covering the most open indices.
+     */
+    private BitSet largestFirst(long[] uncovered) {
+        long[] open = uncovered.clone();
+        BitSet solution = new BitSet();
+        while (!isEmpty(open)) {
+            int best = -1;
+            int maxCount = 0;
+            for (int p = 0; p < primeCount; p++) {
+                int count = countAnd(cover[p], open);
+                if (count > maxCount) {
+                    maxCount = count;
+                    best = p;
+                }
+            }
+            if (best < 0)
+                throw new RuntimeException("indices not coverable");
+            solution.set(best);
+            andNot(open, cover[best]);
+        }
+        return solution;
+    }
+
+    private void search(long[] uncovered, long[] avail, int depth) {
+        if (aborted || isBudgetExhausted())
+            return;
+
+        if (isEmpty(uncovered)) {
+            foundSolution(depth);
+            return;
+        }
+
+        if (maxSolutions == 1)
+            removeDominated(uncovered, avail);
+
+        // select the open index with the fewest primes
+        int branchTerm = -1;
+        int minPrimes = Integer.MAX_VALUE;
+        for (int w = 0; w < uncovered.length; w++) {
+            long bits = uncovered[w];
+            while (bits != 0) {
+                final int t = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int c = countAnd(coveredBy[t], avail);
+                if (c < minPrimes) {
+                    minPrimes = c;
+                    branchTerm = t;
+                }
+            }
+        }
+        if (minPrimes == 0)
+            return;
+
+        final int bound = depth + lowerBound(uncovered, avail);
+        if (bound > bestSize || (maxSolutions == 1 && bound >= bestSize))
+            return;
+
+        // try the primes covering the most open indices first
+        int[] candidates = new int[minPrimes];
+        int[] gain = new int[minPrimes];
+        int n = 0;
+        long[] cb = coveredBy[branchTerm];
+        for (int w = 0; w < cb.length; w++) {
+            long bits = cb[w] & avail[w];
+            while (bits != 0) {
+                final int p = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                final int g = countAnd(cover[p], uncovered);
+                int i = n++;
+                while (i > 0 && gain[i - 1] < g) {
+                    candidates[i] = candidates[i - 1];
+                    gain[i] = gain[i - 1];
+                    i--;
+                }
+                candidates[i] = p;
+                gain[i] = g;
+            }
+        }
+
+        long[] nextAvail = avail.clone();
+        long[] nextUncovered = new long[uncovered.length];
+        for (int i = 0; i < n; i++) {
+            final int p = candidates[i];
+            // the solutions containing p are all found in this branch
+            nextAvail[p >>> 6] &= ~(1L << p);
+            for (int w = 0; w < uncovered.length; w++)
+                nextUncovered[w] = uncovered[w] & ~cover[p][w];
+            chosen[depth] = p;
+            search(nextUncovered, nextAvail.clone(), depth + 1);
+        }
+    }
+
+    private boolean isBudgetExhausted() {
+        nodes++;
+        if (nodeBudget > 0 && nodes > nodeBudget)
+            aborted = true;
+        else if ((nodes & 0x3ff) == 0 && Thread.currentThread().isInterrupted())
+            aborted = true;
+        return aborted;
+    }
+
+    private void foundSolution(int size) {
+        BitSet s = new BitSet(primeCount);
+        for (int i = 0; i < size; i++)
+            s.set(chosen[i]);
+
+        if (size < bestSize) {
+            bestSize = size;
+            bestSolution = s;
+            solutions.clear();
+            solutionLimitReached = false;
+        }
+        if (maxSolutions > 1) {
+            solutions.add(s);
+            if (solutions.size() > maxSolutions * 2) {
+                solutionLimitReached = true;
+                trimSolutions(maxSolutions);
+            }
+        }
+    }
+
+    /**
+     * Sorts the solutions like {@link BruteForceGetAll} would find them, and keeps the first ones.
+     */
+    private void trimSolutions(int max) {
+        solutions.sort((a, b) -> {
+            BitSet x = (BitSet) a.clone();
+            x.xor(b);
+            if (x.isEmpty())
+                return 0;
+            return a.get(x.length() - 1) ? 1 : -1;
+        });
+        while (solutions.size() > max)
+            solutions.remove(solutions.size() - 1);
+    }
+
+    /**
+     * Removes all primes which cover no open index or only a subset of the open indices
+     * covered by an other available prime. If two primes cover the same indices, the
+     * second one is removed.
+     */
+    private void removeDominated(long[] uncovered, long[] avail) {
+        ArrayList<long[]> covers = new ArrayList<>();
+        ArrayList<Integer> index = new ArrayList<>();
+        for (int w = 0; w < avail.length; w++) {
+            long bits = avail[w];
+            while (bits != 0) {
+                final int p = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                long[] c = new long[uncovered.length];
+                boolean empty = true;
+                for (int i = 0; i < c.length; i++) {
+                    c[i] = cover[p][i] & uncovered[i];
+                    if (c[i] != 0)
+                        empty = false;
+                }
+                if (empty)
+                    avail[w] &= ~(1L << p);
+                else {
+                    covers.add(c);
+                    index.add(p);
+                }
+            }
+        }
+
+        boolean[] removed = new boolean[covers.size()];
+        for (int i = 0; i < covers.size(); i++)
+            for (int j = 0; j < covers.size(); j++)
+                if (i != j && !removed[j] && isSubset(covers.get(i), covers.get(j))
+                        && (j < i || !isSubset(covers.get(j), covers.get(i)))) {
+                    removed[i] = true;
+                    final int p = index.get(i);
+                    avail[p >>> 6] &= ~(1L << p);
+                    break;
+                }
+    }
+
+    /**
+     * Counts the open indices which have no prime in common.
+     * Each of these indices needs its own prime.
+     */
+    private int lowerBound(long[] uncovered, long[] avail) {
+        long[] used = new long[avail.length];
+        int bound = 0;
+        for (int w = 0; w < uncovered.length; w++) {
+            long bits = uncovered[w];
+            while (bits != 0) {
+                final int t = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                long[] cb = coveredBy[t];
+                boolean independent = true;
+                for (int i = 0; i < used.length; i++)
+                    if ((cb[i] & avail[i] & used[i]) != 0) {
+                        independent = false;
+                        break;
+                    }
+                if (independent) {
+                    bound++;
+                    for (int i = 0; i < used.length; i++)
+                        used[i] |= cb[i] & avail[i];
+                }
+            }
+        }
+        return bound;
+    }
+
+    private static boolean isSubset(long[] sub, long[] set) {
+        for (int i = 0; i < sub.length; i++)
+            if ((sub[i] & ~set[i]) != 0)
+                return false;
+        return true;
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long b : bits)
+            if (b != 0)
+                return false;
+        return true;
+    }
+
+    private static int countAnd(long[] a, long[] b) {
+        int c = 0;
+        for (int i = 0; i < a.length; i++)
+            c += Long.bitCount(a[i] & b[i]);
+        return c;
+    }
+
+    private static void andNot(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++)
+            a[i] &= ~b[i];
+    }
+}
@@ -32,4 +32,11 @@ public interface PrimeSelector {
         return null;
     }
 
+    /**
+     * @return true if there are more solutions than returned by {@link #getAllSolutions()}
+     */
+    default boolean isSolutionLimitReached() {
+        return false;
+    }
+
 }
@@ -11,19 +11,28 @@ import java.util.ArrayList;
 import java.util.TreeSet;
 
 /**
+ * The default prime selector.
+ * If there are only a few primes, all minimal solutions are collected, otherwise
+ * a single minimal solution is searched. In both cases the number of search steps is limited.
  */
 public class PrimeSelectorDefault implements PrimeSelector {
+    /**
+     * The maximal number of solutions collected.
+     * If there are more, {@link #isSolutionLimitReached()} returns true.
+     */
+    public static final int MAX_SOLUTIONS = 256;
+    private static final int MAX_PRIMES_FOR_ALL_SOLUTIONS = 22;
+    private static final long NODE_BUDGET = 2000000;
 
     private PrimeSelector ps;
 
     @Override
     public void select(ArrayList<TableRow> primes, ArrayList<TableRow> primesAvail, TreeSet<Integer> termIndices) {
         int count = primesAvail.size();
-        if (count <= 22) {
-            ps = new BruteForceGetAll();
-        } else {
-            ps = new LargestFirst();
-        }
+        ExactCover ec = new ExactCover().setNodeBudget(NODE_BUDGET);
+        if (count <= MAX_PRIMES_FOR_ALL_SOLUTIONS)
+            ec.setMaxSolutions(MAX_SOLUTIONS);
+        ps = ec;
         ps.select(primes, primesAvail, termIndices);
     }
 
@@ -35,4 +44,9 @@ public class PrimeSelectorDefault implements PrimeSelector {
             return ps.getAllSolutions();
     }
 
+    @Override
+    public boolean isSolutionLimitReached() {
+        return ps != null && ps.isSolutionLimitReached();
+    }
+
 }
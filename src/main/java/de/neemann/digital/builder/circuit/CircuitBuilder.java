@@ -236,15 +236,16 @@ public class CircuitBuilder implements BuilderInterface<CircuitBuilder> {
 
         final int size = 1 << vars.size();
         DataField data = new DataField(size);
-        ContextFiller context = new ContextFiller(vars);
-        for (int i = 0; i < size; i++) {
-            context.setContextTo(i);
-            try {
-                boolean r = expression.calculate(context);
-                data.setData(i, r ? 1 : 0);
-            } catch (ExpressionException e) {
-                throw new BuilderException(Lang.get("err_builder_couldNotFillLUT"), e);
+        try {
+            CompiledExpression compiled = new CompiledExpression(expression, vars);
+            long values = 0;
+            for (int i = 0; i < size; i++) {
+                if ((i & 63) == 0)
+                    values = compiled.calculateBlock(i >>> 6);
+                data.setData(i, (values >>> (i & 63)) & 1);
             }
+        } catch (ExpressionException e) {
+            throw new BuilderException(Lang.get("err_builder_couldNotFillLUT"), e);
         }
 
         if (isXor(data.getData()))
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.core;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Helper to create SHA-256 hashes
+ */
+public final class Digest {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Digest() {
+    }
+
+    /**
+     * @return a new SHA-256 message digest
+     */
+    public static MessageDigest createSHA256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform is required to support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Converts the given bytes to a lower case hex string
+     *
+     * @param data the bytes
+     * @return the hex string
+     */
+    public static String toHex(byte[] data) {
+        StringBuilder sb = new StringBuilder(data.length * 2);
+        for (byte b : data)
+            sb.append(HEX[(b >> 4) & 15]).append(HEX[b & 15]);
+        return sb.toString();
+    }
+}
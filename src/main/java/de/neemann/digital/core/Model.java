@@ -6,11 +6,14 @@
 package de.neemann.digital.core;
 
 import de.neemann.digital.analyse.AnalyseException;
+import de.neemann.digital.analyse.DependencyGraph;
 import de.neemann.digital.core.io.Button;
+import de.neemann.digital.core.memory.RAMInterface;
 import de.neemann.digital.core.wiring.AsyncSeq;
 import de.neemann.digital.core.wiring.Break;
 import de.neemann.digital.core.wiring.Clock;
 import de.neemann.digital.core.wiring.Reset;
+import de.neemann.digital.draw.elements.PinException;
 import de.neemann.digital.gui.components.WindowPosManager;
 import de.neemann.digital.lang.Lang;
 import org.slf4j.Logger;
@@ -71,6 +74,9 @@ public class Model implements Iterable<Node>, SyncAccess {
     private ArrayList<Node> nodesToUpdateAct;
     private ArrayList<Node> nodesToUpdateNext;
     private int version;
+    private int modificationCount;
+    private DependencyGraph dependencyGraph;
+    private long dependencyGraphModification;
     private WindowPosManager windowPosManager;
     private HashSet<Node> oscillatingNodes;
     private Signal invalidSignal = null;
@@ -154,6 +160,7 @@ public class Model implements Iterable<Node>, SyncAccess {
 
         nodes.add(node);
         node.setModel(this);
+        modificationCount++;
         return node;
     }
 
@@ -736,6 +743,7 @@ public class Model implements Iterable<Node>, SyncAccess {
      */
     public void removeNode(Node node) {
         nodes.remove(node);
+        modificationCount++;
     }
 
     /**
@@ -750,6 +758,47 @@ public class Model implements Iterable<Node>, SyncAccess {
         if (i < 0)
             throw new NodeException("node not found", oldNode, -1, null);
         nodes.set(i, newNode);
+        modificationCount++;
+    }
+
+    /**
+     * Returns the number of modifications of the model.
+     * Is increased every time a node is added, removed or replaced, and every time an
+     * observer is added to or removed from a signal or a nodes output. So it can be used
+     * to invalidate data derived from the models structure.
+     *
+     * @return the number of modifications
+     * @throws PinException PinException
+     */
+    public long getModificationCount() throws PinException {
+        long count = modificationCount;
+        for (Signal s : signals)
+            count += s.getValue().getModificationCount();
+        for (Node n : nodes)
+            for (ObservableValue v : n.getOutputs())
+                count += v.getModificationCount();
+        return count;
+    }
+
+    /**
+     * Returns the dependency graph of the given inputs.
+     * The graph is created once and reused until the model is modified or
+     * the graph of other inputs is requested.
+     *
+     * @param inputs the inputs
+     * @return the dependency graph
+     * @throws BacktrackException BacktrackException
+     * @throws PinException       PinException
+     */
+    public DependencyGraph getDependencyGraph(List<Signal> inputs) throws BacktrackException, PinException {
+        final long modification = getModificationCount();
+        if (dependencyGraph == null
+                || dependencyGraphModification != modification
+                || !dependencyGraph.hasInputs(inputs)) {
+            dependencyGraph = new DependencyGraph(inputs);
+            dependencyGraphModification = modification;
+        }
+        return dependencyGraph;
     }
 
 
@@ -779,6 +828,21 @@ public class Model implements Iterable<Node>, SyncAccess {
         return null;
     }
 
+    /**
+     * Returns the memory with the given label.
+     * Use the block transfer methods of the {@link RAMInterface} to copy data in or out of the
+     * memory.
+     *
+     * @param label the label
+     * @return the memory or null if there is no such memory
+     */
+    public RAMInterface getMemory(String label) {
+        for (Node n : nodes)
+            if (n instanceof RAMInterface && label.equals(((RAMInterface) n).getLabel()))
+                return (RAMInterface) n;
+        return null;
+    }
+
     /**
      * Registers a global value.
      *
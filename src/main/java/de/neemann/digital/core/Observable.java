@@ -12,6 +12,7 @@ import java.util.ArrayList;
  */
 public class Observable {
     private final ArrayList<Observer> observers;
+    private int modificationCount;
 
     /**
      * Creates a new instance
@@ -27,8 +28,10 @@ public class Observable {
      * @return observer the observer to add
      */
     public Observer addObserver(Observer observer) {
-        if (observer != null && !observers.contains(observer))
+        if (observer != null && !observers.contains(observer)) {
             observers.add(observer);
+            modificationCount++;
+        }
         return observer;
     }
 
@@ -45,7 +48,8 @@ public class Observable {
      * @param observer the observer to use
      */
     public void removeObserver(Observer observer) {
-        observers.remove(observer);
+        if (observers.remove(observer))
+            modificationCount++;
     }
 
     /**
@@ -54,7 +58,8 @@ public class Observable {
      * @param observerClass the class of observers to remove
      */
     public void removeObserver(Class<? extends Observer> observerClass) {
-        observers.removeIf(observer -> observer.getClass() == observerClass);
+        if (observers.removeIf(observer -> observer.getClass() == observerClass))
+            modificationCount++;
     }
 
     /**
@@ -76,6 +81,16 @@ public class Observable {
         return observers.contains(observer);
     }
 
+    /**
+     * Returns the number of modifications of the observer list.
+     * Is increased every time an observer is added or removed.
+     *
+     * @return the number of modifications
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
     /**
      * @return tje list of observers
      */
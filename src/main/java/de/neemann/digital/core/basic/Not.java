@@ -72,6 +72,13 @@ public class Not extends Node implements Element, Countable {
         return output;
     }
 
+    /**
+     * @return the input
+     */
+    public ObservableValue getInput() {
+        return input;
+    }
+
     @Override
     public int getDataBits() {
         return bits;
@@ -366,6 +366,24 @@ public final class Keys {
     public static final Key<Boolean> AUTO_RELOAD_ROM
             = new Key<>("autoReload", false).setSecondary();
 
+    /**
+     * flag to map a binary image file as the contents of a memory
+     */
+    public static final Key<Boolean> MAP_IMAGE_FILE
+            = new Key<>("mapImageFile", false).setSecondary();
+
+    /**
+     * the binary image file mapped as the contents of a memory
+     */
+    public static final Key<File> IMAGE_FILE
+            = new Key.KeyFile("imageFile", new File("")).setSecondary().setDependsOn(MAP_IMAGE_FILE);
+
+    /**
+     * flag to write the modifications of a memory back to the mapped image file
+     */
+    public static final Key<Boolean> PERSIST_IMAGE_FILE
+            = new Key<>("persistImageFile", false).setSecondary().setDependsOn(MAP_IMAGE_FILE);
+
     /**
      * flag to show the data table window
      */
@@ -621,6 +639,28 @@ public final class Keys {
                     .setRequiresRestart()
                     .setSecondary();
 
+    /**
+     * The number of updates per second of a memory view attached to a running model
+     */
+    public static final Key<Integer> SETTINGS_MEMORY_UPDATE_RATE =
+            new Key.KeyInteger("memoryUpdateRate", 20)
+                    .setComboBoxValues(1, 2, 5, 10, 20, 50)
+                    .setMin(1)
+                    .setMax(100)
+                    .setSecondary();
+
+    /**
+     * If set, the test results of the "test all" function are cached
+     */
+    public static final Key<Boolean> SETTINGS_TEST_CACHE =
+            new Key<>("testResultCache", true).setSecondary();
+
+    /**
+     * If set, large memory contents are stored compressed in the circuit file
+     */
+    public static final Key<Boolean> SETTINGS_COMPRESS_DATA =
+            new Key<>("compressData", false).setSecondary();
+
     /**
      * Uses the equals key instead of the plus key.
      */
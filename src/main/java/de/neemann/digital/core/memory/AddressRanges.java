@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.core.memory;
+
+import java.util.Arrays;
+
+/**
+ * A set of address ranges.
+ * Used to collect the addresses of a {@link DataField} which have changed.
+ * Adjacent and overlapping ranges are merged. If there are too many ranges,
+ * they are merged to a single range which covers all of them, so the set
+ * never becomes large.
+ */
+public final class AddressRanges {
+    private static final int MAX_RANGES = 64;
+
+    private int[] from = new int[8];
+    private int[] to = new int[8];
+    private int count;
+    private boolean all;
+    private int last = -1;
+
+    /**
+     * Creates a new empty set
+     */
+    public AddressRanges() {
+    }
+
+    /**
+     * Creates a copy of the given set
+     *
+     * @param other the set to copy
+     */
+    public AddressRanges(AddressRanges other) {
+        from = Arrays.copyOf(other.from, other.from.length);
+        to = Arrays.copyOf(other.to, other.to.length);
+        count = other.count;
+        all = other.all;
+        last = other.last;
+    }
+
+    /**
+     * Adds a single address.
+     * A negative address means that all addresses have changed.
+     *
+     * @param addr the address
+     */
+    public void add(int addr) {
+        if (all)
+            return;
+        if (addr < 0) {
+            setAll();
+            return;
+        }
+
+        // fast path for sequential access
+        if (last >= 0) {
+            if (addr >= from[last] && addr <= to[last])
+                return;
+            if (addr == to[last] + 1 && (last + 1 >= count || from[last + 1] > addr + 1)) {
+                to[last] = addr;
+                return;
+            }
+        }
+
+        add(addr, addr);
+    }
+
+    /**
+     * Adds a range of addresses
+     *
+     * @param start the first address
+     * @param end   the last address, inclusive
+     */
+    public void add(int start, int end) {
+        if (all)
+            return;
+        if (start < 0) {
+            setAll();
+            return;
+        }
+
+        // first range which ends at or behind start-1
+        int i = 0;
+        int hi = count;
+        while (i < hi) {
+            int mid = (i + hi) >>> 1;
+            if (to[mid] < start - 1)
+                i = mid + 1;
+            else
+                hi = mid;
+        }
+
+        int j = i;
+        int f = start;
+        int t = end;
+        while (j < count && from[j] <= t + 1) {
+            f = Math.min(f, from[j]);
+            t = Math.max(t, to[j]);
+            j++;
+        }
+
+        int removed = j - i;
+        if (removed == 0) {
+            if (count == from.length) {
+                from = Arrays.copyOf(from, count * 2);
+                to = Arrays.copyOf(to, count * 2);
+            }
+            System.arraycopy(from, i, from, i + 1, count - i);
+            System.arraycopy(to, i, to, i + 1, count - i);
+            count++;
+        } else if (removed > 1) {
+            System.arraycopy(from, j, from, i + 1, count - j);
+            System.arraycopy(to, j, to, i + 1, count - j);
+            count -= removed - 1;
+        }
+        from[i] = f;
+        to[i] = t;
+        last = i;
+
+        if (count > MAX_RANGES) {
+            to[0] = to[count - 1];
+            count = 1;
+            last = 0;
+        }
+    }
+
+    /**
+     * Marks all addresses as contained in this set
+     */
+    public void setAll() {
+        all = true;
+        count = 0;
+        last = -1;
+    }
+
+    /**
+     * @return true if all addresses are contained in this set
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    /**
+     * @return true if this set is empty
+     */
+    public boolean isEmpty() {
+        return !all && count == 0;
+    }
+
+    /**
+     * Returns the number of ranges.
+     * If all addresses are contained, zero is returned.
+     *
+     * @return the number of ranges
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the first address of the given range
+     *
+     * @param i the index of the range
+     * @return the first address
+     */
+    public int getFrom(int i) {
+        return from[i];
+    }
+
+    /**
+     * Returns the last address of the given range
+     *
+     * @param i the index of the range
+     * @return the last address, inclusive
+     */
+    public int getTo(int i) {
+        return to[i];
+    }
+
+    /**
+     * Checks if the given address is contained in this set
+     *
+     * @param addr the address
+     * @return true if the address is contained
+     */
+    public boolean contains(int addr) {
+        if (all)
+            return true;
+        for (int i = 0; i < count; i++)
+            if (addr >= from[i] && addr <= to[i])
+                return true;
+        return false;
+    }
+
+    /**
+     * Removes all addresses
+     */
+    public void clear() {
+        all = false;
+        count = 0;
+        last = -1;
+    }
+
+    @Override
+    public String toString() {
+        if (all)
+            return "all";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (sb.length() > 0)
+                sb.append(", ");
+            sb.append(Integer.toHexString(from[i]));
+            if (to[i] != from[i])
+                sb.append("-").append(Integer.toHexString(to[i]));
+        }
+        return sb.toString();
+    }
+}
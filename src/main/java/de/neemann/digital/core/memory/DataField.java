@@ -15,12 +15,39 @@ import java.util.Arrays;
 
 /**
  * Used to store an array of values.
+ * <p>
+ * Small data fields are stored in a single dense array. If the size exceeds
+ * {@link #DENSE_LIMIT} words, the values are stored in pages of {@link #PAGE_SIZE}
+ * words which are only allocated if a non zero value is written to them.
+ * This way even memories with a large address space can be simulated if only a
+ * few regions are used.
+ * <p>
+ * Copies of a data field share the stored values with the original. The values are
+ * only copied if one of the data fields is modified (copy on write), so a ROM image
+ * or an initial RAM image can be used by many models without duplicating it.
+ * All methods which modify the stored values synchronize on the data field, so a copy
+ * can be created by an other thread while the simulation is modifying the values.
  */
 public class DataField implements HGSArray {
+    /**
+     * The number of words in a page of a sparse data field
+     */
+    public static final int PAGE_SIZE = 4096;
+    /**
+     * The max number of words stored in a dense array
+     */
+    public static final int DENSE_LIMIT = 1 << 20;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
 
     private long[] data;
+    private long[][] pages;
+    private transient volatile boolean shared;
 
     private final transient ArrayList<DataListener> listeners = new ArrayList<>();
+    private final transient ArrayList<RangeListener> rangeListeners = new ArrayList<>();
+    private transient AddressRanges dirty;
+    private transient volatile boolean listening;
 
     /**
      * Creates a new DataField of size 0
@@ -35,7 +62,10 @@ public class DataField implements HGSArray {
      * @param size size
      */
     public DataField(int size) {
-        this(new long[size]);
+        if (size > DENSE_LIMIT)
+            pages = new long[pageCount(size)][];
+        else
+            data = new long[size];
     }
 
     /**
@@ -44,7 +74,52 @@ public class DataField implements HGSArray {
      * @param data the data to copy
      */
     public DataField(DataField data) {
-        this.data = Arrays.copyOf(data.data, data.data.length);
+        copyFrom(data);
+    }
+
+    private void copyFrom(DataField other) {
+        if (other == this)
+            return;
+        if (other instanceof MappedDataField) {
+            final int size = other.size();
+            DataField df = new DataField(size);
+            for (int i = 0; i < size; i++) {
+                long v = other.getDataWord(i);
+                if (v != 0)
+                    df.setData(i, v);
+            }
+            data = df.data;
+            pages = df.pages;
+            shared = false;
+        } else {
+            // the check and clone in unshare is done with the same lock held
+            synchronized (other) {
+                data = other.data;
+                pages = other.pages;
+                other.shared = true;
+            }
+            shared = true;
+        }
+    }
+
+    /**
+     * Creates a private copy of the stored values if they are shared with
+     * another data field.
+     * Needs to be called with the lock of this data field held.
+     */
+    private void unshare() {
+        if (shared) {
+            if (data != null)
+                data = Arrays.copyOf(data, data.length);
+            else {
+                long[][] p = new long[pages.length][];
+                for (int i = 0; i < p.length; i++)
+                    if (pages[i] != null)
+                        p[i] = Arrays.copyOf(pages[i], PAGE_SIZE);
+                pages = p;
+            }
+            shared = false;
+        }
     }
 
     /**
@@ -84,11 +159,12 @@ public class DataField implements HGSArray {
 
         w.write("v2.0 raw");
         w.newLine();
-        if (data.length > 0) {
-            long akt = data[0];
+        final int size = size();
+        if (size > 0) {
+            long akt = getDataWord(0);
             int count = 1;
-            for (int i = 1; i < data.length; i++) {
-                final long now = data[i];
+            for (int i = 1; i < size; i++) {
+                final long now = getDataWord(i);
                 if (now == akt)
                     count++;
                 else {
@@ -120,9 +196,17 @@ public class DataField implements HGSArray {
      * Sets all stored data to null!
      * Is not called during simulation! Is only called during editing.
      */
-    public void clearAll() {
-        if (data != null)
+    public synchronized void clearAll() {
+        if (shared) {
+            if (data != null)
+                data = new long[data.length];
+            else
+                pages = new long[pages.length][];
+            shared = false;
+        } else if (data != null)
             Arrays.fill(data, 0);
+        else
+            Arrays.fill(pages, null);
 
         // all the data have changed!
         fireChanged(-1);
@@ -131,25 +215,223 @@ public class DataField implements HGSArray {
     /**
      * Sets a data value the DataField.
      * If the actual data field capacity is to small the size in increased.
+     * If the values are not shared and no resize is required, no lock is taken.
+     * A write which runs concurrently to the creation of a copy may or may not be
+     * visible in the copy.
      *
      * @param addr  the address
      * @param value the value
      * @return this for chained calls
      */
     public DataField setData(int addr, long value) {
-        if (addr >= data.length) {
-            int newLen = addr * 2;
-            if (newLen < 32) newLen = 32;
-            data = Arrays.copyOf(data, newLen);
+        final long[] d = data;
+        if (d != null && addr < d.length && !shared) {
+            if (d[addr] != value) {
+                d[addr] = value;
+                // a copy was created or the array was replaced in the meantime
+                if (shared || data != d)
+                    setDataLocked(addr, value);
+                fireChanged(addr);
+            }
+            return this;
+        }
+        return setDataLocked(addr, value);
+    }
+
+    /**
+     * Sets a block of values.
+     * In contrast to {@link #setData(int, long)} the listeners are notified only once.
+     *
+     * @param addr   the address of the first value
+     * @param values the values to set
+     * @param offset the index of the first value in the values array
+     * @param len    the number of values to set
+     * @return this for chained calls
+     */
+    public DataField setData(int addr, long[] values, int offset, int len) {
+        if (len <= 0)
+            return this;
+
+        final long[] d = data;
+        if (d != null && addr + len <= d.length && !shared) {
+            boolean changed = false;
+            for (int i = 0; i < len; i++) {
+                long v = values[offset + i];
+                if (d[addr + i] != v) {
+                    d[addr + i] = v;
+                    changed = true;
+                }
+            }
+            if (changed) {
+                // a copy was created or the array was replaced in the meantime
+                if (shared || data != d)
+                    setDataLocked(addr, values, offset, len);
+                fireChanged(addr, addr + len - 1);
+            }
+            return this;
         }
+        return setDataLocked(addr, values, offset, len);
+    }
 
-        if (data[addr] != value) {
-            data[addr] = value;
+    private synchronized DataField setDataLocked(int addr, long value) {
+        if (data != null) {
+            if (addr < data.length) {
+                if (data[addr] != value) {
+                    if (shared)
+                        unshare();
+                    data[addr] = value;
+                    fireChanged(addr);
+                }
+                return this;
+            }
+
+            if (addr < DENSE_LIMIT) {
+                int newLen = addr * 2;
+                if (newLen < 32) newLen = 32;
+                data = Arrays.copyOf(data, newLen);
+                shared = false;
+                data[addr] = value;
+                if (value != 0)
+                    fireChanged(addr);
+                return this;
+            }
+
+            makeSparse();
+        }
+
+        if (shared) {
+            if (getDataWord(addr) == value)
+                return this;
+            unshare();
+        }
+
+        int p = addr >>> PAGE_BITS;
+        if (p >= pages.length) {
+            if (value == 0)
+                return this;
+            pages = Arrays.copyOf(pages, Math.max(p + 1, Math.min(pages.length * 2, Integer.MAX_VALUE >>> PAGE_BITS)));
+        }
+
+        long[] page = pages[p];
+        if (page == null) {
+            if (value == 0)
+                return this;
+            page = new long[PAGE_SIZE];
+            pages[p] = page;
+        }
+
+        int i = addr & PAGE_MASK;
+        if (page[i] != value) {
+            page[i] = value;
             fireChanged(addr);
         }
         return this;
     }
 
+    private synchronized DataField setDataLocked(int addr, long[] values, int offset, int len) {
+
+        if (shared)
+            unshare();
+
+        final int end = addr + len;
+        if (data != null && end > data.length) {
+            if (end <= DENSE_LIMIT)
+                data = Arrays.copyOf(data, Math.max(end, Math.min(DENSE_LIMIT, data.length * 2)));
+            else
+                makeSparse();
+        }
+
+        boolean changed = false;
+        if (data != null) {
+            for (int i = 0; i < len; i++) {
+                long v = values[offset + i];
+                if (data[addr + i] != v) {
+                    data[addr + i] = v;
+                    changed = true;
+                }
+            }
+        } else {
+            int i = 0;
+            while (i < len) {
+                int a = addr + i;
+                int p = a >>> PAGE_BITS;
+                int o = a & PAGE_MASK;
+                int n = Math.min(len - i, PAGE_SIZE - o);
+                if (p >= pages.length || pages[p] == null) {
+                    if (isZero(values, offset + i, n)) {
+                        i += n;
+                        continue;
+                    }
+                    if (p >= pages.length)
+                        pages = Arrays.copyOf(pages, Math.max(p + 1, Math.min(pages.length * 2, Integer.MAX_VALUE >>> PAGE_BITS)));
+                    pages[p] = new long[PAGE_SIZE];
+                }
+                long[] page = pages[p];
+                for (int j = 0; j < n; j++) {
+                    long v = values[offset + i + j];
+                    if (page[o + j] != v) {
+                        page[o + j] = v;
+                        changed = true;
+                    }
+                }
+                i += n;
+            }
+        }
+
+        if (changed)
+            fireChanged(addr, end - 1);
+        return this;
+    }
+
+    private void makeSparse() {
+        pages = new long[pageCount(data.length)][];
+        for (int p = 0; p < pages.length; p++) {
+            int start = p << PAGE_BITS;
+            int len = Math.min(PAGE_SIZE, data.length - start);
+            if (!isZero(data, start, len)) {
+                pages[p] = new long[PAGE_SIZE];
+                System.arraycopy(data, start, pages[p], 0, len);
+            }
+        }
+        data = null;
+        shared = false;
+    }
+
+    private void makeDense() {
+        data = new long[size()];
+        for (int p = 0; p < pages.length; p++)
+            if (pages[p] != null)
+                System.arraycopy(pages[p], 0, data, p << PAGE_BITS, PAGE_SIZE);
+        pages = null;
+        shared = false;
+    }
+
+    /**
+     * Releases all pages which contain only zeros.
+     * The page array itself may be shared, so it is copied before it is modified.
+     */
+    private void releaseZeroPages() {
+        long[][] p = pages;
+        for (int i = 0; i < p.length; i++)
+            if (p[i] != null && isZero(p[i], 0, PAGE_SIZE)) {
+                if (p == pages)
+                    p = pages.clone();
+                p[i] = null;
+            }
+        pages = p;
+    }
+
+    private static int pageCount(int size) {
+        return (int) (((long) size + PAGE_MASK) >>> PAGE_BITS);
+    }
+
+    private static boolean isZero(long[] d, int start, int len) {
+        for (int i = start; i < start + len; i++)
+            if (d[i] != 0)
+                return false;
+        return true;
+    }
+
     /**
      * Gets the value at the given address
      *
@@ -157,10 +439,39 @@ public class DataField implements HGSArray {
      * @return the value
      */
     public long getDataWord(int addr) {
-        if (addr >= data.length)
+        if (data != null) {
+            if (addr >= data.length)
+                return 0;
+            else
+                return data[addr];
+        }
+
+        int p = addr >>> PAGE_BITS;
+        if (p >= pages.length)
             return 0;
-        else
-            return data[addr];
+        long[] page = pages[p];
+        if (page == null)
+            return 0;
+        return page[addr & PAGE_MASK];
+    }
+
+    /**
+     * Returns the size of this data field.
+     * If the data field is sparse, the size is a multiple of {@link #PAGE_SIZE}.
+     *
+     * @return the number of words stored in this data field
+     */
+    public int size() {
+        if (data != null)
+            return data.length;
+        return (int) Math.min(Integer.MAX_VALUE, (long) pages.length << PAGE_BITS);
+    }
+
+    /**
+     * @return true if the values are stored in pages
+     */
+    boolean isSparse() {
+        return data == null;
     }
 
     /**
@@ -169,8 +480,8 @@ public class DataField implements HGSArray {
      *
      * @return the new length of the data array
      */
-    public int trim() {
-        return trim(data.length);
+    public synchronized int trim() {
+        return trim(size());
     }
 
     /**
@@ -182,11 +493,32 @@ public class DataField implements HGSArray {
      * @return the new length of the data array
      */
     private int trim(int size) {
+        if (data == null) {
+            if (size < size()) {
+                unshare();
+                pages = Arrays.copyOf(pages, pageCount(size));
+                int rest = size & PAGE_MASK;
+                if (rest > 0 && pages[pages.length - 1] != null)
+                    Arrays.fill(pages[pages.length - 1], rest, PAGE_SIZE, 0);
+            }
+            int n = pages.length;
+            while (n > 0 && (pages[n - 1] == null || isZero(pages[n - 1], 0, PAGE_SIZE))) n--;
+            if (n < pages.length)
+                pages = Arrays.copyOf(pages, n);
+            releaseZeroPages();
+            if ((long) n << PAGE_BITS > DENSE_LIMIT)
+                return size();
+            makeDense();
+            size = data.length;
+        }
+
         if (size > data.length)
             size = data.length;
         while (size > 0 && data[size - 1] == 0) size--;
-        if (size < data.length)
+        if (size < data.length) {
             data = Arrays.copyOf(data, size);
+            shared = false;
+        }
         return data.length;
     }
 
@@ -197,15 +529,43 @@ public class DataField implements HGSArray {
      * @param dataBits the number of data bits, trims the values
      * @return this for chained calls
      */
-    public DataField trimValues(int addrBits, int dataBits) {
+    public synchronized DataField trimValues(int addrBits, int dataBits) {
         trim(1 << addrBits);
         long mask = Bits.mask(dataBits);
-        for (int i = 0; i < data.length; i++)
-            data[i] = data[i] & mask;
+        if (data != null) {
+            if (!exceeds(data, mask))
+                return this;
+            unshare();
+            for (int i = 0; i < data.length; i++)
+                data[i] = data[i] & mask;
+        } else {
+            boolean exceeds = false;
+            for (long[] page : pages)
+                if (page != null && exceeds(page, mask)) {
+                    exceeds = true;
+                    break;
+                }
+            if (!exceeds)
+                return this;
+            unshare();
+            for (long[] page : pages)
+                if (page != null)
+                    for (int i = 0; i < PAGE_SIZE; i++)
+                        page[i] = page[i] & mask;
+            // masking may have cleared complete pages
+            trim();
+        }
 
         return this;
     }
 
+    private static boolean exceeds(long[] values, long mask) {
+        for (long v : values)
+            if ((v & ~mask) != 0)
+                return true;
+        return false;
+    }
+
 
     /**
      * @return true if the data field is empty
@@ -222,6 +582,7 @@ public class DataField implements HGSArray {
     public void addListener(DataListener l) {
         synchronized (listeners) {
             listeners.add(l);
+            listening = true;
         }
     }
 
@@ -233,6 +594,38 @@ public class DataField implements HGSArray {
     public void removeListener(DataListener l) {
         synchronized (listeners) {
             listeners.remove(l);
+            listening = !listeners.isEmpty() || !rangeListeners.isEmpty();
+        }
+    }
+
+    /**
+     * Adds a listener which is notified about all modified address ranges.
+     * In contrast to the {@link DataListener}, this listener is not called on every
+     * single modification. Instead the modified addresses are collected, and the
+     * listener is called if {@link #fireRangesChanged()} is called.
+     *
+     * @param l the listener
+     */
+    public void addRangeListener(RangeListener l) {
+        synchronized (listeners) {
+            rangeListeners.add(l);
+            if (dirty == null)
+                dirty = new AddressRanges();
+            listening = true;
+        }
+    }
+
+    /**
+     * Removes a range listener
+     *
+     * @param l the listener to remove
+     */
+    public void removeRangeListener(RangeListener l) {
+        synchronized (listeners) {
+            rangeListeners.remove(l);
+            if (rangeListeners.isEmpty())
+                dirty = null;
+            listening = !listeners.isEmpty() || !rangeListeners.isEmpty();
         }
     }
 
@@ -241,10 +634,50 @@ public class DataField implements HGSArray {
      *
      * @param addr the address which value has changed
      */
-    private void fireChanged(int addr) {
+    protected void fireChanged(int addr) {
+        // avoids the lock if nobody listens
+        if (!listening)
+            return;
         synchronized (listeners) {
             for (DataListener l : listeners)
                 l.valueChanged(addr);
+            if (dirty != null)
+                dirty.add(addr);
+        }
+    }
+
+    /**
+     * Fires a valueChanged event for a range of addresses.
+     * If the range contains more than one address, the listeners are notified that all
+     * addresses have changed.
+     *
+     * @param from the first address which value has changed
+     * @param to   the last address which value has changed, inclusive
+     */
+    protected void fireChanged(int from, int to) {
+        if (!listening)
+            return;
+        synchronized (listeners) {
+            for (DataListener l : listeners)
+                l.valueChanged(from == to ? from : -1);
+            if (dirty != null)
+                dirty.add(from, to);
+        }
+    }
+
+    /**
+     * Notifies the range listeners about all addresses modified since the last call.
+     * Does nothing if there are no modifications.
+     * Is called by the owner of the data field, e.g. once per simulation step.
+     */
+    public void fireRangesChanged() {
+        synchronized (listeners) {
+            if (dirty == null || dirty.isEmpty())
+                return;
+            AddressRanges ranges = dirty;
+            dirty = new AddressRanges();
+            for (RangeListener l : rangeListeners)
+                l.rangesChanged(ranges);
         }
     }
 
@@ -254,13 +687,19 @@ public class DataField implements HGSArray {
      * @param dataField the data to set to this data field
      */
     public void setDataFrom(DataField dataField) {
-        data = Arrays.copyOf(dataField.data, dataField.data.length);
+        // the copy is created without holding the own lock to avoid lock order issues
+        DataField copy = new DataField(dataField);
+        synchronized (this) {
+            data = copy.data;
+            pages = copy.pages;
+            shared = copy.shared;
+        }
         fireChanged(-1);
     }
 
     @Override
     public int hgsArraySize() {
-        return data.length;
+        return size();
     }
 
     @Override
@@ -282,10 +721,57 @@ public class DataField implements HGSArray {
     }
 
     /**
+     * Listener which is notified about modified address ranges
+     */
+    public interface RangeListener {
+        /**
+         * Called with all addresses modified since the last call.
+         * The ranges are not modified after this call, so the listener is allowed to keep them.
+         *
+         * @param ranges the modified addresses
+         */
+        void rangesChanged(AddressRanges ranges);
+    }
+
+    /**
+     * Returns the raw data.
+     * If the data field is sparse or the values are shared with an other data field,
+     * a copy of the data is returned, and the values stay shared.
+     * In this case modifications of the returned array are not reflected in this data field,
+     * so modifications should be done by {@link #setData(int, long)}.
+     *
      * @return the raw data
      */
-    public long[] getData() {
-        return data;
+    public synchronized long[] getData() {
+        if (data != null) {
+            if (shared)
+                return Arrays.copyOf(data, data.length);
+            return data;
+        }
+
+        long[] d = new long[size()];
+        for (int p = 0; p < pages.length; p++)
+            if (pages[p] != null)
+                System.arraycopy(pages[p], 0, d, p << PAGE_BITS, Math.min(PAGE_SIZE, d.length - (p << PAGE_BITS)));
+        return d;
+    }
+
+    /**
+     * Reads a block of values
+     *
+     * @param addr   the address of the first value
+     * @param values the array to store the values to
+     * @param offset the index of the first value in the values array
+     * @param len    the number of values to read
+     */
+    public void getData(int addr, long[] values, int offset, int len) {
+        if (data != null) {
+            int n = Math.max(0, Math.min(len, data.length - addr));
+            System.arraycopy(data, addr, values, offset, n);
+            Arrays.fill(values, offset + n, offset + len, 0);
+        } else
+            for (int i = 0; i < len; i++)
+                values[offset + i] = getDataWord(addr + i);
     }
 
     @Override
@@ -293,11 +779,28 @@ public class DataField implements HGSArray {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DataField dataField = (DataField) o;
-        return Arrays.equals(data, dataField.data);
+        if (data != null && dataField.data != null)
+            return Arrays.equals(data, dataField.data);
+
+        final int size = size();
+        if (size != dataField.size())
+            return false;
+        for (int i = 0; i < size; i++)
+            if (getDataWord(i) != dataField.getDataWord(i))
+                return false;
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(data);
+        if (data != null)
+            return Arrays.hashCode(data);
+
+        // same as Arrays.hashCode applied to the dense representation
+        int result = 1;
+        final int size = size();
+        for (int i = 0; i < size; i++)
+            result = 31 * result + Long.hashCode(getDataWord(i));
+        return result;
     }
 }
@@ -12,13 +12,56 @@ import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import de.neemann.digital.core.Bits;
 
-import java.util.StringTokenizer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Optimized converter for data fields
  * <p>
+ * Data fields are stored as a comma separated list of hex values.
+ * If compression is enabled, data fields with more than {@link #COMPRESS_LIMIT} words are stored compressed:
+ * The prefix {@link #COMPRESSED_PREFIX} is followed by the base64 encoded, deflated words.
+ * The first byte of the deflated data is the number of bytes used per word, followed by the
+ * words in little endian byte order.
+ * Compressed data fields can not be read by older versions of Digital, so compression
+ * has to be enabled explicitly. Both representations are always read.
  */
 public class DataFieldConverter implements Converter {
+    /**
+     * Data fields larger than this number of words are stored compressed
+     */
+    public static final int COMPRESS_LIMIT = 1024;
+    /**
+     * The prefix which marks a compressed data field
+     */
+    public static final String COMPRESSED_PREFIX = "z:";
+    private static final int BLOCK_SIZE = 4096;
+
+    private final boolean compress;
+
+    /**
+     * Creates a new instance which does not compress data fields
+     */
+    public DataFieldConverter() {
+        this(false);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param compress if true, large data fields are stored compressed
+     */
+    public DataFieldConverter(boolean compress) {
+        this.compress = compress;
+    }
+
     @Override
     public boolean canConvert(Class aClass) {
         return aClass.equals(DataField.class);
@@ -28,9 +71,18 @@ public class DataFieldConverter implements Converter {
     public void marshal(Object o, HierarchicalStreamWriter writer, MarshallingContext marshallingContext) {
         DataField df = (DataField) o;
         df.trim();
+        if (compress && df.size() > COMPRESS_LIMIT)
+            writer.setValue(encodeCompressed(df));
+        else
+            writer.setValue(encodeText(df));
+    }
+
+    private static String encodeText(DataField df) {
         StringBuilder data = new StringBuilder();
         int pos = 0;
-        for (long d : df.getData()) {
+        final int size = df.size();
+        for (int i = 0; i < size; i++) {
+            long d = df.getDataWord(i);
             if (data.length() > 0) {
                 data.append(",");
                 pos++;
@@ -45,7 +97,142 @@ public class DataFieldConverter implements Converter {
             data.append(s);
             pos += s.length();
         }
-        writer.setValue(data.toString());
+        return data.toString();
+    }
+
+    /**
+     * Creates the compressed representation of the given data field
+     *
+     * @param df the data field
+     * @return the compressed data including the {@link #COMPRESSED_PREFIX}
+     */
+    static String encodeCompressed(DataField df) {
+        final int size = df.size();
+        long max = 0;
+        for (int i = 0; i < size; i++)
+            max |= df.getDataWord(i);
+        final int bytes = Math.max(1, (64 - Long.numberOfLeadingZeros(max) + 7) / 8);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(Base64.getMimeEncoder(76, new byte[]{'\n'}).wrap(baos))) {
+            byte[] buffer = new byte[BLOCK_SIZE * bytes];
+            out.write(bytes);
+            int p = 0;
+            for (int i = 0; i < size; i++) {
+                long d = df.getDataWord(i);
+                for (int b = 0; b < bytes; b++) {
+                    buffer[p++] = (byte) d;
+                    d >>>= 8;
+                }
+                if (p == buffer.length) {
+                    out.write(buffer);
+                    p = 0;
+                }
+            }
+            out.write(buffer, 0, p);
+        } catch (IOException e) {
+            // can not happen, writes to a byte array
+            throw new RuntimeException(e);
+        }
+        return COMPRESSED_PREFIX + new String(baos.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Creates a data field from its compressed representation
+     *
+     * @param value the compressed data including the {@link #COMPRESSED_PREFIX}
+     * @return the data field
+     * @throws IOException IOException
+     */
+    static DataField decodeCompressed(String value) throws IOException {
+        byte[] compressed = Base64.getMimeDecoder().decode(value.substring(COMPRESSED_PREFIX.length()));
+        DataField df = new DataField(1024);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            final int bytes = in.read();
+            if (bytes < 1 || bytes > 8)
+                throw new IOException("invalid compressed data field");
+
+            byte[] buffer = new byte[BLOCK_SIZE * bytes];
+            long[] words = new long[BLOCK_SIZE];
+            int addr = 0;
+            int fill = 0;
+            int n;
+            while ((n = in.read(buffer, fill, buffer.length - fill)) >= 0) {
+                fill += n;
+                if (fill == buffer.length) {
+                    decodeWords(buffer, fill, bytes, words);
+                    df.setData(addr, words, 0, BLOCK_SIZE);
+                    addr += BLOCK_SIZE;
+                    fill = 0;
+                }
+            }
+            if (fill % bytes != 0)
+                throw new IOException("invalid compressed data field");
+            decodeWords(buffer, fill, bytes, words);
+            df.setData(addr, words, 0, fill / bytes);
+        }
+        df.trim();
+        return df;
+    }
+
+    private static void decodeWords(byte[] buffer, int len, int bytes, long[] words) {
+        int w = 0;
+        for (int p = 0; p < len; p += bytes) {
+            long d = 0;
+            for (int b = bytes - 1; b >= 0; b--)
+                d = (d << 8) | (buffer[p + b] & 0xff);
+            words[w++] = d;
+        }
+    }
+
+    /**
+     * Parses the comma separated list of hex values
+     *
+     * @param value the text to parse
+     * @return the data field
+     * @throws Bits.NumberFormatException Bits.NumberFormatException
+     */
+    static DataField decodeText(String value) throws Bits.NumberFormatException {
+        DataField df = new DataField(1024);
+        long[] words = new long[BLOCK_SIZE];
+        int n = 0;
+        int addr = 0;
+        int p = 0;
+        final int len = value.length();
+        while (p < len) {
+            int e = value.indexOf(',', p);
+            if (e < 0)
+                e = len;
+            if (e == p) {
+                // skip empty tokens
+                p = e + 1;
+                continue;
+            }
+
+            int s = p;
+            while (s < e && value.charAt(s) <= ' ') s++;
+            int t = e;
+            while (t > s && value.charAt(t - 1) <= ' ') t--;
+
+            long d = 0;
+            for (int i = s; i < t; i++) {
+                int digit = Character.digit(value.charAt(i), 16);
+                if (digit < 0)
+                    // let Bits create the exception
+                    Bits.decode(value.substring(s, t), 0, 16);
+                d = (d << 4) | digit;
+            }
+            words[n++] = d;
+            if (n == BLOCK_SIZE) {
+                df.setData(addr, words, 0, n);
+                addr += n;
+                n = 0;
+            }
+            p = e + 1;
+        }
+        df.setData(addr, words, 0, n);
+        df.trim();
+        return df;
     }
 
     @Override
@@ -64,18 +251,13 @@ public class DataFieldConverter implements Converter {
             }
             return df;
         } else {
+            // new type
+            String value = reader.getValue();
             try {
-                // new type
-                DataField df = new DataField(1024);
-                StringTokenizer st = new StringTokenizer(reader.getValue(), ",");
-                int i = 0;
-                while (st.hasMoreTokens()) {
-                    df.setData(i, Bits.decode(st.nextToken().trim(), 0, 16));
-                    i++;
-                }
-                df.trim();
-                return df;
-            } catch (Bits.NumberFormatException e) {
+                if (value.startsWith(COMPRESSED_PREFIX))
+                    return decodeCompressed(value);
+                return decodeText(value);
+            } catch (Bits.NumberFormatException | IOException e) {
                 throw new RuntimeException(e);
             }
         }
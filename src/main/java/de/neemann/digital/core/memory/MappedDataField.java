@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.core.memory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * A data field which is backed by a memory mapped binary image file.
+ * The words are stored in little endian byte order, using as many bytes per word as
+ * are required to store the data bits. This is the same layout the {@link de.neemann.digital.core.memory.importer.BinReader}
+ * expects.
+ * Reads and writes go directly to the mapping, so large images don't have to be parsed
+ * and copied to the heap, and the pages are shared by all processes which map the same file.
+ * Words beyond the end of the mapped region are stored on the heap.
+ * <p>
+ * If the field is not used anymore, {@link #close()} copies the mapped words to the heap and
+ * drops the mapping. The mapping is not unmapped explicitly, because an other thread may
+ * still read it, but it is released by the garbage collector.
+ */
+public final class MappedDataField extends DataField implements Closeable {
+
+    /**
+     * The mode used to map the file
+     */
+    public enum Mode {
+        /**
+         * The file is mapped read only. Writes are kept on the heap, so the
+         * file does not need to be writable.
+         */
+        READ_ONLY,
+        /**
+         * Writes are allowed but are not written back to the file.
+         * The file needs to be writable nevertheless.
+         */
+        PRIVATE,
+        /**
+         * Writes are written back to the file
+         */
+        PERSIST
+    }
+
+    private final File file;
+    private final Mode mode;
+    private final int bytesPerWord;
+    private volatile MappedByteBuffer buffer;
+    private volatile int mappedWords;
+    private DataField overlay;
+    private BitSet written;
+
+    /**
+     * Maps the given file.
+     * In mode {@link Mode#PERSIST} the file is enlarged to hold the given number of words if it is too small.
+     * In all other modes only the existing part of the file is mapped.
+     *
+     * @param file     the file to map
+     * @param dataBits the number of data bits of a word
+     * @param mode     the mode used to map the file
+     * @param size     the number of words to map
+     * @throws IOException IOException
+     */
+    public MappedDataField(File file, int dataBits, Mode mode, int size) throws IOException {
+        super(0);
+        this.file = file;
+        this.mode = mode;
+        bytesPerWord = (dataBits - 1) / 8 + 1;
+
+        if (mode != Mode.PERSIST && !file.exists())
+            throw new FileNotFoundException(file.getPath());
+
+        final long maxBytes = (long) size * bytesPerWord;
+        try (RandomAccessFile raf = new RandomAccessFile(file, mode == Mode.READ_ONLY ? "r" : "rw")) {
+            long bytes;
+            if (mode == Mode.PERSIST)
+                bytes = maxBytes;
+            else
+                bytes = Math.min(raf.length(), maxBytes);
+
+            if (bytes > Integer.MAX_VALUE)
+                throw new IOException("file " + file + " is too large to be mapped");
+
+            FileChannel.MapMode mapMode;
+            switch (mode) {
+                case PERSIST:
+                    mapMode = FileChannel.MapMode.READ_WRITE;
+                    break;
+                case PRIVATE:
+                    mapMode = FileChannel.MapMode.PRIVATE;
+                    break;
+                default:
+                    mapMode = FileChannel.MapMode.READ_ONLY;
+            }
+            buffer = raf.getChannel().map(mapMode, 0, bytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            mappedWords = (int) ((bytes + bytesPerWord - 1) / bytesPerWord);
+        }
+    }
+
+    /**
+     * @return the mapped file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of words which are mapped to the file
+     */
+    public int getMappedWords() {
+        return mappedWords;
+    }
+
+    /**
+     * Writes all modifications to the file.
+     * Does nothing if the file is not mapped in mode {@link Mode#PERSIST}.
+     */
+    public void flush() {
+        MappedByteBuffer b = buffer;
+        if (mode == Mode.PERSIST && b != null)
+            b.force();
+    }
+
+    /**
+     * Drops the mapping. In mode {@link Mode#PERSIST} all modifications are written to the file before.
+     * The mapped words are copied to the heap, so the field keeps its contents.
+     * The mapping itself is released by the garbage collector.
+     */
+    @Override
+    public synchronized void close() {
+        if (buffer == null)
+            return;
+        flush();
+        long[] words = new long[mappedWords];
+        getData(0, words, 0, words.length);
+        super.setData(0, words, 0, words.length);
+        // readers which see the buffer cleared also see the copied words
+        buffer = null;
+        mappedWords = 0;
+    }
+
+    /**
+     * @return true if the file is mapped read only and writes are kept on the heap
+     */
+    public boolean isReadOnly() {
+        return mode == Mode.READ_ONLY;
+    }
+
+    @Override
+    public long getDataWord(int addr) {
+        final MappedByteBuffer buffer = this.buffer;
+        if (buffer == null || addr >= mappedWords)
+            return super.getDataWord(addr);
+        if (written != null && written.get(addr))
+            return overlay.getDataWord(addr);
+
+        final int pos = addr * bytesPerWord;
+        if (pos + bytesPerWord <= buffer.limit()) {
+            switch (bytesPerWord) {
+                case 1:
+                    return buffer.get(pos) & 0xffL;
+                case 2:
+                    return buffer.getShort(pos) & 0xffffL;
+                case 4:
+                    return buffer.getInt(pos) & 0xffffffffL;
+                case 8:
+                    return buffer.getLong(pos);
+                default:
+            }
+        }
+        long value = 0;
+        for (int b = 0; b < bytesPerWord && pos + b < buffer.limit(); b++)
+            value |= (buffer.get(pos + b) & 0xffL) << (b * 8);
+        return value;
+    }
+
+    @Override
+    public synchronized DataField setData(int addr, long value) {
+        if (buffer == null || addr >= mappedWords)
+            return super.setData(addr, value);
+
+        if (getDataWord(addr) != value) {
+            write(addr, value);
+            fireChanged(addr);
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized DataField setData(int addr, long[] values, int offset, int len) {
+        if (buffer == null)
+            return super.setData(addr, values, offset, len);
+        int n = Math.max(0, Math.min(len, mappedWords - addr));
+        boolean changed = false;
+        for (int i = 0; i < n; i++) {
+            long v = values[offset + i];
+            if (getDataWord(addr + i) != v) {
+                write(addr + i, v);
+                changed = true;
+            }
+        }
+        if (changed)
+            fireChanged(addr, addr + n - 1);
+        if (n < len)
+            super.setData(addr + n, values, offset + n, len - n);
+        return this;
+    }
+
+    private void write(int addr, long value) {
+        if (mode == Mode.READ_ONLY) {
+            if (overlay == null) {
+                overlay = new DataField();
+                written = new BitSet();
+            }
+            overlay.setData(addr, value);
+            written.set(addr);
+            return;
+        }
+
+        final int pos = addr * bytesPerWord;
+        for (int b = 0; b < bytesPerWord && pos + b < buffer.limit(); b++)
+            buffer.put(pos + b, (byte) (value >>> (b * 8)));
+    }
+
+    @Override
+    public int size() {
+        return Math.max(mappedWords, super.size());
+    }
+
+    @Override
+    public int trim() {
+        return Math.max(mappedWords, super.trim());
+    }
+
+    @Override
+    public DataField trimValues(int addrBits, int dataBits) {
+        return this;
+    }
+
+    @Override
+    public synchronized void clearAll() {
+        if (buffer == null) {
+            super.clearAll();
+            return;
+        }
+        if (mode == Mode.READ_ONLY) {
+            overlay = new DataField();
+            written = new BitSet();
+            written.set(0, mappedWords);
+        } else
+            for (int i = 0; i < buffer.limit(); i++)
+                buffer.put(i, (byte) 0);
+        super.clearAll();
+    }
+
+    @Override
+    public void setDataFrom(DataField dataField) {
+        // the copy is created without holding the own lock to avoid lock order issues
+        DataField tail = new DataField(dataField);
+        synchronized (this) {
+            if (buffer != null) {
+                for (int i = 0; i < mappedWords; i++)
+                    write(i, tail.getDataWord(i));
+                for (int i = 0; i < Math.min(mappedWords, tail.size()); i++)
+                    tail.setData(i, 0);
+            }
+            super.setDataFrom(tail);
+        }
+    }
+
+    @Override
+    public void getData(int addr, long[] values, int offset, int len) {
+        for (int i = 0; i < len; i++)
+            values[offset + i] = getDataWord(addr + i);
+    }
+
+    @Override
+    public long[] getData() {
+        long[] d = new long[size()];
+        for (int i = 0; i < d.length; i++)
+            d[i] = getDataWord(i);
+        return d;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+}
@@ -11,6 +11,9 @@ import de.neemann.digital.core.element.ElementAttributes;
 import de.neemann.digital.core.element.ElementTypeDescription;
 import de.neemann.digital.core.element.Keys;
 
+import java.io.File;
+import java.io.IOException;
+
 import static de.neemann.digital.core.element.PinInfo.input;
 
 /**
@@ -32,7 +35,10 @@ public class RAMDualPort extends Node implements Element, RAMInterface {
             .addAttribute(Keys.ADDR_BITS)
             .addAttribute(Keys.INT_FORMAT)
             .addAttribute(Keys.IS_PROGRAM_MEMORY)
-            .addAttribute(Keys.LABEL);
+            .addAttribute(Keys.LABEL)
+            .addAttribute(Keys.MAP_IMAGE_FILE)
+            .addAttribute(Keys.IMAGE_FILE)
+            .addAttribute(Keys.PERSIST_IMAGE_FILE);
 
     private DataField memory;
     private final IntFormat intFormat;
@@ -42,6 +48,8 @@ public class RAMDualPort extends Node implements Element, RAMInterface {
     private final String label;
     private final int size;
     private final boolean isProgramMemory;
+    private final File imageFile;
+    private final boolean persistImage;
     private ObservableValue addrIn;
     private ObservableValue dataIn;
     private ObservableValue strIn;
@@ -62,12 +70,38 @@ public class RAMDualPort extends Node implements Element, RAMInterface {
         output = createOutput();
         addrBits = attr.get(Keys.ADDR_BITS);
         size = 1 << addrBits;
-        memory = createDataField(attr, size);
+        if (attr.get(Keys.MAP_IMAGE_FILE))
+            imageFile = attr.get(Keys.IMAGE_FILE);
+        else
+            imageFile = null;
+        persistImage = attr.get(Keys.PERSIST_IMAGE_FILE);
+        if (imageFile != null)
+            // the memory is replaced by the mapped image in init
+            memory = new DataField();
+        else
+            memory = createDataField(attr, size);
         label = attr.getLabel();
         isProgramMemory = attr.get(Keys.IS_PROGRAM_MEMORY);
         intFormat = attr.get(Keys.INT_FORMAT);
     }
 
+    @Override
+    public void init(Model model) throws NodeException {
+        if (imageFile != null) {
+            try {
+                MappedDataField mapped = new MappedDataField(imageFile, bits,
+                        persistImage ? MappedDataField.Mode.PERSIST : MappedDataField.Mode.PRIVATE, size);
+                // a program memory set before is written to the image
+                if (!memory.isEmpty())
+                    mapped.setDataFrom(memory);
+                memory = mapped;
+                model.addObserver(event -> mapped.close(), ModelEvent.STOPPED);
+            } catch (IOException e) {
+                throw new NodeException(e.getMessage(), this, -1, null);
+            }
+        }
+    }
+
     /**
      * called to create the output value
      *
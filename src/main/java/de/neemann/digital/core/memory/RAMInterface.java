@@ -5,11 +5,19 @@
  */
 package de.neemann.digital.core.memory;
 
+import de.neemann.digital.core.Bits;
 import de.neemann.digital.core.IntFormat;
+import de.neemann.digital.core.Node;
 import de.neemann.digital.core.stats.Countable;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * Interface to get access to the rams data.
+ * <p>
+ * The block transfer methods can also be used while the model is running, but only between
+ * two steps. The access has to be synchronized using {@link de.neemann.digital.core.Model#access(Runnable)}.
  */
 public interface RAMInterface extends ProgramMemory, Countable {
     /**
@@ -33,4 +41,99 @@ public interface RAMInterface extends ProgramMemory, Countable {
     default IntFormat getIntFormat() {
         return IntFormat.hex;
     }
+
+    /**
+     * Writes a block of words to the memory.
+     * The words are masked to the data bits of the memory, the values array is not modified.
+     * The listeners of the memory are notified only once.
+     * If the memory is part of a model, its outputs are updated by the next step of the model.
+     *
+     * @param addr   the address of the first word
+     * @param values the words to write
+     * @param offset the index of the first word in the values array
+     * @param len    the number of words to write
+     */
+    default void writeWords(int addr, long[] values, int offset, int len) {
+        if (addr < 0 || len < 0 || (long) addr + len > getSize())
+            throw new IndexOutOfBoundsException("block " + addr + "+" + len + " exceeds memory " + getLabel());
+        final long mask = Bits.mask(getDataBits());
+        for (int i = 0; i < len; i++)
+            if ((values[offset + i] & ~mask) != 0) {
+                long[] masked = new long[len];
+                for (int j = 0; j < len; j++)
+                    masked[j] = values[offset + j] & mask;
+                values = masked;
+                offset = 0;
+                break;
+            }
+        DataField memory = getMemory();
+        memory.setData(addr, values, offset, len);
+        memory.fireRangesChanged();
+        if (this instanceof Node && ((Node) this).getModel() != null)
+            ((Node) this).hasChanged();
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffer to the memory.
+     * Every word uses as many bytes as are required to store the data bits of the memory.
+     * The bytes are interpreted in the byte order of the buffer.
+     *
+     * @param addr   the address of the first word
+     * @param buffer the buffer to read the words from
+     * @throws IllegalArgumentException if the remaining bytes are not a multiple of the word size
+     */
+    default void writeWords(int addr, ByteBuffer buffer) {
+        final int bytes = WordBuffer.getBytesPerWord(getDataBits(), buffer);
+        final boolean little = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        long[] values = new long[buffer.remaining() / bytes];
+        for (int i = 0; i < values.length; i++) {
+            long v = 0;
+            for (int b = 0; b < bytes; b++) {
+                long by = buffer.get() & 0xffL;
+                if (little)
+                    v |= by << (b * 8);
+                else
+                    v = (v << 8) | by;
+            }
+            values[i] = v;
+        }
+        writeWords(addr, values, 0, values.length);
+    }
+
+    /**
+     * Reads a block of words from the memory
+     *
+     * @param addr   the address of the first word
+     * @param values the array to store the words to
+     * @param offset the index of the first word in the values array
+     * @param len    the number of words to read
+     */
+    default void readWords(int addr, long[] values, int offset, int len) {
+        if (addr < 0 || len < 0 || (long) addr + len > getSize())
+            throw new IndexOutOfBoundsException("block " + addr + "+" + len + " exceeds memory " + getLabel());
+        getMemory().getData(addr, values, offset, len);
+    }
+
+    /**
+     * Reads words from the memory until the given buffer is full.
+     * Every word uses as many bytes as are required to store the data bits of the memory.
+     * The bytes are written in the byte order of the buffer.
+     *
+     * @param addr   the address of the first word
+     * @param buffer the buffer to write the words to
+     * @throws IllegalArgumentException if the remaining bytes are not a multiple of the word size
+     */
+    default void readWords(int addr, ByteBuffer buffer) {
+        final int bytes = WordBuffer.getBytesPerWord(getDataBits(), buffer);
+        final boolean little = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        long[] values = new long[buffer.remaining() / bytes];
+        readWords(addr, values, 0, values.length);
+        for (long v : values)
+            for (int b = 0; b < bytes; b++) {
+                if (little)
+                    buffer.put((byte) (v >>> (b * 8)));
+                else
+                    buffer.put((byte) (v >>> ((bytes - 1 - b) * 8)));
+            }
+    }
 }
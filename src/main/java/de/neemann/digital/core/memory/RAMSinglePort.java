@@ -33,7 +33,10 @@ public class RAMSinglePort extends RAMDualPort {
             .addAttribute(Keys.ADDR_BITS)
             .addAttribute(Keys.INT_FORMAT)
             .addAttribute(Keys.IS_PROGRAM_MEMORY)
-            .addAttribute(Keys.LABEL);
+            .addAttribute(Keys.LABEL)
+            .addAttribute(Keys.MAP_IMAGE_FILE)
+            .addAttribute(Keys.IMAGE_FILE)
+            .addAttribute(Keys.PERSIST_IMAGE_FILE);
 
     /**
      * Creates a new instance
@@ -40,7 +40,9 @@ public class ROM extends Node implements Element, ROMInterface, ProgramMemory {
             .addAttribute(Keys.DATA)
             .addAttribute(Keys.INT_FORMAT)
             .addAttribute(Keys.IS_PROGRAM_MEMORY)
-            .addAttribute(Keys.AUTO_RELOAD_ROM);
+            .addAttribute(Keys.AUTO_RELOAD_ROM)
+            .addAttribute(Keys.MAP_IMAGE_FILE)
+            .addAttribute(Keys.IMAGE_FILE);
 
     private DataField data;
     private final IntFormat intFormat;
@@ -49,6 +51,8 @@ public class ROM extends Node implements Element, ROMInterface, ProgramMemory {
     private final int dataBits;
     private final File hexFile;
     private final boolean autoLoad;
+    private final File imageFile;
+    private boolean programMemorySet;
     private final boolean isProgramMemory;
     private ObservableValue addrIn;
     private ObservableValue selIn;
@@ -75,6 +79,10 @@ public class ROM extends Node implements Element, ROMInterface, ProgramMemory {
             hexFile = attr.getFile(LAST_DATA_FILE_KEY);
         } else
             hexFile = null;
+        if (attr.get(Keys.MAP_IMAGE_FILE))
+            imageFile = attr.get(Keys.IMAGE_FILE);
+        else
+            imageFile = null;
         intFormat = attr.get(Keys.INT_FORMAT);
     }
 
@@ -105,7 +113,17 @@ public class ROM extends Node implements Element, ROMInterface, ProgramMemory {
 
     @Override
     public void init(Model model) throws NodeException {
-        if (autoLoad) {
+        if (programMemorySet)
+            return;
+        if (imageFile != null) {
+            try {
+                MappedDataField mapped = new MappedDataField(imageFile, dataBits, MappedDataField.Mode.READ_ONLY, 1 << addrBits);
+                data = mapped;
+                model.addObserver(event -> mapped.close(), ModelEvent.STOPPED);
+            } catch (IOException e) {
+                throw new NodeException(e.getMessage(), this, -1, null);
+            }
+        } else if (autoLoad) {
             try {
                 data = Importer.read(hexFile, dataBits);
             } catch (IOException e) {
@@ -117,6 +135,9 @@ public class ROM extends Node implements Element, ROMInterface, ProgramMemory {
 
     @Override
     public void setProgramMemory(DataField dataField) {
+        // the program memory replaces a mapped image, no matter if the image is mapped already,
+        // the mapping is released by the garbage collector
+        programMemorySet = true;
         setData(dataField);
     }
 
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.core.memory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Helper used by the block transfer methods of {@link RAMInterface} which
+ * read or write words from or to a {@link ByteBuffer}.
+ */
+final class WordBuffer {
+
+    private WordBuffer() {
+    }
+
+    /**
+     * Returns the number of bytes used to store a word in a buffer.
+     * Checks that the remaining bytes of the given buffer are a multiple of this size,
+     * so there is no partial word which is silently ignored.
+     *
+     * @param dataBits the number of data bits of a word
+     * @param buffer   the buffer
+     * @return the number of bytes of a word
+     */
+    static int getBytesPerWord(int dataBits, ByteBuffer buffer) {
+        final int bytes = (dataBits - 1) / 8 + 1;
+        if (buffer.remaining() % bytes != 0)
+            throw new IllegalArgumentException("buffer size " + buffer.remaining() + " is not a multiple of the word size " + bytes);
+        return bytes;
+    }
+}
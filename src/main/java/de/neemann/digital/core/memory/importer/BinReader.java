@@ -6,11 +6,17 @@
 package de.neemann.digital.core.memory.importer;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
 /**
  * Used to import raw binary data.
+ * The data is read in large blocks using a channel and is passed block by block to
+ * the {@link ByteArray}.
  */
 public class BinReader implements ByteArrayReader {
+    private static final int BLOCK_SIZE = 1 << 16;
 
     private InputStream inputStream;
 
@@ -35,16 +41,25 @@ public class BinReader implements ByteArrayReader {
 
     @Override
     public void read(ByteArray byteArray) throws IOException {
-        try {
-            int d;
+        try (ReadableByteChannel channel = openChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
             int addr = 0;
-            while ((d = inputStream.read()) >= 0) {
-                byteArray.set(addr, d);
-                addr++;
+            int n;
+            while ((n = channel.read(buffer)) >= 0) {
+                if (n > 0) {
+                    byteArray.set(addr, buffer.array(), 0, buffer.position());
+                    addr += buffer.position();
+                    buffer.clear();
+                }
             }
         } finally {
             inputStream.close();
         }
+    }
 
+    private ReadableByteChannel openChannel() {
+        if (inputStream instanceof FileInputStream)
+            return ((FileInputStream) inputStream).getChannel();
+        return Channels.newChannel(inputStream);
     }
 }
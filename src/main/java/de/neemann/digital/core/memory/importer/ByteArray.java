@@ -18,4 +18,17 @@ public interface ByteArray {
      */
     void set(int index, int aByte);
 
+    /**
+     * Sets a block of bytes starting at the given index
+     *
+     * @param index  the index of the first byte
+     * @param bytes  the bytes to set
+     * @param offset the index of the first byte in the bytes array
+     * @param len    the number of bytes to set
+     */
+    default void set(int index, byte[] bytes, int offset, int len) {
+        for (int i = 0; i < len; i++)
+            set(index + i, bytes[offset + i] & 0xff);
+    }
+
 }
@@ -13,6 +13,7 @@ public class ByteArrayFromValueArray implements ByteArray {
 
     private final ValueArray valueArray;
     private final int div;
+    private long[] words = new long[0];
 
     /**
      * Creates a new instance
@@ -33,4 +34,30 @@ public class ByteArrayFromValueArray implements ByteArray {
         val = val | ((((long) aByte) & 0xff) << (b * 8));
         valueArray.set(a, val);
     }
+
+    @Override
+    public void set(int index, byte[] bytes, int offset, int len) {
+        if (len <= 0)
+            return;
+
+        int first = index / div;
+        int n = (index + len - 1) / div - first + 1;
+        if (words.length < n)
+            words = new long[n];
+
+        for (int i = 0; i < n; i++)
+            words[i] = valueArray.get(first + i);
+
+        int b = index % div;
+        int w = 0;
+        for (int i = 0; i < len; i++) {
+            words[w] |= (((long) bytes[offset + i]) & 0xff) << (b * 8);
+            b++;
+            if (b == div) {
+                b = 0;
+                w++;
+            }
+        }
+        valueArray.set(first, words, 0, n);
+    }
 }
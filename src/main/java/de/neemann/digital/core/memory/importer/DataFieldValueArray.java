@@ -31,6 +31,11 @@ public class DataFieldValueArray implements ValueArray {
         dataField.setData(index, value);
     }
 
+    @Override
+    public void set(int index, long[] values, int offset, int len) {
+        dataField.setData(index, values, offset, len);
+    }
+
     @Override
     public long get(int index) {
         return dataField.getDataWord(index);
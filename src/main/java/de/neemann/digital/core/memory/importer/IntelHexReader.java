@@ -5,14 +5,16 @@
  */
 package de.neemann.digital.core.memory.importer;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
 
 /**
- * Reader for intel hex files
+ * Reader for intel hex files.
+ * The file is read to a byte buffer at once and parsed directly from this buffer.
  */
 public class IntelHexReader implements ByteArrayReader {
-    private final int[] data;
+    private final byte[] data;
     private final File file;
     private int segment = 0;
 
@@ -21,53 +23,65 @@ public class IntelHexReader implements ByteArrayReader {
      */
     IntelHexReader(File file) {
         this.file = file;
-        data = new int[300];
+        data = new byte[300];
     }
 
     @Override
     public void read(ByteArray byteArray) throws IOException {
-        try (Reader r = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
-            read(r, byteArray);
-        }
+        read(TextBuffer.read(file), byteArray);
     }
 
     void read(Reader reader, ByteArray byteArray) throws IOException {
-        try (BufferedReader bufferedReader = new BufferedReader(reader)) {
-            String line;
-            while ((line = bufferedReader.readLine()) != null) {
-                int payload = parseLine(line);
-                switch (data[3]) {
-                    case 0:
-                        readData(payload, byteArray);
-                        break;
-                    case 2:
-                        readDataSegment(payload);
-                        break;
-                }
+        read(TextBuffer.read(reader), byteArray);
+    }
+
+    private void read(TextBuffer text, ByteArray byteArray) throws IOException {
+        while (text.nextLine()) {
+            if (text.getStart() == text.getEnd())
+                continue;
+            int payload = parseLine(text);
+            switch (data[3]) {
+                case 0:
+                    readData(payload, byteArray);
+                    break;
+                case 2:
+                    readDataSegment(payload);
+                    break;
             }
         }
     }
 
+    private int get(int i) {
+        return data[i] & 0xff;
+    }
+
     private void readDataSegment(int len) throws IOException {
         if (len != 2)
             throw new IOException("invalid segment address");
-        segment = ((data[4] << 8) + data[5]) << 4;
+        segment = ((get(4) << 8) + get(5)) << 4;
     }
 
     private void readData(int len, ByteArray byteArray) {
-        int addr = (data[1] << 8) + data[2];
-        for (int i = 0; i < len; i++)
-            byteArray.set(segment + addr + i, data[i + 4]);
+        int addr = (get(1) << 8) + get(2);
+        byteArray.set(segment + addr, data, 4, len);
     }
 
-    private int parseLine(String line) throws IOException {
-        if (line.charAt(0) != ':')
+    private int parseLine(TextBuffer text) throws IOException {
+        int p = text.getStart();
+        int end = text.getEnd();
+        if (text.charAt(p) != ':' || ((end - p - 1) & 1) != 0)
             throw new IOException("not a intel hex file");
 
         int addr = 0;
-        int p = 1;
-        while (p < line.length()) {
-            data[addr] = Integer.parseInt(line.substring(p, p + 2), 16);
+        p++;
+        while (p < end) {
+            if (addr >= data.length)
+                throw new IOException("invalid record size");
+            int hi = Character.digit(text.charAt(p), 16);
+            int lo = Character.digit(text.charAt(p + 1), 16);
+            if (hi < 0 || lo < 0)
+                throw new IOException("not a intel hex file");
+            data[addr] = (byte) ((hi << 4) | lo);
             addr++;
             p += 2;
         }
@@ -77,12 +91,12 @@ public class IntelHexReader implements ByteArrayReader {
         if (payload < 0)
             throw new IOException("not a intel hex file");
 
-        if (data[0] != payload)
+        if (get(0) != payload)
             throw new IOException("invalid record size");
 
         int sum = 0;
         for (int i = 0; i < addr; i++)
-            sum += data[i];
+            sum += get(i);
 
         sum = sum & 0xff;
         if (sum != 0)
@@ -8,13 +8,25 @@ package de.neemann.digital.core.memory.importer;
 import de.neemann.digital.core.Bits;
 import de.neemann.digital.lang.Lang;
 
-import java.io.*;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
 
 /**
- * Reader to read the original Logisim hex file format
+ * Reader to read the original Logisim hex file format.
+ * The file is read to a byte buffer at once and parsed directly from this buffer. The values are
+ * written block by block to the {@link ValueArray}.
  */
 public class LogisimReader implements ValueArrayReader {
-    private Reader reader;
+    private static final int BLOCK_SIZE = 4096;
+
+    private final File file;
+    private final Reader reader;
+    private final long[] block = new long[BLOCK_SIZE];
+    private int blockStart;
+    private int blockLen;
 
     /**
      * Creates a new instance
@@ -23,7 +35,10 @@ public class LogisimReader implements ValueArrayReader {
      * @throws FileNotFoundException FileNotFoundException
      */
     public LogisimReader(File file) throws FileNotFoundException {
-        this(new FileReader(file));
+        if (!file.isFile())
+            throw new FileNotFoundException(file.getPath());
+        this.file = file;
+        this.reader = null;
     }
 
     /**
@@ -32,48 +47,83 @@ public class LogisimReader implements ValueArrayReader {
      * @param reader the reader to used
      */
     public LogisimReader(Reader reader) {
+        this.file = null;
         this.reader = reader;
     }
 
     @Override
     public void read(ValueArray valueArray) throws IOException {
-        try (BufferedReader br = new BufferedReader(reader)) {
-            String header = br.readLine();
-            if (header == null || !header.equals("v2.0 raw"))
-                throw new IOException(Lang.get("err_invalidFileFormat"));
-            String line;
-            int pos = 0;
-            while ((line = br.readLine()) != null) {
+        TextBuffer text;
+        if (file != null)
+            text = TextBuffer.read(file);
+        else
+            text = TextBuffer.read(reader);
+
+        if (!text.nextLine() || !text.equals(text.getStart(), text.getEnd(), "v2.0 raw"))
+            throw new IOException(Lang.get("err_invalidFileFormat"));
+
+        blockStart = 0;
+        blockLen = 0;
+        while (text.nextLine()) {
+            int s = text.getStart();
+            int e = text.getEnd();
+            int p = text.indexOf('#', s, e);
+            if (p >= 0)
+                e = p;
+            while (s < e && text.charAt(s) <= ' ') s++;
+            while (e > s && text.charAt(e - 1) <= ' ') e--;
+
+            int rle = 1;
+            p = text.indexOf('*', s, e);
+            if (p > s) {
+                rle = (int) decode(text, s, p, 10);
+                s = p + 1;
+                while (s < e && text.charAt(s) <= ' ') s++;
+            }
+
+            if (e - s > 2 && text.charAt(s) == '0' && (text.charAt(s + 1) == 'x' || text.charAt(s + 1) == 'X'))
+                s += 2;
+
+            if (e > s)
+                add(valueArray, decode(text, s, e, 16), rle);
+        }
+        flush(valueArray);
+    }
+
+    private void add(ValueArray valueArray, long value, int count) {
+        while (count > 0) {
+            int n = Math.min(count, BLOCK_SIZE - blockLen);
+            Arrays.fill(block, blockLen, blockLen + n, value);
+            blockLen += n;
+            count -= n;
+            if (blockLen == BLOCK_SIZE)
+                flush(valueArray);
+        }
+    }
+
+    private void flush(ValueArray valueArray) {
+        valueArray.set(blockStart, block, 0, blockLen);
+        blockStart += blockLen;
+        blockLen = 0;
+    }
+
+    private static long decode(TextBuffer text, int s, int e, int radix) throws IOException {
+        long val = 0;
+        for (int i = s; i < e; i++) {
+            int d = Character.digit(text.charAt(i), radix);
+            if (d < 0) {
+                // let Bits create the error message
                 try {
-                    int p = line.indexOf('#');
-                    if (p >= 0)
-                        line = line.substring(0, p).trim();
-                    else
-                        line = line.trim();
-
-                    int rle = 1;
-                    p = line.indexOf('*');
-                    if (p > 0) {
-                        rle = Integer.parseInt(line.substring(0, p));
-                        line = line.substring(p + 1).trim();
-                    }
-
-                    if (line.length() > 2 && line.charAt(0) == '0' && (line.charAt(1) == 'x' || line.charAt(1) == 'X'))
-                        line = line.substring(2);
-
-                    if (line.length() > 0) {
-                        long v = Bits.decode(line, 0, 16);
-                        for (int i = 0; i < rle; i++) {
-                            valueArray.set(pos, v);
-                            pos++;
-                        }
-                    }
-                } catch (Bits.NumberFormatException e) {
-                    throw new IOException(e);
+                    Bits.decode(text.toString(s, e), 0, radix);
+                } catch (Bits.NumberFormatException ex) {
+                    throw new IOException(ex);
                 }
+                // Bits accepts some characters which are not allowed here, e.g. a sign
+                throw new IOException(Lang.get("err_invalidNumberFormat_N_N", text.toString(s, e), i - s + 1));
             }
+            val = val * radix + d;
         }
+        return val;
     }
 
-
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.core.memory.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Gives line by line access to a text file without creating a string for every line.
+ * Files are read to a byte array at once, the lines are only given by their start and end positions.
+ * The files are not memory mapped, because hex files are often rewritten in place by assemblers
+ * while the simulator is running.
+ * Used to parse the text based hex formats, which only contain ASCII characters.
+ */
+final class TextBuffer {
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int start;
+    private int end;
+    private int next;
+
+    private TextBuffer(ByteBuffer buffer) {
+        this.buffer = buffer;
+        limit = buffer.limit();
+    }
+
+    /**
+     * Reads the given file completely
+     *
+     * @param file the file to read
+     * @return the buffer
+     * @throws IOException IOException
+     */
+    static TextBuffer read(File file) throws IOException {
+        return new TextBuffer(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
+
+    /**
+     * Reads the given reader completely and closes it
+     *
+     * @param reader the reader to read
+     * @return the buffer
+     * @throws IOException IOException
+     */
+    static TextBuffer read(Reader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try (Reader r = reader) {
+            char[] buf = new char[4096];
+            int n;
+            while ((n = r.read(buf)) >= 0)
+                sb.append(buf, 0, n);
+        }
+        return new TextBuffer(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Moves to the next line.
+     * A line is terminated by a line feed, a carriage return or a carriage return
+     * followed by a line feed.
+     *
+     * @return false if there is no further line
+     */
+    boolean nextLine() {
+        if (next >= limit)
+            return false;
+        start = next;
+        end = start;
+        while (end < limit && !isEOL(buffer.get(end)))
+            end++;
+        next = end;
+        if (next < limit && buffer.get(next) == '\r')
+            next++;
+        if (next < limit && buffer.get(next) == '\n' && (next == end || buffer.get(end) == '\r'))
+            next++;
+        return true;
+    }
+
+    private static boolean isEOL(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * @return the position of the first character of the actual line
+     */
+    int getStart() {
+        return start;
+    }
+
+    /**
+     * @return the position behind the last character of the actual line
+     */
+    int getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the character at the given position
+     *
+     * @param pos the position
+     * @return the character
+     */
+    char charAt(int pos) {
+        return (char) (buffer.get(pos) & 0xff);
+    }
+
+    /**
+     * Returns the position of the given character
+     *
+     * @param c    the character to search for
+     * @param from the first position to check
+     * @param to   the position behind the last position to check
+     * @return the position or -1 if not found
+     */
+    int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++)
+            if (charAt(i) == c)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Checks if the given range equals the given string
+     *
+     * @param from the first position
+     * @param to   the position behind the last character
+     * @param str  the string to compare with
+     * @return true if equal
+     */
+    boolean equals(int from, int to, String str) {
+        if (to - from != str.length())
+            return false;
+        for (int i = 0; i < str.length(); i++)
+            if (charAt(from + i) != str.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Creates a string from the given range.
+     * Only used to create error messages.
+     *
+     * @param from the first position
+     * @param to   the position behind the last character
+     * @return the string
+     */
+    String toString(int from, int to) {
+        StringBuilder sb = new StringBuilder(to - from);
+        for (int i = from; i < to; i++)
+            sb.append(charAt(i));
+        return sb.toString();
+    }
+}
@@ -17,6 +17,19 @@ public interface ValueArray {
      */
     void set(int index, long value);
 
+    /**
+     * Sets a block of values starting at the given index
+     *
+     * @param index  the index of the first value
+     * @param values the values to set
+     * @param offset the index of the first value in the values array
+     * @param len    the number of values to set
+     */
+    default void set(int index, long[] values, int offset, int len) {
+        for (int i = 0; i < len; i++)
+            set(index + i, values[offset + i]);
+    }
+
     /**
      * Returns a value from the array
      *
@@ -60,7 +60,7 @@ public class ROMManger {
      */
     public void addRom(String label, DataField data) {
         data.trim();
-        if (data.getData().length > 0)
+        if (data.size() > 0)
             roms.put(label, data);
     }
 
@@ -75,6 +75,13 @@ public class Multiplexer extends FanIn {
             throw new BitsException(Lang.get("err_selectorInputCountMismatch"), this, -1, selector);
     }
 
+    /**
+     * @return the selector input
+     */
+    public ObservableValue getSelector() {
+        return selector;
+    }
+
     @Override
     public int getAddrBits() {
         return selectorBits;
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.data;
+
+import de.neemann.digital.testing.parser.TestRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Stores the rows of a {@link ValueTable} as fixed width binary records in a
+ * memory mapped file. The file is mapped segment by segment, so the number of rows
+ * is not limited by the available heap.
+ * Only the value and the type of a {@link Value} are stored. The state and the rows
+ * description are lost, so this store is meant to hold measurement data.
+ * <p>
+ * Every row gets an index which is increased with every row added. If the store has a
+ * capacity, it works as a ring buffer and the slot of a row is its index modulo the capacity.
+ * Copies of a table are registered as views. Before rows are overwritten or the store is
+ * closed, the affected views take a snapshot of their rows, so they never see modified data.
+ * All accesses to the mapping hold the lock of the store, so the segments can be unmapped
+ * when the store is closed without the risk of a reader accessing an unmapped segment.
+ */
+final class MappedRowStore implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedRowStore.class);
+    private static final int VALUE_BYTES = 9;
+    private static final int SEGMENT_BYTES = 1 << 24;
+    private static final Value.Type[] TYPES = Value.Type.values();
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final int columns;
+    private final int recordBytes;
+    private final int capacity;
+    private final int rowsPerSegment;
+    private final ArrayList<MappedByteBuffer> segments;
+    private final ArrayList<WeakReference<ValueTable>> views;
+    private long rows;
+    private boolean closed;
+
+    /**
+     * Creates a new store
+     *
+     * @param file     the file to use, the file is truncated
+     * @param columns  the number of columns
+     * @param capacity the maximum number of rows kept, zero means no limit
+     * @throws IOException IOException
+     */
+    MappedRowStore(File file, int columns, int capacity) throws IOException {
+        this.file = file;
+        this.columns = columns;
+        this.capacity = capacity;
+        recordBytes = Math.max(1, columns * VALUE_BYTES);
+        int perSegment = Math.max(1, SEGMENT_BYTES / recordBytes);
+        if (capacity > 0)
+            perSegment = Math.min(perSegment, capacity);
+        rowsPerSegment = perSegment;
+        segments = new ArrayList<>();
+        views = new ArrayList<>();
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+    }
+
+    /**
+     * Appends a row to the store.
+     * If the store is full, the oldest row is overwritten.
+     *
+     * @param row the row to append
+     * @return the index of the row
+     * @throws IOException IOException
+     */
+    synchronized long add(TestRow row) throws IOException {
+        if (closed)
+            throw new IOException("store " + file + " is closed");
+        final long index = rows;
+        if (capacity > 0 && index >= capacity)
+            detachViews(index - capacity);
+
+        final long slot = capacity > 0 ? index % capacity : index;
+        final int seg = (int) (slot / rowsPerSegment);
+        if (seg == segments.size())
+            segments.add(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) seg * rowsPerSegment * recordBytes, (long) rowsPerSegment * recordBytes));
+
+        MappedByteBuffer b = segments.get(seg);
+        int pos = (int) (slot % rowsPerSegment) * recordBytes;
+        for (int c = 0; c < columns; c++) {
+            Value v = row.getValue(c);
+            b.putLong(pos, v.getValue());
+            b.put(pos + 8, (byte) v.getType().ordinal());
+            pos += VALUE_BYTES;
+        }
+        rows++;
+        return index;
+    }
+
+    /**
+     * Reads a single value
+     *
+     * @param row the index of the row
+     * @param col the column
+     * @return the value, null if the store is closed
+     */
+    synchronized Value getValue(long row, int col) {
+        if (closed)
+            return null;
+        final long slot = capacity > 0 ? row % capacity : row;
+        MappedByteBuffer b = segments.get((int) (slot / rowsPerSegment));
+        int pos = (int) (slot % rowsPerSegment) * recordBytes + col * VALUE_BYTES;
+        return new Value(b.getLong(pos), TYPES[b.get(pos + 8)]);
+    }
+
+    /**
+     * Reads a complete row
+     *
+     * @param row the index of the row
+     * @return the row, null if the store is closed
+     */
+    synchronized TestRow getRow(long row) {
+        if (closed)
+            return null;
+        Value[] v = new Value[columns];
+        for (int c = 0; c < columns; c++)
+            v[c] = getValue(row, c);
+        return new TestRow(v);
+    }
+
+    /**
+     * @return the index of the next row added
+     */
+    long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the capacity, zero if the number of rows is not limited
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Registers a copy of a table which reads from this store
+     *
+     * @param view the copy
+     */
+    synchronized void addView(ValueTable view) {
+        views.removeIf(r -> r.get() == null);
+        views.add(new WeakReference<>(view));
+    }
+
+    /**
+     * Lets all views which contain the given row take a snapshot of their rows.
+     *
+     * @param row the index of the row which is going to be overwritten
+     */
+    private void detachViews(long row) {
+        if (views.isEmpty())
+            return;
+        views.removeIf(r -> {
+            ValueTable v = r.get();
+            if (v == null)
+                return true;
+            if (v.getStoreFirst() <= row) {
+                v.detachFromStore();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Removes all rows. The mapped segments are reused.
+     * All views take a snapshot of their rows.
+     */
+    synchronized void clear() {
+        detachViews(Long.MAX_VALUE);
+        rows = 0;
+    }
+
+    /**
+     * @return the backing file
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Closes the store. All views take a snapshot of their rows, and
+     * the mapped segments are released.
+     *
+     * @throws IOException IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        detachViews(Long.MAX_VALUE);
+        closed = true;
+        for (MappedByteBuffer b : segments)
+            unmap(b);
+        segments.clear();
+        rows = 0;
+        raf.close();
+    }
+
+    private void unmap(MappedByteBuffer b) {
+        try {
+            // available since java 9
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field f = unsafeClass.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(f.get(null), b);
+        } catch (ReflectiveOperationException e) {
+            try {
+                // java 8
+                Method cleanerMethod = b.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(b);
+                if (cleaner != null)
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+            } catch (ReflectiveOperationException | RuntimeException e2) {
+                LOGGER.debug("could not unmap " + file + ", mapping is released by the garbage collector", e2);
+            }
+        }
+    }
+}
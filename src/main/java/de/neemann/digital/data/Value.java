@@ -85,7 +85,7 @@ public class Value {
         this.type = Type.NORMAL;
     }
 
-    private Value(long val, Type type) {
+    Value(long val, Type type) {
         this.value = val;
         this.type = type;
     }
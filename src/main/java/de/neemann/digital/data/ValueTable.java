@@ -14,6 +14,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Stores values in a table
@@ -21,10 +22,14 @@ import java.util.Iterator;
 public class ValueTable extends Observable implements Iterable<TestRow> {
 
     private final String[] names;
-    private final ArrayList<TestRow> values;
+    private volatile ArrayList<TestRow> values;
     private ArrayList<Integer> tableRowIndex;
     private final long[] max;
     private int maxSize = 0;
+    private volatile MappedRowStore store;
+    private long storeFirst;
+    private int storeRows;
+    private boolean storeReadOnly;
 
     /**
      * Creates a new table.
@@ -55,12 +60,76 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
         this.names = toCopy.names;
         values = (ArrayList<TestRow>) toCopy.values.clone();
         max = toCopy.max.clone();
+        MappedRowStore s = toCopy.store;
+        if (s != null) {
+            storeFirst = toCopy.storeFirst;
+            storeRows = toCopy.storeRows;
+            store = s;
+            s.addView(this);
+        }
+        storeReadOnly = toCopy.storeReadOnly || s != null;
+    }
+
+    /**
+     * Stores all rows in a memory mapped file instead of the heap.
+     * The file is mapped segment by segment, so the number of rows is only limited by the
+     * available disk space. Only the values and their types are stored, the state of the
+     * values and the rows descriptions are not available anymore.
+     * Copies of this table share the file and can not be modified. If the rows of a copy
+     * are overwritten or the backing store is cleared or closed, the copy takes a snapshot
+     * of its rows to the heap before. If a max size is set, the file is used as a ring
+     * buffer and does not grow beyond the max size.
+     * Can only be called on an empty table.
+     *
+     * @param file the file to use, the file is truncated
+     * @return this for chained calls
+     * @throws IOException IOException
+     */
+    public ValueTable setBackingStore(File file) throws IOException {
+        if (getRows() > 0 || tableRowIndex != null)
+            throw new IllegalStateException("backing store can only be set on an empty table");
+        if (store != null)
+            store.close();
+        store = new MappedRowStore(file, names.length, maxSize);
+        storeFirst = 0;
+        storeRows = 0;
+        storeReadOnly = false;
+        return this;
+    }
+
+    /**
+     * @return true if the rows are stored in a memory mapped file
+     */
+    public boolean hasBackingStore() {
+        return store != null;
+    }
+
+    /**
+     * Closes the backing store, if there is one. All rows stored in the backing store
+     * are removed and the table stores its rows on the heap again.
+     *
+     * @throws IOException IOException
+     */
+    public void closeBackingStore() throws IOException {
+        MappedRowStore s = store;
+        if (s != null) {
+            if (!storeReadOnly)
+                s.close();
+            store = null;
+            storeFirst = 0;
+            storeRows = 0;
+            tableRowIndex = null;
+            Arrays.fill(max, 0);
+            fireHasChanged();
+        }
     }
 
     /**
      * @return number of rows
      */
     public int getRows() {
+        if (store != null)
+            return storeRows;
         return values.size();
     }
 
@@ -69,7 +138,7 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
      */
     public int getTableRows() {
         if (tableRowIndex == null)
-            return values.size();
+            return getRows();
         else
             return tableRowIndex.size();
     }
@@ -81,6 +150,11 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
      * @return this for chained calls
      */
     public ValueTable add(TestRow row) {
+        if (storeReadOnly)
+            throw new IllegalStateException("copy of a table with backing store can not be modified");
+        if (store != null)
+            return addToStore(row);
+
         if (maxSize > 0 && values.size() >= maxSize) {
 
             if (tableRowIndex != null)
@@ -100,6 +174,66 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
         return this;
     }
 
+    /**
+     * Called by the backing store if the rows of this copy are going to be overwritten.
+     * The rows are copied to the heap, and the backing store is not used anymore.
+     */
+    void detachFromStore() {
+        MappedRowStore s = store;
+        if (s == null)
+            return;
+        // readers use the values as soon as the store is cleared, so the copy is published before
+        ArrayList<TestRow> copy = new ArrayList<>(values.size() + storeRows);
+        copy.addAll(values);
+        for (int i = 0; i < storeRows; i++)
+            copy.add(s.getRow(storeFirst + i));
+        values = copy;
+        store = null;
+    }
+
+    /**
+     * @return the index of the first row of this table in the backing store
+     */
+    long getStoreFirst() {
+        return storeFirst;
+    }
+
+    private ValueTable addToStore(TestRow row) {
+
+        if (maxSize > 0 && storeRows >= maxSize) {
+            if (tableRowIndex != null)
+                throw new RuntimeException("delete not allowed if table index is present");
+
+            storeFirst += storeRows - maxSize + 1;
+            storeRows = maxSize - 1;
+        }
+        if (tableRowIndex != null)
+            tableRowIndex.add(storeRows);
+        try {
+            store.add(row);
+        } catch (IOException e) {
+            throw new RuntimeException("could not write to " + store.getFile(), e);
+        }
+        storeRows++;
+
+        checkMax(row.getValues());
+
+        fireHasChanged();
+
+        return this;
+    }
+
+    private TestRow getRow(int rowIndex) {
+        MappedRowStore s = store;
+        if (s != null) {
+            TestRow row = s.getRow(storeFirst + rowIndex);
+            // if the copy was detached in the meantime, the row may be overwritten already
+            if (row != null && store != null)
+                return row;
+        }
+        return values.get(rowIndex);
+    }
+
     /**
      * omit the last added value in a table representation
      *
@@ -108,7 +242,7 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
     public ValueTable omitInTable() {
         if (tableRowIndex == null) {
             tableRowIndex = new ArrayList<>();
-            for (int i = 0; i < values.size(); i++)
+            for (int i = 0; i < getRows(); i++)
                 tableRowIndex.add(i);
         }
         tableRowIndex.remove(tableRowIndex.size() - 1);
@@ -129,6 +263,12 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
      * @return the value stored at the given position
      */
     public Value getValue(int rowIndex, int columnIndex) {
+        MappedRowStore s = store;
+        if (s != null) {
+            Value value = s.getValue(storeFirst + rowIndex, columnIndex);
+            if (value != null && store != null)
+                return value;
+        }
         return values.get(rowIndex).getValue(columnIndex);
     }
 
@@ -141,9 +281,9 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
      */
     public Value getTableValue(int rowIndex, int columnIndex) {
         if (tableRowIndex == null)
-            return values.get(rowIndex).getValue(columnIndex);
+            return getValue(rowIndex, columnIndex);
         else
-            return values.get(tableRowIndex.get(rowIndex)).getValue(columnIndex);
+            return getValue(tableRowIndex.get(rowIndex), columnIndex);
     }
 
     /**
@@ -154,9 +294,9 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
      */
     public String getDescription(int rowIndex) {
         if (tableRowIndex == null)
-            return values.get(rowIndex).getDescription();
+            return getRow(rowIndex).getDescription();
         else
-            return values.get(tableRowIndex.get(rowIndex)).getDescription();
+            return getRow(tableRowIndex.get(rowIndex)).getDescription();
     }
 
     /**
@@ -180,7 +320,25 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
 
     @Override
     public Iterator<TestRow> iterator() {
-        return values.iterator();
+        if (store == null)
+            return values.iterator();
+
+        return new Iterator<TestRow>() {
+            private final int rows = storeRows;
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return row < rows;
+            }
+
+            @Override
+            public TestRow next() {
+                if (row >= rows)
+                    throw new NoSuchElementException();
+                return getRow(row++);
+            }
+        };
     }
 
     /**
@@ -253,17 +411,28 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
      */
     public void clear() {
         values.clear();
+        MappedRowStore s = store;
+        if (s != null) {
+            if (!storeReadOnly)
+                s.clear();
+            storeFirst = 0;
+            storeRows = 0;
+        }
         Arrays.fill(max, 0);
         fireHasChanged();
     }
 
     /**
      * set the maximum size for this table
+     * If a backing store is used, the max size has to be set before the backing store is set.
      *
      * @param maxSize the max size
      * @return this for chained calls
      */
     public ValueTable setMaxSize(int maxSize) {
+        MappedRowStore s = store;
+        if (s != null && s.getCapacity() != maxSize)
+            throw new IllegalStateException("max size can not be changed if a backing store is used");
         this.maxSize = maxSize;
         return this;
     }
@@ -276,14 +445,14 @@ public class ValueTable extends Observable implements Iterable<TestRow> {
         sb.append("\n");
 
         if (tableRowIndex == null)
-            for (TestRow row : values) {
+            for (TestRow row : this) {
                 for (Value v : row.getValues())
                     sb.append(v.toString()).append(" ");
                 sb.append("\n");
             }
         else
             for (int i : tableRowIndex) {
-                for (Value v : values.get(i).getValues())
+                for (Value v : getRow(i).getValues())
                     sb.append(v.toString()).append(" ");
                 sb.append("\n");
             }
@@ -12,15 +12,26 @@ import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.TableModel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The table model to represent a value table.
  * <p>
+ * The values are fetched from the table on demand. Only the rows around the
+ * visible window are cached together with their string representation, so
+ * even tables with a huge number of rows can be shown.
  */
 public class ValueTableModel implements TableModel, Observer {
+    private static final int WINDOW = 256;
 
     private final ValueTable values;
     private ArrayList<TableModelListener> listeners;
+    private final AtomicBoolean changePending = new AtomicBoolean();
+    private Value[][] windowValues;
+    private String[][] windowText;
+    private int windowStart;
+    private int windowRows;
 
     /**
      * Creates a new table model
@@ -73,7 +84,66 @@ public class ValueTableModel implements TableModel, Observer {
             else
                 return description;
         } else
-            return values.getTableValue(rowIndex, columnIndex - 1);
+            return getCachedValue(rowIndex, columnIndex - 1);
+    }
+
+    /**
+     * Returns the string representation of the value at the given position.
+     * The string is cached, so it is cheap to call this method every time a cell is drawn.
+     *
+     * @param rowIndex    the row
+     * @param columnIndex the column, the first column is the rows description
+     * @return the text to show
+     */
+    public String getTextAt(int rowIndex, int columnIndex) {
+        if (columnIndex == 0)
+            return getValueAt(rowIndex, 0).toString();
+
+        int col = columnIndex - 1;
+        if (!fetchWindow(rowIndex))
+            return values.getTableValue(rowIndex, col).toString();
+
+        String[] texts = windowText[rowIndex - windowStart];
+        String t = texts[col];
+        if (t == null) {
+            t = windowValues[rowIndex - windowStart][col].toString();
+            texts[col] = t;
+        }
+        return t;
+    }
+
+    private Value getCachedValue(int rowIndex, int col) {
+        if (!fetchWindow(rowIndex))
+            return values.getTableValue(rowIndex, col);
+        return windowValues[rowIndex - windowStart][col];
+    }
+
+    /**
+     * Makes sure the given row is in the cached window.
+     * Returns false if the row is not available in the table.
+     */
+    private boolean fetchWindow(int rowIndex) {
+        if (windowValues != null && rowIndex >= windowStart && rowIndex < windowStart + windowRows)
+            return true;
+
+        int rows = values.getTableRows();
+        if (rowIndex < 0 || rowIndex >= rows)
+            return false;
+
+        int cols = values.getColumns();
+        if (windowValues == null || windowValues[0].length != cols) {
+            windowValues = new Value[WINDOW][cols];
+            windowText = new String[WINDOW][cols];
+        }
+
+        windowStart = Math.max(0, Math.min(rowIndex - WINDOW / 2, rows - WINDOW));
+        windowRows = Math.min(WINDOW, rows - windowStart);
+        for (int r = 0; r < windowRows; r++) {
+            for (int c = 0; c < cols; c++)
+                windowValues[r][c] = values.getTableValue(windowStart + r, c);
+            Arrays.fill(windowText[r], null);
+        }
+        return true;
     }
 
 
@@ -93,7 +163,12 @@ public class ValueTableModel implements TableModel, Observer {
 
     @Override
     public void hasChanged() {
+        if (changePending.getAndSet(true))
+            return;
+
         SwingUtilities.invokeLater(() -> {
+            changePending.set(false);
+            windowValues = null;
             TableModelEvent tme = new TableModelEvent(this);
             for (TableModelListener l : listeners)
                 l.tableChanged(tme);
@@ -28,6 +28,7 @@ import de.neemann.digital.draw.shapes.CustomCircuitShapeType;
 import de.neemann.digital.draw.shapes.Drawable;
 import de.neemann.digital.draw.shapes.ShapeFactory;
 import de.neemann.digital.draw.shapes.custom.CustomShapeDescription;
+import de.neemann.digital.gui.Settings;
 import de.neemann.digital.lang.Lang;
 import de.neemann.digital.testing.TestCaseDescription;
 import de.neemann.digital.undo.Copyable;
@@ -170,6 +171,8 @@ public class Circuit implements Copyable<Circuit> {
     public void save(OutputStream out) throws IOException {
         try (Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
             XStream xStream = Circuit.getxStream();
+            if (Settings.getInstance().get(Keys.SETTINGS_COMPRESS_DATA))
+                xStream.registerConverter(new DataFieldConverter(true));
             w.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
             xStream.marshal(this, new PrettyPrintWriter(w));
         }
@@ -33,6 +33,7 @@ public class DataShape implements Shape {
 
     private final boolean microStep;
     private final int maxSize;
+    private ValueTableObserver observer;
     private ValueTable logDataModel;
     private ValueTable logData;
 
@@ -85,8 +86,11 @@ public class DataShape implements Shape {
             }
         }.order(signals);
 
-        ValueTableObserver valueTableObserver = new ValueTableObserver(microStep, signals, maxSize);
-        logDataModel = valueTableObserver.getLogData();
-        model.addObserver(valueTableObserver);
+        // the data of the last run is not shown anymore, so its backing store is released
+        if (observer != null)
+            observer.close();
+        observer = new ValueTableObserver(microStep, signals, maxSize);
+        logDataModel = observer.getLogData();
+        model.addObserver(observer);
     }
 }
@@ -1178,11 +1178,14 @@ public final class Main extends JFrame implements ClosingWindowListener.ConfirmS
             @Override
             public void actionPerformed(ActionEvent e) {
                 try {
-                    Model model = new ModelCreator(circuitComponent.getCircuit(), new SubstituteLibrary(library)).createModel(false);
+                    final Circuit circuit = circuitComponent.getCircuit();
+                    Model model = new ModelCreator(circuit, new SubstituteLibrary(library)).createModel(false);
                     try {
                         model.checkForInvalidSignals();
                         new TableDialog(Main.this,
-                                new ModelAnalyser(model).analyse(),
+                                new ModelAnalyser(model)
+                                        .setModelFactory(() -> new ModelCreator(circuit, new SubstituteLibrary(library)).createModel(false))
+                                        .analyse(),
                                 library,
                                 getBaseFileName())
                                 .setVisible(true);
@@ -25,6 +25,7 @@ public final class SaveAsHelper {
         KNOWN.add("fsm");
         KNOWN.add("hex");
         KNOWN.add("tru");
+        KNOWN.add("trb");
         KNOWN.add("svg");
         KNOWN.add("vhdl");
         KNOWN.add("v");
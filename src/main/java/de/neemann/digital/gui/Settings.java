@@ -55,6 +55,9 @@ public final class Settings extends SettingsBase  {
         intList.add(Keys.SETTINGS_IVERILOG_PATH);
         intList.add(Keys.SETTINGS_TOOLCHAIN_CONFIG);
         intList.add(Keys.SETTINGS_FONT_SCALING);
+        intList.add(Keys.SETTINGS_MEMORY_UPDATE_RATE);
+        intList.add(Keys.SETTINGS_TEST_CACHE);
+        intList.add(Keys.SETTINGS_COMPRESS_DATA);
         intList.add(Keys.SETTINGS_MAC_MOUSE);
         intList.add(Keys.SETTINGS_USE_EQUALS_KEY);
 
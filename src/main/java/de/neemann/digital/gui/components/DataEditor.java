@@ -6,9 +6,12 @@
 package de.neemann.digital.gui.components;
 
 import de.neemann.digital.core.*;
+import de.neemann.digital.core.element.Keys;
+import de.neemann.digital.core.memory.AddressRanges;
 import de.neemann.digital.core.memory.DataField;
 import de.neemann.digital.core.memory.importer.Importer;
 import de.neemann.digital.gui.SaveAsHelper;
+import de.neemann.digital.gui.Settings;
 import de.neemann.digital.lang.Lang;
 import de.neemann.gui.ErrorMessage;
 import de.neemann.gui.MyFileChooser;
@@ -40,6 +43,7 @@ public class DataEditor extends JDialog {
     private final int dataBits;
     private final int addrBits;
     private DataField localDataField;
+    private final boolean modelIsRunning;
     private final JTable table;
     private boolean ok = false;
     private File fileName;
@@ -60,6 +64,7 @@ public class DataEditor extends JDialog {
         setDefaultCloseOperation(DISPOSE_ON_CLOSE);
         this.dataBits = dataBits;
         this.addrBits = addrBits;
+        this.modelIsRunning = modelIsRunning;
         dataFormat = intFormat;
         if (intFormat.equals(IntFormat.ascii) || intFormat.equals(IntFormat.bin))
             addrFormat = IntFormat.def;
@@ -105,11 +110,11 @@ public class DataEditor extends JDialog {
         scrollPane.setPreferredSize(new Dimension(tableWidth, dim.height));
 
         if (modelIsRunning) {
-            dataField.addListener(dm);
+            dataField.addRangeListener(dm);
             addWindowListener(new WindowAdapter() {
                 @Override
                 public void windowClosed(WindowEvent e) {
-                    dataField.removeListener(dm);
+                    dataField.removeRangeListener(dm);
                 }
             });
         } else {
@@ -230,9 +235,25 @@ public class DataEditor extends JDialog {
         if (model != null) {
             model.getWindowPosManager().register("RAM_DATA_" + label, this);
             model.addObserver(event -> {
-                if (event.equals(ModelEvent.STOPPED))
+                if (event.equals(ModelEvent.STOPPED)) {
+                    localDataField.fireRangesChanged();
                     detachFromRunningModel();
+                }
             }, ModelEvent.STOPPED);
+
+            if (modelIsRunning) {
+                // the modifications are collected and shown at the configured rate
+                int rate = Settings.getInstance().get(Keys.SETTINGS_MEMORY_UPDATE_RATE);
+                Timer timer = new Timer(1000 / Math.max(1, rate), e -> localDataField.fireRangesChanged());
+                timer.start();
+                addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowClosed(WindowEvent e) {
+                        timer.stop();
+                    }
+                });
+                model.addObserver(event -> timer.stop(), ModelEvent.STOPPED);
+            }
         }
     }
 
@@ -261,7 +282,7 @@ public class DataEditor extends JDialog {
         return fileName;
     }
 
-    private final class MyTableModel implements TableModel, DataField.DataListener {
+    private final class MyTableModel implements TableModel, DataField.RangeListener {
         private final DataField dataField;
         private final int cols;
         private final SyncAccess modelSync;
@@ -318,6 +339,7 @@ public class DataEditor extends JDialog {
             long decode = ((NumberString) aValue).getVal();
             modelSync.access(() -> {
                 dataField.setData(rowIndex * cols + (columnIndex - 1), decode);
+                dataField.fireRangesChanged();
             });
         }
 
@@ -337,14 +359,16 @@ public class DataEditor extends JDialog {
         }
 
         @Override
-        public void valueChanged(int addr) {
-            if (addr < 0) {
-                // all values have changed!
-                fireEvent(new TableModelEvent(this));
-            } else {
-                // only one value has changed
-                fireEvent(new TableModelEvent(this, addr / cols));
-            }
+        public void rangesChanged(AddressRanges ranges) {
+            SwingUtilities.invokeLater(() -> {
+                if (ranges.isAll()) {
+                    // all values have changed!
+                    fireEvent(new TableModelEvent(this));
+                } else {
+                    for (int i = 0; i < ranges.size(); i++)
+                        fireEvent(new TableModelEvent(this, ranges.getFrom(i) / cols, ranges.getTo(i) / cols));
+                }
+            });
         }
     }
 
@@ -134,7 +134,7 @@ public class ROMEditorDialog extends JDialog {
         }
 
         boolean hasData() {
-            return data.getData().length > 0;
+            return data.size() > 0;
         }
 
         public boolean edit(ROMEditorDialog romEditorDialog) {
@@ -83,6 +83,7 @@ public class GraphDialog extends JDialog implements Observer {
             @Override
             public void windowClosed(WindowEvent e) {
                 model.access(() -> model.removeObserver(valueTableObserver));
+                valueTableObserver.close();
             }
         });
 
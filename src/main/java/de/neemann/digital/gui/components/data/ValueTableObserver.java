@@ -11,15 +11,25 @@ import de.neemann.digital.core.Signal;
 import de.neemann.digital.data.Value;
 import de.neemann.digital.data.ValueTable;
 import de.neemann.digital.testing.parser.TestRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
- * Observer to create measurement data
+ * Observer to create measurement data.
+ * If many data points are to be stored, the data is stored in a memory mapped file
+ * instead of the heap. In this case the observer has to be closed if the data is not
+ * used anymore.
  */
 public class ValueTableObserver implements ModelStateObserverTyped {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValueTableObserver.class);
+    private static final int BACKING_STORE_MIN_SIZE = 1 << 16;
 
     private final ValueTable logData;
+    private File storeFile;
     private final ModelEvent type;
     private final ArrayList<Signal> signals;
 
@@ -43,6 +53,39 @@ public class ValueTableObserver implements ModelStateObserverTyped {
         for (int i = 0; i < signals.size(); i++)
             names[i] = signals.get(i).getName();
         this.logData = new ValueTable(names).setMaxSize(maxSize);
+
+        if (maxSize >= BACKING_STORE_MIN_SIZE) {
+            try {
+                storeFile = File.createTempFile("digital", ".values");
+                storeFile.deleteOnExit();
+                logData.setBackingStore(storeFile);
+            } catch (IOException e) {
+                LOGGER.warn("could not create backing store, data is kept on the heap", e);
+                deleteStoreFile();
+            }
+        }
+    }
+
+    /**
+     * Closes the backing store if there is one.
+     * All copies of the value table take a snapshot of their data, and the
+     * value table itself is emptied.
+     */
+    public void close() {
+        if (storeFile != null) {
+            try {
+                logData.closeBackingStore();
+            } catch (IOException e) {
+                LOGGER.warn("could not close backing store", e);
+            }
+            deleteStoreFile();
+        }
+    }
+
+    private void deleteStoreFile() {
+        if (storeFile != null && storeFile.exists() && !storeFile.delete())
+            LOGGER.debug("could not delete " + storeFile);
+        storeFile = null;
     }
 
     @Override
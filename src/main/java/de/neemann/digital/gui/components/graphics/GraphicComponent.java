@@ -17,7 +17,6 @@ public class GraphicComponent extends JComponent {
     private final int width;
     private final int height;
     private long[] data;
-    private int offs;
 
     /**
      * Creates a new instance.
@@ -43,15 +42,10 @@ public class GraphicComponent extends JComponent {
     /**
      * Updates the graphics window
      *
-     * @param data the data to show
-     * @param bank the bank to show
+     * @param data the pixels to show, width*height values
      */
-    public void updateGraphic(long[] data, boolean bank) {
+    public void updateGraphic(long[] data) {
         this.data = data;
-        if (bank)
-            offs = width * height;
-        else
-            offs = 0;
         repaint();
     }
 
@@ -62,7 +56,7 @@ public class GraphicComponent extends JComponent {
                 int xPos = x * getWidth() / width;
                 int dx = (x + 1) * getWidth() / width - xPos;
                 for (int y = 0; y < height; y++) {
-                    int p = (int) data[offs + y * width + x];
+                    int p = (int) data[y * width + x];
                     if (p >= PALETTE.length) p = 1;
                     g.setColor(PALETTE[p]);
 
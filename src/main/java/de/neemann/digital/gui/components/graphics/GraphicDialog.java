@@ -16,6 +16,7 @@ import java.awt.*;
  */
 public class GraphicDialog extends JDialog {
     private final GraphicComponent graphicComponent;
+    private final long[] buffer;
 
     /**
      * Creates a new instance of the given size
@@ -28,6 +29,7 @@ public class GraphicDialog extends JDialog {
         super(parent, Lang.get("elem_GraphicCard"), ModalityType.MODELESS);
         setDefaultCloseOperation(DISPOSE_ON_CLOSE);
 
+        buffer = new long[width * height];
         graphicComponent = new GraphicComponent(width, height);
         getContentPane().add(graphicComponent);
         pack();
@@ -39,12 +41,14 @@ public class GraphicDialog extends JDialog {
     }
 
     /**
-     * Updates the graphics data
+     * Updates the graphics data.
+     * Only the words of the bank to show are read from the memory.
      *
      * @param memory the raw data to use
      * @param bank   the bank to show
      */
     public void updateGraphic(DataField memory, boolean bank) {
-        graphicComponent.updateGraphic(memory.getData(), bank);
+        memory.getData(bank ? buffer.length : 0, buffer, 0, buffer.length);
+        graphicComponent.updateGraphic(buffer);
     }
 }
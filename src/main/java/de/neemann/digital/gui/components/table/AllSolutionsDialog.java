@@ -6,6 +6,7 @@
 package de.neemann.digital.gui.components.table;
 
 import de.neemann.digital.analyse.expression.Expression;
+import de.neemann.digital.analyse.quinemc.primeselector.PrimeSelectorDefault;
 import de.neemann.digital.lang.Lang;
 import de.neemann.gui.Screen;
 import de.neemann.gui.ToolTipAction;
@@ -75,10 +76,15 @@ public class AllSolutionsDialog extends JDialog {
     /**
      * Sets the expressions
      *
-     * @param expressions the expressions to show
+     * @param expressions  the expressions to show
+     * @param limitReached true if the number of solutions was limited
      */
-    public void setExpressions(ArrayList<Expression> expressions) {
+    public void setExpressions(ArrayList<Expression> expressions, boolean limitReached) {
         expressionComponent.setExpressions(expressions);
+        if (limitReached)
+            setTitle(Lang.get("win_allSolutions_limited_N", PrimeSelectorDefault.MAX_SOLUTIONS));
+        else
+            setTitle(Lang.get("win_allSolutions"));
     }
 
     ToolTipAction getReopenAction() {
@@ -5,7 +5,7 @@
  */
 package de.neemann.digital.gui.components.table;
 
-import de.neemann.digital.analyse.expression.ContextFiller;
+import de.neemann.digital.analyse.expression.CompiledExpression;
 import de.neemann.digital.analyse.expression.Expression;
 import de.neemann.digital.analyse.expression.ExpressionException;
 import de.neemann.digital.analyse.expression.Variable;
@@ -47,10 +47,14 @@ public class CheckResultListener implements ExpressionListener {
     public void resultFound(String name, Expression expression) throws FormatterException, ExpressionException {
         listener.resultFound(name, expression);
 
-        ContextFiller cf = new ContextFiller(variables);
+        CompiledExpression compiled = new CompiledExpression(expression, variables);
 
-        for (int i = 0; i < boolTable.size(); i++)
-            check(boolTable.get(i), expression.calculate(cf.setContextTo(i)));
+        long values = 0;
+        for (int i = 0; i < boolTable.size(); i++) {
+            if ((i & 63) == 0)
+                values = compiled.calculateBlock(i >>> 6);
+            check(boolTable.get(i), ((values >>> (i & 63)) & 1) != 0);
+        }
 
     }
 
@@ -69,6 +73,11 @@ public class CheckResultListener implements ExpressionListener {
         }
     }
 
+    @Override
+    public void solutionLimitReached(String name) {
+        listener.solutionLimitReached(name);
+    }
+
     @Override
     public void close() throws FormatterException, ExpressionException {
         listener.close();
@@ -34,6 +34,7 @@ public class ExpressionCreator {
 
     private final TruthTable theTable;
     private ProgressListener progressListener;
+    private MinimizerInterface minimizer;
 
     /**
      * Creates a new instance
@@ -113,7 +114,7 @@ public class ExpressionCreator {
                 localVars = tr.getVars();
             }
         }
-        if (!Main.isExperimentalMode() && localVars.size() > MAX_INPUTS_ALLOWED)
+        if (!Main.isExperimentalMode() && localVars.size() > MAX_INPUTS_ALLOWED && minimizer instanceof MinimizerQuineMcCluskey)
             throw new AnalyseException(Lang.get("err_toManyInputsIn_N0_max_N1_is_N2", resultName, MAX_INPUTS_ALLOWED, localVars.size()));
 
 
@@ -123,13 +124,31 @@ public class ExpressionCreator {
     }
 
     private MinimizerInterface getMinimizer(int size) {
+        if (minimizer != null)
+            return minimizer;
         if (size <= 4)
             return new MinimizerQuineMcCluskeyExam();
+        else if (size > MAX_INPUTS_ALLOWED && !Main.isExperimentalMode())
+            return new MinimizerEspresso();
         else {
             return new MinimizerQuineMcCluskey();
         }
     }
 
+    /**
+     * Sets the minimizer to use.
+     * If no minimizer is set, the QMC minimizers are used to obtain exact results.
+     * Only tables which are too large for the QMC minimizers are minimized by
+     * the heuristic {@link MinimizerEspresso}.
+     *
+     * @param minimizer the minimizer or null to select the minimizer automatically
+     * @return this for chained calls
+     */
+    public ExpressionCreator setMinimizer(MinimizerInterface minimizer) {
+        this.minimizer = minimizer;
+        return this;
+    }
+
     /**
      * Sets the progress listener to use
      *
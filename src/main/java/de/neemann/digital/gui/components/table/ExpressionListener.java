@@ -23,6 +23,15 @@ public interface ExpressionListener {
      */
     void resultFound(String name, Expression expression) throws FormatterException, ExpressionException;
 
+    /**
+     * Called if not all solutions of a result are reported because the number of solutions is limited.
+     * Is called before the solutions of the result are reported.
+     *
+     * @param name the results name
+     */
+    default void solutionLimitReached(String name) {
+    }
+
     /**
      * Called if last expression was created
      *
@@ -73,6 +73,11 @@ public class ExpressionListenerJK implements ExpressionListener {
         return detName;
     }
 
+    @Override
+    public void solutionLimitReached(String name) {
+        parent.solutionLimitReached(name);
+    }
+
     @Override
     public void close() throws FormatterException, ExpressionException {
         parent.close();
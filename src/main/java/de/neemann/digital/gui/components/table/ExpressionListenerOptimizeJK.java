@@ -64,6 +64,10 @@ public class ExpressionListenerOptimizeJK implements ExpressionListener {
         }
     }
 
+    @Override
+    public void solutionLimitReached(String name) {
+        parent.solutionLimitReached(name);
+    }
 
     @Override
     public void close() throws FormatterException, ExpressionException {
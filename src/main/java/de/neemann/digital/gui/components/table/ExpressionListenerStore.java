@@ -23,6 +23,7 @@ public class ExpressionListenerStore implements ExpressionListener {
 
     private final ExpressionListener parent;
     private final ArrayList<Result> results;
+    private final ArrayList<String> limited;
     private boolean closed;
 
     /**
@@ -33,6 +34,7 @@ public class ExpressionListenerStore implements ExpressionListener {
     public ExpressionListenerStore(ExpressionListener parent) {
         this.parent = parent;
         this.results = new ArrayList<>();
+        this.limited = new ArrayList<>();
         closed = false;
     }
 
@@ -43,6 +45,13 @@ public class ExpressionListenerStore implements ExpressionListener {
             parent.resultFound(name, expression);
     }
 
+    @Override
+    public void solutionLimitReached(String name) {
+        limited.add(name);
+        if (parent != null)
+            parent.solutionLimitReached(name);
+    }
+
     @Override
     public void close() throws FormatterException, ExpressionException {
         closed = true;
@@ -61,6 +70,8 @@ public class ExpressionListenerStore implements ExpressionListener {
         if (!closed)
             throw new ExpressionException("ExpressionListenerStore not closed");
 
+        for (String name : limited)
+            listener.solutionLimitReached(name);
         for (Result r : results)
             listener.resultFound(r.name, r.expression.copy());
     }
@@ -6,6 +6,8 @@
 package de.neemann.digital.gui.components.table;
 
 import de.neemann.digital.analyse.AnalyseException;
+import de.neemann.digital.analyse.MinimizerEspresso;
+import de.neemann.digital.analyse.MinimizerInterface;
 import de.neemann.digital.analyse.ModelAnalyserInfo;
 import de.neemann.digital.analyse.TruthTable;
 import de.neemann.digital.analyse.TruthTableTableModel;
@@ -15,9 +17,11 @@ import de.neemann.digital.analyse.expression.NamedExpression;
 import de.neemann.digital.analyse.expression.Variable;
 import de.neemann.digital.analyse.expression.format.FormatterException;
 import de.neemann.digital.analyse.expression.modify.*;
+import de.neemann.digital.analyse.format.TruthTableCSVWriter;
 import de.neemann.digital.analyse.format.TruthTableFormatter;
 import de.neemann.digital.analyse.format.TruthTableFormatterTestCase;
 import de.neemann.digital.analyse.quinemc.BoolTableByteArray;
+import de.neemann.digital.analyse.quinemc.BoolTableModifiable;
 import de.neemann.digital.builder.ATF150x.ATFDevice;
 import de.neemann.digital.builder.ExpressionToFileExporter;
 import de.neemann.digital.builder.Gal16v8.CuplExporter;
@@ -59,8 +63,13 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -108,6 +117,7 @@ public class TableDialog extends JDialog {
     private final JMenu hardwareMenu;
     private final TruthTableTableModel model;
     private JCheckBoxMenuItem createJK;
+    private JCheckBoxMenuItem useHeuristic;
     private File filename;
     private int columnIndex;
     private AllSolutionsDialog allSolutionsDialog;
@@ -372,7 +382,7 @@ public class TableDialog extends JDialog {
                 JFileChooser fc = new MyFileChooser();
                 if (TableDialog.this.filename != null)
                     fc.setSelectedFile(SaveAsHelper.checkSuffix(TableDialog.this.filename, "tru"));
-                fc.setFileFilter(new FileNameExtensionFilter(Lang.get("msg_truthTable"), "tru"));
+                fc.setFileFilter(new FileNameExtensionFilter(Lang.get("msg_truthTable"), "tru", TruthTable.BINARY_SUFFIX));
                 if (fc.showOpenDialog(TableDialog.this) == JFileChooser.APPROVE_OPTION) {
                     try {
                         File file = fc.getSelectedFile();
@@ -403,6 +413,22 @@ public class TableDialog extends JDialog {
             }
         });
 
+        fileMenu.add(new ToolTipAction(Lang.get("menu_table_saveBinary")) {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                JFileChooser fc = new MyFileChooser();
+                if (TableDialog.this.filename != null)
+                    fc.setSelectedFile(SaveAsHelper.checkSuffix(TableDialog.this.filename, TruthTable.BINARY_SUFFIX));
+                fc.setFileFilter(new FileNameExtensionFilter(Lang.get("msg_truthTable"), TruthTable.BINARY_SUFFIX));
+                new SaveAsHelper(TableDialog.this, fc, TruthTable.BINARY_SUFFIX).checkOverwrite(
+                        file -> {
+                            undoManager.getActual().saveBinary(file);
+                            TableDialog.this.filename = file;
+                        }
+                );
+            }
+        }.setToolTip(Lang.get("menu_table_saveBinary_tt")).createJMenuItem());
+
 
         fileMenu.add(new ToolTipAction(Lang.get("menu_table_exportTableLaTeX")) {
             @Override
@@ -458,11 +484,31 @@ public class TableDialog extends JDialog {
             }
         }.setToolTip(Lang.get("menu_table_exportHex_tt")).createJMenuItem());
 
+        fileMenu.add(new ToolTipAction(Lang.get("menu_table_exportCSV")) {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                JFileChooser fc = new MyFileChooser();
+                if (TableDialog.this.filename != null)
+                    fc.setSelectedFile(SaveAsHelper.checkSuffix(TableDialog.this.filename, "csv"));
+                fc.setFileFilter(new FileNameExtensionFilter("CSV", "csv"));
+                new SaveAsHelper(TableDialog.this, fc, "csv").checkOverwrite(file -> {
+                    try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+                        new TruthTableCSVWriter(out).write(undoManager.getActual());
+                    }
+                });
+            }
+        }.setToolTip(Lang.get("menu_table_exportCSV_tt")).createJMenuItem());
+
 
         createJK = new JCheckBoxMenuItem(Lang.get("menu_table_JK"));
         createJK.addActionListener(e -> calculateExpressions());
         fileMenu.add(createJK);
 
+        useHeuristic = new JCheckBoxMenuItem(Lang.get("menu_table_heuristic"));
+        useHeuristic.setToolTipText(Lang.get("menu_table_heuristic_tt"));
+        useHeuristic.addActionListener(e -> calculateExpressions());
+        fileMenu.add(useHeuristic);
+
         fileMenu.add(allSolutionsDialog.getReopenAction());
 
         return fileMenu;
@@ -719,6 +765,7 @@ public class TableDialog extends JDialog {
                 expressionListener = new ExpressionListenerJK(expressionListener);
 
             final TruthTable table = undoManager.getActual();
+            final MinimizerInterface minimizer = useHeuristic.isSelected() ? new MinimizerEspresso() : null;
             if (table.getVars().size() >= 8) {
                 ProgressDialog progress = new ProgressDialog(this);
 
@@ -726,7 +773,7 @@ public class TableDialog extends JDialog {
                 new Thread(() -> {
                     ExpressionListenerStore storage = new ExpressionListenerStore(null);
                     try {
-                        new ExpressionCreator(table).setProgressListener(progress).create(storage);
+                        new ExpressionCreator(table).setMinimizer(minimizer).setProgressListener(progress).create(storage);
                     } catch (ExpressionException | FormatterException | AnalyseException e) {
                         SwingUtilities.invokeLater(() -> {
                             progress.dispose();
@@ -751,7 +798,7 @@ public class TableDialog extends JDialog {
                 }).start();
             } else {
                 lastGeneratedExpressions = new ExpressionListenerStore(expressionListener);
-                new ExpressionCreator(table).create(lastGeneratedExpressions);
+                new ExpressionCreator(table).setMinimizer(minimizer).create(lastGeneratedExpressions);
                 kvMap.setResult(table, lastGeneratedExpressions.getResults());
             }
 
@@ -801,7 +848,7 @@ public class TableDialog extends JDialog {
             int i = n - 1;
             int rows = 1 << n;
             for (Variable v : vars) {
-                BoolTableByteArray val = new BoolTableByteArray(rows);
+                BoolTableModifiable val = BoolTableModifiable.create(rows);
                 for (int n = 0; n < rows; n++)
                     val.set(n, ((n + 1) >> i) & 1);
                 truthTable.addResult(addOne(v.getIdentifier()), val);
@@ -831,7 +878,7 @@ public class TableDialog extends JDialog {
             int i = n - 1;
             int rows = 1 << (n + 1);
             for (int vi = 1; vi < vars.size(); vi++) {
-                BoolTableByteArray val = new BoolTableByteArray(rows);
+                BoolTableModifiable val = BoolTableModifiable.create(rows);
                 for (int n = 0; n < rows; n++) {
                     if (n >= rows / 2)
                         val.set(n, ((n - 1) >> i) & 1);
@@ -870,6 +917,8 @@ public class TableDialog extends JDialog {
     }
 
     private static final class StringDefaultTableCellRenderer extends DefaultTableCellRenderer {
+        private final HashMap<String, String> formattedNames = new HashMap<>();
+
         private StringDefaultTableCellRenderer() {
             setHorizontalAlignment(SwingConstants.CENTER);
         }
@@ -878,20 +927,24 @@ public class TableDialog extends JDialog {
         public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
             JLabel label = (JLabel) super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
             label.setBackground(MYGRAY);
+            label.setText(formattedNames.computeIfAbsent(value.toString(), StringDefaultTableCellRenderer::formatName));
+            setBorder(BorderFactory.createRaisedBevelBorder());
 
+            return label;
+        }
+
+        private static String formatName(String name) {
             try {
-                label.setText(PlainTextFormatter.format(new Parser(value.toString()).parse()));
+                return PlainTextFormatter.format(new Parser(name).parse());
             } catch (ParseException e) {
-                label.setText(value.toString());
+                return name;
             }
-            setBorder(BorderFactory.createRaisedBevelBorder());
-
-            return label;
         }
     }
 
     private final class OutputExpressionListener implements ExpressionListener {
         private final ArrayList<Expression> expressions;
+        private boolean limitReached;
 
         private OutputExpressionListener() {
             expressions = new ArrayList<>();
@@ -904,6 +957,11 @@ public class TableDialog extends JDialog {
             expressions.add(new NamedExpression(name, expression));
         }
 
+        @Override
+        public void solutionLimitReached(String name) {
+            limitReached = true;
+        }
+
         @Override
         public void close() {
             SwingUtilities.invokeLater(() -> {
@@ -919,7 +977,7 @@ public class TableDialog extends JDialog {
                         break;
                     default:
                         statusBar.setVisible(false);
-                        allSolutionsDialog.setExpressions(expressions);
+                        allSolutionsDialog.setExpressions(expressions, limitReached);
                         allSolutionsDialog.setNeeded(true);
                         toFront();
                 }
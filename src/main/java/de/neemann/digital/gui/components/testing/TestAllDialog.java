@@ -5,11 +5,16 @@
  */
 package de.neemann.digital.gui.components.testing;
 
+import de.neemann.digital.core.element.Keys;
 import de.neemann.digital.draw.library.ElementLibrary;
 import de.neemann.digital.draw.shapes.ShapeFactory;
 import de.neemann.digital.gui.Main;
+import de.neemann.digital.gui.Settings;
 import de.neemann.digital.lang.Lang;
 import de.neemann.digital.testing.FolderTestRunner;
+import de.neemann.digital.testing.TestResultCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
@@ -22,12 +27,15 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
  * Tests all the files in a given folder
  */
 public class TestAllDialog extends JDialog {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestAllDialog.class);
+    private static final String CACHE_FILE = ".digital.testcache";
 
     private final FolderTestRunner folderTestRunner;
 
@@ -42,6 +50,8 @@ public class TestAllDialog extends JDialog {
     public TestAllDialog(Frame frame, File folder, ShapeFactory shapeFactory, ElementLibrary library) {
         super(frame, Lang.get("msg_testResult"), false);
         folderTestRunner = new FolderTestRunner(folder);
+        if (Settings.getInstance().get(Keys.SETTINGS_TEST_CACHE))
+            folderTestRunner.setCache(createCache());
 
         final FileModel tableModel = new FileModel(folderTestRunner.getFiles());
         JTable table = new JTable(tableModel);
@@ -68,12 +78,28 @@ public class TestAllDialog extends JDialog {
             }
         });
 
+        // the files are reported as soon as they are completed, so show the progress in the title
+        final int total = folderTestRunner.getFiles().size();
+        final int[] completed = new int[1];
         folderTestRunner.startTests(
-                (f, row) -> SwingUtilities.invokeLater(() -> tableModel.messageChanged(row)),
+                (f, row) -> SwingUtilities.invokeLater(() -> {
+                    tableModel.messageChanged(row);
+                    completed[0]++;
+                    setTitle(Lang.get("msg_testResult") + " (" + completed[0] + "/" + total + ")");
+                }),
                 shapeFactory,
                 library);
     }
 
+    private static TestResultCache createCache() {
+        try {
+            return new TestResultCache(new File(new File(System.getProperty("user.home")), CACHE_FILE));
+        } catch (IOException e) {
+            LOGGER.warn("could not read test cache", e);
+            return null;
+        }
+    }
+
     private void openCircuit(JTable table, Frame frame, ElementLibrary library) {
         int row = table.getSelectedRow();
         if (row >= 0) {
@@ -25,6 +25,7 @@ import de.neemann.gui.*;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
@@ -241,7 +242,11 @@ public class ValueTableDialog extends JDialog {
             JLabel comp = (JLabel) super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
             Value v = (Value) value;
             if (v != null) {
-                comp.setText(v.toString());
+                TableModel model = table.getModel();
+                if (model instanceof ValueTableModel)
+                    comp.setText(((ValueTableModel) model).getTextAt(table.convertRowIndexToModel(row), table.convertColumnIndexToModel(column)));
+                else
+                    comp.setText(v.toString());
                 comp.setHorizontalAlignment(JLabel.CENTER);
 
                 switch (((Value) value).getState()) {
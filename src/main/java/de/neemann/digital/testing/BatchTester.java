@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.testing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * Runs the test cases of many circuits in parallel.
+ * Used by the {@link CommandLineTester} to run regression tests on a CI server.
+ * The results can be written as a JUnit XML report or as a JSON report, both containing
+ * the duration of every test case.
+ * <p>
+ * The tests are executed by the {@link FolderTestRunner}. Every circuit uses its own element
+ * library, so different circuits are loaded and tested completely independent of each other.
+ */
+public class BatchTester extends FolderTestRunner {
+    private final ArrayList<TestCaseResult> results;
+    private PrintStream out = System.out;
+
+    /**
+     * Creates a new instance
+     */
+    public BatchTester() {
+        results = new ArrayList<>();
+    }
+
+    /**
+     * Adds a circuit to test.
+     * If a directory is given, all circuits in this directory and its sub directories are added.
+     *
+     * @param file the circuit or the directory
+     * @return this for chained calls
+     */
+    public BatchTester add(File file) {
+        if (file.isDirectory())
+            scan(file.getPath().length() + 1, file);
+        else
+            addFile(file);
+        return this;
+    }
+
+    @Override
+    public BatchTester setParallelism(int parallelism) {
+        super.setParallelism(parallelism);
+        return this;
+    }
+
+    @Override
+    public BatchTester setCache(TestResultCache cache) {
+        super.setCache(cache);
+        return this;
+    }
+
+    /**
+     * Sets the printer to use
+     *
+     * @param out the {@link PrintStream}
+     * @return this for chained calls
+     */
+    public BatchTester setOutputs(PrintStream out) {
+        this.out = out;
+        return this;
+    }
+
+    /**
+     * Executes all the tests.
+     * The results of a file are printed as soon as the file is completed. The results
+     * used by the summary and the reports are sorted in the order of the files and test cases.
+     *
+     * @return the number of failed test cases, including the test cases which could not be executed
+     * @throws InterruptedException InterruptedException
+     */
+    public int execute() throws InterruptedException {
+        results.clear();
+        TreeMap<Integer, List<TestCaseResult>> byRow = new TreeMap<>();
+        startTests((f, row) -> {
+            List<TestCaseResult> r = f.getTestCaseResults();
+            if (r.isEmpty()) {
+                // the file could not be loaded or contains no test cases
+                r = Collections.singletonList(new TestCaseResult(f.getFile(), "", FileToTest.Status.error, f.getMessage(), 0, 0, false));
+            }
+            byRow.put(row, r);
+            for (TestCaseResult tcr : r)
+                out.println(tcr);
+        }, null, null);
+        waitUntilFinished();
+        for (List<TestCaseResult> r : byRow.values())
+            results.addAll(r);
+
+        int failed = 0;
+        for (TestCaseResult r : results)
+            if (r.getStatus() != FileToTest.Status.passed)
+                failed++;
+        out.println(String.format(Locale.US, "%d tests, %d failed, %.3f s",
+                results.size(), failed, getTotalNanos() / 1e9));
+        return failed;
+    }
+
+    /**
+     * @return the results of the last execution
+     */
+    public List<TestCaseResult> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    private long getTotalNanos() {
+        long t = 0;
+        for (TestCaseResult r : results)
+            t += r.getNanos();
+        return t;
+    }
+
+    private int count(FileToTest.Status status) {
+        int n = 0;
+        for (TestCaseResult r : results)
+            if (r.getStatus() == status)
+                n++;
+        return n;
+    }
+
+    /**
+     * Writes the results as a JUnit XML report.
+     * Every circuit is written as a test suite.
+     *
+     * @param w the writer to write to
+     * @throws IOException IOException
+     */
+    public void writeJUnitXML(Writer w) throws IOException {
+        w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        w.write("<testsuites tests=\"" + results.size() + "\" failures=\"" + count(FileToTest.Status.failed)
+                + "\" errors=\"" + count(FileToTest.Status.error) + "\" time=\"" + seconds(getTotalNanos()) + "\">\n");
+        int i = 0;
+        while (i < results.size()) {
+            File file = results.get(i).getFile();
+            int j = i;
+            int failures = 0;
+            int errors = 0;
+            long nanos = 0;
+            while (j < results.size() && results.get(j).getFile().equals(file)) {
+                TestCaseResult r = results.get(j);
+                if (r.getStatus() == FileToTest.Status.failed) failures++;
+                if (r.getStatus() == FileToTest.Status.error) errors++;
+                nanos += r.getNanos();
+                j++;
+            }
+            w.write("  <testsuite name=\"" + xml(file.getPath()) + "\" tests=\"" + (j - i) + "\" failures=\"" + failures
+                    + "\" errors=\"" + errors + "\" time=\"" + seconds(nanos) + "\">\n");
+            for (; i < j; i++) {
+                TestCaseResult r = results.get(i);
+                w.write("    <testcase name=\"" + xml(r.getLabel().isEmpty() ? "unnamed" : r.getLabel()) + "\" classname=\"" + xml(file.getPath())
+                        + "\" time=\"" + seconds(r.getNanos()) + "\"");
+                switch (r.getStatus()) {
+                    case failed:
+                        w.write(">\n      <failure message=\"" + xml(r.getMessage()) + "\"/>\n    </testcase>\n");
+                        break;
+                    case error:
+                        w.write(">\n      <error message=\"" + xml(r.getMessage()) + "\"/>\n    </testcase>\n");
+                        break;
+                    default:
+                        w.write("/>\n");
+                }
+            }
+            w.write("  </testsuite>\n");
+        }
+        w.write("</testsuites>\n");
+        w.flush();
+    }
+
+    /**
+     * Writes the results as a JSON report.
+     *
+     * @param w the writer to write to
+     * @throws IOException IOException
+     */
+    public void writeJSON(Writer w) throws IOException {
+        w.write("{\n  \"tests\": " + results.size() + ",\n  \"failures\": " + count(FileToTest.Status.failed)
+                + ",\n  \"errors\": " + count(FileToTest.Status.error) + ",\n  \"time\": " + seconds(getTotalNanos())
+                + ",\n  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            TestCaseResult r = results.get(i);
+            if (i > 0)
+                w.write(",");
+            w.write("\n    {\"file\": " + json(r.getFile().getPath()) + ", \"test\": " + json(r.getLabel())
+                    + ", \"status\": " + json(r.getStatus().name()) + ", \"rows\": " + r.getRows()
+                    + ", \"time\": " + seconds(r.getNanos()));
+            if (r.isCached())
+                w.write(", \"cached\": true");
+            if (r.getMessage() != null)
+                w.write(", \"message\": " + json(r.getMessage()));
+            w.write("}");
+        }
+        w.write("\n  ]\n}\n");
+        w.flush();
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.US, "%.3f", nanos / 1e9);
+    }
+
+    private static String xml(String s) {
+        if (s == null)
+            return "";
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                case '\n':
+                    sb.append("&#10;");
+                    break;
+                default:
+                    if (c >= ' ' || c == '\t')
+                        sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String json(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < ' ')
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -17,8 +17,12 @@ import de.neemann.digital.draw.shapes.ShapeFactory;
 import de.neemann.digital.testing.parser.ParserException;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 
 /**
@@ -146,22 +150,97 @@ public class CommandLineTester {
 
     /**
      * Entry point of the command line tester.
+     * If only a circuit and an optional circuit containing the test cases are given, the test cases
+     * are executed as before. If options, directories or more than two circuits are given, all circuits are
+     * tested in parallel by the {@link BatchTester}.
      *
      * @param args the program arguments
-     * @throws IOException IOException
+     * @throws IOException          IOException
+     * @throws InterruptedException InterruptedException
      */
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException {
         if (args.length == 0) {
             System.err.println("no command line arguments given!\n");
             System.err.println("usage:\n");
             System.err.println("java -cp Digital.jar " + CommandLineTester.class.getName() + " [dig file to test] [[optional dig file with test cases]]");
+            System.err.println("java -cp Digital.jar " + CommandLineTester.class.getName()
+                    + " [-parallel n] [-junit report.xml] [-json report.json] [-cache cache file] [dig files or directories to test]");
             System.exit(1);
         }
 
-        CommandLineTester clt = new CommandLineTester(new File(args[0]));
-        if (args.length > 1)
-            clt.useTestCasesFrom(new File(args[1]));
-        int errors = clt.execute();
-        System.exit(errors);
+        if (isBatch(args)) {
+            System.exit(runBatch(args));
+        } else {
+            CommandLineTester clt = new CommandLineTester(new File(args[0]));
+            if (args.length > 1)
+                clt.useTestCasesFrom(new File(args[1]));
+            int errors = clt.execute();
+            System.exit(errors);
+        }
+    }
+
+    private static boolean isBatch(String[] args) {
+        if (args.length > 2)
+            return true;
+        for (String a : args)
+            if (a.startsWith("-") || new File(a).isDirectory())
+                return true;
+        return false;
+    }
+
+    /**
+     * Runs the tests in batch mode
+     *
+     * @param args the program arguments
+     * @return the exit code, zero if all tests have passed
+     * @throws IOException          IOException
+     * @throws InterruptedException InterruptedException
+     */
+    static int runBatch(String[] args) throws IOException, InterruptedException {
+        BatchTester bt = new BatchTester();
+        File junit = null;
+        File json = null;
+        int i = 0;
+        while (i < args.length) {
+            switch (args[i]) {
+                case "-parallel":
+                    bt.setParallelism(Integer.parseInt(getValue(args, ++i)));
+                    break;
+                case "-junit":
+                    junit = new File(getValue(args, ++i));
+                    break;
+                case "-json":
+                    json = new File(getValue(args, ++i));
+                    break;
+                case "-cache":
+                    bt.setCache(new TestResultCache(new File(getValue(args, ++i))));
+                    break;
+                default:
+                    bt.add(new File(args[i]));
+            }
+            i++;
+        }
+
+        if (bt.getFiles().isEmpty()) {
+            System.err.println("no dig files given");
+            return 1;
+        }
+
+        int failed = bt.execute();
+        if (junit != null)
+            try (Writer w = new OutputStreamWriter(new FileOutputStream(junit), StandardCharsets.UTF_8)) {
+                bt.writeJUnitXML(w);
+            }
+        if (json != null)
+            try (Writer w = new OutputStreamWriter(new FileOutputStream(json), StandardCharsets.UTF_8)) {
+                bt.writeJSON(w);
+            }
+        return failed == 0 ? 0 : 1;
+    }
+
+    private static String getValue(String[] args, int i) throws IOException {
+        if (i >= args.length)
+            throw new IOException("missing value of option " + args[i - 1]);
+        return args[i];
     }
 }
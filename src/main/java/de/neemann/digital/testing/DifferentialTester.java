@@ -0,0 +1,619 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.testing;
+
+import de.neemann.digital.core.Model;
+import de.neemann.digital.core.NodeException;
+import de.neemann.digital.core.ObservableValue;
+import de.neemann.digital.core.Signal;
+import de.neemann.digital.core.wiring.Clock;
+import de.neemann.digital.draw.elements.Circuit;
+import de.neemann.digital.draw.elements.PinException;
+import de.neemann.digital.draw.library.ElementLibrary;
+import de.neemann.digital.draw.library.ElementNotFoundException;
+import de.neemann.digital.draw.model.ModelCreator;
+import de.neemann.digital.draw.shapes.ShapeFactory;
+import de.neemann.digital.lang.Lang;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks if two circuits behave identically by simulating both with the same random input vectors.
+ * The inputs and clocks of both circuits are driven with random values and with corner case values
+ * like zero, one and all bits set. After every step the outputs of both circuits are compared.
+ * Because a clock is driven like any other input, clocked circuits are compared in every clock phase.
+ * <p>
+ * The steps are distributed to several threads. Every thread creates its models only once and applies
+ * all its vectors to them, so the circuits can reach states which are only reachable by long sequences.
+ * Every thread uses its own random number generator, so if a mismatch is found, the vectors leading
+ * to it are created again from the seed of the thread. This sequence is minimized by removing steps
+ * and by setting inputs to zero as long as the mismatch still occurs.
+ * The models are initialized without noise, so the initial state of both circuits is well defined.
+ */
+public class DifferentialTester {
+    private static final int MAX_REPLAYS = 2000;
+
+    private final Circuit reference;
+    private final Circuit candidate;
+    private final ElementLibrary library;
+    private final ArrayList<String> inputNames;
+    private final int[] inputBits;
+    private final ArrayList<String> outputNames;
+    private long steps = 1000000;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long seed = System.nanoTime();
+
+    /**
+     * Creates a new instance.
+     * Both circuits need to have the same inputs, clocks and outputs.
+     *
+     * @param reference the reference circuit
+     * @param candidate the circuit to compare with the reference
+     * @param library   the library used to create the models
+     * @throws NodeException           NodeException
+     * @throws PinException            PinException
+     * @throws ElementNotFoundException ElementNotFoundException
+     * @throws TestingDataException    if the signals of the circuits do not match
+     */
+    public DifferentialTester(Circuit reference, Circuit candidate, ElementLibrary library) throws NodeException, PinException, ElementNotFoundException, TestingDataException {
+        this.reference = reference;
+        this.candidate = candidate;
+        this.library = library;
+
+        inputNames = new ArrayList<>();
+        outputNames = new ArrayList<>();
+        Model m;
+        synchronized (library) {
+            m = new ModelCreator(reference, library).createModel(false);
+        }
+        ArrayList<Integer> bits = new ArrayList<>();
+        for (Signal s : m.getInputs()) {
+            inputNames.add(s.getName());
+            bits.add(s.getValue().getBits());
+        }
+        for (Clock c : m.getClocks()) {
+            inputNames.add(c.getLabel());
+            bits.add(1);
+        }
+        for (Signal s : m.getOutputs())
+            outputNames.add(s.getName());
+        inputBits = new int[bits.size()];
+        for (int i = 0; i < inputBits.length; i++)
+            inputBits[i] = bits.get(i);
+
+        if (inputNames.isEmpty())
+            throw new TestingDataException(Lang.get("err_noTestInputSignalsDefined"));
+        if (outputNames.isEmpty())
+            throw new TestingDataException(Lang.get("err_noTestOutputSignalsDefined"));
+
+        // checks the signals of the candidate
+        new Simulation().close();
+    }
+
+    /**
+     * Sets the number of steps to simulate
+     *
+     * @param steps the number of steps
+     * @return this for chained calls
+     */
+    public DifferentialTester setSteps(long steps) {
+        this.steps = steps;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads used.
+     * Defaults to the number of available processors.
+     *
+     * @param parallelism the number of threads
+     * @return this for chained calls
+     */
+    public DifferentialTester setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Sets the seed of the random number generator.
+     * Using the same seed and parallelism again creates the same input vectors.
+     *
+     * @param seed the seed
+     * @return this for chained calls
+     */
+    public DifferentialTester setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @return the seed used
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Simulates both circuits.
+     *
+     * @return the minimized mismatch or null if no mismatch was found
+     * @throws NodeException        NodeException
+     * @throws InterruptedException InterruptedException
+     */
+    public Mismatch execute() throws NodeException, InterruptedException {
+        final AtomicReference<List<long[]>> found = new AtomicReference<>();
+
+        ExecutorService ex = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            ArrayList<Callable<Void>> workers = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                final long workerSeed = seed + i;
+                final long workerSteps = steps / parallelism + (i < steps % parallelism ? 1 : 0);
+                workers.add(() -> {
+                    long m = runRandomSequence(workerSeed, workerSteps, found);
+                    if (m >= 0)
+                        found.compareAndSet(null, createSequence(workerSeed, m + 1));
+                    return null;
+                });
+            }
+            for (Future<Void> f : ex.invokeAll(workers))
+                get(f);
+        } finally {
+            ex.shutdownNow();
+        }
+
+        List<long[]> seq = found.get();
+        if (seq == null)
+            return null;
+        return createMismatch(minimize(seq));
+    }
+
+    private static void get(Future<Void> f) throws NodeException, InterruptedException {
+        try {
+            f.get();
+        } catch (ExecutionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof NodeException)
+                throw (NodeException) c;
+            if (c instanceof RuntimeException)
+                throw (RuntimeException) c;
+            throw new RuntimeException(c);
+        }
+    }
+
+    /**
+     * Simulates both circuits with random vectors
+     *
+     * @param seed  the seed of the random number generator
+     * @param steps the number of steps to simulate
+     * @param found used to stop the simulation if an other thread has found a mismatch
+     * @return the index of the first mismatching step or -1 if there is no mismatch
+     */
+    private long runRandomSequence(long seed, long steps, AtomicReference<List<long[]>> found) throws NodeException, PinException, ElementNotFoundException, TestingDataException {
+        Random random = new Random(seed);
+        long[] vector = new long[inputBits.length];
+        Simulation sim = new Simulation();
+        try {
+            for (long s = 0; s < steps && found.get() == null; s++) {
+                for (int i = 0; i < vector.length; i++)
+                    vector[i] = createValue(random, inputBits[i]);
+                if (!sim.step(vector))
+                    return s;
+            }
+        } finally {
+            sim.close();
+        }
+        return -1;
+    }
+
+    /**
+     * Creates the same vectors as {@link #runRandomSequence(long, long, AtomicReference)}
+     *
+     * @param seed  the seed of the random number generator
+     * @param steps the number of vectors to create
+     * @return the vectors
+     */
+    private List<long[]> createSequence(long seed, long steps) {
+        Random random = new Random(seed);
+        ArrayList<long[]> seq = new ArrayList<>(Math.toIntExact(steps));
+        for (long s = 0; s < steps; s++) {
+            long[] vector = new long[inputBits.length];
+            for (int i = 0; i < vector.length; i++)
+                vector[i] = createValue(random, inputBits[i]);
+            seq.add(vector);
+        }
+        return seq;
+    }
+
+    private static long createValue(Random random, int bits) {
+        long mask = bits == 64 ? -1 : (1L << bits) - 1;
+        switch (random.nextInt(8)) {
+            case 0:
+                return 0;
+            case 1:
+                return mask;
+            case 2:
+                return 1;
+            case 3:
+                return 1L << (bits - 1);
+            default:
+                return random.nextLong() & mask;
+        }
+    }
+
+    /**
+     * Replays the given sequence
+     *
+     * @param seq the sequence
+     * @return the index of the first mismatching step or -1 if there is no mismatch
+     */
+    private int replay(List<long[]> seq) throws NodeException, PinException, ElementNotFoundException, TestingDataException {
+        Simulation sim = new Simulation();
+        try {
+            for (int i = 0; i < seq.size(); i++)
+                if (!sim.step(seq.get(i)))
+                    return i;
+            return -1;
+        } finally {
+            sim.close();
+        }
+    }
+
+    private List<long[]> minimize(List<long[]> seq) throws NodeException {
+        try {
+            int replays = 0;
+
+            // remove steps
+            int chunk = Math.max(1, seq.size() / 2);
+            while (replays < MAX_REPLAYS) {
+                int start = 0;
+                while (start < seq.size() && replays < MAX_REPLAYS) {
+                    ArrayList<long[]> trial = new ArrayList<>(seq.subList(0, start));
+                    trial.addAll(seq.subList(Math.min(start + chunk, seq.size()), seq.size()));
+                    replays++;
+                    int m = replay(trial);
+                    if (m >= 0)
+                        seq = new ArrayList<>(trial.subList(0, m + 1));
+                    else
+                        start += chunk;
+                }
+                if (chunk == 1)
+                    break;
+                chunk /= 2;
+            }
+
+            // simplify the input values
+            for (int s = 0; s < seq.size(); s++)
+                for (int i = 0; i < inputBits.length; i++)
+                    if (seq.get(s)[i] != 0 && replays < MAX_REPLAYS) {
+                        ArrayList<long[]> trial = new ArrayList<>(seq);
+                        long[] v = trial.get(s).clone();
+                        v[i] = 0;
+                        trial.set(s, v);
+                        replays++;
+                        int m = replay(trial);
+                        if (m >= 0)
+                            seq = new ArrayList<>(trial.subList(0, m + 1));
+                    }
+        } catch (PinException | ElementNotFoundException | TestingDataException e) {
+            // can not happen, the models have been created before
+            throw new RuntimeException(e);
+        }
+        return seq;
+    }
+
+    private Mismatch createMismatch(List<long[]> seq) throws NodeException {
+        try {
+            long[][] ref = new long[seq.size()][];
+            long[][] refHighZ = new long[seq.size()][];
+            long[][] can = new long[seq.size()][];
+            long[][] canHighZ = new long[seq.size()][];
+            Simulation sim = new Simulation();
+            try {
+                for (int i = 0; i < seq.size(); i++) {
+                    sim.step(seq.get(i));
+                    ref[i] = readValues(sim.refOut);
+                    refHighZ[i] = readHighZ(sim.refOut);
+                    can[i] = readValues(sim.canOut);
+                    canHighZ[i] = readHighZ(sim.canOut);
+                }
+            } finally {
+                sim.close();
+            }
+            return new Mismatch(inputNames, outputNames, seq, ref, refHighZ, can, canHighZ);
+        } catch (PinException | ElementNotFoundException | TestingDataException e) {
+            // can not happen, the models have been created before
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long[] readValues(ObservableValue[] out) {
+        long[] v = new long[out.length];
+        for (int i = 0; i < v.length; i++)
+            v[i] = out[i].getValue() & ~out[i].getHighZ();
+        return v;
+    }
+
+    private static long[] readHighZ(ObservableValue[] out) {
+        long[] z = new long[out.length];
+        for (int i = 0; i < z.length; i++)
+            z[i] = out[i].getHighZ();
+        return z;
+    }
+
+    /**
+     * Used to simulate both circuits side by side
+     */
+    private final class Simulation {
+        private final Model refModel;
+        private final Model canModel;
+        private final ObservableValue[] refIn;
+        private final ObservableValue[] canIn;
+        private final ObservableValue[] refOut;
+        private final ObservableValue[] canOut;
+
+        private Simulation() throws NodeException, PinException, ElementNotFoundException, TestingDataException {
+            synchronized (library) {
+                refModel = new ModelCreator(reference, library).createModel(false);
+                canModel = new ModelCreator(candidate, library).createModel(false);
+            }
+            refIn = getInputs(refModel);
+            canIn = getInputs(canModel);
+            refOut = getOutputs(refModel);
+            canOut = getOutputs(canModel);
+            refModel.init(false);
+            canModel.init(false);
+        }
+
+        private ObservableValue[] getInputs(Model m) throws TestingDataException {
+            ObservableValue[] in = new ObservableValue[inputNames.size()];
+            for (Signal s : m.getInputs())
+                set(in, inputNames.indexOf(s.getName()), s.getName(), s.getValue());
+            for (Clock c : m.getClocks())
+                set(in, inputNames.indexOf(c.getLabel()), c.getLabel(), c.getClockOutput());
+            checkComplete(in, inputNames);
+            return in;
+        }
+
+        private ObservableValue[] getOutputs(Model m) throws TestingDataException {
+            ObservableValue[] out = new ObservableValue[outputNames.size()];
+            for (Signal s : m.getOutputs())
+                set(out, outputNames.indexOf(s.getName()), s.getName(), s.getValue());
+            checkComplete(out, outputNames);
+            return out;
+        }
+
+        private void set(ObservableValue[] values, int index, String name, ObservableValue value) throws TestingDataException {
+            if (index < 0)
+                throw new TestingDataException(Lang.get("err_testSignal_N_notFound", name));
+            if (values[index] != null)
+                throw new TestingDataException(Lang.get("err_nameUsedTwice_N", name));
+            values[index] = value;
+        }
+
+        private void checkComplete(ObservableValue[] values, ArrayList<String> names) throws TestingDataException {
+            for (int i = 0; i < values.length; i++)
+                if (values[i] == null)
+                    throw new TestingDataException(Lang.get("err_testSignal_N_notFound", names.get(i)));
+        }
+
+        /**
+         * Applies an input vector to both circuits
+         *
+         * @param vector the vector
+         * @return true if the outputs of both circuits are equal
+         */
+        private boolean step(long[] vector) throws NodeException {
+            for (int i = 0; i < vector.length; i++) {
+                refIn[i].setValue(vector[i]);
+                canIn[i].setValue(vector[i]);
+            }
+            refModel.doStep();
+            canModel.doStep();
+            for (int i = 0; i < refOut.length; i++) {
+                ObservableValue r = refOut[i];
+                ObservableValue c = canOut[i];
+                final long highZ = r.getHighZ();
+                if (highZ != c.getHighZ())
+                    return false;
+                if (((r.getValue() ^ c.getValue()) & ~highZ) != 0)
+                    return false;
+            }
+            return true;
+        }
+
+        private void close() {
+            refModel.close();
+            canModel.close();
+        }
+    }
+
+    /**
+     * A found mismatch.
+     * The outputs of both circuits are equal in all steps except the last one.
+     */
+    public static final class Mismatch {
+        private final ArrayList<String> inputNames;
+        private final ArrayList<String> outputNames;
+        private final List<long[]> inputs;
+        private final long[][] reference;
+        private final long[][] referenceHighZ;
+        private final long[][] candidate;
+        private final long[][] candidateHighZ;
+
+        private Mismatch(ArrayList<String> inputNames, ArrayList<String> outputNames, List<long[]> inputs,
+                         long[][] reference, long[][] referenceHighZ, long[][] candidate, long[][] candidateHighZ) {
+            this.inputNames = inputNames;
+            this.outputNames = outputNames;
+            this.inputs = inputs;
+            this.reference = reference;
+            this.referenceHighZ = referenceHighZ;
+            this.candidate = candidate;
+            this.candidateHighZ = candidateHighZ;
+        }
+
+        private boolean differs(int step, int output) {
+            return reference[step][output] != candidate[step][output]
+                    || referenceHighZ[step][output] != candidateHighZ[step][output];
+        }
+
+        /**
+         * @return the number of steps in the mismatching sequence
+         */
+        public int getSteps() {
+            return inputs.size();
+        }
+
+        /**
+         * @return the names of the outputs which differ in the last step
+         */
+        public List<String> getMismatchingOutputs() {
+            ArrayList<String> names = new ArrayList<>();
+            int last = inputs.size() - 1;
+            for (int i = 0; i < outputNames.size(); i++)
+                if (differs(last, i))
+                    names.add(outputNames.get(i));
+            return names;
+        }
+
+        /**
+         * Creates a test case which reproduces the mismatch.
+         * The expected values are the values created by the reference circuit, so the
+         * reference circuit passes the test and the candidate fails in the last row.
+         *
+         * @return the test case description
+         */
+        public String toTestCase() {
+            StringBuilder sb = new StringBuilder();
+            appendNames(sb, inputNames);
+            sb.append(' ');
+            appendNames(sb, outputNames);
+            sb.append('\n');
+            for (int s = 0; s < inputs.size(); s++) {
+                appendValues(sb, inputs.get(s), null);
+                sb.append(' ');
+                appendValues(sb, reference[s], referenceHighZ[s]);
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+
+        private static void appendNames(StringBuilder sb, List<String> names) {
+            for (int i = 0; i < names.size(); i++) {
+                if (i > 0)
+                    sb.append(' ');
+                sb.append(names.get(i));
+            }
+        }
+
+        private static void appendValues(StringBuilder sb, long[] values, long[] highZ) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0)
+                    sb.append(' ');
+                sb.append(format(values[i], highZ == null ? 0 : highZ[i]));
+            }
+        }
+
+        private static String format(long v, long highZ) {
+            // the test case syntax only allows a completely high z value
+            if (highZ != 0)
+                return "Z";
+            if (v >= 0 && v < 10)
+                return Long.toString(v);
+            return "0x" + Long.toHexString(v);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("mismatch after ").append(inputs.size()).append(" steps:");
+            int last = inputs.size() - 1;
+            for (int i = 0; i < outputNames.size(); i++)
+                if (differs(last, i))
+                    sb.append(' ').append(outputNames.get(i)).append(": expected ")
+                            .append(format(reference[last][i], referenceHighZ[last][i])).append(", found ")
+                            .append(format(candidate[last][i], candidateHighZ[last][i]));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Compares two circuits from the command line
+     *
+     * @param args the program arguments
+     * @throws Exception Exception
+     */
+    public static void main(String[] args) throws Exception {
+        ArrayList<File> files = new ArrayList<>();
+        long steps = 1000000;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        Long seed = null;
+        int i = 0;
+        while (i < args.length) {
+            switch (args[i]) {
+                case "-steps":
+                    steps = Long.parseLong(getValue(args, ++i));
+                    break;
+                case "-parallel":
+                    parallelism = Integer.parseInt(getValue(args, ++i));
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(getValue(args, ++i));
+                    break;
+                default:
+                    files.add(new File(args[i]));
+            }
+            i++;
+        }
+        if (files.size() != 2) {
+            System.err.println("usage:\n");
+            System.err.println("java -cp Digital.jar " + DifferentialTester.class.getName()
+                    + " [-steps n] [-parallel n] [-seed n] [reference dig file] [dig file to compare]");
+            System.exit(1);
+        }
+
+        ElementLibrary library = new ElementLibrary();
+        library.setRootFilePath(files.get(0).getAbsoluteFile().getParentFile());
+        ShapeFactory shapeFactory = new ShapeFactory(library);
+        Circuit ref = Circuit.loadCircuit(files.get(0), shapeFactory);
+        Circuit can = Circuit.loadCircuit(files.get(1), shapeFactory);
+
+        DifferentialTester dt = new DifferentialTester(ref, can, library)
+                .setSteps(steps)
+                .setParallelism(parallelism);
+        if (seed != null)
+            dt.setSeed(seed);
+
+        Mismatch m = dt.execute();
+        if (m == null) {
+            System.out.println("no mismatch found in " + steps + " steps, seed " + dt.getSeed());
+            System.exit(0);
+        } else {
+            System.out.println(m + ", seed " + dt.getSeed());
+            System.out.println();
+            System.out.print(m.toTestCase());
+            System.exit(1);
+        }
+    }
+
+    private static String getValue(String[] args, int i) throws IOException {
+        if (i >= args.length)
+            throw new IOException("missing value of option " + args[i - 1]);
+        return args[i];
+    }
+}
@@ -16,19 +16,37 @@ import de.neemann.digital.draw.model.ModelCreator;
 import de.neemann.digital.draw.shapes.ShapeFactory;
 import de.neemann.digital.lang.Lang;
 import de.neemann.digital.testing.parser.ParserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * Runs all tests in al circuits in a folder
+ * Runs all tests in al circuits in a folder.
+ * The files are tested in parallel on a bounded pool of worker threads. The test cases of a file
+ * are executed one after the other, every test case uses its own model. Loading the circuits and
+ * creating the models is done one at a time, because the element library is not thread safe.
  */
 public class FolderTestRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FolderTestRunner.class);
     private final ArrayList<FileToTest> files;
     private Thread thread;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private TestResultCache cache;
 
     /**
      * Creates a new instance
@@ -40,7 +58,21 @@ public class FolderTestRunner {
         scan(folder.getPath().length() + 1, folder);
     }
 
-    private void scan(int rootLength, File folder) {
+    /**
+     * Creates a new instance without files.
+     * Used by subclasses which add the files to test by themselves.
+     */
+    protected FolderTestRunner() {
+        files = new ArrayList<>();
+    }
+
+    /**
+     * Adds all circuits in the given folder and its sub folders
+     *
+     * @param rootLength the number of characters to remove from the path to get the name of a file
+     * @param folder     the folder to scan
+     */
+    void scan(int rootLength, File folder) {
         File[] fileList = folder.listFiles();
         if (fileList != null) {
             Arrays.sort(fileList, Comparator.comparing(f -> f.getPath().toLowerCase()));
@@ -52,16 +84,57 @@ public class FolderTestRunner {
         }
     }
 
+    /**
+     * Adds a single circuit
+     *
+     * @param file the circuit to add
+     */
+    void addFile(File file) {
+        files.add(new FileToTest(0, file));
+    }
+
+    /**
+     * Sets the number of files which are tested in parallel.
+     * Defaults to the number of available processors.
+     *
+     * @param parallelism the number of worker threads
+     * @return this for chained calls
+     */
+    public FolderTestRunner setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Sets the cache to use.
+     * Test cases which have passed before and whose circuit, sub circuits and test data
+     * have not changed are not executed again. The cache is saved if all tests are completed.
+     *
+     * @param cache the cache, null disables caching
+     * @return this for chained calls
+     */
+    public FolderTestRunner setCache(TestResultCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
     /**
      * Starts all the tests.
      * The test execution is done in a new thread, so this method returns immediately.
+     * The files are tested in parallel, the test cases of a single file one after the other.
+     * The listener is called once for every file. The calls are never concurrent and the files
+     * are reported in the order of their completion, so a slow file does not delay the
+     * results of the other files.
+     *
+     * If no library is given, every file is loaded by its own library, so the files are
+     * loaded and tested independent of each other.
      *
      * @param fileChangedListener the listsener to notify if a file status changed
-     * @param shapeFactory        the shape factory
-     * @param library             the element library
+     * @param shapeFactory        the shape factory, ignored if no library is given
+     * @param library             the element library, maybe null
      */
     public void startTests(FileChangedListener fileChangedListener, ShapeFactory shapeFactory, ElementLibrary library) {
-        thread = new Thread(new TestRunner(files, fileChangedListener, shapeFactory, library));
+        thread = new Thread(new TestRunner(files, fileChangedListener, shapeFactory, library, parallelism, cache));
         thread.setDaemon(true);
         thread.start();
     }
@@ -111,9 +184,11 @@ public class FolderTestRunner {
 
         private final File file;
         private final String name;
-        private String message = "-";
-        private FileToTest.Status status = FileToTest.Status.unknown;
-        private int rowCount;
+        private volatile String message = "-";
+        private volatile FileToTest.Status status = FileToTest.Status.unknown;
+        private volatile int rowCount;
+        private boolean tested;
+        private final ArrayList<TestCaseResult> testCaseResults = new ArrayList<>();
 
 
         private FileToTest(int rootLength, File file) {
@@ -131,6 +206,7 @@ public class FolderTestRunner {
         private void setMessage(String message, FileToTest.Status status) {
             this.message = message;
             this.status = status;
+            tested = true;
         }
 
         /**
@@ -164,6 +240,106 @@ public class FolderTestRunner {
         public int getRowCount() {
             return rowCount;
         }
+
+        /**
+         * Returns the results of the test cases of this file.
+         * A file which could not be loaded has no test case results.
+         *
+         * @return the results in the order of the test cases in the circuit
+         */
+        public List<TestCaseResult> getTestCaseResults() {
+            return Collections.unmodifiableList(testCaseResults);
+        }
+    }
+
+    /**
+     * The result of a single test case
+     */
+    public static final class TestCaseResult {
+        private final File file;
+        private final String label;
+        private final FileToTest.Status status;
+        private final String message;
+        private final int rows;
+        private final long nanos;
+        private final boolean cached;
+
+        TestCaseResult(File file, String label, FileToTest.Status status, String message, int rows, long nanos, boolean cached) {
+            this.file = file;
+            this.label = label;
+            this.status = status;
+            this.message = message;
+            this.rows = rows;
+            this.nanos = nanos;
+            this.cached = cached;
+        }
+
+        /**
+         * @return the tested circuit
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return the label of the test case
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * @return the status of the test case
+         */
+        public FileToTest.Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the error or failure message, null if the test case has passed
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return the number of tested rows
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the time used to create the model and to execute the test in nano seconds,
+         * without the time spent waiting for the element library
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return true if the test case was not executed because it has passed before
+         */
+        public boolean isCached() {
+            return cached;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(file.getPath());
+            if (!label.isEmpty())
+                sb.append(": ").append(label);
+            sb.append(": ");
+            if (message != null)
+                sb.append(status.name()).append(": ").append(message);
+            else
+                sb.append(status.name());
+            if (cached)
+                sb.append(" (cached)");
+            else
+                sb.append(String.format(Locale.US, " (%.3f s)", nanos / 1e9));
+            return sb.toString();
+        }
     }
 
     private static final class TestRunner implements Runnable {
@@ -171,83 +347,217 @@ public class FolderTestRunner {
         private final FileChangedListener fileChangedListener;
         private final ShapeFactory shapeFactory;
         private final ElementLibrary library;
+        private final int parallelism;
+        private final TestResultCache cache;
 
-        private TestRunner(ArrayList<FileToTest> files, FileChangedListener fileChangedListener, ShapeFactory shapeFactory, ElementLibrary library) {
+        private TestRunner(ArrayList<FileToTest> files, FileChangedListener fileChangedListener, ShapeFactory shapeFactory, ElementLibrary library, int parallelism, TestResultCache cache) {
             this.files = files;
+            this.cache = cache;
             this.fileChangedListener = fileChangedListener;
             this.shapeFactory = shapeFactory;
             this.library = library;
+            this.parallelism = parallelism;
         }
 
         @Override
         public void run() {
-            for (int i = 0; i < files.size(); i++) {
-                FileToTest f = files.get(i);
-                try {
-                    Circuit circuit = Circuit.loadCircuit(f.file, shapeFactory);
-                    ArrayList<TestCase> testCases = new ArrayList<>();
-                    for (VisualElement el : circuit.getElements()) {
-                        if (el.equalsDescription(TestCaseElement.TESTCASEDESCRIPTION)) {
-                            String label = el.getElementAttributes().getLabel();
-                            TestCaseDescription testData = el.getElementAttributes().get(TestCaseElement.TESTDATA);
-                            testCases.add(new TestCase(label, testData));
-                        }
+            ExecutorService ex = Executors.newFixedThreadPool(parallelism, r -> {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                CompletionService<Void> completionService = new ExecutorCompletionService<>(ex);
+                HashMap<Future<Void>, Integer> rows = new HashMap<>();
+                for (int i = 0; i < files.size(); i++) {
+                    final int row = i;
+                    rows.put(completionService.submit(() -> runFile(row), null), row);
+                }
+                for (int i = 0; i < files.size(); i++) {
+                    Future<Void> done = completionService.take();
+                    try {
+                        done.get();
+                    } catch (ExecutionException e) {
+                        LOGGER.warn("error testing file", e.getCause());
                     }
-                    if (testCases.isEmpty()) {
-                        // if no test data is available, at least check if the model is error free
-                        try {
-                            new ModelCreator(circuit, library).createModel(false);
-                            // if error free, issue a no test date message
-                            setMessage(f, i, Lang.get("err_noTestData"), FileToTest.Status.unknown);
-                        } catch (Exception e) {
-                            setMessage(f, i, Lang.get("msg_errorCreatingModel"), FileToTest.Status.error);
-                        }
-                    } else {
-                        StringBuilder sb = new StringBuilder();
-                        int rowCount = 0;
-                        for (TestCase tc : testCases) {
-                            Model model = new ModelCreator(circuit, library).createModel(false);
-                            try {
-                                TestExecutor te = new TestExecutor(tc.testData).create(model);
-                                if (te.allPassed()) {
-                                    rowCount += te.getResult().getRows();
-                                } else {
-                                    if (sb.length() > 0)
-                                        sb.append("; ");
-                                    sb.append(Lang.get("msg_test_N_Failed", tc.label));
-                                }
-                            } catch (TestingDataException | NodeException e) {
-                                if (sb.length() > 0)
-                                    sb.append("; ");
-                                sb.append(tc.label).append(": ").append(e.getMessage());
-                            }
-                        }
-                        if (sb.length() == 0) {
-                            f.setTestRows(rowCount);
-                            setMessage(f, i, Lang.get("msg_testPassed_N", rowCount), FileToTest.Status.passed);
-                        } else
-                            setMessage(f, i, sb.toString(), FileToTest.Status.failed);
+                    completed(rows.get(done));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                ex.shutdownNow();
+                saveCache();
+            }
+        }
+
+        private void saveCache() {
+            if (cache != null)
+                try {
+                    cache.save();
+                } catch (IOException e) {
+                    LOGGER.warn("could not write test cache", e);
+                }
+        }
+
+        /**
+         * Tests a single file. The test cases of a file are executed one after the other,
+         * because the models of a circuit share the element attributes.
+         * The file is always completed, even if the test is aborted by an error.
+         *
+         * @param row the index of the file
+         */
+        private void runFile(int row) {
+            FileToTest f = files.get(row);
+            try {
+                testFile(f);
+            } catch (IOException | RuntimeException e) {
+                f.setMessage(e.getMessage(), FileToTest.Status.error);
+            } finally {
+                if (!f.tested)
+                    f.setMessage(Lang.get("err_testAborted"), FileToTest.Status.error);
+            }
+        }
+
+        private void testFile(FileToTest f) throws IOException {
+            f.testCaseResults.clear();
+            ElementLibrary library = this.library;
+            ShapeFactory shapeFactory = this.shapeFactory;
+            if (library == null) {
+                library = new ElementLibrary();
+                library.setRootFilePath(f.file.getAbsoluteFile().getParentFile());
+                shapeFactory = new ShapeFactory(library);
+            }
+
+            Circuit circuit;
+            String circuitHash = null;
+            synchronized (library) {
+                circuit = Circuit.loadCircuit(f.file, shapeFactory);
+                if (cache != null)
+                    circuitHash = TestResultCache.getCircuitHash(f.file, circuit, library);
+            }
+            ArrayList<TestCase> testCases = new ArrayList<>();
+            for (VisualElement el : circuit.getElements()) {
+                if (el.equalsDescription(TestCaseElement.TESTCASEDESCRIPTION)) {
+                    String label = el.getElementAttributes().getLabel();
+                    TestCaseDescription testData = el.getElementAttributes().get(TestCaseElement.TESTDATA);
+                    testCases.add(new TestCase(label, testData, TestResultCache.getKey(circuitHash, testData)));
+                }
+            }
+            if (testCases.isEmpty()) {
+                // if no test data is available, at least check if the model is error free
+                try {
+                    synchronized (library) {
+                        new ModelCreator(circuit, library).createModel(false);
                     }
+                    // if error free, issue a no test date message
+                    f.setMessage(Lang.get("err_noTestData"), FileToTest.Status.unknown);
+                } catch (Exception e) {
+                    f.setMessage(Lang.get("msg_errorCreatingModel"), FileToTest.Status.error);
+                }
+                return;
+            }
 
-                } catch (IOException | NodeException | ElementNotFoundException | PinException | ParserException | RuntimeException e) {
-                    setMessage(f, i, e.getMessage(), FileToTest.Status.error);
+            String error = null;
+            StringBuilder failures = new StringBuilder();
+            int rowCount = 0;
+            int cached = 0;
+            for (TestCase tc : testCases) {
+                TestCaseResult r = runTestCase(f, tc, circuit, library);
+                f.testCaseResults.add(r);
+                switch (r.status) {
+                    case passed:
+                        rowCount += r.rows;
+                        if (r.cached)
+                            cached++;
+                        break;
+                    case failed:
+                        addFailure(failures, Lang.get("msg_test_N_Failed", tc.label) + ": " + r.message);
+                        break;
+                    default:
+                        if (error == null)
+                            error = r.message;
                 }
             }
+
+            if (error != null)
+                f.setMessage(error, FileToTest.Status.error);
+            else if (failures.length() > 0)
+                f.setMessage(failures.toString(), FileToTest.Status.failed);
+            else {
+                f.setTestRows(rowCount);
+                if (cached == testCases.size())
+                    f.setMessage(Lang.get("msg_testPassedCached_N", rowCount), FileToTest.Status.passed);
+                else
+                    f.setMessage(Lang.get("msg_testPassed_N", rowCount), FileToTest.Status.passed);
+            }
         }
 
-        private void setMessage(FileToTest f, int i, String message, FileToTest.Status status) {
-            f.setMessage(message, status);
-            fileChangedListener.messageChanged(f, i);
+        private TestCaseResult runTestCase(FileToTest f, TestCase tc, Circuit circuit, ElementLibrary library) {
+            if (cache != null) {
+                int rows = cache.getPassedRows(tc.key);
+                if (rows >= 0)
+                    return new TestCaseResult(f.file, tc.label, FileToTest.Status.passed, null, rows, 0, true);
+            }
+
+            final long start;
+            final Model model;
+            try {
+                synchronized (library) {
+                    // the time spent waiting for the library is not measured
+                    start = System.nanoTime();
+                    model = new ModelCreator(circuit, library).createModel(false);
+                }
+            } catch (NodeException | ElementNotFoundException | PinException e) {
+                return new TestCaseResult(f.file, tc.label, FileToTest.Status.error, e.getMessage(), 0, 0, false);
+            }
+
+            try {
+                TestExecutor te = new TestExecutor(tc.testData).create(model);
+                long time = System.nanoTime() - start;
+                int rows = te.getResult().getRows();
+                if (te.allPassed()) {
+                    if (cache != null)
+                        cache.setPassed(tc.key, rows);
+                    return new TestCaseResult(f.file, tc.label, FileToTest.Status.passed, null, rows, time, false);
+                } else
+                    return new TestCaseResult(f.file, tc.label, FileToTest.Status.failed, te.getFailure(), rows, time, false);
+            } catch (TestingDataException | NodeException e) {
+                return new TestCaseResult(f.file, tc.label, FileToTest.Status.failed, e.getMessage(), 0, System.nanoTime() - start, false);
+            } catch (ParserException e) {
+                return new TestCaseResult(f.file, tc.label, FileToTest.Status.error, e.getMessage(), 0, System.nanoTime() - start, false);
+            }
+        }
+
+        private static void addFailure(StringBuilder sb, String message) {
+            if (sb.length() > 0)
+                sb.append("; ");
+            sb.append(message);
+        }
+
+        /**
+         * Notifies the listener about a completed file.
+         * Is only called by the runner thread, so the listener calls are never concurrent.
+         *
+         * @param row the index of the completed file
+         */
+        private void completed(int row) {
+            try {
+                fileChangedListener.messageChanged(files.get(row), row);
+            } catch (RuntimeException e) {
+                LOGGER.warn("error in file changed listener", e);
+            }
         }
     }
 
     private static final class TestCase {
         private final String label;
         private final TestCaseDescription testData;
+        private final String key;
 
-        private TestCase(String label, TestCaseDescription testData) {
+        private TestCase(String label, TestCaseDescription testData, String key) {
             this.label = label;
             this.testData = testData;
+            this.key = key;
         }
     }
 
@@ -15,9 +15,11 @@ import java.util.ArrayList;
  * Resolves don't cares in the inputs list
  */
 public class LineListenerResolveDontCare implements LineListener {
+    private static final Value ZERO = new Value(0);
+    private static final Value ONE = new Value(1);
 
     private final LineListener parent;
-    private final ArrayList<TestExecutor.TestSignal> inputs;
+    private final int[] inputs;
 
     /**
      * Create a new instance
@@ -27,32 +29,35 @@ public class LineListenerResolveDontCare implements LineListener {
      */
     public LineListenerResolveDontCare(LineListener parent, ArrayList<TestExecutor.TestSignal> inputs) {
         this.parent = parent;
-        this.inputs = inputs;
+        this.inputs = new int[inputs.size()];
+        for (int i = 0; i < this.inputs.length; i++)
+            this.inputs[i] = inputs.get(i).getIndex();
     }
 
     @Override
     public void add(TestRow testRow) {
         Value[] row = testRow.getValues();
         ArrayList<Integer> dcIndex = null;
-        for (TestExecutor.TestSignal in : inputs) {
-            if (row[in.getIndex()].getType() == Value.Type.DONTCARE) {
+        for (int in : inputs) {
+            if (row[in].getType() == Value.Type.DONTCARE) {
                 if (dcIndex == null)
                     dcIndex = new ArrayList<>();
-                dcIndex.add(in.getIndex());
+                dcIndex.add(in);
             }
         }
         if (dcIndex == null)
             parent.add(testRow);
         else {
+            String description = testRow.getDescription();
             int count = 1 << dcIndex.size();
             for (int n = 0; n < count; n++) {
                 int mask = 1;
                 for (int in : dcIndex) {
                     boolean val = (n & mask) != 0;
-                    row[in] = new Value(val ? 1 : 0);
+                    row[in] = val ? ONE : ZERO;
                     mask *= 2;
                 }
-                parent.add(new TestRow(row, testRow.getDescription() + ";X=" + n));
+                parent.add(new TestRow(row, description + ";X=" + n));
             }
         }
     }
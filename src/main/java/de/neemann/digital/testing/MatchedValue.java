@@ -26,7 +26,7 @@ public class MatchedValue extends Value {
     MatchedValue(Value expected, ObservableValue found) {
         super(found);
         this.expected = expected;
-        mask = (1L << found.getBits()) - 1;
+        mask = getMask(found);
     }
 
     /**
@@ -36,6 +36,42 @@ public class MatchedValue extends Value {
         return isEqualTo(expected, mask);
     }
 
+    /**
+     * Checks if the found value matches the expected value without creating a {@link MatchedValue}.
+     * Gives the same result as {@link #isPassed()} of a matched value created from the given values.
+     *
+     * @param expected the expected value
+     * @param found    the found value
+     * @param mask     the mask with bits to take into account, zero means all bits
+     * @return true if test is passed
+     */
+    static boolean isPassed(Value expected, ObservableValue found, long mask) {
+        switch (expected.getType()) {
+            case DONTCARE:
+                return true;
+            case HIGHZ:
+                return found.isHighZ();
+            case NORMAL:
+                if (found.isHighZ())
+                    return false;
+                if (mask == 0)
+                    return found.getValue() == expected.getValue();
+                return (found.getValue() & mask) == (expected.getValue() & mask);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the mask used to compare the given value
+     *
+     * @param found the found value
+     * @return the mask
+     */
+    static long getMask(ObservableValue found) {
+        return (1L << found.getBits()) - 1;
+    }
+
     @Override
     public String toString() {
         if (isPassed())
@@ -33,9 +33,15 @@ public class TestExecutor {
     private final ValueTable results;
     private boolean allPassed;
     private boolean toManyResults = false;
+    private String failure;
     private ArrayList<TestSignal> inputs;
     private ArrayList<TestSignal> outputs;
     private int visibleRows;
+    private int[] inIndex;
+    private ObservableValue[] inValue;
+    private int[] outIndex;
+    private ObservableValue[] outValue;
+    private long[] outMask;
 
     /**
      * Creates a new testing result
@@ -108,6 +114,7 @@ public class TestExecutor {
         if (outputs.size() == 0)
             throw new TestingDataException(Lang.get("err_noTestOutputSignalsDefined"));
 
+        compileSignals();
         model.init();
 
         lines.emitLines(new LineListenerResolveDontCare(values -> checkRow(model, values), inputs), new Context());
@@ -121,43 +128,54 @@ public class TestExecutor {
         signals.add(name);
     }
 
+    private void compileSignals() {
+        inIndex = new int[inputs.size()];
+        inValue = new ObservableValue[inputs.size()];
+        for (int i = 0; i < inIndex.length; i++) {
+            inIndex[i] = inputs.get(i).index;
+            inValue[i] = inputs.get(i).value;
+        }
+        outIndex = new int[outputs.size()];
+        outValue = new ObservableValue[outputs.size()];
+        outMask = new long[outputs.size()];
+        for (int i = 0; i < outIndex.length; i++) {
+            outIndex[i] = outputs.get(i).index;
+            outValue[i] = outputs.get(i).value;
+            outMask[i] = MatchedValue.getMask(outValue[i]);
+        }
+    }
+
     private void checkRow(Model model, TestRow testRow) {
         Value[] values = testRow.getValues();
-        Value[] res = new Value[values.length];
 
         boolean clockIsUsed = false;
         // set all values except the clocks
-        for (TestSignal in : inputs) {
-            if (values[in.index].getType() != Value.Type.CLOCK) {
-                values[in.index].copyTo(in.value);
-            } else {
+        for (int i = 0; i < inIndex.length; i++) {
+            Value v = values[inIndex[i]];
+            if (v.getType() != Value.Type.CLOCK)
+                v.copyTo(inValue[i]);
+            else
                 clockIsUsed = true;
-            }
-            res[in.index] = values[in.index];
         }
 
         try {
             if (clockIsUsed) {  // a clock signal is used
                 model.doStep();  // propagate all except clock
-                addClockRow(values.length, testRow.getDescription());
+                addClockRow(values.length, testRow);
 
                 // set clock
-                for (TestSignal in : inputs)
-                    if (values[in.index].getType() == Value.Type.CLOCK) {
-                        values[in.index].copyTo(in.value);
-                        res[in.index] = values[in.index];
-                    }
+                for (int i = 0; i < inIndex.length; i++)
+                    if (values[inIndex[i]].getType() == Value.Type.CLOCK)
+                        values[inIndex[i]].copyTo(inValue[i]);
 
                 // propagate clock change
                 model.doStep();
-                addClockRow(values.length, testRow.getDescription());
+                addClockRow(values.length, testRow);
 
                 // restore clock
-                for (TestSignal in : inputs)   // invert the clock values
-                    if (values[in.index].getType() == Value.Type.CLOCK) {
-                        in.value.setBool(!in.value.getBool());
-                        res[in.index] = new Value(in.value);
-                    }
+                for (int i = 0; i < inIndex.length; i++)   // invert the clock values
+                    if (values[inIndex[i]].getType() == Value.Type.CLOCK)
+                        inValue[i].setBool(!inValue[i].getBool());
             }
 
             model.doStep();
@@ -170,30 +188,56 @@ public class TestExecutor {
         }
 
         boolean ok = true;
-        for (TestSignal out : outputs) {
-            MatchedValue matchedValue = new MatchedValue(values[out.index], out.value);
-            res[out.index] = matchedValue;
-            if (!matchedValue.isPassed()) {
-                allPassed = false;
+        for (int i = 0; i < outIndex.length; i++)
+            if (!MatchedValue.isPassed(values[outIndex[i]], outValue[i], outMask[i])) {
                 ok = false;
+                break;
             }
+        if (!ok) {
+            allPassed = false;
+            if (failure == null)
+                failure = describeFailure(testRow);
         }
 
+        // the value objects are only created if the row is shown in the result table
         if (visibleRows < (ok ? MAX_RESULTS : ERR_RESULTS)) {
             visibleRows++;
+            Value[] res = new Value[values.length];
+            for (int i = 0; i < inIndex.length; i++) {
+                Value v = values[inIndex[i]];
+                if (v.getType() == Value.Type.CLOCK)
+                    res[inIndex[i]] = new Value(inValue[i]);
+                else
+                    res[inIndex[i]] = v;
+            }
+            for (int i = 0; i < outIndex.length; i++)
+                res[outIndex[i]] = new MatchedValue(values[outIndex[i]], outValue[i]);
             results.add(new TestRow(res, testRow.getDescription()));
         } else
             toManyResults = true;
     }
 
-    private void addClockRow(int cols, String description) {
+    private String describeFailure(TestRow testRow) {
+        Value[] values = testRow.getValues();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < outIndex.length; i++)
+            if (!MatchedValue.isPassed(values[outIndex[i]], outValue[i], outMask[i])) {
+                if (sb.length() > 0)
+                    sb.append(", ");
+                sb.append(names.get(outIndex[i])).append(" ")
+                        .append(new MatchedValue(values[outIndex[i]], outValue[i]));
+            }
+        return Lang.get("msg_testFailedAt_N0_N1", testRow.getDescription(), sb.toString());
+    }
+
+    private void addClockRow(int cols, TestRow testRow) {
         if (visibleRows < ERR_RESULTS) {
             Value[] r = new Value[cols];
-            for (TestSignal out : outputs)
-                r[out.index] = new Value(out.value);
-            for (TestSignal in : inputs)
-                r[in.index] = new Value(in.value);
-            results.add(new TestRow(r, description)).omitInTable();
+            for (int i = 0; i < outIndex.length; i++)
+                r[outIndex[i]] = new Value(outValue[i]);
+            for (int i = 0; i < inIndex.length; i++)
+                r[inIndex[i]] = new Value(inValue[i]);
+            results.add(new TestRow(r, testRow.getDescription())).omitInTable();
         } else
             toManyResults = true;
     }
@@ -206,6 +250,17 @@ public class TestExecutor {
     }
 
 
+    /**
+     * Describes the first failed test row.
+     * The description contains the source line of the row and the expected and found
+     * values of all signals which have failed in this row.
+     *
+     * @return the description or null if no row has failed
+     */
+    public String getFailure() {
+        return failure;
+    }
+
     /**
      * Indicates if there are to many entries in the table to show.
      * If there are to many entries, the test results is still correct.
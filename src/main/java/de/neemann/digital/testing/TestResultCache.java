@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.testing;
+
+import de.neemann.digital.core.Digest;
+import de.neemann.digital.core.element.ElementAttributes;
+import de.neemann.digital.core.element.ElementTypeDescription;
+import de.neemann.digital.core.element.Key;
+import de.neemann.digital.core.element.Keys;
+import de.neemann.digital.core.memory.ROM;
+import de.neemann.digital.draw.elements.Circuit;
+import de.neemann.digital.draw.elements.VisualElement;
+import de.neemann.digital.draw.library.ElementLibrary;
+import de.neemann.digital.draw.library.ElementNotFoundException;
+import de.neemann.digital.draw.library.ElementTypeDescriptionCustom;
+import de.neemann.gui.InfoDialog;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A persistent cache of passed test cases.
+ * A test case is identified by a hash of the circuit file, the files of all the sub circuits
+ * the circuit depends on, all files referenced by file attributes of the circuits and their
+ * elements, the test case description and the revision of Digital. So a cached result is only
+ * used if none of these has changed. If a referenced file can not be found, the circuit is not cached.
+ * Only passed test cases are cached, failing test cases are always executed again to
+ * obtain the error details.
+ */
+public final class TestResultCache {
+    private static final int MAX_ENTRIES = 1 << 16;
+    private static final ArrayList<Key.KeyFile> FILE_KEYS = createFileKeys();
+
+    private final File file;
+    private final LinkedHashMap<String, Integer> entries;
+    private boolean modified;
+
+    /**
+     * Creates a new cache.
+     * If the file exists, the cached results are read from the file.
+     *
+     * @param file the file to store the cache in
+     * @throws IOException IOException
+     */
+    public TestResultCache(File file) throws IOException {
+        this.file = file;
+        entries = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+        if (file.exists())
+            try (BufferedReader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    int p = line.indexOf(' ');
+                    if (p > 0)
+                        try {
+                            entries.put(line.substring(0, p), Integer.parseInt(line.substring(p + 1).trim()));
+                        } catch (NumberFormatException e) {
+                            // ignore corrupt lines, the test is executed again
+                        }
+                }
+            }
+    }
+
+    /**
+     * Returns the number of test rows of a cached passed test case
+     *
+     * @param key the key of the test case
+     * @return the number of rows or -1 if the test case is not cached
+     */
+    public synchronized int getPassedRows(String key) {
+        if (key == null)
+            return -1;
+        Integer rows = entries.get(key);
+        if (rows == null)
+            return -1;
+        return rows;
+    }
+
+    /**
+     * Stores a passed test case
+     *
+     * @param key  the key of the test case, if null nothing is stored
+     * @param rows the number of test rows
+     */
+    public synchronized void setPassed(String key, int rows) {
+        if (key != null) {
+            entries.put(key, rows);
+            modified = true;
+        }
+    }
+
+    /**
+     * Writes the cache to its file if it was modified
+     *
+     * @throws IOException IOException
+     */
+    public synchronized void save() throws IOException {
+        if (!modified)
+            return;
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer w = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Integer> e : entries.entrySet())
+                w.write(e.getKey() + " " + e.getValue() + "\n");
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        modified = false;
+    }
+
+    /**
+     * Creates the hash of a circuit and all the files it depends on.
+     * The library has to be used exclusively by the calling thread.
+     *
+     * @param circuitFile the file the circuit was loaded from
+     * @param circuit     the circuit
+     * @param library     the library used to resolve the sub circuits
+     * @return the hash or null if a dependency could not be resolved
+     * @throws IOException IOException
+     */
+    public static String getCircuitHash(File circuitFile, Circuit circuit, ElementLibrary library) throws IOException {
+        MessageDigest md = Digest.createSHA256();
+        InfoDialog info = InfoDialog.getInstance();
+        if (info != null)
+            md.update(info.getRevision().getBytes(StandardCharsets.UTF_8));
+        addFile(md, circuitFile);
+        try {
+            if (!addDependencies(md, circuitFile, circuit, library, new HashSet<>()))
+                return null;
+        } catch (ElementNotFoundException e) {
+            return null;
+        }
+        return Digest.toHex(md.digest());
+    }
+
+    private static ArrayList<Key.KeyFile> createFileKeys() {
+        ArrayList<Key.KeyFile> keys = new ArrayList<>();
+        for (Key k : Keys.getKeys())
+            if (k instanceof Key.KeyFile)
+                keys.add((Key.KeyFile) k);
+        return keys;
+    }
+
+    /**
+     * Adds the files a circuit depends on to the digest.
+     *
+     * @return false if a referenced file could not be found
+     */
+    private static boolean addDependencies(MessageDigest md, File circuitFile, Circuit circuit, ElementLibrary library, HashSet<File> visited) throws IOException, ElementNotFoundException {
+        final File folder = circuitFile.getAbsoluteFile().getParentFile();
+        if (!addDataFiles(md, folder, circuit.getAttributes(), visited))
+            return false;
+        for (VisualElement ve : circuit.getElements()) {
+            if (!addDataFiles(md, folder, ve.getElementAttributes(), visited))
+                return false;
+
+            ElementTypeDescription d = library.getElementType(ve.getElementName());
+            if (d instanceof ElementTypeDescriptionCustom) {
+                ElementTypeDescriptionCustom custom = (ElementTypeDescriptionCustom) d;
+                File f = custom.getFile();
+                if (f != null && visited.add(f)) {
+                    md.update(f.getName().getBytes(StandardCharsets.UTF_8));
+                    addFile(md, f);
+                    if (!addDependencies(md, f, custom.getCircuit(), library, visited))
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean addDataFiles(MessageDigest md, File folder, ElementAttributes attr, HashSet<File> visited) throws IOException {
+        if (attr == null)
+            return true;
+        if (!addDataFile(md, folder, attr.getFile(ROM.LAST_DATA_FILE_KEY), visited))
+            return false;
+        for (Key.KeyFile k : FILE_KEYS)
+            if (attr.contains(k) && !addDataFile(md, folder, attr.get(k), visited))
+                return false;
+        return true;
+    }
+
+    private static boolean addDataFile(MessageDigest md, File folder, File f, HashSet<File> visited) throws IOException {
+        if (f == null || f.getPath().isEmpty() || !visited.add(f))
+            return true;
+        md.update(f.getPath().getBytes(StandardCharsets.UTF_8));
+        File file = f;
+        if (!file.exists() && !file.isAbsolute())
+            file = new File(folder, f.getPath());
+        if (file.isFile()) {
+            addFile(md, file);
+            return true;
+        }
+        // the contents of a missing file can not be hashed
+        return file.isDirectory();
+    }
+
+    private static void addFile(MessageDigest md, File f) throws IOException {
+        byte[] data = Files.readAllBytes(f.toPath());
+        md.update(data);
+        md.update(longToBytes(data.length));
+    }
+
+    /**
+     * Creates the key of a test case
+     *
+     * @param circuitHash the hash of the circuit, created by {@link #getCircuitHash(File, Circuit, ElementLibrary)}
+     * @param testData    the test case description
+     * @return the key or null if the circuit hash is null
+     */
+    public static String getKey(String circuitHash, TestCaseDescription testData) {
+        if (circuitHash == null)
+            return null;
+        MessageDigest md = Digest.createSHA256();
+        md.update(circuitHash.getBytes(StandardCharsets.UTF_8));
+        md.update(testData.getDataString().getBytes(StandardCharsets.UTF_8));
+        return Digest.toHex(md.digest());
+    }
+
+    private static byte[] longToBytes(long l) {
+        byte[] b = new byte[8];
+        for (int i = 0; i < 8; i++)
+            b[i] = (byte) (l >>> (i * 8));
+        return b;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.testing.parser;
+
+/**
+ * A constant expression.
+ * Used by the {@link Parser} to fold constant sub expressions at parse time.
+ */
+final class Constant implements Expression {
+    private final long value;
+
+    /**
+     * Creates a new constant
+     *
+     * @param value the value
+     */
+    Constant(long value) {
+        this.value = value;
+    }
+
+    @Override
+    public long value(Context c) {
+        return value;
+    }
+}
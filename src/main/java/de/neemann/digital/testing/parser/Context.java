@@ -7,15 +7,19 @@ package de.neemann.digital.testing.parser;
 
 import de.neemann.digital.lang.Lang;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * The context of the calculations.
+ * The variables are stored in the order they are defined. Since the test data has no
+ * conditional statements, the variables of a loop context are always defined in the same
+ * order, which allows the {@link Parser} to resolve them to slots at parse time.
  */
 public class Context {
     private final Context parent;
-    private HashMap<String, Long> map;
+    private String[] names;
+    private long[] values;
+    private int size;
 
     /**
      * Creates an empty context
@@ -41,12 +45,14 @@ public class Context {
      * @throws ParserException if the variable does not exist
      */
     public long getVar(String name) throws ParserException {
-        if (map == null || !map.containsKey(name)) {
-            if (parent == null)
-                throw new ParserException(Lang.get("err_variable_N0_notFound", name));
-            return parent.getVar(name);
-        } else
-            return map.get(name);
+        Context c = this;
+        do {
+            int i = c.indexOf(name);
+            if (i >= 0)
+                return c.values[i];
+            c = c.parent;
+        } while (c != null);
+        throw new ParserException(Lang.get("err_variable_N0_notFound", name));
     }
 
     /**
@@ -57,15 +63,77 @@ public class Context {
      * @return this for chained calls
      */
     public Context setVar(String varName, long value) {
-        if (map == null)
-            map = new HashMap<>();
-        map.put(varName, value);
+        int i = indexOf(varName);
+        if (i >= 0)
+            values[i] = value;
+        else {
+            if (names == null) {
+                names = new String[4];
+                values = new long[4];
+            } else if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            names[size] = varName;
+            values[size] = value;
+            size++;
+        }
         return this;
     }
 
+    /**
+     * Checks if the given slot holds the given variable
+     *
+     * @param slot the slot
+     * @param name the name of the variable, needs to be the same instance the slot was set with
+     * @return true if the slot holds the variable
+     */
+    boolean isSlot(int slot, String name) {
+        return slot < size && names[slot] == name;
+    }
+
+    /**
+     * Returns the value stored in the given slot
+     *
+     * @param slot the slot
+     * @return the value
+     */
+    long getSlot(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Sets a variable which is expected in the given slot.
+     * If the slot holds a different variable, the variable is set by its name.
+     *
+     * @param slot  the slot
+     * @param name  the name of the variable
+     * @param value the value
+     */
+    void setSlot(int slot, String name, long value) {
+        if (isSlot(slot, name))
+            values[slot] = value;
+        else
+            setVar(name, value);
+    }
+
+    /**
+     * @return the parent context, maybe null
+     */
+    Context getParent() {
+        return parent;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < size; i++)
+            if (names[i].equals(name))
+                return i;
+        return -1;
+    }
+
     @Override
     public String toString() {
-        if (map == null && parent == null)
+        if (size == 0 && parent == null)
             return "";
 
         StringBuilder sb = new StringBuilder();
@@ -76,11 +144,10 @@ public class Context {
     private void fillString(StringBuilder sb) {
         if (parent != null)
             parent.fillString(sb);
-        if (map != null)
-            for (Map.Entry<String, Long> e : map.entrySet()) {
-                if (sb.length() > 0)
-                    sb.append(";");
-                sb.append(e.getKey()).append("=").append(e.getValue());
-            }
+        for (int i = 0; i < size; i++) {
+            if (sb.length() > 0)
+                sb.append(";");
+            sb.append(names[i]).append("=").append(values[i]);
+        }
     }
 }
@@ -26,7 +26,7 @@ public class LineEmitterRepeat implements LineEmitter {
      * @throws ParserException if there are to many iterations
      */
     public LineEmitterRepeat(String name, long size, LineEmitter inner) throws ParserException {
-        this.name = name;
+        this.name = name.intern();
         this.size = (int) size;
         this.inner = inner;
 
@@ -38,7 +38,7 @@ public class LineEmitterRepeat implements LineEmitter {
     public void emitLines(LineListener listener, Context conext) throws ParserException {
         Context c = new Context(conext);
         for (int i = 0; i < size; i++) {
-            c.setVar(name, i);
+            c.setSlot(0, name, i);
             inner.emitLines(listener, c);
         }
     }
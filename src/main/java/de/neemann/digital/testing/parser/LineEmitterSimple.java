@@ -16,6 +16,8 @@ import java.util.ArrayList;
 public class LineEmitterSimple implements LineEmitter {
 
     private final ArrayList<ValueAppender> appender;
+    private final ArrayList<Value> constants;
+    private boolean isConstant;
     private final int valuesCount;
     private final int line;
 
@@ -29,6 +31,8 @@ public class LineEmitterSimple implements LineEmitter {
         this.valuesCount = valuesCount;
         this.line = line;
         this.appender = new ArrayList<>();
+        this.constants = new ArrayList<>();
+        isConstant = true;
     }
 
     /**
@@ -38,22 +42,34 @@ public class LineEmitterSimple implements LineEmitter {
      */
     public void add(ValueAppender app) {
         appender.add(app);
+        isConstant = false;
+    }
+
+    /**
+     * Adds a constant value.
+     * If a line only contains constant values, the values are not created again for every emitted line.
+     *
+     * @param value the value
+     */
+    public void add(Value value) {
+        appender.add((vals, context) -> vals.add(value));
+        constants.add(value);
     }
 
     @Override
     public void emitLines(LineListener listener, Context conext) throws ParserException {
-        ArrayList<Value> vals = new ArrayList<>(valuesCount);
-        for (ValueAppender ve : appender)
-            ve.appendValues(vals, conext);
+        ArrayList<Value> vals;
+        if (isConstant)
+            vals = constants;
+        else {
+            vals = new ArrayList<>(valuesCount);
+            for (ValueAppender ve : appender)
+                ve.appendValues(vals, conext);
+        }
 
         if (vals.size() != valuesCount)
             throw new ParserException(Lang.get("err_testDataExpected_N0_found_N1_numbersInLine_N2", valuesCount, vals.size(), line));
 
-        String description = "L" + line;
-        String conString = conext.toString();
-        if (!conString.isEmpty())
-            description += ";" + conString;
-
-        listener.add(new TestRow(vals.toArray(new Value[vals.size()]), description));
+        listener.add(new TestRow(vals.toArray(new Value[valuesCount]), line, conext));
     }
 }
@@ -35,6 +35,8 @@ public class Parser {
     private final Tokenizer tok;
     private LineEmitter emitter;
     private HashMap<String, Function> functions = new HashMap<>();
+    private final ArrayList<Variable> variables = new ArrayList<>();
+    private Variable.Scope scope = new Variable.Scope(null);
 
     /**
      * Creates a new instance
@@ -60,6 +62,8 @@ public class Parser {
         parseHeader();
         emitter = parseRows(null);
         expect(Tokenizer.Token.EOF);
+        for (Variable v : variables)
+            v.link();
         return this;
     }
 
@@ -111,18 +115,21 @@ public class Parser {
                 case LET:
                     tok.consume();
                     expect(Tokenizer.Token.IDENT);
-                    final String varName=tok.getIdent();
+                    final Variable letVar = createVariable(tok.getIdent());
+                    scope.declare(letVar.getName());
                     expect(Tokenizer.Token.EQUAL);
                     final Expression intValue = parseExpression();
                     expect(Tokenizer.Token.SEMICOLON);
-                    list.add((listener, context) -> context.setVar(varName, intValue.value(context)));
+                    list.add((listener, context) -> letVar.set(context, intValue.value(context)));
                     break;
                 case REPEAT:
                     tok.consume();
                     expect(Tokenizer.Token.OPEN);
                     long count = parseInt();
                     expect(Tokenizer.Token.CLOSE);
+                    enterScope("n");
                     list.add(new LineEmitterRepeat("n", count, parseSingleRow()));
+                    scope = scope.getParent();
                     break;
                 case LOOP:
                     tok.consume();
@@ -132,7 +139,9 @@ public class Parser {
                     expect(Tokenizer.Token.COMMA);
                     count = parseInt();
                     expect(Tokenizer.Token.CLOSE);
+                    enterScope(var);
                     list.add(new LineEmitterRepeat(var, count, parseRows(Tokenizer.Token.LOOP)));
+                    scope = scope.getParent();
                     break;
                 default:
                     throw newUnexpectedToken(t);
@@ -148,28 +157,32 @@ public class Parser {
                 line = new LineEmitterSimple(names.size(), tok.getLine());
             switch (token) {
                 case NUMBER:
-                    Value num = new Value(convToLong(tok.getIdent()));
-                    line.add((vals, context) -> vals.add(num));
+                    line.add(new Value(convToLong(tok.getIdent())));
                     break;
                 case BITS:
                     expect(Tokenizer.Token.OPEN);
                     int bitCount = (int) parseInt();
                     expect(Tokenizer.Token.COMMA);
                     Expression exp = parseExpression();
-                    line.add(new ValueAppenderBits(bitCount, exp));
+                    if (exp instanceof Constant)
+                        ValueAppenderBits.addConstant(line, bitCount, exp.value(null));
+                    else
+                        line.add(new ValueAppenderBits(bitCount, exp));
                     expect(Tokenizer.Token.CLOSE);
                     break;
                 case IDENT:
                     try {
-                        final Value value = new Value(tok.getIdent().toUpperCase());
-                        line.add((vals, context) -> vals.add(value));
+                        line.add(new Value(tok.getIdent().toUpperCase()));
                     } catch (Bits.NumberFormatException e) {
                         throw new ParserException(Lang.get("err_notANumber_N0_inLine_N1", tok.getIdent(), tok.getLine()));
                     }
                     break;
                 case OPEN:
                     exp = parseExpression();
-                    line.add((vals, context) -> vals.add(new Value(exp.value(context))));
+                    if (exp instanceof Constant)
+                        line.add(new Value(exp.value(null)));
+                    else
+                        line.add((vals, context) -> vals.add(new Value(exp.value(context))));
                     expect(Tokenizer.Token.CLOSE);
                     break;
                 case EOF:
@@ -181,6 +194,17 @@ public class Parser {
         }
     }
 
+    private void enterScope(String loopVar) {
+        scope = new Variable.Scope(scope);
+        scope.declare(loopVar);
+    }
+
+    private Variable createVariable(String name) {
+        Variable v = new Variable(name, scope);
+        variables.add(v);
+        return v;
+    }
+
     private long convToLong(String num) throws ParserException {
         try {
             return Bits.decode(num);
@@ -259,7 +283,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.SMALER)) {
             Expression a = ac;
             Expression b = parseGreater();
-            ac = (c) -> a.value(c) < b.value(c) ? 1 : 0;
+            ac = fold(a, b, (c) -> a.value(c) < b.value(c) ? 1 : 0);
         }
         return ac;
     }
@@ -269,7 +293,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.SMALEREQUAL)) {
             Expression a = ac;
             Expression b = parseGreater();
-            ac = (c) -> a.value(c) <= b.value(c) ? 1 : 0;
+            ac = fold(a, b, (c) -> a.value(c) <= b.value(c) ? 1 : 0);
         }
         return ac;
     }
@@ -279,7 +303,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.GREATER)) {
             Expression a = ac;
             Expression b = parseEquals();
-            ac = (c) -> a.value(c) > b.value(c) ? 1 : 0;
+            ac = fold(a, b, (c) -> a.value(c) > b.value(c) ? 1 : 0);
         }
         return ac;
     }
@@ -288,7 +312,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.GREATEREQUAL)) {
             Expression a = ac;
             Expression b = parseEquals();
-            ac = (c) -> a.value(c) >= b.value(c) ? 1 : 0;
+            ac = fold(a, b, (c) -> a.value(c) >= b.value(c) ? 1 : 0);
         }
         return ac;
     }
@@ -298,7 +322,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.EQUAL)) {
             Expression a = ac;
             Expression b = parseNotEquals();
-            ac = (c) -> a.value(c) == b.value(c) ? 1 : 0;
+            ac = fold(a, b, (c) -> a.value(c) == b.value(c) ? 1 : 0);
         }
         return ac;
     }
@@ -309,7 +333,7 @@ public class Parser {
             expect(Tokenizer.Token.EQUAL);
             Expression a = ac;
             Expression b = parseOR();
-            ac = (c) -> a.value(c) == b.value(c) ? 0 : 1;
+            ac = fold(a, b, (c) -> a.value(c) == b.value(c) ? 0 : 1);
         }
         return ac;
     }
@@ -319,7 +343,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.OR)) {
             Expression a = ac;
             Expression b = parseXOR();
-            ac = (c) -> a.value(c) | b.value(c);
+            ac = fold(a, b, (c) -> a.value(c) | b.value(c));
         }
         return ac;
     }
@@ -329,7 +353,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.XOR)) {
             Expression a = ac;
             Expression b = parseAND();
-            ac = (c) -> a.value(c) ^ b.value(c);
+            ac = fold(a, b, (c) -> a.value(c) ^ b.value(c));
         }
         return ac;
     }
@@ -339,7 +363,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.AND)) {
             Expression a = ac;
             Expression b = parseShiftRight();
-            ac = (c) -> a.value(c) & b.value(c);
+            ac = fold(a, b, (c) -> a.value(c) & b.value(c));
         }
         return ac;
     }
@@ -349,7 +373,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.SHIFTRIGHT)) {
             Expression a = ac;
             Expression b = parseShiftLeft();
-            ac = (c) -> a.value(c) >> b.value(c);
+            ac = fold(a, b, (c) -> a.value(c) >> b.value(c));
         }
         return ac;
     }
@@ -359,7 +383,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.SHIFTLEFT)) {
             Expression a = ac;
             Expression b = parseAdd();
-            ac = (c) -> a.value(c) << b.value(c);
+            ac = fold(a, b, (c) -> a.value(c) << b.value(c));
         }
         return ac;
     }
@@ -369,7 +393,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.ADD)) {
             Expression a = ac;
             Expression b = parseSub();
-            ac = (c) -> a.value(c) + b.value(c);
+            ac = fold(a, b, (c) -> a.value(c) + b.value(c));
         }
         return ac;
     }
@@ -379,7 +403,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.SUB)) {
             Expression a = ac;
             Expression b = parseMul();
-            ac = (c) -> a.value(c) - b.value(c);
+            ac = fold(a, b, (c) -> a.value(c) - b.value(c));
         }
         return ac;
     }
@@ -389,7 +413,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.MUL)) {
             Expression a = ac;
             Expression b = parseDiv();
-            ac = (c) -> a.value(c) * b.value(c);
+            ac = fold(a, b, (c) -> a.value(c) * b.value(c));
         }
         return ac;
     }
@@ -399,7 +423,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.DIV)) {
             Expression a = ac;
             Expression b = parseMod();
-            ac = (c) -> a.value(c) / b.value(c);
+            ac = fold(a, b, (c) -> a.value(c) / b.value(c));
         }
         return ac;
     }
@@ -409,7 +433,7 @@ public class Parser {
         while (isToken(Tokenizer.Token.MOD)) {
             Expression a = ac;
             Expression b = parseIdent();
-            ac = (c) -> a.value(c) % b.value(c);
+            ac = fold(a, b, (c) -> a.value(c) % b.value(c));
         }
         return ac;
     }
@@ -428,19 +452,18 @@ public class Parser {
                     expect(Tokenizer.Token.CLOSE);
                     return findFunction(name, args);
                 } else
-                    return (c) -> c.getVar(name);
+                    return createVariable(name);
             case NUMBER:
-                long num = convToLong(tok.getIdent());
-                return (c) -> num;
+                return new Constant(convToLong(tok.getIdent()));
             case SUB:
                 Expression negExp = parseIdent();
-                return (c) -> -negExp.value(c);
+                return fold(negExp, negExp, (c) -> -negExp.value(c));
             case BIN_NOT:
                 Expression notExp = parseIdent();
-                return (c) -> ~notExp.value(c);
+                return fold(notExp, notExp, (c) -> ~notExp.value(c));
             case LOG_NOT:
                 Expression boolNotExp = parseIdent();
-                return (c) -> boolNotExp.value(c)==0?1:0;
+                return fold(boolNotExp, boolNotExp, (c) -> boolNotExp.value(c) == 0 ? 1 : 0);
             case OPEN:
                 Expression exp = parseExpression();
                 expect(Tokenizer.Token.CLOSE);
@@ -450,6 +473,26 @@ public class Parser {
         }
     }
 
+    /**
+     * Replaces the given expression by a constant, if both operands are constant.
+     *
+     * @param a   the first operand
+     * @param b   the second operand
+     * @param exp the expression which combines the operands
+     * @return the expression or the constant value of the expression
+     */
+    private static Expression fold(Expression a, Expression b, Expression exp) {
+        if (a instanceof Constant && b instanceof Constant) {
+            try {
+                return new Constant(exp.value(null));
+            } catch (ParserException | ArithmeticException e) {
+                // the error is reported if the expression is evaluated
+                return exp;
+            }
+        }
+        return exp;
+    }
+
     private Expression findFunction(String name, ArrayList<Expression> args) throws ParserException {
         Function f = functions.get(name);
         if (f == null)
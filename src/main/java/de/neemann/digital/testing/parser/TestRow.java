@@ -13,6 +13,8 @@ import de.neemann.digital.data.Value;
 public class TestRow {
     private Value[] values;
     private String description;
+    private Context context;
+    private int line;
 
     /**
      * Creates a new instance
@@ -25,6 +27,23 @@ public class TestRow {
         this.description = description;
     }
 
+    /**
+     * Creates a new instance.
+     * The description is created on demand from the given source line and the current
+     * state of the given context. So if the description is required, it has to be
+     * requested before the context is modified, which is while the {@link LineListener}
+     * processes the row.
+     *
+     * @param values  the values
+     * @param line    the source line
+     * @param context the context of the row
+     */
+    TestRow(Value[] values, int line, Context context) {
+        this.values = values;
+        this.line = line;
+        this.context = context;
+    }
+
     /**
      * Creates a new instance
      *
@@ -56,6 +75,14 @@ public class TestRow {
      * @return the rows description
      */
     public String getDescription() {
+        if (context != null) {
+            String conString = context.toString();
+            if (conString.isEmpty())
+                description = "L" + line;
+            else
+                description = "L" + line + ";" + conString;
+            context = null;
+        }
         return description;
     }
 }
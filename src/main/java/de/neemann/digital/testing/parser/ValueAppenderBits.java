@@ -13,6 +13,9 @@ import java.util.ArrayList;
  * Appends the bits of an integer value to the given row.
  */
 public class ValueAppenderBits implements ValueAppender {
+    private static final Value ZERO = new Value(0);
+    private static final Value ONE = new Value(1);
+
     private final Expression expression;
     private final int bitCount;
 
@@ -33,7 +36,23 @@ public class ValueAppenderBits implements ValueAppender {
         long mask = 1L << (bitCount - 1);
         for (int i = 0; i < bitCount; i++) {
             boolean v = (value & mask) != 0;
-            values.add(new Value(v ? 1 : 0));
+            values.add(v ? ONE : ZERO);
+            mask >>= 1;
+        }
+    }
+
+    /**
+     * Adds the bits of a constant value to the given line
+     *
+     * @param line     the line
+     * @param bitCount the number of bits to append
+     * @param value    the value
+     */
+    static void addConstant(LineEmitterSimple line, int bitCount, long value) {
+        long mask = 1L << (bitCount - 1);
+        for (int i = 0; i < bitCount; i++) {
+            boolean v = (value & mask) != 0;
+            line.add(v ? ONE : ZERO);
             mask >>= 1;
         }
     }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.testing.parser;
+
+import de.neemann.digital.lang.Lang;
+
+import java.util.ArrayList;
+
+/**
+ * A variable used in the test data.
+ * After the test data is parsed, the variable is linked: For each enclosing loop, the slot
+ * the variable occupies in the loops context is looked up, so the hash or string lookups are
+ * avoided if the variable is accessed.
+ * Variables defined outside of all loops are accessed by name, because the root context
+ * may contain variables which are not known to the parser.
+ */
+final class Variable implements Expression {
+    private final String name;
+    private final Scope scope;
+    private int[] slots;
+
+    /**
+     * Creates a new variable
+     *
+     * @param name  the name of the variable
+     * @param scope the scope the variable is used in
+     */
+    Variable(String name, Scope scope) {
+        this.name = name.intern();
+        this.scope = scope;
+    }
+
+    /**
+     * @return the name of the variable
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Resolves the slots of this variable.
+     * Needs to be called after all variables of the enclosing scopes are known.
+     */
+    void link() {
+        int depth = 0;
+        for (Scope s = scope; !s.isRoot(); s = s.parent)
+            depth++;
+        int[] sl = new int[depth];
+        Scope s = scope;
+        for (int i = 0; i < depth; i++) {
+            sl[i] = s.names.indexOf(name);
+            s = s.parent;
+        }
+        slots = sl;
+    }
+
+    @Override
+    public long value(Context c) throws ParserException {
+        final int[] sl = slots;
+        if (sl == null)
+            return c.getVar(name);
+
+        Context ctx = c;
+        for (int slot : sl) {
+            if (ctx == null)
+                throw new ParserException(Lang.get("err_variable_N0_notFound", name));
+            if (slot >= 0 && ctx.isSlot(slot, name))
+                return ctx.getSlot(slot);
+            ctx = ctx.getParent();
+        }
+        if (ctx == null)
+            throw new ParserException(Lang.get("err_variable_N0_notFound", name));
+        return ctx.getVar(name);
+    }
+
+    /**
+     * Sets the value of this variable in the given context
+     *
+     * @param c     the context
+     * @param value the value
+     */
+    void set(Context c, long value) {
+        final int[] sl = slots;
+        if (sl != null && sl.length > 0 && sl[0] >= 0)
+            c.setSlot(sl[0], name, value);
+        else
+            c.setVar(name, value);
+    }
+
+    /**
+     * The lexical scope of variables.
+     * There is a scope for each loop, which corresponds to the context the loop creates at runtime.
+     */
+    static final class Scope {
+        private final Scope parent;
+        private final ArrayList<String> names;
+
+        /**
+         * Creates a new scope
+         *
+         * @param parent the parent scope or null if this is the root scope
+         */
+        Scope(Scope parent) {
+            this.parent = parent;
+            names = new ArrayList<>();
+        }
+
+        /**
+         * Declares a variable in this scope
+         *
+         * @param name the name of the variable
+         * @return the slot of the variable or -1 if this is the root scope
+         */
+        int declare(String name) {
+            if (isRoot())
+                return -1;
+            name = name.intern();
+            int i = names.indexOf(name);
+            if (i < 0) {
+                i = names.size();
+                names.add(name);
+            }
+            return i;
+        }
+
+        /**
+         * @return the parent scope
+         */
+        Scope getParent() {
+            return parent;
+        }
+
+        private boolean isRoot() {
+            return parent == null;
+        }
+    }
+}
@@ -32,21 +32,27 @@ public final class InfoDialog implements Iterable<InfoDialog.Manifest> {
      * Unknown release
      */
     public static final String UNKNOWN = "unknown";
-    private static InfoDialog instance;
     private final ArrayList<Manifest> infos;
     private String revision = UNKNOWN;
 
-    /**
-     * @return the singleton instance
-     */
-    public static InfoDialog getInstance() {
-        if (instance == null)
+    private static final class InfoDialogHolder {
+        static final InfoDialog INSTANCE = create();
+
+        private static InfoDialog create() {
             try {
-                instance = new InfoDialog();
+                return new InfoDialog();
             } catch (IOException e) {
                 System.out.println("error reading InfoDialog " + e.getMessage());
+                return null;
             }
-        return instance;
+        }
+    }
+
+    /**
+     * @return the singleton instance
+     */
+    public static InfoDialog getInstance() {
+        return InfoDialogHolder.INSTANCE;
     }
 
     private InfoDialog() throws IOException {
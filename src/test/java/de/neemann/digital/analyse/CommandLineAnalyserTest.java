@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse;
+
+import de.neemann.digital.analyse.format.TruthTableCSVWriter;
+import de.neemann.digital.integration.Resources;
+import de.neemann.digital.integration.ToBreakRunner;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+
+public class CommandLineAnalyserTest extends TestCase {
+    private static final String CIRCUIT = "dig/analyze/testCaseCreation.dig";
+
+    public void testCSV() throws Exception {
+        TruthTable tt = new ModelAnalyser(new ToBreakRunner(CIRCUIT).getModel()).analyse();
+        StringWriter expected = new StringWriter();
+        new TruthTableCSVWriter(expected).write(tt);
+
+        ByteArrayOutputStream progress = new ByteArrayOutputStream();
+        StringWriter out = new StringWriter();
+        new CommandLineAnalyser(new File(Resources.getRoot(), CIRCUIT))
+                .setThreads(2)
+                .setProgress(new PrintStream(progress))
+                .analyse(out);
+
+        assertEquals(expected.toString(), out.toString());
+        assertTrue(progress.toString().contains("(100%)"));
+    }
+
+    public void testSignature() throws Exception {
+        StringWriter out = new StringWriter();
+        new CommandLineAnalyser(new File(Resources.getRoot(), CIRCUIT))
+                .setFormat(CommandLineAnalyser.Format.SIGNATURE)
+                .setProgress(null)
+                .analyse(out);
+
+        assertTrue(out.toString().contains("table: "));
+    }
+
+    public void testCanceled() throws Exception {
+        CommandLineAnalyser cla = new CommandLineAnalyser(new File(Resources.getRoot(), CIRCUIT))
+                .setThreads(1)
+                .setProgress(null);
+        StringWriter out = new StringWriter();
+        Thread.currentThread().interrupt();
+        try {
+            cla.analyse(out);
+            fail();
+        } catch (InterruptedIOException e) {
+            assertTrue(true);
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+        // only the header is written
+        assertEquals(1, out.toString().split("\n").length);
+    }
+}
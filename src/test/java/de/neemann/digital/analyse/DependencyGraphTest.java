@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse;
+
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.builder.circuit.CircuitBuilder;
+import de.neemann.digital.core.Model;
+import de.neemann.digital.core.Node;
+import de.neemann.digital.core.ObservableValue;
+import de.neemann.digital.core.ObservableValues;
+import de.neemann.digital.core.Signal;
+import de.neemann.digital.draw.library.ElementLibrary;
+import de.neemann.digital.draw.model.ModelCreator;
+import de.neemann.digital.draw.shapes.ShapeFactory;
+import de.neemann.digital.integration.ToBreakRunner;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import static de.neemann.digital.analyse.expression.Not.not;
+import static de.neemann.digital.analyse.expression.Operation.and;
+import static de.neemann.digital.analyse.expression.Operation.or;
+
+public class DependencyGraphTest extends TestCase {
+
+    public void testInputsAndCones() throws Exception {
+        ArrayList<Variable> v = Variable.vars(3);
+        final ElementLibrary library = new ElementLibrary();
+        Model model = new ModelCreator(new CircuitBuilder(new ShapeFactory(library))
+                .addCombinatorial("Y", and(v.get(0), v.get(1)))
+                .addCombinatorial("Z", or(not(v.get(1)), v.get(2)))
+                .createCircuit(), library).createModel(false);
+        ModelAnalyser ma = new ModelAnalyser(model);
+        DependencyGraph g = ma.getDependencyGraph();
+        assertSame(g, ma.getDependencyGraph());
+        assertFalse(g.hasCycle());
+        assertTrue(g.getCycles().isEmpty());
+
+        ArrayList<Signal> inputs = ma.getInputs();
+        ObservableValue y = findOutput(ma, "Y");
+        ObservableValue z = findOutput(ma, "Z");
+
+        assertEquals(bits(0, 1), g.getInputs(y));
+        assertEquals(bits(1, 2), g.getInputs(z));
+        assertEquals(2, g.getInputCount(y));
+
+        BitSet fanOut = g.getFanOut(inputs.get(1).getValue());
+        assertTrue(fanOut.get(g.getId(y)));
+        assertTrue(fanOut.get(g.getId(z)));
+        fanOut = g.getFanOut(inputs.get(0).getValue());
+        assertTrue(fanOut.get(g.getId(y)));
+        assertFalse(fanOut.get(g.getId(z)));
+
+        BitSet fanIn = g.getFanIn(z);
+        assertTrue(fanIn.get(g.getId(inputs.get(1).getValue())));
+        assertTrue(fanIn.get(g.getId(inputs.get(2).getValue())));
+        assertFalse(fanIn.get(g.getId(inputs.get(0).getValue())));
+
+        assertEquals(-1, g.getId(new ObservableValue("x", 1)));
+        assertTrue(g.getInputs(new ObservableValue("x", 1)).isEmpty());
+    }
+
+    public void testRewiringInvalidatesGraph() throws Exception {
+        ArrayList<Variable> v = Variable.vars(2);
+        final ElementLibrary library = new ElementLibrary();
+        Model model = new ModelCreator(new CircuitBuilder(new ShapeFactory(library))
+                .addCombinatorial("Y", and(v.get(0), v.get(1)))
+                .createCircuit(), library).createModel(false);
+        ModelAnalyser ma = new ModelAnalyser(model);
+        DependencyGraph g = ma.getDependencyGraph();
+        assertSame(g, model.getDependencyGraph(ma.getInputs()));
+
+        long count = model.getModificationCount();
+        ObservableValue a = ma.getInputs().get(0).getValue();
+        ObservableValue b = ma.getInputs().get(1).getValue();
+        Node n = new Node() {
+            @Override
+            public void readInputs() {
+            }
+
+            @Override
+            public void writeOutputs() {
+            }
+
+            @Override
+            public ObservableValues getOutputs() {
+                return b.asList();
+            }
+        };
+        a.addObserver(n);
+        assertTrue(model.getModificationCount() > count);
+
+        DependencyGraph g2 = ma.getDependencyGraph();
+        assertNotSame(g, g2);
+        assertEquals(bits(0, 1), g2.getInputs(b));
+    }
+
+    public void testCycle() throws Exception {
+        Model model = new ToBreakRunner("../../main/dig/sequential/RS.dig", false).getModel();
+        DependencyGraph g = new DependencyGraph(model.getInputs());
+        assertTrue(g.hasCycle());
+        assertFalse(g.getCycles().isEmpty());
+        for (ArrayList<ObservableValue> c : g.getCycles())
+            for (ObservableValue o : c)
+                assertTrue(g.getFanOut(o).get(g.getId(c.get(0))));
+    }
+
+    private static ObservableValue findOutput(ModelAnalyser ma, String name) {
+        for (Signal s : ma.getOutputs())
+            if (s.getName().equals(name))
+                return s.getValue();
+        throw new RuntimeException("output not found");
+    }
+
+    private static BitSet bits(int... b) {
+        BitSet bs = new BitSet();
+        for (int i : b)
+            bs.set(i);
+        return bs;
+    }
+}
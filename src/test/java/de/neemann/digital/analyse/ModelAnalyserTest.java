@@ -5,10 +5,13 @@
  */
 package de.neemann.digital.analyse;
 
+import de.neemann.digital.analyse.bdd.BDDBuilder;
+import de.neemann.digital.analyse.expression.Expression;
 import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.analyse.format.TruthTableFormatterTestCase;
 import de.neemann.digital.analyse.quinemc.BoolTable;
-import de.neemann.digital.analyse.quinemc.BoolTableByteArray;
 import de.neemann.digital.analyse.quinemc.ThreeStateValue;
+import de.neemann.digital.builder.circuit.CircuitBuilder;
 import de.neemann.digital.core.Model;
 import de.neemann.digital.core.NodeException;
 import de.neemann.digital.core.Signal;
@@ -23,10 +26,15 @@ import junit.framework.TestCase;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Random;
 import java.util.TreeMap;
 
+import static de.neemann.digital.analyse.expression.Not.not;
+import static de.neemann.digital.analyse.expression.Operation.and;
+import static de.neemann.digital.analyse.expression.Operation.or;
 import static de.neemann.digital.analyse.quinemc.ThreeStateValue.one;
 import static de.neemann.digital.analyse.quinemc.ThreeStateValue.zero;
 
@@ -131,6 +139,94 @@ public class ModelAnalyserTest extends TestCase {
         check2BitCounter(tt);
     }
 
+    private static Expression createSumOfProducts(Random r, ArrayList<Variable> vars, int from, int to) {
+        ArrayList<Expression> terms = new ArrayList<>();
+        for (int t = 0; t < 12; t++) {
+            ArrayList<Expression> literals = new ArrayList<>();
+            for (int v = from; v < to; v++)
+                if (r.nextInt(3) == 0)
+                    literals.add(r.nextBoolean() ? vars.get(v) : not(vars.get(v)));
+            if (!literals.isEmpty())
+                terms.add(and(literals));
+        }
+        return or(terms);
+    }
+
+    private void checkParallel(Circuit circuit) throws Exception {
+        final ElementLibrary library = new ElementLibrary();
+        ModelFactory factory = () -> new ModelCreator(circuit, library).createModel(false);
+
+        TruthTable expected = new ModelAnalyser(factory.createModel()).analyse();
+        TruthTable parallel = new ModelAnalyser(factory.createModel())
+                .setModelFactory(factory)
+                .setThreads(3)
+                .analyse();
+
+        assertEquals(expected.getVars(), parallel.getVars());
+        assertEquals(expected.getResultCount(), parallel.getResultCount());
+        for (int i = 0; i < expected.getResultCount(); i++) {
+            BoolTable e = expected.getResult(i);
+            BoolTable p = parallel.getResult(i);
+            assertEquals(e.size(), p.size());
+            for (int row = 0; row < e.size(); row++)
+                assertEquals(e.get(row), p.get(row));
+        }
+    }
+
+    public void testParallelAllInputs() throws Exception {
+        ArrayList<Variable> vars = Variable.vars(14);
+        Random r = new Random(1);
+        CircuitBuilder cb = new CircuitBuilder(new ShapeFactory(new ElementLibrary()))
+                .addCombinatorial("Y", createSumOfProducts(r, vars, 0, 14))
+                .addCombinatorial("Z", createSumOfProducts(r, vars, 0, 14));
+        checkParallel(cb.createCircuit());
+    }
+
+    public void testParallelDependant() throws Exception {
+        ArrayList<Variable> vars = Variable.vars(14);
+        Random r = new Random(2);
+        CircuitBuilder cb = new CircuitBuilder(new ShapeFactory(new ElementLibrary()))
+                .addCombinatorial("Y", createSumOfProducts(r, vars, 0, 13))
+                .addCombinatorial("Z", createSumOfProducts(r, vars, 2, 14))
+                .addCombinatorial("X", createSumOfProducts(r, vars, 4, 14));
+        checkParallel(cb.createCircuit());
+    }
+
+    public void testStreaming() throws Exception {
+        ArrayList<Variable> vars = Variable.vars(13);
+        Random r = new Random(3);
+        CircuitBuilder cb = new CircuitBuilder(new ShapeFactory(new ElementLibrary()))
+                .addCombinatorial("Y", createSumOfProducts(r, vars, 0, 13))
+                .addCombinatorial("Z", createSumOfProducts(r, vars, 3, 13));
+        final Circuit circuit = cb.createCircuit();
+        final ElementLibrary library = new ElementLibrary();
+        ModelFactory factory = () -> new ModelCreator(circuit, library).createModel(false);
+
+        TruthTable tt = new ModelAnalyser(factory.createModel()).analyse();
+
+        StringWriter w = new StringWriter();
+        TruthTableFormatterTestCase formatter = new TruthTableFormatterTestCase(null);
+        new ModelAnalyser(factory.createModel()).analyse(formatter.createConsumer(w));
+        assertEquals(formatter.format(tt), w.toString());
+
+        BDDBuilder builder = new BDDBuilder();
+        new ModelAnalyser(factory.createModel()).analyse(builder);
+        for (int o = 0; o < tt.getResultCount(); o++)
+            for (int row = 0; row < tt.getRows(); row++)
+                assertEquals(tt.getResult(o).get(row) == one, builder.getBDD().evaluate(builder.getOutput(o), row));
+
+        TruthTableSignature sequential = new TruthTableSignature();
+        new ModelAnalyser(factory.createModel()).analyse(sequential);
+        TruthTableSignature parallel = new TruthTableSignature();
+        new ModelAnalyser(factory.createModel()).setModelFactory(factory).setThreads(3).analyse(parallel);
+        assertEquals(sequential.getSignature(), parallel.getSignature());
+        for (int o = 0; o < tt.getResultCount(); o++) {
+            assertEquals(sequential.getSignature(o), parallel.getSignature(o));
+            assertEquals(builder.getBDD().satCount(builder.getOutput(o)).longValue(), parallel.getOnes(o));
+        }
+        assertFalse(parallel.getSignature(0).equals(parallel.getSignature(1)));
+    }
+
     private void check2BitCounter(TruthTable tt) {
         assertEquals(4, tt.getRows());
         assertEquals(4, tt.getCols());
@@ -252,7 +348,7 @@ public class ModelAnalyserTest extends TestCase {
         checkTable(getInner(Y4), zero, zero, zero, zero, zero, zero, zero, one);
     }
 
-    private BoolTableByteArray getInner(BoolTable table) {
+    private BoolTable getInner(BoolTable table) {
         assertTrue(table instanceof BoolTableExpanded);
         return ((BoolTableExpanded) table).getBoolTable();
     }
@@ -7,9 +7,11 @@ package de.neemann.digital.analyse;
 
 import de.neemann.digital.analyse.expression.ContextFiller;
 import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.analyse.quinemc.BoolTableBitSet;
 import de.neemann.digital.analyse.quinemc.BoolTableByteArray;
 import junit.framework.TestCase;
 
+import java.io.File;
 import java.io.StringWriter;
 import java.util.ArrayList;
 
@@ -86,4 +88,72 @@ public class TruthTableTest extends TestCase {
                 "2\n" +
                 "1\n", w.toString());
     }
+
+    public void testLargeTableSaveLoad() throws Exception {
+        TruthTable t = new TruthTable(13).addResult();
+        assertTrue(t.getResult(0) instanceof BoolTableBitSet);
+        for (int i = 0; i < t.getRows(); i++)
+            t.setValue(i, 13, i % 3);
+        t.addVariable();
+        assertEquals(1 << 14, t.getResult(0).size());
+
+        File f = File.createTempFile("table", ".tru");
+        try {
+            t.save(f);
+            TruthTable r = TruthTable.readFromFile(f);
+            assertEquals(t.getResult(0), r.getResult(0));
+            for (int i = 0; i < r.getRows(); i++)
+                assertEquals((i / 2) % 3, r.getValue(i, 14));
+        } finally {
+            f.delete();
+        }
+    }
+
+    public void testBinarySaveLoad() throws Exception {
+        for (int vars : new int[]{3, 13, 23}) {
+            TruthTable t = new TruthTable(vars).addResult("Y").addResult("Z,1");
+            for (int i = 0; i < t.getRows(); i++) {
+                t.setValue(i, vars, i % 3);
+                t.setValue(i, vars + 1, (i / 7) % 2);
+            }
+
+            File f = File.createTempFile("table", ".tru");
+            try {
+                t.saveBinary(f);
+                TruthTable r = TruthTable.readFromFile(f);
+                assertEquals(t.getVarNames(), r.getVarNames());
+                assertEquals(t.getResultNames(), r.getResultNames());
+                for (int i = 0; i < t.getRows(); i++)
+                    for (int c = vars; c < vars + 2; c++)
+                        assertEquals(t.getValue(i, c), r.getValue(i, c));
+
+                r.setValue(0, vars, 1);
+                assertEquals(1, r.getValue(0, vars));
+            } finally {
+                f.delete();
+            }
+        }
+    }
+
+    public void testBinaryOnlyIfRequested() throws Exception {
+        TruthTable t = new TruthTable(16).addResult();
+        for (int i = 0; i < t.getRows(); i++)
+            t.setValue(i, 16, i % 5 == 0 ? 2 : i % 2);
+
+        File f = File.createTempFile("table", ".tru");
+        File b = File.createTempFile("table", "." + TruthTable.BINARY_SUFFIX);
+        try {
+            t.save(f);
+            assertFalse(TruthTableBinaryFile.isBinary(f));
+            assertEquals(t.getResult(0), TruthTable.readFromFile(f).getResult(0));
+
+            t.saveBinary(b);
+            assertTrue(TruthTableBinaryFile.isBinary(b));
+            assertTrue(b.length() < 17 * 1024);
+            assertEquals(t.getResult(0), TruthTable.readFromFile(b).getResult(0));
+        } finally {
+            f.delete();
+            b.delete();
+        }
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.bdd;
+
+import de.neemann.digital.analyse.expression.ContextFiller;
+import de.neemann.digital.analyse.expression.Expression;
+import de.neemann.digital.analyse.expression.ExpressionException;
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.analyse.quinemc.BoolTableByteArray;
+import de.neemann.digital.analyse.quinemc.QuineMcCluskey;
+import junit.framework.TestCase;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static de.neemann.digital.analyse.expression.Not.not;
+import static de.neemann.digital.analyse.expression.Operation.and;
+import static de.neemann.digital.analyse.expression.Operation.or;
+import static de.neemann.digital.analyse.expression.Operation.xor;
+
+public class BDDTest extends TestCase {
+
+    private static Expression createRandom(Random r, ArrayList<Variable> vars, int depth) {
+        if (depth == 0 || r.nextInt(4) == 0)
+            return vars.get(r.nextInt(vars.size()));
+        Expression a = createRandom(r, vars, depth - 1);
+        Expression b = createRandom(r, vars, depth - 1);
+        switch (r.nextInt(4)) {
+            case 0:
+                return and(a, b);
+            case 1:
+                return or(a, b);
+            case 2:
+                return xor(a, b);
+            default:
+                return not(a);
+        }
+    }
+
+    public void testRandomExpressions() throws ExpressionException {
+        Random r = new Random(1);
+        final int n = 6;
+        ArrayList<Variable> vars = Variable.vars(n);
+        for (int i = 0; i < 100; i++) {
+            Expression e = createRandom(r, vars, 6);
+            ExpressionToBDD conv = new ExpressionToBDD(vars);
+            BDD bdd = conv.getBDD();
+            int f = conv.create(e);
+
+            ContextFiller cf = new ContextFiller(vars);
+            int ones = 0;
+            BoolTableBDD table = new BoolTableBDD(bdd, f);
+            for (int row = 0; row < (1 << n); row++) {
+                boolean expected = e.calculate(cf.setContextTo(row));
+                assertEquals(expected, bdd.evaluate(f, row));
+                assertEquals(expected, table.get(row).bool());
+                if (expected)
+                    ones++;
+            }
+            assertEquals(BigInteger.valueOf(ones), bdd.satCount(f));
+
+            long sat = bdd.anySat(f);
+            if (ones == 0)
+                assertEquals(-1, sat);
+            else
+                assertTrue(bdd.evaluate(f, sat));
+
+            for (int v = 0; v < n; v++) {
+                int f0 = bdd.restrict(f, v, false);
+                int f1 = bdd.restrict(f, v, true);
+                assertEquals(f, bdd.ite(bdd.var(v), f1, f0));
+                for (int row = 0; row < (1 << n); row++) {
+                    final int bit = 1 << (n - 1 - v);
+                    assertEquals(bdd.evaluate(f, row & ~bit), bdd.evaluate(f0, row));
+                    assertEquals(bdd.evaluate(f, row | bit), bdd.evaluate(f1, row));
+                }
+            }
+        }
+    }
+
+    public void testMinimizedIsEquivalent() throws ExpressionException {
+        Random r = new Random(2);
+        final int n = 5;
+        ArrayList<Variable> vars = Variable.vars(n);
+        for (int i = 0; i < 50; i++) {
+            BoolTableByteArray table = new BoolTableByteArray(1 << n);
+            for (int row = 0; row < table.size(); row++)
+                table.set(row, r.nextInt(2));
+            Expression e = new QuineMcCluskey(vars).fillTableWith(table).simplify().getExpression();
+
+            ExpressionToBDD conv = new ExpressionToBDD(vars);
+            int f = BDD.ZERO;
+            for (int row = 0; row < table.size(); row++)
+                if (table.get(row).bool()) {
+                    int m = BDD.ONE;
+                    for (int v = 0; v < n; v++)
+                        m = conv.getBDD().and(m, (row & (1 << (n - 1 - v))) != 0 ? conv.getBDD().var(v) : conv.getBDD().notVar(v));
+                    f = conv.getBDD().or(f, m);
+                }
+            assertEquals(f, conv.create(e));
+        }
+    }
+
+    public void testLargeEquivalence() throws ExpressionException {
+        final int n = 40;
+        ArrayList<Variable> vars = Variable.vars(n);
+
+        // parity built in two different ways
+        Expression p1 = vars.get(0);
+        for (int i = 1; i < n; i++)
+            p1 = xor(p1, vars.get(i));
+        Expression p2 = vars.get(n - 1);
+        for (int i = n - 2; i >= 0; i--)
+            p2 = or(and(p2, not(vars.get(i))), and(not(p2), vars.get(i)));
+
+        ExpressionToBDD conv = new ExpressionToBDD(vars);
+        assertTrue(conv.isEquivalent(p1, p2));
+        assertFalse(conv.isEquivalent(p1, not(p2)));
+        assertEquals(BigInteger.ONE.shiftLeft(n - 1), conv.getBDD().satCount(conv.create(p1)));
+        assertEquals(n * 2 + 1, conv.getBDD().nodeCount(conv.create(p1)));
+    }
+
+    public void testReorder() throws ExpressionException {
+        final int n = 16;
+        ArrayList<Variable> vars = Variable.vars(n);
+        // x0&x8 | x1&x9 | ... is exponential in the natural order, linear in the interleaved order
+        ArrayList<Expression> terms = new ArrayList<>();
+        for (int i = 0; i < n / 2; i++)
+            terms.add(and(vars.get(i), vars.get(i + n / 2)));
+        Expression e = or(terms);
+
+        ExpressionToBDD conv = new ExpressionToBDD(vars);
+        BDD bdd = conv.getBDD();
+        int[] roots = {conv.create(e)};
+        final int naturalSize = bdd.nodeCount(roots);
+
+        BDD sifted = bdd.sift(roots);
+        final int siftedSize = sifted.nodeCount(roots);
+        assertEquals(n + 2, siftedSize);
+        assertTrue(naturalSize > siftedSize * 10);
+
+        Random r = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            int row = r.nextInt(1 << n);
+            assertEquals(bdd.evaluate(conv.create(e), row), sifted.evaluate(roots[0], row));
+        }
+        assertEquals(bdd.satCount(conv.create(e)), sifted.satCount(roots[0]));
+    }
+}
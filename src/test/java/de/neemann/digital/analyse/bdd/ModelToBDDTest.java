@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.bdd;
+
+import de.neemann.digital.analyse.AnalyseException;
+import de.neemann.digital.analyse.ModelAnalyser;
+import de.neemann.digital.analyse.SubstituteLibrary;
+import de.neemann.digital.analyse.TruthTable;
+import de.neemann.digital.analyse.quinemc.BoolTable;
+import de.neemann.digital.core.Model;
+import de.neemann.digital.core.NodeException;
+import de.neemann.digital.core.Signal;
+import de.neemann.digital.core.flipflops.FlipflopD;
+import de.neemann.digital.draw.elements.Circuit;
+import de.neemann.digital.draw.elements.PinException;
+import de.neemann.digital.draw.library.ElementLibrary;
+import de.neemann.digital.draw.library.ElementNotFoundException;
+import de.neemann.digital.draw.model.ModelCreator;
+import de.neemann.digital.draw.shapes.ShapeFactory;
+import de.neemann.digital.integration.Resources;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+
+public class ModelToBDDTest extends TestCase {
+
+    private static Model createModel(String file) throws IOException, ElementNotFoundException, PinException, NodeException {
+        File f = new File(Resources.getRoot(), file);
+
+        final ElementLibrary library = new ElementLibrary();
+        library.setRootFilePath(f.getParentFile());
+        ShapeFactory shapeFactory = new ShapeFactory(library);
+        Circuit circuit = Circuit.loadCircuit(f, shapeFactory);
+
+        return new ModelCreator(circuit, new SubstituteLibrary(library)).createModel(false);
+    }
+
+    private static void checkAgainstAnalyser(String file) throws Exception {
+        TruthTable tt = new ModelAnalyser(createModel(file)).analyse();
+
+        Model model = createModel(file);
+        ModelToBDD m2b = new ModelToBDD(model);
+        BDD bdd = m2b.getBDD();
+        assertEquals(tt.getVars(), m2b.getVariables());
+
+        for (Signal s : model.getOutputs()) {
+            int[] f = m2b.getOutput(s.getName());
+            for (int i = 0; i < f.length; i++) {
+                String name = s.getName();
+                if (f.length > 1)
+                    name = (name.contains("_") ? name : name + "_") + i;
+                BoolTable expected = tt.getResult(name);
+                assertNotNull(name, expected);
+                for (int row = 0; row < expected.size(); row++)
+                    assertEquals(name + ", row " + row, expected.get(row).bool(), bdd.evaluate(f[i], row));
+            }
+        }
+    }
+
+    public void testGates() throws Exception {
+        checkAgainstAnalyser("dig/analyze/analyzeTest.dig");
+        checkAgainstAnalyser("dig/analyze/analyzeBacktrack.dig");
+    }
+
+    public void testMultiBit() throws Exception {
+        checkAgainstAnalyser("dig/analyze/multiBitInOutXOr.dig");
+    }
+
+    public void testFlipflopNotSupported() throws Exception {
+        Model model = createModel("dig/analyze/analyzeTestDFF.dig");
+        ModelToBDD m2b = new ModelToBDD(model);
+        try {
+            m2b.create(model.findNode(FlipflopD.class).get(0).getOutputs().get(0));
+            fail();
+        } catch (AnalyseException e) {
+            assertTrue(true);
+        }
+    }
+
+    public void testSplitterNotSupported() throws Exception {
+        Model model = createModel("dig/test/splitter/splitter1.dig");
+        ModelToBDD m2b = new ModelToBDD(model);
+        for (String name : new String[]{"X", "Y", "Z"})
+            try {
+                m2b.getOutput(name);
+                fail(name);
+            } catch (AnalyseException e) {
+                assertTrue(true);
+            }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.espresso;
+
+import de.neemann.digital.analyse.expression.ContextFiller;
+import de.neemann.digital.analyse.expression.Expression;
+import de.neemann.digital.analyse.expression.ExpressionException;
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.analyse.expression.format.FormatToExpression;
+import de.neemann.digital.analyse.expression.format.FormatterException;
+import de.neemann.digital.analyse.quinemc.BoolTable;
+import de.neemann.digital.analyse.quinemc.BoolTableBitSet;
+import de.neemann.digital.analyse.quinemc.BoolTableByteArray;
+import de.neemann.digital.analyse.quinemc.BoolTableExpression;
+import de.neemann.digital.analyse.quinemc.QuineMcCluskey;
+import de.neemann.digital.analyse.quinemc.ThreeStateValue;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static de.neemann.digital.analyse.expression.Not.not;
+import static de.neemann.digital.analyse.expression.Operation.and;
+import static de.neemann.digital.analyse.expression.Operation.or;
+
+public class EspressoTest extends TestCase {
+
+    private static void check(BoolTable table, Expression e, ArrayList<Variable> vars) throws ExpressionException {
+        ContextFiller cf = new ContextFiller(vars);
+        for (int i = 0; i < table.size(); i++) {
+            ThreeStateValue v = table.get(i);
+            if (v != ThreeStateValue.dontCare)
+                assertEquals("row " + i, v.bool(), e.calculate(cf.setContextTo(i)));
+        }
+    }
+
+    public void testSimple() throws ExpressionException, FormatterException {
+        ArrayList<Variable> vars = Variable.vars("A", "B", "C");
+        Expression ex = or(and(vars.get(0), vars.get(1)), vars.get(2));
+        BoolTableExpression table = new BoolTableExpression(ex, new ContextFiller(vars));
+
+        Espresso e = new Espresso(3, table).minimize();
+        assertEquals(2, e.getCover().size());
+        assertEquals("(A && B) || C", FormatToExpression.FORMATTER_JAVA.format(e.getExpression(vars)));
+    }
+
+    public void testConstants() throws ExpressionException, FormatterException {
+        ArrayList<Variable> vars = Variable.vars(3);
+        assertEquals("false", FormatToExpression.FORMATTER_JAVA.format(
+                new Espresso(3, new BoolTableByteArray(new byte[]{0, 0, 2, 0, 0, 0, 0, 0})).minimize().getExpression(vars)));
+        assertEquals("true", FormatToExpression.FORMATTER_JAVA.format(
+                new Espresso(3, new BoolTableByteArray(new byte[]{1, 1, 2, 1, 1, 2, 1, 1})).minimize().getExpression(vars)));
+    }
+
+    public void testCompareToQMC() throws ExpressionException {
+        Random r = new Random(1);
+        int espressoCubes = 0;
+        int qmcCubes = 0;
+        for (int i = 0; i < 200; i++) {
+            int n = 6;
+            BoolTableByteArray table = new BoolTableByteArray(1 << n);
+            for (int j = 0; j < table.size(); j++)
+                table.set(j, r.nextInt(4) == 0 ? 2 : r.nextInt(2));
+
+            ArrayList<Variable> vars = Variable.vars(n);
+            Espresso e = new Espresso(n, table).minimize();
+            check(table, e.getExpression(vars), vars);
+            espressoCubes += e.getCover().size();
+
+            QuineMcCluskey qmc = new QuineMcCluskey(vars).fillTableWith(table).simplify();
+            qmcCubes += qmc.getPrimes().size();
+        }
+        assertTrue("espresso " + espressoCubes + ", qmc " + qmcCubes, espressoCubes <= qmcCubes * 11 / 10);
+    }
+
+    public void testLargeTable() throws ExpressionException {
+        final int n = 20;
+        ArrayList<Variable> vars = Variable.vars(n);
+        Random r = new Random(2);
+        ArrayList<Expression> terms = new ArrayList<>();
+        for (int t = 0; t < 24; t++) {
+            ArrayList<Expression> literals = new ArrayList<>();
+            for (int v = 0; v < n; v++)
+                if (r.nextInt(3) == 0)
+                    literals.add(r.nextBoolean() ? vars.get(v) : not(vars.get(v)));
+            terms.add(and(literals));
+        }
+        Expression ex = or(terms);
+
+        BoolTableBitSet table = new BoolTableBitSet(new BoolTableExpression(ex, new ContextFiller(vars)));
+        for (int i = 0; i < table.size(); i += 7)
+            if (r.nextInt(3) == 0)
+                table.set(i, 2);
+
+        Espresso e = new Espresso(n, table).minimize();
+        check(table, e.getExpression(vars), vars);
+        assertTrue(e.getCover().size() <= terms.size());
+    }
+
+    public void testToManyVariables() {
+        try {
+            new Espresso(31, new BoolTableByteArray(new byte[]{0, 1}));
+            fail();
+        } catch (ExpressionException e) {
+            assertTrue(e.getMessage().contains("31"));
+        }
+    }
+}
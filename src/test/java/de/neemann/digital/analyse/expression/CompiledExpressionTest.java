@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.expression;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static de.neemann.digital.analyse.expression.Not.not;
+import static de.neemann.digital.analyse.expression.Operation.and;
+import static de.neemann.digital.analyse.expression.Operation.or;
+import static de.neemann.digital.analyse.expression.Operation.xor;
+
+public class CompiledExpressionTest extends TestCase {
+
+    private static Expression createRandom(Random r, ArrayList<Variable> vars, int depth) {
+        if (depth == 0 || r.nextInt(5) == 0) {
+            if (r.nextInt(20) == 0)
+                return r.nextBoolean() ? Constant.ONE : Constant.ZERO;
+            return vars.get(r.nextInt(vars.size()));
+        }
+        Expression a = createRandom(r, vars, depth - 1);
+        Expression b = createRandom(r, vars, depth - 1);
+        switch (r.nextInt(4)) {
+            case 0:
+                return and(a, b);
+            case 1:
+                return or(a, b);
+            case 2:
+                return xor(a, b);
+            default:
+                return not(a);
+        }
+    }
+
+    public void testRandom() throws ExpressionException {
+        Random r = new Random(1);
+        for (int n = 1; n <= 9; n++) {
+            ArrayList<Variable> vars = Variable.vars(n);
+            ContextFiller cf = new ContextFiller(vars);
+            for (int i = 0; i < 50; i++) {
+                Expression e = createRandom(r, vars, 6);
+                CompiledExpression ce = new CompiledExpression(e, vars);
+                for (int row = 0; row < cf.getRowCount(); row++) {
+                    boolean expected = e.calculate(cf.setContextTo(row));
+                    assertEquals(expected, ce.calculate(row));
+                    assertEquals(expected, ((ce.calculateBlock(row >>> 6) >>> (row & 63)) & 1) != 0);
+                }
+                if (n < 6)
+                    assertEquals(0, ce.calculateBlock(0) >>> (1 << n));
+            }
+        }
+    }
+
+    public void testParallelAssignments() throws ExpressionException {
+        ArrayList<Variable> vars = Variable.vars(3);
+        Expression e = or(and(vars.get(0), vars.get(1)), not(vars.get(2)));
+        CompiledExpression ce = new CompiledExpression(e, vars);
+        assertEquals(0b0101, ce.calculate(new long[]{0b0011, 0b0101, 0b1010}) & 0xf);
+    }
+
+    public void testSharedSubExpressions() throws ExpressionException {
+        final int n = 40;
+        ArrayList<Variable> vars = Variable.vars(n);
+        Expression p = vars.get(0);
+        for (int i = 1; i < n; i++)
+            p = or(and(p, not(vars.get(i))), and(not(p), vars.get(i)));
+
+        CompiledExpression ce = new CompiledExpression(p, vars);
+        assertFalse(ce.calculate(0));
+        assertTrue(ce.calculate(1));
+        assertTrue(ce.calculate(1L << 39));
+        assertFalse(ce.calculate((1L << 39) | 1));
+        assertEquals(0x6996966996696996L, ce.calculateBlock(0));
+    }
+
+    public void testUnknownVariable() {
+        try {
+            new CompiledExpression(new Variable("Z"), Variable.vars(2));
+            fail();
+        } catch (ExpressionException e) {
+            assertTrue(true);
+        }
+    }
+}
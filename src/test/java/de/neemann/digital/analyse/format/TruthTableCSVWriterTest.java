@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.format;
+
+import de.neemann.digital.analyse.ModelAnalyser;
+import de.neemann.digital.analyse.TruthTable;
+import de.neemann.digital.core.Model;
+import de.neemann.digital.integration.ToBreakRunner;
+import junit.framework.TestCase;
+
+import java.io.StringWriter;
+
+public class TruthTableCSVWriterTest extends TestCase {
+
+    public void testWrite() throws Exception {
+        TruthTable tt = new TruthTable(2);
+        tt.addResult("Y");
+        tt.addResult("Z,1");
+        for (int i = 0; i < tt.getRows(); i++) {
+            tt.setValue(i, 2, i & 1);
+            tt.setValue(i, 3, i == 2 ? 2 : 0);
+        }
+
+        StringWriter w = new StringWriter();
+        new TruthTableCSVWriter(w).write(tt);
+        assertEquals("A,B,Y,\"Z,1\"\n" +
+                "0,0,0,0\n" +
+                "0,1,1,0\n" +
+                "1,0,0,x\n" +
+                "1,1,1,0\n", w.toString());
+    }
+
+    public void testStreaming() throws Exception {
+        Model m = new ToBreakRunner("dig/analyze/testCaseCreation.dig").getModel();
+        TruthTable tt = new ModelAnalyser(m).analyse();
+        StringWriter expected = new StringWriter();
+        new TruthTableCSVWriter(expected).write(tt);
+
+        m = new ToBreakRunner("dig/analyze/testCaseCreation.dig").getModel();
+        StringWriter streamed = new StringWriter();
+        new ModelAnalyser(m).analyse(new TruthTableCSVWriter(streamed));
+
+        assertEquals(expected.toString(), streamed.toString());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.quinemc;
+
+import de.neemann.digital.analyse.expression.Variable;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class BoolTableBitSetTest extends TestCase {
+
+    private static BoolTableByteArray createRandom(Random r, int vars, int independentBit) {
+        int size = 1 << vars;
+        BoolTableByteArray t = new BoolTableByteArray(size);
+        for (int i = 0; i < size; i++) {
+            int v = r.nextInt(5);
+            if (v > 2) v = 0;
+            t.set(i, v);
+        }
+        if (independentBit >= 0) {
+            int mask = 1 << independentBit;
+            for (int i = 0; i < size; i++)
+                if ((i & mask) != 0) {
+                    ThreeStateValue v = t.get(i & ~mask);
+                    if (v != ThreeStateValue.dontCare && r.nextInt(4) == 0)
+                        t.set(i, 2);
+                    else
+                        t.set(i, v.asInt());
+                }
+        }
+        return t;
+    }
+
+    private static void assertSameValues(BoolTable expected, BoolTable found) {
+        assertEquals(expected.size(), found.size());
+        for (int i = 0; i < expected.size(); i++)
+            assertEquals("row " + i, expected.get(i), found.get(i));
+    }
+
+    public void testSetGet() {
+        BoolTableBitSet t = new BoolTableBitSet(130);
+        t.set(0, true);
+        t.set(64, 2);
+        t.set(129, 1);
+        t.set(129, 2);
+        assertEquals(ThreeStateValue.one, t.get(0));
+        assertEquals(ThreeStateValue.zero, t.get(1));
+        assertEquals(ThreeStateValue.dontCare, t.get(64));
+        assertEquals(ThreeStateValue.dontCare, t.get(129));
+        assertEquals(1, t.countOnes());
+        assertEquals(2, t.countDontCares());
+
+        t.set(129, 0);
+        assertEquals(ThreeStateValue.zero, t.get(129));
+        assertEquals(1, t.countDontCares());
+
+        try {
+            t.get(130);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    public void testCopyAndEquals() {
+        Random r = new Random(1);
+        for (int vars = 0; vars < 10; vars++) {
+            BoolTableByteArray ref = createRandom(r, vars, -1);
+            BoolTableBitSet t = new BoolTableBitSet(ref);
+            assertSameValues(ref, t);
+
+            BoolTableBitSet c = new BoolTableBitSet(t);
+            assertEquals(t, c);
+            assertEquals(t.hashCode(), c.hashCode());
+            c.set(0, t.get(0) == ThreeStateValue.one ? 0 : 1);
+            assertFalse(t.equals(c));
+        }
+    }
+
+    public void testIndependent() {
+        Random r = new Random(2);
+        for (int vars = 1; vars < 10; vars++) {
+            for (int bit = 0; bit < vars; bit++) {
+                BoolTableByteArray ref = createRandom(r, vars, bit);
+                BoolTableBitSet t = new BoolTableBitSet(ref);
+                IndependentChecker refChecker = new IndependentChecker(ref);
+                IndependentChecker checker = new IndependentChecker(t);
+                for (int v = 0; v < vars; v++) {
+                    assertEquals(refChecker.isIndependentFrom(v), checker.isIndependentFrom(v));
+                    assertEquals(refChecker.isIndependentFrom(v), t.isIndependentFromBit(vars - v - 1));
+                }
+                assertTrue(t.isIndependentFromBit(bit));
+
+                int varNum = vars - bit - 1;
+                assertSameValues(refChecker.removeVar(varNum), checker.removeVar(varNum));
+            }
+        }
+    }
+
+    public void testCofactor() {
+        Random r = new Random(3);
+        for (int vars = 1; vars < 10; vars++) {
+            BoolTableByteArray ref = createRandom(r, vars, -1);
+            BoolTableBitSet t = new BoolTableBitSet(ref);
+            for (int bit = 0; bit < vars; bit++) {
+                int mask = 1 << bit;
+                for (int value = 0; value < 2; value++) {
+                    BoolTableBitSet c = t.getCofactor(bit, value == 1);
+                    assertEquals(ref.size() / 2, c.size());
+                    for (int i = 0; i < c.size(); i++) {
+                        int row = ((i & ~(mask - 1)) << 1) | (i & (mask - 1)) | (value * mask);
+                        assertEquals(ref.get(row), c.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testDoubledValues() {
+        Random r = new Random(4);
+        for (int vars = 0; vars < 10; vars++) {
+            BoolTableByteArray ref = createRandom(r, vars, -1);
+            assertSameValues(BoolTableByteArray.createDoubledValues(ref), BoolTableBitSet.createDoubledValues(ref));
+        }
+    }
+
+    public void testModify() {
+        Random r = new Random(5);
+        BoolTableByteArray ref = createRandom(r, 7, -1);
+        BoolTableBitSet t = new BoolTableBitSet(ref);
+        BoolTableByteArray.TableModifier invert = v -> v > 1 ? v : (byte) (1 - v);
+        ref.modify(invert);
+        t.modify(invert);
+        assertSameValues(ref, t);
+
+        ref.modify(v -> 1);
+        t.modify(v -> 1);
+        assertSameValues(ref, t);
+        assertEquals(128, t.countOnes());
+    }
+
+    public void testReduceLargeTable() {
+        Random r = new Random(6);
+        BoolTableByteArray ref = createRandom(r, 13, 3);
+        ArrayList<Variable> vars = Variable.vars(13);
+        TableReducer tr = new TableReducer(vars, ref);
+        assertTrue(tr.canReduce());
+        assertTrue(tr.getTable() instanceof BoolTableBitSet);
+        assertEquals(12, tr.getVars().size());
+        assertFalse(tr.getVars().contains(vars.get(13 - 3 - 1)));
+    }
+
+    public void testCreate() {
+        assertTrue(BoolTableModifiable.create(16) instanceof BoolTableByteArray);
+        assertTrue(BoolTableModifiable.create(BoolTableBitSet.MIN_ROWS) instanceof BoolTableBitSet);
+    }
+}
@@ -6,6 +6,7 @@
 package de.neemann.digital.analyse.quinemc;
 
 
+import de.neemann.digital.analyse.MinimizerEspresso;
 import de.neemann.digital.analyse.MinimizerInterface;
 import de.neemann.digital.analyse.MinimizerQuineMcCluskey;
 import de.neemann.digital.analyse.MinimizerQuineMcCluskeyExam;
@@ -35,6 +36,11 @@ public class MinimizerRegressionTest extends TestCase {
         performTests(m);
     }
 
+    public void testEspresso() throws ExpressionException, FormatterException {
+        MinimizerInterface m = new MinimizerEspresso();
+        performTests(m);
+    }
+
     private void performTests(MinimizerInterface m) throws ExpressionException, FormatterException {
         performFull(m);
         performRegression(m);
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.quinemc;
+
+import de.neemann.digital.analyse.expression.ContextFiller;
+import de.neemann.digital.analyse.expression.Expression;
+import de.neemann.digital.analyse.expression.ExpressionException;
+import de.neemann.digital.analyse.expression.Variable;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class PrimeGeneratorTest extends TestCase {
+
+    private static BoolTableByteArray createRandom(Random r, int vars) {
+        BoolTableByteArray t = new BoolTableByteArray(1 << vars);
+        for (int i = 0; i < t.size(); i++)
+            t.set(i, r.nextInt(3));
+        return t;
+    }
+
+    /**
+     * The primes have to be the same as the primes found by the pairwise comparison
+     * and they have to be found in the same order.
+     */
+    public void testSameAsPairwise() throws ExpressionException {
+        Random r = new Random(1);
+        for (int vars = 1; vars <= 8; vars++)
+            for (int i = 0; i < 20; i++) {
+                BoolTableByteArray table = createRandom(r, vars);
+
+                QuineMcCluskey pairwise = new QuineMcCluskey(Variable.vars(vars)).fillTableWith(table);
+                QuineMcCluskey hashed = new QuineMcCluskey(Variable.vars(vars)).fillTableWith(table);
+
+                ArrayList<TableRow> primes = new PrimeGenerator(vars, hashed.getRows()).calculatePrimes();
+                while (!pairwise.isFinished())
+                    pairwise.simplifyStep();
+
+                ArrayList<TableRow> expected = pairwise.getPrimes();
+                assertEquals(expected.size(), primes.size());
+                for (int p = 0; p < primes.size(); p++) {
+                    assertEquals(expected.get(p), primes.get(p));
+                    assertEquals(new ArrayList<>(expected.get(p).getSource()), new ArrayList<>(primes.get(p).getSource()));
+                }
+            }
+    }
+
+    public void testLargeTable() throws ExpressionException {
+        Random r = new Random(2);
+        final int vars = 12;
+        BoolTableByteArray table = new BoolTableByteArray(1 << vars);
+        for (int i = 0; i < table.size(); i++)
+            table.set(i, r.nextInt(8) == 0 ? 0 : r.nextInt(3));
+
+        ArrayList<Variable> v = Variable.vars(vars);
+        Expression e = new QuineMcCluskey(v)
+                .fillTableWith(table)
+                .simplify()
+                .getExpression();
+
+        ContextFiller cf = new ContextFiller(v);
+        for (int i = 0; i < table.size(); i++) {
+            ThreeStateValue expected = table.get(i);
+            if (expected != ThreeStateValue.dontCare)
+                assertEquals(expected.bool(), e.calculate(cf.setContextTo(i)));
+        }
+    }
+}
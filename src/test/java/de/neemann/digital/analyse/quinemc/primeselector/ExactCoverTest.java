@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.analyse.quinemc.primeselector;
+
+import de.neemann.digital.analyse.expression.ContextFiller;
+import de.neemann.digital.analyse.expression.Expression;
+import de.neemann.digital.analyse.expression.ExpressionException;
+import de.neemann.digital.analyse.expression.Variable;
+import de.neemann.digital.analyse.quinemc.BoolTableByteArray;
+import de.neemann.digital.analyse.quinemc.QuineMcCluskey;
+import de.neemann.digital.analyse.quinemc.ThreeStateValue;
+import de.neemann.digital.analyse.quinemc.TableRow;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static de.neemann.digital.analyse.expression.Variable.vars;
+
+public class ExactCoverTest extends TestCase {
+
+    private static BoolTableByteArray createRandom(Random r, int n) {
+        BoolTableByteArray t = new BoolTableByteArray(1 << n);
+        for (int i = 0; i < t.size(); i++)
+            t.set(i, r.nextInt(3));
+        return t;
+    }
+
+    private static void check(BoolTableByteArray table, Expression e, ArrayList<Variable> v) throws ExpressionException {
+        ContextFiller cf = new ContextFiller(v);
+        for (int i = 0; i < table.size(); i++) {
+            ThreeStateValue expected = table.get(i);
+            if (expected != ThreeStateValue.dontCare)
+                assertEquals(expected.bool(), e.calculate(cf.setContextTo(i)));
+        }
+    }
+
+    /**
+     * All solutions have to be the same as the solutions found by brute force
+     * and they have to be found in the same order.
+     */
+    public void testSameAsBruteForce() throws ExpressionException {
+        Random r = new Random(1);
+        for (int n = 2; n <= 5; n++)
+            for (int i = 0; i < 200; i++) {
+                BoolTableByteArray table = createRandom(r, n);
+                ArrayList<Variable> v = vars(n);
+
+                BruteForceGetAll bf = new BruteForceGetAll();
+                QuineMcCluskey qmcBf = new QuineMcCluskey(v).fillTableWith(table).simplify(bf);
+                ExactCover ec = new ExactCover().setMaxSolutions(Integer.MAX_VALUE);
+                QuineMcCluskey qmcEc = new QuineMcCluskey(v).fillTableWith(table).simplify(ec);
+
+                assertEquals(qmcBf.getPrimes(), qmcEc.getPrimes());
+                assertEquals(bf.getAllSolutions(), ec.getAllSolutions());
+            }
+    }
+
+    public void testSingleSolutionIsMinimal() throws ExpressionException {
+        Random r = new Random(2);
+        for (int i = 0; i < 200; i++) {
+            BoolTableByteArray table = createRandom(r, 5);
+            ArrayList<Variable> v = vars(5);
+
+            QuineMcCluskey qmcBf = new QuineMcCluskey(v).fillTableWith(table).simplify(new BruteForce());
+            QuineMcCluskey qmcEc = new QuineMcCluskey(v).fillTableWith(table).simplify(new ExactCover());
+
+            assertEquals(qmcBf.getPrimes().size(), qmcEc.getPrimes().size());
+            check(table, qmcEc.getExpression(), v);
+        }
+    }
+
+    /**
+     * A cyclic covering problem: the indices form a ring, and every prime covers
+     * two neighbouring indices. There is no essential prime and no dominated prime.
+     */
+    public void testCyclic() {
+        final int n = 41;
+        ArrayList<TableRow> primes = new ArrayList<>();
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (int i = 0; i < n; i++) {
+            TableRow p = new TableRow(8, i, i, false);
+            p.getSource().add((i + 1) % n);
+            primes.add(p);
+            indices.add(i);
+        }
+
+        ArrayList<TableRow> selected = new ArrayList<>();
+        new ExactCover().select(selected, primes, indices);
+        assertEquals((n + 1) / 2, selected.size());
+
+        ExactCover ec = new ExactCover().setMaxSolutions(1000);
+        ec.select(new ArrayList<>(), primes, indices);
+        assertEquals(n, ec.getAllSolutions().size());
+    }
+
+    public void testSolutionLimit() {
+        final int n = 41;
+        ArrayList<TableRow> primes = new ArrayList<>();
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (int i = 0; i < n; i++) {
+            TableRow p = new TableRow(8, i, i, false);
+            p.getSource().add((i + 1) % n);
+            primes.add(p);
+            indices.add(i);
+        }
+
+        ExactCover ec = new ExactCover().setMaxSolutions(n);
+        ec.select(new ArrayList<>(), primes, indices);
+        assertEquals(n, ec.getAllSolutions().size());
+        assertFalse(ec.isSolutionLimitReached());
+
+        ec = new ExactCover().setMaxSolutions(10);
+        ec.select(new ArrayList<>(), primes, indices);
+        assertEquals(10, ec.getAllSolutions().size());
+        assertTrue(ec.isSolutionLimitReached());
+    }
+
+    public void testNodeBudget() throws ExpressionException {
+        Random r = new Random(3);
+        final int n = 10;
+        BoolTableByteArray table = createRandom(r, n);
+        ArrayList<Variable> v = vars(n);
+
+        ExactCover ec = new ExactCover().setNodeBudget(10);
+        QuineMcCluskey qmc = new QuineMcCluskey(v).fillTableWith(table).simplify(ec);
+        assertTrue(ec.isAborted());
+        check(table, qmc.getExpression(), v);
+
+        QuineMcCluskey qmcLf = new QuineMcCluskey(v).fillTableWith(table).simplify(new LargestFirst());
+        assertEquals(qmcLf.getPrimes().size(), qmc.getPrimes().size());
+    }
+}
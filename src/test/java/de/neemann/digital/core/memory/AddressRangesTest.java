@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.core.memory;
+
+import junit.framework.TestCase;
+
+public class AddressRangesTest extends TestCase {
+
+    public void testSequential() {
+        AddressRanges r = new AddressRanges();
+        assertTrue(r.isEmpty());
+        for (int i = 16; i < 32; i++)
+            r.add(i);
+        assertEquals(1, r.size());
+        assertEquals(16, r.getFrom(0));
+        assertEquals(31, r.getTo(0));
+        assertEquals("10-1f", r.toString());
+    }
+
+    public void testMerge() {
+        AddressRanges r = new AddressRanges();
+        r.add(10);
+        r.add(20);
+        r.add(5);
+        assertEquals("5, a, 14", r.toString());
+        r.add(11, 19);
+        assertEquals("5, a-14", r.toString());
+        r.add(6, 9);
+        assertEquals("5-14", r.toString());
+        r.add(0, 100);
+        assertEquals("0-64", r.toString());
+        assertTrue(r.contains(50));
+        assertFalse(r.contains(101));
+    }
+
+    public void testFastPathDoesNotOverlap() {
+        AddressRanges r = new AddressRanges();
+        r.add(5);
+        r.add(3);
+        r.add(4);
+        assertEquals("3-5", r.toString());
+        r.add(7);
+        r.add(6);
+        assertEquals("3-7", r.toString());
+    }
+
+    public void testAll() {
+        AddressRanges r = new AddressRanges();
+        r.add(1);
+        r.add(-1);
+        assertTrue(r.isAll());
+        assertFalse(r.isEmpty());
+        assertTrue(r.contains(1000));
+        r.clear();
+        assertTrue(r.isEmpty());
+    }
+
+    public void testTooManyRanges() {
+        AddressRanges r = new AddressRanges();
+        for (int i = 0; i < 200; i++)
+            r.add(i * 2);
+        assertTrue(r.size() <= 64);
+        for (int i = 0; i < 200; i++)
+            assertTrue(r.contains(i * 2));
+    }
+}
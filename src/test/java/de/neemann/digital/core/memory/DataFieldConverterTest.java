@@ -6,8 +6,14 @@
 package de.neemann.digital.core.memory;
 
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
+import de.neemann.digital.core.Bits;
 import junit.framework.TestCase;
 
+import java.io.StringReader;
+import java.io.StringWriter;
+
 /**
  */
 public class DataFieldConverterTest extends TestCase {
@@ -135,4 +141,75 @@ public class DataFieldConverterTest extends TestCase {
             assertEquals(i, df.getDataWord(i));
     }
 
+    public void testCompressed() throws Exception {
+        DataField d = new DataField(70000);
+        for (int i = 0; i < 65536; i++)
+            d.setData(i, i * 3);
+        d.trim();
+
+        String value = DataFieldConverter.encodeCompressed(d);
+        assertTrue(value.startsWith(DataFieldConverter.COMPRESSED_PREFIX));
+        assertTrue(value.length() < 65536 * 4);
+
+        DataField df = DataFieldConverter.decodeCompressed(value);
+        assertEquals(d, df);
+    }
+
+    public void testCompressed64Bit() throws Exception {
+        DataField d = new DataField(10);
+        d.setData(0, -1);
+        d.setData(5, 0x8000000000000000L);
+
+        DataField df = DataFieldConverter.decodeCompressed(DataFieldConverter.encodeCompressed(d));
+        assertEquals(6, df.size());
+        assertEquals(-1, df.getDataWord(0));
+        assertEquals(0x8000000000000000L, df.getDataWord(5));
+    }
+
+    public void testCompressedEmpty() throws Exception {
+        DataField df = DataFieldConverter.decodeCompressed(DataFieldConverter.encodeCompressed(new DataField(0)));
+        assertEquals(0, df.size());
+    }
+
+    public void testDecodeText() throws Exception {
+        DataField df = DataFieldConverter.decodeText("0,1, 2 ,,a,\nff,");
+        assertEquals(5, df.size());
+        assertEquals(2, df.getDataWord(2));
+        assertEquals(10, df.getDataWord(3));
+        assertEquals(255, df.getDataWord(4));
+
+        try {
+            DataFieldConverter.decodeText("0,1,g");
+            fail();
+        } catch (Bits.NumberFormatException e) {
+            assertTrue(true);
+        }
+    }
+
+    public void testMarshalCompressed() throws Exception {
+        DataField d = new DataField(2000);
+        for (int i = 0; i < 2000; i++)
+            d.setData(i, i);
+
+        String xml = marshal(new DataFieldConverter(true), d);
+        assertTrue(xml.startsWith("<data>" + DataFieldConverter.COMPRESSED_PREFIX));
+        assertEquals(d, unmarshal(xml));
+
+        xml = marshal(new DataFieldConverter(), d);
+        assertTrue(xml.startsWith("<data>0,1,2,"));
+        assertEquals(d, unmarshal(xml));
+    }
+
+    private static String marshal(DataFieldConverter converter, DataField d) {
+        StringWriter sw = new StringWriter();
+        PrettyPrintWriter w = new PrettyPrintWriter(sw);
+        w.startNode("data");
+        converter.marshal(d, w, null);
+        w.endNode();
+        return sw.toString();
+    }
+
+    private static Object unmarshal(String xml) {
+        return new DataFieldConverter().unmarshal(new DomDriver().createReader(new StringReader(xml)), null);
+    }
 }
@@ -12,6 +12,7 @@ import junit.framework.TestCase;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertNotEquals;
@@ -177,4 +178,249 @@ public class DataFieldTest extends TestCase {
         assertNotEquals(df3, df2);
     }
 
+
+    public void testSparse() throws IOException {
+        DataField data = new DataField(1 << 24);
+        assertTrue(data.isSparse());
+        assertEquals(1 << 24, data.size());
+        data.setData(5, 1);
+        data.setData(0x800000, 2);
+        data.setData(0xffffff, 3);
+        assertEquals(1, data.getDataWord(5));
+        assertEquals(2, data.getDataWord(0x800000));
+        assertEquals(3, data.getDataWord(0xffffff));
+        assertEquals(0, data.getDataWord(0x800001));
+        assertEquals(0, data.getDataWord(0x1000000));
+
+        DataField copy = new DataField(data);
+        assertEquals(data, copy);
+        assertEquals(data.hashCode(), copy.hashCode());
+        copy.setData(6, 7);
+        assertNotEquals(data, copy);
+        assertEquals(0, data.getDataWord(6));
+
+        StringWriter w = new StringWriter();
+        data.saveTo(w);
+        assertEquals("v2.0 raw\n" +
+                "5*0\n" +
+                "1\n" +
+                "8388602*0\n" +
+                "2\n" +
+                "8388606*0\n" +
+                "3\n", w.toString().replace("\r", ""));
+    }
+
+    public void testSparseGrowAndTrim() {
+        DataField data = new DataField(100);
+        data.setData(10, 1);
+        assertFalse(data.isSparse());
+        data.setData(DataField.DENSE_LIMIT * 2, 2);
+        assertTrue(data.isSparse());
+        assertEquals(1, data.getDataWord(10));
+        assertEquals(2, data.getDataWord(DataField.DENSE_LIMIT * 2));
+
+        long[] d = data.getData();
+        assertEquals(1, d[10]);
+        assertEquals(2, d[DataField.DENSE_LIMIT * 2]);
+
+        data.setData(DataField.DENSE_LIMIT * 2, 0);
+        assertEquals(11, data.trim());
+        assertFalse(data.isSparse());
+        assertEquals(1, data.getDataWord(10));
+    }
+
+    public void testSparseTrimValues() {
+        DataField data = new DataField(1 << 24);
+        data.setData(0xfff000, 0xff);
+        data.setData(0x100, 0xff);
+        data.trimValues(20, 4);
+        assertFalse(data.isSparse());
+        assertEquals(0x101, data.size());
+        assertEquals(0xf, data.getDataWord(0x100));
+        assertEquals(0, data.getDataWord(0xfff000));
+    }
+
+    public void testSparseTrimReleasesZeroPages() {
+        DataField data = new DataField(1 << 24);
+        data.setData(0x100, 1);
+        data.setData(0x300000, 0x10);
+        data.setData(0xf00000, 2);
+        DataField copy = new DataField(data);
+        data.setData(0x300000, 0);
+        data.trim();
+        assertTrue(data.isSparse());
+        assertEquals(0, data.getDataWord(0x300000));
+        assertEquals(0x10, copy.getDataWord(0x300000));
+
+        data.setData(0x300000, 0x10);
+        data.trimValues(24, 1);
+        assertEquals(0, data.getDataWord(0x300000));
+        assertEquals(0, data.getDataWord(0xf00000));
+        assertFalse(data.isSparse());
+        assertEquals(0x101, data.size());
+    }
+
+    public void testRangeListener() {
+        DataField data = new DataField(100);
+        ArrayList<AddressRanges> ranges = new ArrayList<>();
+        data.addRangeListener(ranges::add);
+        data.fireRangesChanged();
+        assertEquals(0, ranges.size());
+
+        for (int i = 10; i < 20; i++)
+            data.setData(i, i);
+        data.setData(50, 1);
+        data.fireRangesChanged();
+        assertEquals(1, ranges.size());
+        assertEquals("a-13, 32", ranges.get(0).toString());
+
+        data.setData(50, 1);
+        data.fireRangesChanged();
+        assertEquals(1, ranges.size());
+
+        data.clearAll();
+        data.fireRangesChanged();
+        assertEquals(2, ranges.size());
+        assertTrue(ranges.get(1).isAll());
+    }
+
+    public void testBulkSet() {
+        DataField data = new DataField(10);
+        int[] events = new int[1];
+        data.addListener(addr -> events[0]++);
+        ArrayList<AddressRanges> ranges = new ArrayList<>();
+        data.addRangeListener(ranges::add);
+
+        long[] values = new long[100];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i + 1;
+        data.setData(5, values, 10, 50);
+        assertEquals(1, events[0]);
+        assertEquals(11, data.getDataWord(5));
+        assertEquals(60, data.getDataWord(54));
+        assertEquals(0, data.getDataWord(55));
+        data.fireRangesChanged();
+        assertEquals("5-36", ranges.get(0).toString());
+
+        data.setData(5, values, 10, 50);
+        assertEquals(1, events[0]);
+    }
+
+    public void testBulkSetSparse() {
+        DataField data = new DataField(DataField.DENSE_LIMIT * 2);
+        assertTrue(data.isSparse());
+        long[] values = new long[DataField.PAGE_SIZE * 2];
+        values[values.length - 1] = 7;
+        int addr = DataField.DENSE_LIMIT + DataField.PAGE_SIZE / 2;
+        data.setData(addr, values, 0, values.length);
+        assertEquals(7, data.getDataWord(addr + values.length - 1));
+        assertEquals(0, data.getDataWord(addr));
+
+        DataField grow = new DataField(10);
+        grow.setData(DataField.DENSE_LIMIT - 1, values, 0, values.length);
+        assertTrue(grow.isSparse());
+        assertEquals(7, grow.getDataWord(DataField.DENSE_LIMIT - 2 + values.length));
+    }
+
+    public void testCopyOnWrite() {
+        DataField orig = new DataField(100);
+        for (int i = 0; i < 10; i++)
+            orig.setData(i, i + 1);
+
+        DataField copy = new DataField(orig);
+        assertEquals(orig, copy);
+        copy.setData(3, 7);
+        assertEquals(4, orig.getDataWord(3));
+        assertEquals(7, copy.getDataWord(3));
+
+        DataField copy2 = new DataField(orig);
+        orig.setData(4, 9);
+        assertEquals(5, copy2.getDataWord(4));
+        assertEquals(9, orig.getDataWord(4));
+
+        DataField copy3 = new DataField(orig);
+        copy3.clearAll();
+        assertEquals(1, orig.getDataWord(0));
+        assertEquals(0, copy3.getDataWord(0));
+
+        DataField copy4 = new DataField(orig);
+        copy4.trimValues(8, 2);
+        assertEquals(9, orig.getDataWord(4));
+        assertEquals(1, copy4.getDataWord(4));
+
+        DataField copy5 = new DataField(orig);
+        copy5.getData()[0] = 5;
+        assertEquals(1, orig.getDataWord(0));
+
+        DataField ram = new DataField(100);
+        ram.setDataFrom(orig);
+        ram.setData(0, new long[]{0}, 0, 1);
+        assertEquals(0, ram.getDataWord(0));
+        assertEquals(1, orig.getDataWord(0));
+    }
+
+    public void testCopyOnWriteNoModification() {
+        DataField orig = new DataField(new long[]{1, 2, 3});
+        DataField copy = new DataField(orig);
+        copy.trimValues(8, 8);
+        long[] d = copy.getData();
+        d[0] = 7;
+        assertEquals(1, copy.getDataWord(0));
+        assertEquals(1, orig.getDataWord(0));
+
+        orig.setData(0, 5);
+        assertEquals(5, orig.getDataWord(0));
+        assertEquals(1, copy.getDataWord(0));
+    }
+
+    public void testCopyWhileWriting() throws InterruptedException {
+        final int size = 100;
+        DataField ram = new DataField(size);
+        Thread writer = new Thread(() -> {
+            for (int n = 1; n <= 200; n++)
+                for (int i = 0; i < size; i++)
+                    ram.setData(i, n);
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            DataField copy = new DataField(ram);
+            long first = copy.getDataWord(0);
+            // the copy is a snapshot, so the writer has passed each address at most once more
+            for (int i = 1; i < size; i++) {
+                long v = copy.getDataWord(i);
+                assertTrue(v <= first && v >= first - 1);
+            }
+        }
+        writer.join();
+        assertEquals(200, ram.getDataWord(size - 1));
+    }
+
+    public void testCopyAfterWriting() {
+        DataField ram = new DataField(10);
+        ram.setData(1, 5);
+        DataField copy = new DataField(ram);
+        ram.setData(1, 6);
+        ram.setData(2, new long[]{7}, 0, 1);
+        assertEquals(5, copy.getDataWord(1));
+        assertEquals(0, copy.getDataWord(2));
+        assertEquals(6, ram.getDataWord(1));
+        assertEquals(7, ram.getDataWord(2));
+    }
+
+    public void testCopyOnWriteSparse() {
+        DataField orig = new DataField(DataField.DENSE_LIMIT * 2);
+        orig.setData(DataField.DENSE_LIMIT + 5, 3);
+
+        DataField copy = new DataField(orig);
+        copy.setData(DataField.DENSE_LIMIT + 5, 4);
+        copy.setData(7, 1);
+        assertEquals(3, orig.getDataWord(DataField.DENSE_LIMIT + 5));
+        assertEquals(0, orig.getDataWord(7));
+        assertEquals(4, copy.getDataWord(DataField.DENSE_LIMIT + 5));
+
+        DataField copy2 = new DataField(orig);
+        copy2.setData(DataField.DENSE_LIMIT + 5, new long[]{8}, 0, 1);
+        assertEquals(3, orig.getDataWord(DataField.DENSE_LIMIT + 5));
+        assertEquals(8, copy2.getDataWord(DataField.DENSE_LIMIT + 5));
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.core.memory;
+
+import de.neemann.digital.core.Model;
+import de.neemann.digital.core.element.ElementAttributes;
+import de.neemann.digital.core.element.Keys;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class MappedDataFieldTest extends TestCase {
+
+    private File createFile(int... bytes) throws IOException {
+        File f = File.createTempFile("digital", ".bin");
+        f.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            for (int b : bytes)
+                out.write(b);
+        }
+        return f;
+    }
+
+    public void testRead() throws IOException {
+        File f = createFile(1, 2, 3, 4, 5, 6, 7);
+        assertEquals(0x0201, new MappedDataField(f, 16, MappedDataField.Mode.READ_ONLY, 16).getDataWord(0));
+        assertEquals(0x0807, new MappedDataField(f, 12, MappedDataField.Mode.READ_ONLY, 16).getDataWord(3) | 0x800);
+        assertEquals(0x07, new MappedDataField(f, 16, MappedDataField.Mode.READ_ONLY, 16).getDataWord(3));
+        assertEquals(0x060504, new MappedDataField(f, 24, MappedDataField.Mode.READ_ONLY, 16).getDataWord(1));
+        assertEquals(0x04030201, new MappedDataField(f, 32, MappedDataField.Mode.READ_ONLY, 16).getDataWord(0));
+
+        MappedDataField df = new MappedDataField(f, 8, MappedDataField.Mode.READ_ONLY, 4);
+        assertEquals(4, df.getMappedWords());
+        assertEquals(4, df.size());
+        assertEquals(0, df.getDataWord(4));
+
+        df.setData(0, 7);
+        df.setData(5, 8);
+        assertEquals(7, df.getDataWord(0));
+        assertEquals(2, df.getDataWord(1));
+        assertEquals(8, df.getDataWord(5));
+        assertEquals(1, new MappedDataField(f, 8, MappedDataField.Mode.READ_ONLY, 4).getDataWord(0));
+
+        df.clearAll();
+        assertEquals(0, df.getDataWord(1));
+    }
+
+    public void testClose() throws IOException {
+        File f = createFile(1, 2, 3, 4);
+        MappedDataField df = new MappedDataField(f, 8, MappedDataField.Mode.PERSIST, 4);
+        df.setData(1, 0x55);
+        df.close();
+        assertEquals(0, df.getMappedWords());
+        assertEquals(0x55, df.getDataWord(1));
+        assertEquals(3, df.getDataWord(2));
+        df.close();
+        assertEquals(0x55, Files.readAllBytes(f.toPath())[1]);
+
+        // writes after closing are kept on the heap
+        df.setData(2, 0x66);
+        assertEquals(0x66, df.getDataWord(2));
+        assertEquals(3, Files.readAllBytes(f.toPath())[2]);
+
+        f = createFile(9, 9);
+        df = new MappedDataField(f, 8, MappedDataField.Mode.READ_ONLY, 4);
+        df.setData(0, 7);
+        df.close();
+        assertEquals(7, df.getDataWord(0));
+        assertEquals(9, df.getDataWord(1));
+    }
+
+    public void testPrivate() throws IOException {
+        File f = createFile(1, 2, 3, 4);
+        MappedDataField df = new MappedDataField(f, 8, MappedDataField.Mode.PRIVATE, 1024);
+        assertEquals(4, df.getMappedWords());
+        df.setData(1, 0x55);
+        df.setData(100, 0x66);
+        assertEquals(0x55, df.getDataWord(1));
+        assertEquals(0x66, df.getDataWord(100));
+        assertEquals(4, Files.size(f.toPath()));
+        assertEquals(2, new MappedDataField(f, 8, MappedDataField.Mode.READ_ONLY, 4).getDataWord(1));
+
+        DataField copy = new DataField(df);
+        assertFalse(copy instanceof MappedDataField);
+        assertEquals(0x55, copy.getDataWord(1));
+        assertEquals(0x66, copy.getDataWord(100));
+    }
+
+    public void testPersist() throws IOException {
+        File f = createFile(1, 2, 3, 4);
+        MappedDataField df = new MappedDataField(f, 16, MappedDataField.Mode.PERSIST, 4);
+        assertEquals(8, Files.size(f.toPath()));
+        assertEquals(0x0403, df.getDataWord(1));
+        df.setData(3, 0xabcd);
+        df.flush();
+
+        byte[] data = Files.readAllBytes(f.toPath());
+        assertEquals((byte) 0xcd, data[6]);
+        assertEquals((byte) 0xab, data[7]);
+    }
+
+    public void testRAMProgramMemory() throws Exception {
+        File f = createFile(1, 2, 3, 4);
+        RAMDualPort ram = new RAMDualPort(new ElementAttributes()
+                .set(Keys.BITS, 8)
+                .set(Keys.ADDR_BITS, 4)
+                .set(Keys.MAP_IMAGE_FILE, true)
+                .set(Keys.IMAGE_FILE, f));
+        assertEquals(0, ram.getMemory().size());
+        ram.setProgramMemory(new DataField(new long[]{0, 7}));
+
+        Model model = new Model();
+        ram.init(model);
+        assertTrue(ram.getMemory() instanceof MappedDataField);
+        assertEquals(7, ram.getMemory().getDataWord(1));
+        assertEquals(0, ram.getMemory().getDataWord(2));
+        model.init();
+        model.close();
+        assertEquals(7, ram.getMemory().getDataWord(1));
+        assertEquals(2, Files.readAllBytes(f.toPath())[1]);
+    }
+
+    public void testListener() throws IOException {
+        File f = createFile(0, 0, 0, 0);
+        MappedDataField df = new MappedDataField(f, 8, MappedDataField.Mode.PRIVATE, 4);
+        int[] changed = new int[]{-2};
+        df.addListener(addr -> changed[0] = addr);
+        df.setData(2, 0);
+        assertEquals(-2, changed[0]);
+        df.setData(2, 1);
+        assertEquals(2, changed[0]);
+    }
+}
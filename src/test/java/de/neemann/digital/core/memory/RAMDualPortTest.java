@@ -12,6 +12,10 @@ import de.neemann.digital.core.element.ElementAttributes;
 import de.neemann.digital.core.element.Keys;
 import junit.framework.TestCase;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
 import static de.neemann.digital.TestExecuter.HIGHZ;
 import static de.neemann.digital.core.ObservableValues.ovs;
 
@@ -43,5 +47,76 @@ public class RAMDualPortTest extends TestCase {
         sc.check(1, 0, 0, 0, 1, 9);      // rd  5
     }
 
+    public void testBlockTransfer() throws Exception {
+        ObservableValue a = new ObservableValue("a", 4);
+        ObservableValue d = new ObservableValue("d", 12);
+        ObservableValue str = new ObservableValue("str", 1);
+        ObservableValue clk = new ObservableValue("clk", 1);
+        ObservableValue ld = new ObservableValue("ld", 1);
+
+        Model model = new Model();
+        RAMDualPort out = model.add(new RAMDualPort(
+                new ElementAttributes()
+                        .set(Keys.ADDR_BITS, 4)
+                        .set(Keys.LABEL, "mem")
+                        .setBits(12)));
+        out.setInputs(ovs(a, d, str, clk, ld));
 
+        TestExecuter sc = new TestExecuter(model).setInputs(a, d, str, clk, ld).setOutputs(out.getOutputs());
+        sc.checkZ(0, 0, 0, 0, 0, HIGHZ);
+
+        RAMInterface ram = model.getMemory("mem");
+        assertSame(out, ram);
+        assertNull(model.getMemory("nothing"));
+
+        ArrayList<AddressRanges> events = new ArrayList<>();
+        ram.getMemory().addRangeListener(events::add);
+        model.access(() -> ram.writeWords(2, new long[]{1, 2, 3, 4, 5}, 1, 3));
+        assertEquals(1, events.size());
+        assertEquals("2-4", events.get(0).toString());
+
+        //       A  D  ST C  LD
+        sc.check(2, 0, 0, 0, 1, 2);
+        sc.check(4, 0, 0, 0, 1, 4);
+
+        long[] values = new long[4];
+        ram.readWords(1, values, 0, 4);
+        assertEquals(0, values[0]);
+        assertEquals(2, values[1]);
+        assertEquals(4, values[3]);
+
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0x34, 0x12, 0x78, 0x56}).order(ByteOrder.LITTLE_ENDIAN);
+        ram.writeWords(14, buffer);
+        assertEquals(0x234, ram.getMemory().getDataWord(14));
+        assertEquals(0x678, ram.getMemory().getDataWord(15));
+
+        ByteBuffer read = ByteBuffer.allocate(4);
+        ram.readWords(14, read);
+        assertEquals(0x02340678, read.getInt(0));
+
+        long[] unmasked = new long[]{0xfff1};
+        ram.writeWords(0, unmasked, 0, 1);
+        assertEquals(0xff1, ram.getMemory().getDataWord(0));
+        assertEquals(0xfff1, unmasked[0]);
+
+        try {
+            ram.readWords(0, ByteBuffer.allocate(3));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            ram.writeWords(0, ByteBuffer.allocate(3));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+
+        try {
+            ram.writeWords(15, new long[2], 0, 2);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
 }
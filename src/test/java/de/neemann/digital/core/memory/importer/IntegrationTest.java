@@ -35,6 +35,27 @@ public class IntegrationTest extends TestCase {
         check(df2, 2, "d!");
     }
 
+    public void testLargeBinary() throws IOException {
+        // larger than one read block and a word split between two blocks
+        byte[] bytes = new byte[3 * 65536 + 3];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) (i * 7);
+
+        DataField df = new DataField(1024);
+        new BinReader(new ByteArrayInputStream(bytes))
+                .read(new ByteArrayFromValueArray(new DataFieldValueArray(df, 32)));
+
+        assertEquals(bytes.length / 4 + 1, df.trim());
+        for (int w = 0; w < bytes.length / 4; w++) {
+            long v = 0;
+            for (int b = 0; b < 4; b++)
+                v |= (bytes[w * 4 + b] & 0xffL) << (b * 8);
+            assertEquals(v, df.getDataWord(w));
+        }
+        int last = bytes.length / 4;
+        assertEquals((bytes[last * 4] & 0xffL) | (bytes[last * 4 + 1] & 0xffL) << 8 | (bytes[last * 4 + 2] & 0xffL) << 16, df.getDataWord(last));
+    }
+
     private void check(DataField dataField, int addr, String str) {
         long value = (byte) str.charAt(0) | (((byte) str.charAt(1)) << 8);
         assertEquals(value, dataField.getDataWord(addr));
@@ -36,6 +36,28 @@ public class IntelHexReaderTest extends TestCase {
         assertEquals(0xCF, bin[0x97]);
     }
 
+    public void testReadCRLF() throws IOException {
+        String data = ":020000020110EB\r\n" +
+                "\r\n" +
+                ":0800000085B9FCCFF894FFCF95\r\n";
+
+        int[] bin = new int[0x11010];
+        new IntelHexReader(null).read(new StringReader(data), (addr, aByte) -> bin[addr] = aByte);
+
+        assertEquals(0x85, bin[0x1100]);
+        assertEquals(0xcf, bin[0x1107]);
+    }
+
+    public void testInvalid() {
+        try {
+            new IntelHexReader(null).read(new StringReader(":08000000X5B9FCCFF894FFCF95\n"), (addr, aByte) -> {
+            });
+            fail();
+        } catch (IOException e) {
+            assertTrue(true);
+        }
+    }
+
     public void testReadSeg() throws IOException {
         String data = ":020000020110EB\n" +
                 ":0800000085B9FCCFF894FFCF95\n";
@@ -5,9 +5,11 @@
  */
 package de.neemann.digital.core.memory.importer;
 
+import de.neemann.digital.core.Bits;
 import de.neemann.digital.core.memory.DataField;
 import junit.framework.TestCase;
 
+import java.io.IOException;
 import java.io.StringReader;
 
 public class LogisimReaderTest extends TestCase {
@@ -98,5 +100,38 @@ public class LogisimReaderTest extends TestCase {
         assertEquals(0xFF, df.getDataWord(16));
     }
 
+    public void testLoadLargeRLE() throws Exception {
+        String data = "v2.0 raw\r\n5000*7\r\n3\r\n5000*0\r\n1";
 
-}
\ No newline at end of file
+        DataField df = new DataField(1024);
+        new LogisimReader(new StringReader(data)).read(new DataFieldValueArray(df, 8));
+
+        assertEquals(10002, df.trim());
+        assertEquals(7, df.getDataWord(0));
+        assertEquals(7, df.getDataWord(4999));
+        assertEquals(3, df.getDataWord(5000));
+        assertEquals(0, df.getDataWord(5001));
+        assertEquals(0, df.getDataWord(10000));
+        assertEquals(1, df.getDataWord(10001));
+    }
+
+    public void testInvalid() throws Exception {
+        String data = "v2.0 raw\n12\n1g";
+        try {
+            new LogisimReader(new StringReader(data)).read(new DataFieldValueArray(new DataField(1024), 8));
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof Bits.NumberFormatException);
+        }
+    }
+
+    public void testInvalidSign() throws Exception {
+        String data = "v2.0 raw\n12\n-1";
+        try {
+            new LogisimReader(new StringReader(data)).read(new DataFieldValueArray(new DataField(1024), 8));
+            fail();
+        } catch (IOException e) {
+            assertTrue(true);
+        }
+    }
+}
@@ -6,11 +6,17 @@
 package de.neemann.digital.data;
 
 import de.neemann.digital.core.IntFormat;
+import de.neemann.digital.core.ModelEvent;
+import de.neemann.digital.core.ObservableValue;
+import de.neemann.digital.core.Signal;
+import de.neemann.digital.gui.components.data.ValueTableObserver;
 import de.neemann.digital.testing.parser.TestRow;
 import junit.framework.TestCase;
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.StringWriter;
+import java.util.ArrayList;
 
 
 /**
@@ -77,4 +83,106 @@ public class ValueTableTest extends TestCase {
         assertTrue(new Value(3).isEqualTo(t.getTableValue(1, 0)));
         assertTrue(new Value(5).isEqualTo(t.getTableValue(2, 0)));
     }
+
+    public void testBackingStore() throws Exception {
+        File file = File.createTempFile("digital", ".bin");
+        try {
+            ValueTable t = new ValueTable("A", "B").setBackingStore(file);
+            assertTrue(t.hasBackingStore());
+            for (int i = 0; i < 1000; i++)
+                t.add(new TestRow(new Value(i), i % 2 == 0 ? new Value(i * 2) : Value.getHighZ()));
+            assertEquals(1000, t.getRows());
+            assertEquals(1000, t.getTableRows());
+            assertEquals(999, t.getMax(0));
+            assertTrue(new Value(17).isEqualTo(t.getValue(17, 0)));
+            assertTrue(new Value(36).isEqualTo(t.getValue(18, 1)));
+            assertTrue(t.getValue(17, 1).isHighZ());
+
+            int n = 0;
+            for (TestRow r : t)
+                assertEquals(n++, r.getValue(0).getValue());
+            assertEquals(1000, n);
+
+            ValueTable copy = new ValueTable(t);
+            try {
+                copy.add(new TestRow(new Value(0), new Value(0)));
+                fail();
+            } catch (IllegalStateException e) {
+                assertTrue(true);
+            }
+
+            t.clear();
+            assertEquals(0, t.getRows());
+            assertEquals(1000, copy.getRows());
+            for (int i = 0; i < 100; i++)
+                t.add(new TestRow(new Value(-i), new Value(-i)));
+            for (int i = 0; i < 1000; i++)
+                assertEquals(i, copy.getValue(i, 0).getValue());
+            assertTrue(copy.getValue(17, 1).isHighZ());
+
+            ValueTable copy2 = new ValueTable(t);
+            t.closeBackingStore();
+            assertFalse(t.hasBackingStore());
+            assertEquals(100, copy2.getRows());
+            n = 0;
+            for (TestRow r : copy2)
+                assertEquals(-n++, r.getValue(0).getValue());
+            assertEquals(100, n);
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testBackingStoreMaxSize() throws Exception {
+        File file = File.createTempFile("digital", ".bin");
+        try {
+            ValueTable t = new ValueTable("A").setMaxSize(10).setBackingStore(file);
+            for (int i = 0; i < 25; i++)
+                t.add(new TestRow(new Value(i)));
+            assertEquals(10, t.getRows());
+            assertTrue(new Value(15).isEqualTo(t.getValue(0, 0)));
+            assertTrue(new Value(24).isEqualTo(t.getValue(9, 0)));
+
+            ValueTable copy = new ValueTable(t);
+            for (int i = 25; i < 10000; i++)
+                t.add(new TestRow(new Value(i)));
+            assertTrue(file.length() <= 10 * 9);
+            assertEquals(10, t.getRows());
+            assertTrue(new Value(9990).isEqualTo(t.getValue(0, 0)));
+            assertTrue(new Value(9999).isEqualTo(t.getValue(9, 0)));
+            assertEquals(10, copy.getRows());
+            for (int i = 0; i < 10; i++)
+                assertEquals(15 + i, copy.getValue(i, 0).getValue());
+            t.closeBackingStore();
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testObserverUsesBackingStore() {
+        ObservableValue a = new ObservableValue("A", 8);
+        ArrayList<Signal> signals = new ArrayList<>();
+        signals.add(new Signal("A", a));
+
+        ValueTableObserver small = new ValueTableObserver(false, signals, 1000);
+        assertFalse(small.getLogData().hasBackingStore());
+        small.close();
+
+        ValueTableObserver large = new ValueTableObserver(false, signals, 1 << 20);
+        ValueTable t = large.getLogData();
+        assertTrue(t.hasBackingStore());
+        for (int i = 0; i < 100; i++) {
+            a.setValue(i);
+            large.handleEvent(ModelEvent.STEP);
+        }
+        assertEquals(100, t.getRows());
+
+        ValueTable copy = new ValueTable(t);
+        large.close();
+        assertFalse(t.hasBackingStore());
+        assertEquals(0, t.getRows());
+        assertEquals(100, copy.getRows());
+        for (int i = 0; i < 100; i++)
+            assertEquals(i, copy.getValue(i, 0).getValue());
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.gui.components.table;
+
+import de.neemann.digital.analyse.expression.Expression;
+import de.neemann.digital.analyse.expression.Variable;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+
+public class ExpressionListenerStoreTest extends TestCase {
+
+    public void testSolutionLimitIsReplayed() throws Exception {
+        ExpressionListenerStore store = new ExpressionListenerStore(new ExpressionListenerJK(new ExpressionListenerStore(null)));
+        store.solutionLimitReached("Y");
+        store.resultFound("Y", new Variable("A"));
+        store.close();
+
+        ArrayList<String> limited = new ArrayList<>();
+        store.replayTo(new ExpressionListener() {
+            @Override
+            public void resultFound(String name, Expression expression) {
+                assertEquals(1, limited.size());
+            }
+
+            @Override
+            public void solutionLimitReached(String name) {
+                limited.add(name);
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        assertEquals(1, limited.size());
+        assertEquals("Y", limited.get(0));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.testing;
+
+import de.neemann.digital.integration.Resources;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+
+public class BatchTesterTest extends TestCase {
+
+    public void testFolder() throws InterruptedException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchTester bt = new BatchTester()
+                .add(new File(Resources.getRoot(), "dig/test/arith"))
+                .setParallelism(4)
+                .setOutputs(new PrintStream(out));
+        assertEquals(5, bt.getFiles().size());
+
+        assertEquals(0, bt.execute());
+        assertEquals(5, bt.getResults().size());
+        for (FolderTestRunner.TestCaseResult r : bt.getResults())
+            assertEquals(FolderTestRunner.FileToTest.Status.passed, r.getStatus());
+        assertEquals(512, bt.getResults().get(1).getRows());
+        assertTrue(out.toString().contains("5 tests, 0 failed"));
+
+        StringWriter xml = new StringWriter();
+        bt.writeJUnitXML(xml);
+        assertTrue(xml.toString().contains("<testsuites tests=\"5\" failures=\"0\" errors=\"0\""));
+        assertTrue(xml.toString().contains("FullSub.dig\" tests=\"1\""));
+
+        StringWriter json = new StringWriter();
+        bt.writeJSON(json);
+        assertTrue(json.toString().contains("\"tests\": 5,"));
+        assertTrue(json.toString().contains("\"status\": \"passed\", \"rows\": 512"));
+    }
+
+    public void testFailing() throws InterruptedException, IOException {
+        BatchTester bt = new BatchTester()
+                .add(new File(Resources.getRoot(), "dig/failingTest.dig"))
+                .add(new File(Resources.getRoot(), "dig/test/arith/HalfAdder.dig"))
+                .setOutputs(new PrintStream(new ByteArrayOutputStream()));
+
+        assertEquals(1, bt.execute());
+        assertEquals(FolderTestRunner.FileToTest.Status.failed, bt.getResults().get(0).getStatus());
+        assertEquals(FolderTestRunner.FileToTest.Status.passed, bt.getResults().get(1).getStatus());
+
+        StringWriter xml = new StringWriter();
+        bt.writeJUnitXML(xml);
+        assertTrue(xml.toString().contains("<failure message=\"Test row L3 has failed: Q_0 E: 0 / F: 1\"/>"));
+    }
+
+    public void testCommandLine() throws InterruptedException, IOException {
+        File json = File.createTempFile("report", ".json");
+        try {
+            PrintStream old = System.out;
+            System.setOut(new PrintStream(new ByteArrayOutputStream()));
+            try {
+                assertEquals(1, CommandLineTester.runBatch(new String[]{
+                        "-parallel", "2", "-json", json.getPath(),
+                        new File(Resources.getRoot(), "dig/failingTest.dig").getPath()}));
+            } finally {
+                System.setOut(old);
+            }
+            assertTrue(json.length() > 0);
+        } finally {
+            assertTrue(json.delete());
+        }
+    }
+}
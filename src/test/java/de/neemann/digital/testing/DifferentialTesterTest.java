@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.testing;
+
+import de.neemann.digital.analyse.expression.Expression;
+import de.neemann.digital.analyse.parser.Parser;
+import de.neemann.digital.builder.circuit.CircuitBuilder;
+import de.neemann.digital.draw.elements.Circuit;
+import de.neemann.digital.draw.library.ElementLibrary;
+import de.neemann.digital.draw.model.ModelCreator;
+import de.neemann.digital.draw.shapes.ShapeFactory;
+import de.neemann.digital.integration.Resources;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+
+public class DifferentialTesterTest extends TestCase {
+    private final ElementLibrary library = new ElementLibrary();
+
+    private Circuit create(String func) throws Exception {
+        ArrayList<Expression> exp = new Parser(func).parse();
+        CircuitBuilder cb = new CircuitBuilder(new ShapeFactory(library));
+        cb.addCombinatorial("Y", exp.get(0));
+        return cb.createCircuit();
+    }
+
+    public void testEqual() throws Exception {
+        DifferentialTester dt = new DifferentialTester(create("A^B^C"), create("(A*!B+!A*B)^C"), library)
+                .setSteps(10000)
+                .setParallelism(2)
+                .setSeed(1);
+        assertNull(dt.execute());
+    }
+
+    public void testMismatch() throws Exception {
+        Circuit ref = create("A^B^C");
+        DifferentialTester dt = new DifferentialTester(ref, create("(A+B)^C"), library)
+                .setSteps(10000)
+                .setParallelism(2)
+                .setSeed(1);
+        DifferentialTester.Mismatch m = dt.execute();
+        assertNotNull(m);
+        assertEquals(1, m.getSteps());
+        assertEquals(Collections.singletonList("Y"), m.getMismatchingOutputs());
+        assertEquals("A B C Y\n1 1 0 0\n", m.toTestCase());
+
+        // the created test case is passed by the reference
+        TestExecutor te = new TestExecutor(new TestCaseDescription(m.toTestCase()))
+                .create(new ModelCreator(ref, library).createModel(false));
+        assertTrue(te.allPassed());
+    }
+
+    public void testSignalMismatch() throws Exception {
+        try {
+            new DifferentialTester(create("A^B"), create("A^C"), library);
+            fail();
+        } catch (TestingDataException e) {
+            assertTrue(true);
+        }
+    }
+
+    public void testClocked() throws Exception {
+        File f = new File(Resources.getRoot(), "dig/hdl/model2/freqHalf.dig");
+        ShapeFactory shapeFactory = new ShapeFactory(library);
+        DifferentialTester dt = new DifferentialTester(
+                Circuit.loadCircuit(f, shapeFactory),
+                Circuit.loadCircuit(f, shapeFactory), library)
+                .setSteps(5000)
+                .setSeed(1);
+        assertNull(dt.execute());
+    }
+}
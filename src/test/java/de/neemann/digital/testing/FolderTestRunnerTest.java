@@ -12,6 +12,9 @@ import junit.framework.TestCase;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 
 public class FolderTestRunnerTest extends TestCase {
 
@@ -36,4 +39,44 @@ public class FolderTestRunnerTest extends TestCase {
 
         ft.waitUntilFinished();
     }
-}
\ No newline at end of file
+
+    public void testParallel() throws InterruptedException, IOException {
+        File f = new File(Resources.getRoot(), "dig/test/arith");
+        for (int parallelism : new int[]{1, 4}) {
+            FolderTestRunner ft = new FolderTestRunner(f).setParallelism(parallelism);
+
+            ElementLibrary library = new ElementLibrary();
+            library.setRootFilePath(f.getParentFile());
+            ShapeFactory shapeFactory = new ShapeFactory(library);
+            int[] calls = new int[ROWS.length];
+            ft.startTests((fileToTest, row) -> calls[row]++, shapeFactory, library);
+            ft.waitUntilFinished();
+
+            for (int row = 0; row < ROWS.length; row++) {
+                FolderTestRunner.FileToTest fileToTest = ft.getFiles().get(row);
+                assertEquals(1, calls[row]);
+                assertEquals("row " + row, ROWS[row], fileToTest.getRowCount());
+                assertEquals(FolderTestRunner.FileToTest.Status.passed, fileToTest.getStatus());
+            }
+        }
+    }
+
+    public void testListenerFailure() throws InterruptedException, IOException {
+        File f = new File(Resources.getRoot(), "dig/test/arith");
+        FolderTestRunner ft = new FolderTestRunner(f).setParallelism(4);
+
+        ElementLibrary library = new ElementLibrary();
+        library.setRootFilePath(f.getParentFile());
+        ShapeFactory shapeFactory = new ShapeFactory(library);
+        ArrayList<Integer> order = new ArrayList<>();
+        ft.startTests((fileToTest, row) -> {
+            order.add(row);
+            throw new RuntimeException("listener failed");
+        }, shapeFactory, library);
+        ft.waitUntilFinished();
+
+        // the files are reported in the order of completion, but every file exactly once
+        Collections.sort(order);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), order);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2019 Helmut Neemann.
+ * Use of this source code is governed by the GPL v3 license
+ * that can be found in the LICENSE file.
+ */
+package de.neemann.digital.testing;
+
+import de.neemann.digital.core.element.Keys;
+import de.neemann.digital.core.memory.ROM;
+import de.neemann.digital.draw.elements.Circuit;
+import de.neemann.digital.draw.elements.VisualElement;
+import de.neemann.digital.draw.library.ElementLibrary;
+import de.neemann.digital.integration.Resources;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+public class TestResultCacheTest extends TestCase {
+
+    public void testCache() throws IOException, InterruptedException {
+        File dir = Files.createTempDirectory("digital").toFile();
+        File cacheFile = new File(dir, "cache");
+        try {
+            File[] circuits = new File(Resources.getRoot(), "dig/test/arith").listFiles();
+            assertNotNull(circuits);
+            for (File f : circuits)
+                Files.copy(f.toPath(), new File(dir, f.getName()).toPath());
+
+            assertEquals(0, countCached(runTests(dir, cacheFile)));
+            assertTrue(cacheFile.exists());
+
+            BatchTester bt = runTests(dir, cacheFile);
+            assertEquals(5, countCached(bt));
+            assertEquals(512, bt.getResults().get(1).getRows());
+
+            // modifies a circuit used by three other circuits
+            Files.write(new File(dir, "HalfSub.dig").toPath(), "\n".getBytes(), StandardOpenOption.APPEND);
+            bt = runTests(dir, cacheFile);
+            assertEquals(1, countCached(bt));
+            assertTrue(bt.getResults().get(2).isCached());
+            assertEquals("HalfAdder.dig", bt.getResults().get(2).getFile().getName());
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null)
+                for (File f : files)
+                    assertTrue(f.delete());
+            assertTrue(dir.delete());
+        }
+    }
+
+    private BatchTester runTests(File dir, File cacheFile) throws IOException, InterruptedException {
+        BatchTester bt = new BatchTester()
+                .add(dir)
+                .setCache(new TestResultCache(cacheFile))
+                .setOutputs(new PrintStream(new ByteArrayOutputStream()));
+        assertEquals(0, bt.execute());
+        assertEquals(5, bt.getResults().size());
+        return bt;
+    }
+
+    private int countCached(BatchTester bt) {
+        int n = 0;
+        for (FolderTestRunner.TestCaseResult r : bt.getResults()) {
+            assertEquals(FolderTestRunner.FileToTest.Status.passed, r.getStatus());
+            if (r.isCached())
+                n++;
+        }
+        return n;
+    }
+
+    public void testFileAttributes() throws IOException {
+        File dir = Files.createTempDirectory("digital").toFile();
+        File image = new File(dir, "image.bin");
+        File circuitFile = new File(dir, "rom.dig");
+        try {
+            Files.write(image.toPath(), new byte[]{1, 2});
+            Circuit circuit = new Circuit()
+                    .add(new VisualElement(ROM.DESCRIPTION.getName()).setAttribute(Keys.IMAGE_FILE, new File("image.bin")));
+            circuit.save(circuitFile);
+            ElementLibrary library = new ElementLibrary();
+
+            String hash = TestResultCache.getCircuitHash(circuitFile, circuit, library);
+            assertNotNull(hash);
+            assertEquals(hash, TestResultCache.getCircuitHash(circuitFile, circuit, library));
+
+            // the image file is hashed even if it is not mapped
+            Files.write(image.toPath(), new byte[]{1, 3});
+            assertFalse(hash.equals(TestResultCache.getCircuitHash(circuitFile, circuit, library)));
+
+            // a missing file can not be hashed, so the circuit is not cached
+            assertTrue(image.delete());
+            assertNull(TestResultCache.getCircuitHash(circuitFile, circuit, library));
+        } finally {
+            image.delete();
+            assertTrue(circuitFile.delete());
+            assertTrue(dir.delete());
+        }
+    }
+
+    public void testCorruptFile() throws IOException {
+        File f = File.createTempFile("cache", ".txt");
+        try {
+            Files.write(f.toPath(), "abc 12\nbroken\nxyz zz\n".getBytes());
+            TestResultCache c = new TestResultCache(f);
+            assertEquals(12, c.getPassedRows("abc"));
+            assertEquals(-1, c.getPassedRows("xyz"));
+            assertEquals(-1, c.getPassedRows(null));
+        } finally {
+            assertTrue(f.delete());
+        }
+    }
+}
@@ -12,6 +12,8 @@ import de.neemann.digital.builder.BuilderException;
 import de.neemann.digital.builder.circuit.CircuitBuilder;
 import de.neemann.digital.core.Model;
 import de.neemann.digital.core.NodeException;
+import de.neemann.digital.core.ObservableValue;
+import de.neemann.digital.data.Value;
 import de.neemann.digital.data.ValueTable;
 import de.neemann.digital.draw.elements.Circuit;
 import de.neemann.digital.draw.elements.PinException;
@@ -122,4 +124,33 @@ public class TestResultTest extends TestCase {
         assertTrue(te.allPassed());
     }
 
+    public void testManyRows() throws Exception {
+        Model model = getModel("A^B");
+        TestCaseDescription data = new TestCaseDescription(
+                "A B Y\n"
+                        + "loop(n,4096)\n"
+                        + "bits(2,n) (((n>>1)^n)&1)\n"
+                        + "end loop\n"
+                        + "1 1 1\n");
+        TestExecutor te = new TestExecutor(data).create(model);
+        ValueTable tr = te.getResult();
+        assertFalse(te.allPassed());
+        assertTrue(te.toManyResults());
+        assertEquals(1025, tr.getRows());
+        assertEquals(true, ((MatchedValue) tr.getValue(1023, 2)).isPassed());
+        assertEquals(false, ((MatchedValue) tr.getValue(1024, 2)).isPassed());
+        assertEquals("L5", tr.getDescription(1024));
+        assertEquals("L3;n=1023", tr.getDescription(1023));
+    }
+
+    public void testMatched() throws Exception {
+        ObservableValue found = new ObservableValue("found", 4).setValue(5);
+        for (Value exp : new Value[]{new Value(5), new Value(0x15), new Value(4), new Value("X"), Value.getHighZ(), new Value("C")}) {
+            assertEquals(new MatchedValue(exp, found).isPassed(), MatchedValue.isPassed(exp, found, MatchedValue.getMask(found)));
+            found.setToHighZ();
+            assertEquals(new MatchedValue(exp, found).isPassed(), MatchedValue.isPassed(exp, found, MatchedValue.getMask(found)));
+            found.setValue(5);
+        }
+    }
+
 }
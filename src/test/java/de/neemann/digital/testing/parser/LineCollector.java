@@ -16,8 +16,12 @@ public class LineCollector implements LineListener {
     private final ArrayList<TestRow> list;
 
     public LineCollector(LineEmitter le) throws ParserException {
+        this(le, new Context());
+    }
+
+    public LineCollector(LineEmitter le, Context context) throws ParserException {
         this.list = new ArrayList<>();
-        le.emitLines(this, new Context());
+        le.emitLines(this, context);
         names = null;
     }
 
@@ -62,5 +62,58 @@ public class ParserLetTest extends TestCase {
         }
     }
 
+    public void testLetBeforeDefinedInLoop() throws IOException, ParserException {
+        Parser parser = new Parser(
+                "A B\n"
+                        + "let a=7;\n"
+                        + "loop(n,3)\n"
+                        + "  (n) (a)\n"
+                        + "  let a=n*2;\n"
+                        + "end loop\n"
+                        + "0 (a)").parse();
+        LineCollector td = new LineCollector(parser);
+
+        assertEquals(4, td.getLines().size());
+        assertEquals(7, td.getLines().get(0).getValue(1).getValue());
+        assertEquals(0, td.getLines().get(1).getValue(1).getValue());
+        assertEquals(2, td.getLines().get(2).getValue(1).getValue());
+        assertEquals(7, td.getLines().get(3).getValue(1).getValue());
+    }
+
+    public void testShadowInNestedLoop() throws IOException, ParserException {
+        Parser parser = new Parser(
+                "A B\n"
+                        + "loop(n,2)\n"
+                        + "  loop(n,3)\n"
+                        + "    (n) 0\n"
+                        + "  end loop\n"
+                        + "  (n) 1\n"
+                        + "end loop").parse();
+        LineCollector td = new LineCollector(parser);
+
+        assertEquals(8, td.getLines().size());
+        int[] expected = {0, 1, 2, 0, 0, 1, 2, 1};
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(expected[i], td.getLines().get(i).getValue(0).getValue());
+    }
+
+    public void testOuterContext() throws IOException, ParserException {
+        Parser parser = new Parser("A B\nloop(n,3)\n(n) (x+n)\nend loop").parse();
+        LineCollector td = new LineCollector(parser.getLines(), new Context().setVar("x", 10));
+
+        assertEquals(3, td.getLines().size());
+        for (int i = 0; i < 3; i++)
+            assertEquals(10 + i, td.getLines().get(i).getValue(1).getValue());
+    }
+
+    public void testUnknownVariable() throws IOException, ParserException {
+        Parser parser = new Parser("A B\nloop(n,3)\n(n) (y)\nend loop").parse();
+        try {
+            new LineCollector(parser);
+            fail();
+        } catch (ParserException e) {
+            assertTrue(true);
+        }
+    }
 
 }
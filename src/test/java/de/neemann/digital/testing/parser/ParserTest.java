@@ -191,4 +191,26 @@ public class ParserTest extends TestCase {
         assertEquals(1, td.getLines().size());
     }
 
+    public void testConstantExpressions() throws IOException, ParserException {
+        Parser parser = new Parser("A B C D\nrepeat(3) (2*3) bits(2,1+1) (n+1)").parse();
+        LineCollector td = new LineCollector(parser);
+        assertEquals(3, td.getLines().size());
+        for (int n = 0; n < 3; n++) {
+            TestRow row = td.getLines().get(n);
+            assertEquals(6, row.getValue(0).getValue());
+            assertEquals(1, row.getValue(1).getValue());
+            assertEquals(0, row.getValue(2).getValue());
+            assertEquals(n + 1, row.getValue(3).getValue());
+        }
+
+        // errors in constant expressions are reported if the row is emitted
+        parser = new Parser("A\n(1/0)").parse();
+        try {
+            new LineCollector(parser);
+            fail();
+        } catch (ArithmeticException e) {
+            assertTrue(true);
+        }
+    }
+
 }